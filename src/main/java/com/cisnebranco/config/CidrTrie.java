@@ -0,0 +1,111 @@
+package com.cisnebranco.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary prefix trie over raw address bits, compiled once from the trusted proxy CIDRs so a
+ * lookup is one walk of at most 32 (IPv4) or 128 (IPv6) steps with no parsing or allocation.
+ * IPv4-mapped IPv6 CIDRs are stored as IPv4, matching how {@link InetAddress} reads them.
+ */
+final class CidrTrie {
+
+    private static final int NONE = 0;
+
+    // Node 0 is unused so that 0 can mean "no child"; nodes 1 and 2 are the IPv4 and IPv6 roots
+    private int[] zero = new int[16];
+    private int[] one = new int[16];
+    private boolean[] terminal = new boolean[16];
+    private int nodes = 3;
+
+    private static final int V4_ROOT = 1;
+    private static final int V6_ROOT = 2;
+
+    /** Throws IllegalArgumentException for an entry that is not a literal address or CIDR. */
+    static CidrTrie compile(List<String> cidrs) {
+        CidrTrie trie = new CidrTrie();
+        for (String cidr : cidrs) {
+            String[] parts = cidr.split("/", 2);
+            byte[] address;
+            try {
+                address = InetAddress.getByName(parts[0]).getAddress();
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException(
+                        "Invalid host in trusted proxy CIDR '" + cidr + "': " + e.getMessage(), e);
+            }
+            int prefix = address.length * 8;
+            if (parts.length == 2) {
+                try {
+                    prefix = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(
+                            "Invalid prefix length in trusted proxy CIDR '" + cidr + "': " + e.getMessage(), e);
+                }
+                if (prefix < 0 || prefix > 128) {
+                    throw new IllegalArgumentException("Prefix length out of range [0, 128] in trusted proxy CIDR '" + cidr + "': " + prefix);
+                }
+            }
+            trie.insert(address, Math.min(prefix, address.length * 8));
+        }
+        return trie;
+    }
+
+    boolean matchesIpv4(int address) {
+        int node = V4_ROOT;
+        for (int bit = 31; bit >= 0; bit--) {
+            if (terminal[node]) {
+                return true;
+            }
+            node = ((address >>> bit) & 1) == 0 ? zero[node] : one[node];
+            if (node == NONE) {
+                return false;
+            }
+        }
+        return terminal[node];
+    }
+
+    /** {@code address} is 4 or 16 bytes, as returned by {@link InetAddress#getAddress()}. */
+    boolean matches(byte[] address) {
+        int node = address.length == 4 ? V4_ROOT : V6_ROOT;
+        for (int i = 0; i < address.length * 8; i++) {
+            if (terminal[node]) {
+                return true;
+            }
+            node = bit(address, i) == 0 ? zero[node] : one[node];
+            if (node == NONE) {
+                return false;
+            }
+        }
+        return terminal[node];
+    }
+
+    private void insert(byte[] address, int prefix) {
+        int node = address.length == 4 ? V4_ROOT : V6_ROOT;
+        for (int i = 0; i < prefix; i++) {
+            boolean isZero = bit(address, i) == 0;
+            int child = isZero ? zero[node] : one[node];
+            if (child == NONE) {
+                // newNode() may grow the arrays, so index them only afterwards
+                child = newNode();
+                (isZero ? zero : one)[node] = child;
+            }
+            node = child;
+        }
+        terminal[node] = true;
+    }
+
+    private int newNode() {
+        if (nodes == terminal.length) {
+            zero = Arrays.copyOf(zero, nodes * 2);
+            one = Arrays.copyOf(one, nodes * 2);
+            terminal = Arrays.copyOf(terminal, nodes * 2);
+        }
+        return nodes++;
+    }
+
+    private static int bit(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+}
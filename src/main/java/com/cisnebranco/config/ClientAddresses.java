@@ -0,0 +1,97 @@
+package com.cisnebranco.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Client address handling for the rate-limit hot path. IPv4 literals, which is nearly all
+ * traffic, are parsed by hand without allocating; IPv6 goes through {@link InetAddress}, which
+ * parses literals containing ':' without any DNS lookup.
+ *
+ * A client is identified by a packed {@code long}: an IPv4 address as its unsigned value, an
+ * IPv6 address by its /64 prefix (the block one subscriber usually holds) with the sign bit set,
+ * so the two ranges never overlap.
+ */
+final class ClientAddresses {
+
+    static final long INVALID = -1;
+
+    private ClientAddresses() {
+    }
+
+    /**
+     * Parses a dotted IPv4 literal in {@code s[from, to)}, ignoring surrounding spaces. Returns
+     * its unsigned value, or {@link #INVALID}.
+     */
+    static long parseIpv4(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) == ' ') {
+            from++;
+        }
+        while (to > from && s.charAt(to - 1) == ' ') {
+            to--;
+        }
+        long address = 0;
+        int octets = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return INVALID;
+                }
+            } else if (c == '.' && digits > 0 && octets < 3) {
+                address = (address << 8) | value;
+                octets++;
+                value = 0;
+                digits = 0;
+            } else {
+                return INVALID;
+            }
+        }
+        if (octets != 3 || digits == 0) {
+            return INVALID;
+        }
+        return (address << 8) | value;
+    }
+
+    /** Parses an IPv6 literal (IPv4-mapped ones come back as 4 bytes), or returns null. */
+    static byte[] parseIpv6(String s) {
+        if (s.indexOf(':') < 0) {
+            return null;
+        }
+        // Hex groups, plus dots for the IPv4-mapped form (::ffff:172.20.0.2)
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.digit(c, 16) < 0 && c != ':' && c != '.') {
+                return null;
+            }
+        }
+        try {
+            return InetAddress.getByName(s).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    static long key(byte[] address) {
+        if (address.length == 4) {
+            return ((address[0] & 0xFFL) << 24) | ((address[1] & 0xFFL) << 16)
+                    | ((address[2] & 0xFFL) << 8) | (address[3] & 0xFFL);
+        }
+        long prefix = 0;
+        for (int i = 0; i < 8; i++) {
+            prefix = (prefix << 8) | (address[i] & 0xFFL);
+        }
+        return prefix | Long.MIN_VALUE;
+    }
+
+    /** Readable, stable form of a client key, for logs and shared-store keys. */
+    static String format(long key) {
+        if (key >= 0) {
+            return (key >>> 24) + "." + ((key >>> 16) & 0xFF) + "." + ((key >>> 8) & 0xFF) + "." + (key & 0xFF);
+        }
+        return "v6-" + Long.toHexString(key);
+    }
+}
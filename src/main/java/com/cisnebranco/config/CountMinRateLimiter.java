@@ -0,0 +1,99 @@
+package com.cisnebranco.config;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate limiter in fixed memory, used by {@link InMemoryRateLimiter} for clients that
+ * arrive once its table is full (typically a spray of spoofed or rotating addresses). Requests
+ * are counted in a count-min sketch per one-minute window; a client's rate is its count in the
+ * current window plus the previous window's count weighted by how much of it still overlaps
+ * the last 60 seconds.
+ *
+ * Hash collisions only ever add to a count, so a client is never allowed more than its limit,
+ * though one sharing every counter with a heavy client may be limited early. Retry-After is the
+ * end of the current window, an upper bound.
+ */
+final class CountMinRateLimiter implements RateLimiter {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH_BITS = 14;
+    private static final int WIDTH = 1 << WIDTH_BITS;
+
+    private final LongSupplier clock;
+    // Written previous first, so a reader that sees a new current sees its previous too
+    private volatile Window previous;
+    private volatile Window current;
+
+    CountMinRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+        this.current = new Window(clock.getAsLong());
+    }
+
+    @Override
+    public long acquire(long client, RateLimitCategory category, int limitPerMinute) {
+        long now = clock.getAsLong();
+        Window window = window(now);
+        Window before = previous;
+        long hash = LongKeyedTable.mix(client * RateLimitCategory.COUNT + category.ordinal());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        double estimate = window.estimate(h1, h2);
+        if (before != null && before.start == window.start - InMemoryRateLimiter.PERIOD_MS) {
+            double overlap = 1 - (double) (now - window.start) / InMemoryRateLimiter.PERIOD_MS;
+            estimate += before.estimate(h1, h2) * overlap;
+        }
+        if (estimate >= limitPerMinute) {
+            return Math.max(1, window.start + InMemoryRateLimiter.PERIOD_MS - now);
+        }
+        window.add(h1, h2);
+        return 0;
+    }
+
+    private Window window(long now) {
+        Window window = current;
+        if (now - window.start < InMemoryRateLimiter.PERIOD_MS) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            long elapsed = now - window.start;
+            if (elapsed >= InMemoryRateLimiter.PERIOD_MS) {
+                long start = now - elapsed % InMemoryRateLimiter.PERIOD_MS;
+                previous = start - window.start == InMemoryRateLimiter.PERIOD_MS ? window : null;
+                window = new Window(start);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    private static final class Window {
+        final long start;
+        final AtomicIntegerArray counts = new AtomicIntegerArray(DEPTH * WIDTH);
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        // Row r hashes to h1 + r * h2 (double hashing) instead of DEPTH separate hash functions
+        int estimate(int h1, int h2) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, counts.get(index(row, h1, h2)));
+            }
+            return min;
+        }
+
+        void add(int h1, int h2) {
+            for (int row = 0; row < DEPTH; row++) {
+                counts.incrementAndGet(index(row, h1, h2));
+            }
+        }
+
+        private static int index(int row, int h1, int h2) {
+            return (row << WIDTH_BITS) | ((h1 + row * h2) & (WIDTH - 1));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.cisnebranco.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-instance limiter using GCRA (generic cell rate algorithm), a sliding-window equivalent of
+ * a token bucket that refills continuously: a client may burst up to its limit, then gets one
+ * request every {@code 60s / limit}. Unlike a fixed one-minute reset, a client cannot fit two
+ * full bursts around a window edge.
+ *
+ * Each client keeps one theoretical arrival time (TAT) per category, in an array indexed by
+ * category. A TAT is the whole bucket in one {@code long}: the remaining allowance is how far it
+ * lies behind {@code now + 60s}, and refill is the clock catching up. Requests update it with a
+ * compare-and-set, so a busy client (every tablet behind the shop's NAT address) never blocks a
+ * request thread or pins a virtual thread's carrier. Once every TAT is in the past the client is
+ * back to a full allowance, so its state can be dropped without changing any decision; the
+ * table's timing wheel does so as each client expires.
+ *
+ * At most {@code maxClients} are tracked exactly. Beyond that, as under an address spray, new
+ * clients are limited approximately by a fixed-size {@link CountMinRateLimiter} until expiry
+ * frees room, so memory stays bounded whatever the number of addresses.
+ */
+@Slf4j
+public class InMemoryRateLimiter implements RateLimiter {
+
+    static final long PERIOD_MS = 60_000;
+    private static final long PERIOD_MICROS = PERIOD_MS * 1000;
+    static final int DEFAULT_MAX_CLIENTS = 100_000;
+
+    private final int maxClients;
+    private final LongKeyedTable<AtomicLongArray> clients;
+    private final CountMinRateLimiter overflow;
+    private final LongSupplier clock;
+    private volatile boolean saturated;
+
+    public InMemoryRateLimiter() {
+        this(DEFAULT_MAX_CLIENTS);
+    }
+
+    public InMemoryRateLimiter(int maxClients) {
+        this(maxClients, System::currentTimeMillis);
+    }
+
+    InMemoryRateLimiter(LongSupplier clock) {
+        this(DEFAULT_MAX_CLIENTS, clock);
+    }
+
+    InMemoryRateLimiter(int maxClients, LongSupplier clock) {
+        this.maxClients = maxClients;
+        this.clients = new LongKeyedTable<>(maxClients, InMemoryRateLimiter::expiresAt);
+        this.overflow = new CountMinRateLimiter(clock);
+        this.clock = clock;
+    }
+
+    @Override
+    public long acquire(long client, RateLimitCategory category, int limitPerMinute) {
+        AtomicLongArray tats = clients.computeIfAbsent(client, InMemoryRateLimiter::newCells);
+        if (tats == null) {
+            if (!saturated) {
+                saturated = true;
+                log.warn("Rate limit table full ({} clients): limiting new clients approximately until entries expire",
+                        maxClients);
+            }
+            return overflow.acquire(client, category, limitPerMinute);
+        }
+        int cell = category.ordinal();
+        // Microseconds keep uneven intervals (60s / 7) from drifting without a floating-point TAT
+        long now = clock.getAsLong() * 1000;
+        long interval = PERIOD_MICROS / limitPerMinute;
+        long tolerance = PERIOD_MICROS - interval;
+        while (true) {
+            long tat = tats.get(cell);
+            long start = Math.max(tat, now);
+            if (start - now > tolerance) {
+                return Math.ceilDiv(start - now - tolerance, 1000);
+            }
+            if (tats.compareAndSet(cell, tat, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public void evictIdle() {
+        int removed = clients.expire(clock.getAsLong());
+        if (removed > 0) {
+            int remaining = clients.size();
+            log.debug("Evicted {} idle rate limit clients, {} remaining", removed, remaining);
+            // Some headroom before clearing, so a sustained spray does not log on every sweep
+            if (saturated && remaining < maxClients * 9L / 10) {
+                saturated = false;
+                log.info("Rate limit table below capacity again ({} clients)", remaining);
+            }
+        }
+    }
+
+    int size() {
+        return clients.size();
+    }
+
+    private static AtomicLongArray newCells(long client) {
+        return new AtomicLongArray(RateLimitCategory.COUNT);
+    }
+
+    // The latest TAT: from then on every category is back to a full allowance
+    private static long expiresAt(AtomicLongArray tats) {
+        long latest = 0;
+        for (int i = 0; i < tats.length(); i++) {
+            latest = Math.max(latest, tats.get(i));
+        }
+        return Math.ceilDiv(latest, 1000);
+    }
+}
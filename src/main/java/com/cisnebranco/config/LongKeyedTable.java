@@ -0,0 +1,263 @@
+package com.cisnebranco.config;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded concurrent map from a primitive {@code long} to a value, so lookups by packed client
+ * address neither box the key nor allocate. Keys are spread over 64 segments, each an
+ * open-addressing table with linear probing; finding an existing key takes no lock.
+ *
+ * Entries expire by a per-segment timing wheel instead of a scan: each key sits in the slot of
+ * the second after its value's expiry time, and {@link #expire} only visits the slots that came
+ * due since its last call. Values whose expiry moved forward in the meantime are moved to their
+ * new slot rather than removed. Every value expires at most a period ahead, so a single wheel
+ * level longer than the period is enough.
+ */
+final class LongKeyedTable<T> {
+
+    private static final int SEGMENT_BITS = 6;
+    static final long TICK_MS = 1000;
+    // Longer than the rate limit period, so a rescheduled key never wraps past its own slot
+    private static final int SLOTS = 64;
+    private static final Object REMOVED = new Object();
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    /**
+     * @param maxSize   entries beyond this many (spread evenly over segments) are not stored
+     * @param expiresAt epoch millis after which a value may be dropped; read again when its slot
+     *                  comes due, so it may move forward as the value is used
+     */
+    @SuppressWarnings("unchecked")
+    LongKeyedTable(int maxSize, ToLongFunction<? super T> expiresAt) {
+        int segmentMax = Math.max(1, (maxSize + segments.length - 1) / segments.length);
+        ToLongFunction<Object> expiry = value -> expiresAt.applyAsLong((T) value);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentMax, expiry);
+        }
+    }
+
+    /**
+     * Returns the value for {@code key}, creating it with {@code factory} on first use, or null
+     * if the key is new and its segment is full.
+     */
+    @SuppressWarnings("unchecked")
+    T computeIfAbsent(long key, LongFunction<? extends T> factory) {
+        long hash = mix(key);
+        return (T) segments[(int) (hash >>> (64 - SEGMENT_BITS))].computeIfAbsent(key, hash, factory);
+    }
+
+    /** Drops the values that have expired by {@code now}; returns how many were dropped. */
+    int expire(long now) {
+        int removed = 0;
+        for (Segment segment : segments) {
+            removed += segment.expire(now);
+        }
+        return removed;
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    // Murmur3 finalizer: packed addresses are far from uniformly distributed
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Lookups of existing keys read the current {@link Table} without locking; inserts and
+     * expiry take the segment lock. A slot's key never changes within a table: removal leaves a
+     * marker, and only a rebuilt table, published whole, reclaims the slot. A reader either finds
+     * a key or falls through to the lock. A reader racing expiry may still use a value that was
+     * just dropped.
+     */
+    private static final class Segment {
+        private final int maxSize;
+        private final ToLongFunction<Object> expiresAt;
+        private volatile Table table = new Table(16);
+        // Guarded by this
+        private int size;
+        private int removedSlots;
+        private final long[][] wheel = new long[SLOTS][];
+        private final int[] wheelSizes = new int[SLOTS];
+        private long processedTick = Long.MIN_VALUE;
+
+        Segment(int maxSize, ToLongFunction<Object> expiresAt) {
+            this.maxSize = maxSize;
+            this.expiresAt = expiresAt;
+        }
+
+        Object computeIfAbsent(long key, long hash, LongFunction<?> factory) {
+            Object found = table.find(key, hash);
+            if (found != null) {
+                return found;
+            }
+            synchronized (this) {
+                Table current = table;
+                int mask = current.keys.length - 1;
+                int i = (int) hash & mask;
+                Object value;
+                while ((value = current.values.get(i)) != null) {
+                    if (value != REMOVED && current.keys[i] == key) {
+                        return value;
+                    }
+                    i = (i + 1) & mask;
+                }
+                if (size >= maxSize) {
+                    return null;
+                }
+                value = factory.apply(key);
+                current.keys[i] = key;
+                // Volatile write after the key, so a reader that sees the value sees its key
+                current.values.set(i, value);
+                size++;
+                schedule(key, expiresAt.applyAsLong(value));
+                if ((size + removedSlots) * 2 > current.keys.length) {
+                    rebuild(size * 4 > current.keys.length ? current.keys.length * 2 : current.keys.length);
+                }
+                return value;
+            }
+        }
+
+        synchronized int expire(long now) {
+            long nowTick = Math.floorDiv(now, TICK_MS);
+            if (nowTick <= processedTick) {
+                return 0;
+            }
+            long fromTick = processedTick == Long.MIN_VALUE || nowTick - processedTick >= SLOTS
+                    ? nowTick - SLOTS + 1
+                    : processedTick + 1;
+            // Advanced first, so keys that are still live are scheduled after nowTick
+            processedTick = nowTick;
+            int before = size;
+            for (long tick = fromTick; tick <= nowTick; tick++) {
+                expireSlot(Math.floorMod(tick, SLOTS), now);
+            }
+            Table current = table;
+            if (current.keys.length > 16 && size * 8 < current.keys.length) {
+                rebuild(current.keys.length / 2);
+            } else if ((size + removedSlots) * 2 > current.keys.length) {
+                rebuild(current.keys.length);
+            }
+            return before - size;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // Caller holds the lock
+        private void expireSlot(int slot, long now) {
+            long[] keys = wheel[slot];
+            int count = wheelSizes[slot];
+            if (count == 0) {
+                return;
+            }
+            wheel[slot] = null;
+            wheelSizes[slot] = 0;
+            Table current = table;
+            int mask = current.keys.length - 1;
+            for (int k = 0; k < count; k++) {
+                long key = keys[k];
+                int i = (int) mix(key) & mask;
+                Object value;
+                while ((value = current.values.get(i)) != null
+                        && (value == REMOVED || current.keys[i] != key)) {
+                    i = (i + 1) & mask;
+                }
+                if (value == null) {
+                    continue;
+                }
+                long expiry = expiresAt.applyAsLong(value);
+                if (expiry <= now) {
+                    current.values.set(i, REMOVED);
+                    size--;
+                    removedSlots++;
+                } else {
+                    schedule(key, expiry);
+                }
+            }
+            if (wheel[slot] == null) {
+                wheel[slot] = keys;
+            }
+        }
+
+        // Caller holds the lock. The slot of the tick after expiry, so it is due once expired;
+        // never further than the wheel reaches, in which case the key is just looked at early.
+        private void schedule(long key, long expiry) {
+            long tick = Math.floorDiv(expiry, TICK_MS) + 1;
+            if (processedTick != Long.MIN_VALUE) {
+                tick = Math.clamp(tick, processedTick + 1, processedTick + SLOTS);
+            }
+            int slot = Math.floorMod(tick, SLOTS);
+            long[] keys = wheel[slot];
+            int count = wheelSizes[slot];
+            if (keys == null) {
+                keys = wheel[slot] = new long[8];
+            } else if (count == keys.length) {
+                keys = wheel[slot] = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count] = key;
+            wheelSizes[slot] = count + 1;
+        }
+
+        // Caller holds the lock. Rebuilding is simpler than backward-shift deletion, which would
+        // move keys under lock-free readers; it runs on growth and after expiry.
+        private void rebuild(int capacity) {
+            Table old = table;
+            Table rebuilt = new Table(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < old.keys.length; j++) {
+                Object value = old.values.get(j);
+                if (value == null || value == REMOVED) {
+                    continue;
+                }
+                int i = (int) mix(old.keys[j]) & mask;
+                while (rebuilt.values.get(i) != null) {
+                    i = (i + 1) & mask;
+                }
+                rebuilt.keys[i] = old.keys[j];
+                rebuilt.values.set(i, value);
+            }
+            removedSlots = 0;
+            table = rebuilt;
+        }
+    }
+
+    // Open-addressing table kept at most half full, so every probe sequence ends at an empty slot
+    private static final class Table {
+        final long[] keys;
+        final AtomicReferenceArray<Object> values;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new AtomicReferenceArray<>(capacity);
+        }
+
+        Object find(long key, long hash) {
+            int mask = keys.length - 1;
+            int i = (int) hash & mask;
+            Object value;
+            while ((value = values.get(i)) != null) {
+                if (value != REMOVED && keys[i] == key) {
+                    return value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cisnebranco.config;
+
+import java.util.Locale;
+
+/** Request categories with separate limits; the ordinal indexes per-client state arrays. */
+public enum RateLimitCategory {
+    GENERAL, AUTH, UPLOAD, REPORT;
+
+    static final int COUNT = values().length;
+
+    private final String label = name().toLowerCase(Locale.ROOT);
+
+    /** Lower-case name used in logs and shared-store keys. */
+    public String label() {
+        return label;
+    }
+}
@@ -12,27 +12,24 @@ import org.springframework.http.MediaType;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
 
+/**
+ * Per-client request limits by category. Requests from a known IPv4 client allocate nothing:
+ * the address is parsed by hand into a packed {@code long}, trusted proxies are matched against
+ * a {@link CidrTrie} compiled at startup, categories are precomputed, and the limiter looks
+ * clients up by the packed address.
+ */
 @Slf4j
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private static final Pattern UPLOAD_PATTERN =
-            Pattern.compile("/os/\\d+/(photos|checklist)(/.*)?");
-
-    private final int requestsPerMinute;
-    private final int authRequestsPerMinute;
-    private final int uploadRequestsPerMinute;
-    private final int reportRequestsPerMinute;
-    private final List<String> trustedProxyCidrs;
+    private final RateCategory general;
+    private final RateCategory auth;
+    private final RateCategory upload;
+    private final RateCategory report;
+    private final CidrTrie trustedProxies;
     private final ObjectMapper objectMapper;
-    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final RateLimiter rateLimiter;
 
     public RateLimitFilter(
             int requestsPerMinute,
@@ -41,17 +38,27 @@ public class RateLimitFilter extends OncePerRequestFilter {
             int reportRequestsPerMinute,
             List<String> trustedProxyCidrs,
             ObjectMapper objectMapper) {
-        this.requestsPerMinute = requestsPerMinute;
-        this.authRequestsPerMinute = authRequestsPerMinute;
-        this.uploadRequestsPerMinute = uploadRequestsPerMinute;
-        this.reportRequestsPerMinute = reportRequestsPerMinute;
-        this.trustedProxyCidrs = trustedProxyCidrs;
+        this(requestsPerMinute, authRequestsPerMinute, uploadRequestsPerMinute, reportRequestsPerMinute,
+                trustedProxyCidrs, objectMapper, new InMemoryRateLimiter());
+    }
+
+    public RateLimitFilter(
+            int requestsPerMinute,
+            int authRequestsPerMinute,
+            int uploadRequestsPerMinute,
+            int reportRequestsPerMinute,
+            List<String> trustedProxyCidrs,
+            ObjectMapper objectMapper,
+            RateLimiter rateLimiter) {
+        this.general = new RateCategory(RateLimitCategory.GENERAL, requestsPerMinute);
+        this.auth = new RateCategory(RateLimitCategory.AUTH, authRequestsPerMinute);
+        this.upload = new RateCategory(RateLimitCategory.UPLOAD, uploadRequestsPerMinute);
+        this.report = new RateCategory(RateLimitCategory.REPORT, reportRequestsPerMinute);
         this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
 
-        // Validate CIDRs at startup — bad config must fail fast, not silently at runtime
-        for (String cidr : trustedProxyCidrs) {
-            validateCidr(cidr);
-        }
+        // Compiled (and so validated) at startup — bad config must fail fast, not silently at runtime
+        this.trustedProxies = CidrTrie.compile(trustedProxyCidrs);
 
         if (trustedProxyCidrs.isEmpty()) {
             log.warn("No trusted proxy CIDRs configured (RATE_LIMIT_TRUSTED_CIDRS). " +
@@ -59,26 +66,27 @@ public class RateLimitFilter extends OncePerRequestFilter {
                      "Set RATE_LIMIT_TRUSTED_CIDRS if running behind a reverse proxy.");
         }
 
-        log.info("Rate limiting enabled: {} req/min general, {} req/min auth, {} req/min upload, {} req/min report, trusted proxies: {}",
-                requestsPerMinute, authRequestsPerMinute, uploadRequestsPerMinute, reportRequestsPerMinute, trustedProxyCidrs);
+        log.info("Rate limiting enabled ({}): {} req/min general, {} req/min auth, {} req/min upload, {} req/min report, trusted proxies: {}",
+                rateLimiter.getClass().getSimpleName(), requestsPerMinute, authRequestsPerMinute,
+                uploadRequestsPerMinute, reportRequestsPerMinute, trustedProxyCidrs);
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                      FilterChain filterChain) throws ServletException, IOException {
-        String clientIp = getClientIp(request);
+        long client = resolveClient(request);
         String path = request.getServletPath();
 
         RateCategory category = resolveCategory(path);
-        String key = clientIp + ":" + category.name();
 
-        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(category.limit()));
+        long retryAfterMs = rateLimiter.acquire(client, category.category(), category.limit());
 
-        if (!bucket.tryConsume()) {
-            log.warn("Rate limit exceeded: ip={}, path={}, key={}", clientIp, path, key);
+        if (retryAfterMs > 0) {
+            String clientIp = ClientAddresses.format(client);
+            log.warn("Rate limit exceeded: ip={}, path={}, category={}", clientIp, path, category.name());
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            response.setHeader("Retry-After", "60");
+            response.setHeader("Retry-After", String.valueOf((retryAfterMs + 999) / 1000));
             try {
                 ApiError error = new ApiError(429, "Too many requests. Please try again later.");
                 response.getWriter().write(objectMapper.writeValueAsString(error));
@@ -97,59 +105,134 @@ public class RateLimitFilter extends OncePerRequestFilter {
         return path.startsWith("/actuator/") || path.startsWith("/swagger-ui/") || path.startsWith("/api-docs/");
     }
 
+    /** A category with its configured limit; the four instances are built once per filter. */
+    record RateCategory(String name, int limit, RateLimitCategory category) {
+        RateCategory(RateLimitCategory category, int limit) {
+            this(category.label(), limit, category);
+        }
+    }
+
     /**
      * Resolves the rate-limit category and limit for a given servlet path.
      * Categories are checked in specificity order: most restrictive patterns first.
      */
-    record RateCategory(String name, int limit) {}
-
     RateCategory resolveCategory(String path) {
         if (path.startsWith("/auth/")) {
-            return new RateCategory("auth", authRequestsPerMinute);
+            return auth;
         }
-        if (UPLOAD_PATTERN.matcher(path).matches()) {
-            return new RateCategory("upload", uploadRequestsPerMinute);
+        if (isUploadPath(path)) {
+            return upload;
         }
         if (path.startsWith("/reports/") || path.equals("/reports")) {
-            return new RateCategory("report", reportRequestsPerMinute);
+            return report;
+        }
+        return general;
+    }
+
+    /** Matches {@code /os/\d+/(photos|checklist)(/.*)?} without allocating a regex Matcher. */
+    static boolean isUploadPath(String path) {
+        if (!path.startsWith("/os/")) {
+            return false;
+        }
+        int n = path.length();
+        int i = 4;
+        while (i < n && path.charAt(i) >= '0' && path.charAt(i) <= '9') {
+            i++;
         }
-        return new RateCategory("general", requestsPerMinute);
+        if (i == 4 || i == n || path.charAt(i) != '/') {
+            return false;
+        }
+        i++;
+        int end;
+        if (path.startsWith("photos", i)) {
+            end = i + 6;
+        } else if (path.startsWith("checklist", i)) {
+            end = i + 9;
+        } else {
+            return false;
+        }
+        if (end == n) {
+            return true;
+        }
+        if (path.charAt(end) != '/') {
+            return false;
+        }
+        // '.' in the pattern does not match line terminators
+        for (int j = end + 1; j < n; j++) {
+            char c = path.charAt(j);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Resolves the real client IP. When the direct TCP connection comes from a trusted proxy
-     * (e.g. Nginx Proxy Manager running in Docker), the first entry of X-Forwarded-For is used.
-     * This prevents rate-limit bypass: untrusted direct connections cannot inject a fake
-     * X-Forwarded-For because their remoteAddr will not match any trusted CIDR.
+     * Resolves the real client as a packed key (see {@link ClientAddresses}). When the direct TCP
+     * connection comes from a trusted proxy (e.g. Nginx Proxy Manager running in Docker), the
+     * first entry of X-Forwarded-For is used. This prevents rate-limit bypass: untrusted direct
+     * connections cannot inject a fake X-Forwarded-For because their remoteAddr will not match
+     * any trusted CIDR.
      *
-     * The extracted IP is validated to be a numeric address to prevent hostname injection
-     * (which would otherwise trigger DNS lookups on the hot path).
+     * The forwarded entry must be a numeric address, to prevent hostname injection (which would
+     * otherwise trigger DNS lookups on the hot path). Allocation-free for IPv4 clients and proxies.
      */
-    String getClientIp(HttpServletRequest request) {
+    long resolveClient(HttpServletRequest request) {
         String remoteAddr = request.getRemoteAddr();
-
-        if (isTrustedProxy(remoteAddr)) {
-            String xForwardedFor = request.getHeader("X-Forwarded-For");
-            if (xForwardedFor != null && !xForwardedFor.isBlank()) {
-                // Format: client, proxy1, proxy2 — first element is the real client IP
-                String rawIp = xForwardedFor.split(",")[0].trim();
-                if (!rawIp.isBlank()) {
-                    if (isNumericIpAddress(rawIp)) {
-                        log.debug("getClientIp: trusted proxy {} -> client ip={}", remoteAddr, rawIp);
-                        return rawIp;
-                    } else {
-                        log.warn("getClientIp: X-Forwarded-For contains non-numeric value '{}' " +
-                                 "from trusted proxy {}, falling back to remoteAddr", rawIp, remoteAddr);
-                    }
-                }
+        long remote = ClientAddresses.parseIpv4(remoteAddr, 0, remoteAddr.length());
+        boolean trusted;
+        if (remote != ClientAddresses.INVALID) {
+            trusted = trustedProxies.matchesIpv4((int) remote);
+        } else {
+            byte[] address = ClientAddresses.parseIpv6(remoteAddr);
+            if (address == null) {
+                // Not an IP literal (e.g. a Unix socket); still keep such clients apart
+                return Long.MIN_VALUE | (remoteAddr.hashCode() & 0xFFFFFFFFL);
             }
+            remote = ClientAddresses.key(address);
+            trusted = trustedProxies.matches(address);
+        }
+        if (!trusted) {
+            return remote;
         }
 
-        return remoteAddr;
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor == null) {
+            return remote;
+        }
+        // Format: client, proxy1, proxy2 — first element is the real client IP
+        int end = xForwardedFor.indexOf(',');
+        long forwarded = ClientAddresses.parseIpv4(xForwardedFor, 0, end < 0 ? xForwardedFor.length() : end);
+        if (forwarded != ClientAddresses.INVALID) {
+            return forwarded;
+        }
+        String rawIp = getForwardedIp(remoteAddr, xForwardedFor);
+        if (rawIp == null) {
+            return remote;
+        }
+        forwarded = ClientAddresses.parseIpv4(rawIp, 0, rawIp.length());
+        if (forwarded != ClientAddresses.INVALID) {
+            return forwarded;
+        }
+        byte[] address = ClientAddresses.parseIpv6(rawIp);
+        return address != null ? ClientAddresses.key(address) : remote;
     }
 
-    private boolean isTrustedProxy(String ip) {
-        return trustedProxyCidrs.stream().anyMatch(cidr -> matchesCidr(ip, cidr));
+    // First X-Forwarded-For entry if it is a numeric address, otherwise null
+    private static String getForwardedIp(String remoteAddr, String xForwardedFor) {
+        if (xForwardedFor == null || xForwardedFor.isBlank()) {
+            return null;
+        }
+        String rawIp = xForwardedFor.split(",")[0].trim();
+        if (rawIp.isBlank()) {
+            return null;
+        }
+        if (!isNumericIpAddress(rawIp)) {
+            log.warn("resolveClient: X-Forwarded-For contains non-numeric value '{}' " +
+                     "from trusted proxy {}, falling back to remoteAddr", rawIp, remoteAddr);
+            return null;
+        }
+        return rawIp;
     }
 
     /**
@@ -165,107 +248,7 @@ public class RateLimitFilter extends OncePerRequestFilter {
         return s.matches("[0-9a-fA-F:%]+");
     }
 
-    static boolean matchesCidr(String ip, String cidr) {
-        try {
-            if (!cidr.contains("/")) {
-                return cidr.equals(ip);
-            }
-            String[] parts = cidr.split("/", 2);
-            byte[] cidrBytes = InetAddress.getByName(parts[0]).getAddress();
-            byte[] ipBytes = InetAddress.getByName(ip).getAddress();
-            if (cidrBytes.length != ipBytes.length) return false;
-            int prefixLen = Integer.parseInt(parts[1]);
-            int bitsLeft = prefixLen;
-            for (int i = 0; i < cidrBytes.length && bitsLeft > 0; i++) {
-                int bits = Math.min(8, bitsLeft);
-                int mask = 0xFF & (0xFF << (8 - bits));
-                if ((cidrBytes[i] & mask) != (ipBytes[i] & mask)) return false;
-                bitsLeft -= bits;
-            }
-            return true;
-        } catch (UnknownHostException e) {
-            log.warn("matchesCidr: invalid address in CIDR '{}' or IP '{}': {}", cidr, ip, e.getMessage());
-            return false;
-        } catch (NumberFormatException e) {
-            log.warn("matchesCidr: invalid prefix length in CIDR '{}': {}", cidr, e.getMessage());
-            return false;
-        } catch (Exception e) {
-            log.error("matchesCidr: unexpected error comparing ip='{}' with cidr='{}': {}",
-                    ip, cidr, e.getMessage(), e);
-            return false;
-        }
-    }
-
-    private static void validateCidr(String cidr) {
-        try {
-            if (cidr.contains("/")) {
-                String[] parts = cidr.split("/", 2);
-                InetAddress.getByName(parts[0]);
-                int prefixLen = Integer.parseInt(parts[1]);
-                if (prefixLen < 0 || prefixLen > 128) {
-                    throw new IllegalArgumentException(
-                            "Prefix length out of range [0, 128]: " + prefixLen);
-                }
-            } else {
-                InetAddress.getByName(cidr);
-            }
-        } catch (UnknownHostException e) {
-            throw new IllegalArgumentException(
-                    "Invalid host in trusted proxy CIDR '" + cidr + "': " + e.getMessage(), e);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException(
-                    "Invalid prefix length in trusted proxy CIDR '" + cidr + "': " + e.getMessage(), e);
-        }
-    }
-
     void evictExpiredBuckets() {
-        long now = System.currentTimeMillis();
-        Iterator<Map.Entry<String, TokenBucket>> it = buckets.entrySet().iterator();
-        int removed = 0;
-        while (it.hasNext()) {
-            Map.Entry<String, TokenBucket> entry = it.next();
-            if (now - entry.getValue().getLastActivityTime() > 300_000) { // 5 minutes idle
-                it.remove();
-                removed++;
-            }
-        }
-        if (removed > 0) {
-            log.debug("Evicted {} idle rate limit buckets, {} remaining", removed, buckets.size());
-        }
-    }
-
-    private static class TokenBucket {
-        private final int maxTokens;
-        private long tokens;
-        private long lastRefillTime;
-        private long lastActivityTime;
-
-        TokenBucket(int maxTokens) {
-            this.maxTokens = maxTokens;
-            this.tokens = maxTokens;
-            long now = System.currentTimeMillis();
-            this.lastRefillTime = now;
-            this.lastActivityTime = now;
-        }
-
-        synchronized boolean tryConsume() {
-            long now = System.currentTimeMillis();
-            lastActivityTime = now;
-
-            if (now - lastRefillTime >= 60_000) {
-                tokens = maxTokens;
-                lastRefillTime = now;
-            }
-
-            if (tokens > 0) {
-                tokens--;
-                return true;
-            }
-            return false;
-        }
-
-        synchronized long getLastActivityTime() {
-            return lastActivityTime;
-        }
+        rateLimiter.evictIdle();
     }
 }
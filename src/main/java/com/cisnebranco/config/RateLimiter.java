@@ -0,0 +1,20 @@
+package com.cisnebranco.config;
+
+/**
+ * Backend of {@link RateLimitFilter}: decides whether one more request from a client in a
+ * category fits in {@code limitPerMinute}. Selected by {@code app.rate-limit.backend}:
+ * {@code local} (per instance, default) or {@code redis} (shared by all replicas).
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes one request from the allowance of {@code client} (a packed address, see
+     * {@link ClientAddresses}) in {@code category}. Returns 0 if it is allowed, otherwise the
+     * milliseconds until a request would be. Must not allocate when the client is known.
+     */
+    long acquire(long client, RateLimitCategory category, int limitPerMinute);
+
+    /** Drops per-client state that no longer affects any decision. Called periodically. */
+    default void evictIdle() {
+    }
+}
@@ -0,0 +1,30 @@
+package com.cisnebranco.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class RateLimiterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "local", matchIfMissing = true)
+    public RateLimiter inMemoryRateLimiter(@Value("${app.rate-limit.max-clients:100000}") int maxClients) {
+        return new InMemoryRateLimiter(maxClients);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "redis")
+    public RateLimiter redisRateLimiter(
+            StringRedisTemplate redisTemplate,
+            @Value("${app.rate-limit.redis.key-prefix:cisnebranco:ratelimit:}") String keyPrefix,
+            @Value("${app.rate-limit.redis.lease-percent:10}") int leasePercent,
+            @Value("${app.rate-limit.redis.lease-ttl-ms:1000}") long leaseTtlMs,
+            @Value("${app.rate-limit.redis.retry-after-failure-ms:5000}") long retryAfterFailureMs,
+            @Value("${app.rate-limit.max-clients:100000}") int maxClients) {
+        return new RedisRateLimiter(redisTemplate, keyPrefix, leasePercent, leaseTtlMs, maxClients,
+                retryAfterFailureMs);
+    }
+}
@@ -0,0 +1,226 @@
+package com.cisnebranco.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limiter shared by every replica: the same GCRA as {@link InMemoryRateLimiter}, with the
+ * theoretical arrival time kept in Redis and updated by an atomic script on Redis's own clock.
+ *
+ * The local tier is consulted first. A replica takes a lease of {@code lease-percent} of the
+ * limit in one script call and serves requests from it until it runs out or {@code lease-ttl-ms}
+ * passes; a denial is remembered locally until its retry time. Most requests therefore never
+ * leave the JVM, at the cost of leased but unused requests counting against the client. Small
+ * limits (auth, uploads) lease one request at a time and stay exact.
+ *
+ * The local tier holds at most {@code maxClients} clients and drops each as its lease and
+ * denial run out. A client that finds it full goes to Redis on every request.
+ *
+ * If Redis fails, decisions fall back to a per-instance {@link InMemoryRateLimiter}: limits
+ * then apply per replica again instead of blocking all traffic. After a failure Redis is left
+ * alone for {@code retry-after-failure-ms}, so a hung or partitioned Redis costs one command
+ * timeout per interval instead of one per request. No lock is held while waiting on Redis: one
+ * request renews a lease while concurrent ones for the same client ask Redis for themselves.
+ */
+@Slf4j
+public class RedisRateLimiter implements RateLimiter {
+
+    // KEYS[1] = key; ARGV = period ms, limit, requested. Returns {granted, retry-after ms}.
+    private static final RedisScript<List> GCRA_SCRIPT = new DefaultRedisScript<>("""
+            local period = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+            local requested = tonumber(ARGV[3])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local interval = period / limit
+            local tolerance = period - interval
+            local tat = tonumber(redis.call('GET', KEYS[1])) or now
+            if tat < now then
+                tat = now
+            end
+            local fits = math.floor((tolerance - (tat - now)) / interval) + 1
+            local granted = math.min(requested, math.max(fits, 0))
+            if granted == 0 then
+                return {0, math.ceil(tat - now - tolerance)}
+            end
+            tat = tat + granted * interval
+            redis.call('SET', KEYS[1], string.format('%.3f', tat), 'PX', math.ceil(tat - now))
+            return {granted, 0}
+            """, List.class);
+
+    static final long DEFAULT_RETRY_AFTER_FAILURE_MS = 5_000;
+
+    private final StringRedisTemplate redis;
+    private final String keyPrefix;
+    private final int leasePercent;
+    private final long leaseTtlMs;
+    private final InMemoryRateLimiter fallback;
+    private final long retryAfterFailureMs;
+    private final LongSupplier clock;
+    private final LongKeyedTable<Lease[]> leases;
+    // Until when Redis is skipped after a failure; 0 while it is healthy
+    private volatile long unavailableUntil;
+
+    public RedisRateLimiter(StringRedisTemplate redis, String keyPrefix, int leasePercent, long leaseTtlMs,
+                            int maxClients, long retryAfterFailureMs) {
+        this(redis, keyPrefix, leasePercent, leaseTtlMs, maxClients, retryAfterFailureMs, System::currentTimeMillis);
+    }
+
+    RedisRateLimiter(StringRedisTemplate redis, String keyPrefix, int leasePercent, long leaseTtlMs,
+                     LongSupplier clock) {
+        this(redis, keyPrefix, leasePercent, leaseTtlMs, InMemoryRateLimiter.DEFAULT_MAX_CLIENTS,
+                DEFAULT_RETRY_AFTER_FAILURE_MS, clock);
+    }
+
+    RedisRateLimiter(StringRedisTemplate redis, String keyPrefix, int leasePercent, long leaseTtlMs,
+                     int maxClients, long retryAfterFailureMs, LongSupplier clock) {
+        this.redis = redis;
+        this.keyPrefix = keyPrefix;
+        this.leasePercent = Math.clamp(leasePercent, 0, 100);
+        this.leaseTtlMs = leaseTtlMs;
+        this.retryAfterFailureMs = retryAfterFailureMs;
+        this.clock = clock;
+        this.leases = new LongKeyedTable<>(maxClients, RedisRateLimiter::expiresAt);
+        this.fallback = new InMemoryRateLimiter(maxClients, clock);
+    }
+
+    @Override
+    public long acquire(long client, RateLimitCategory category, int limitPerMinute) {
+        Lease[] clientLeases = leases.computeIfAbsent(client, RedisRateLimiter::newLeases);
+        if (clientLeases == null) {
+            return acquireUnleased(client, category, limitPerMinute);
+        }
+        Lease lease = clientLeases[category.ordinal()];
+        long now = clock.getAsLong();
+        boolean renew;
+        lease.lock.lock();
+        try {
+            if (lease.remaining > 0 && now < lease.expiresAt) {
+                lease.remaining--;
+                return 0;
+            }
+            if (now < lease.blockedUntil) {
+                return lease.blockedUntil - now;
+            }
+            renew = !lease.renewing;
+            lease.renewing = true;
+        } finally {
+            lease.lock.unlock();
+        }
+        if (!renew) {
+            // Another request is renewing this lease; ask for this one alone rather than wait
+            return acquireUnleased(client, category, limitPerMinute);
+        }
+
+        int requested = Math.max(1, limitPerMinute * leasePercent / 100);
+        long[] result = null;
+        try {
+            result = evaluate(client, category, limitPerMinute, requested);
+        } finally {
+            lease.lock.lock();
+            try {
+                lease.renewing = false;
+                if (result != null && result[0] == 0) {
+                    lease.remaining = 0;
+                    lease.blockedUntil = now + result[1];
+                } else if (result != null) {
+                    // One of the granted requests is this one
+                    lease.remaining = (int) result[0] - 1;
+                    lease.expiresAt = now + leaseTtlMs;
+                }
+            } finally {
+                lease.lock.unlock();
+            }
+        }
+        if (result == null) {
+            return fallback.acquire(client, category, limitPerMinute);
+        }
+        return result[0] > 0 ? 0 : result[1];
+    }
+
+    @Override
+    public void evictIdle() {
+        leases.expire(clock.getAsLong());
+        fallback.evictIdle();
+    }
+
+    // One request straight from Redis, without the local tier
+    private long acquireUnleased(long client, RateLimitCategory category, int limitPerMinute) {
+        long[] result = evaluate(client, category, limitPerMinute, 1);
+        if (result == null) {
+            return fallback.acquire(client, category, limitPerMinute);
+        }
+        return result[0] > 0 ? 0 : result[1];
+    }
+
+    // {granted, retry-after ms}, or null if Redis is unavailable or recently failed
+    private long[] evaluate(long client, RateLimitCategory category, int limitPerMinute, int requested) {
+        if (unavailableUntil != 0 && clock.getAsLong() < unavailableUntil) {
+            return null;
+        }
+        String key = ClientAddresses.format(client) + ":" + category.label();
+        List<?> result;
+        try {
+            result = redis.execute(GCRA_SCRIPT, List.of(keyPrefix + key),
+                    String.valueOf(InMemoryRateLimiter.PERIOD_MS), String.valueOf(limitPerMinute),
+                    String.valueOf(requested));
+        } catch (RuntimeException e) {
+            if (unavailableUntil == 0) {
+                log.warn("Redis rate limiter unavailable, limiting on this instance only for the next {} ms: {}",
+                        retryAfterFailureMs, e.getMessage());
+            }
+            unavailableUntil = clock.getAsLong() + retryAfterFailureMs;
+            return null;
+        }
+        if (unavailableUntil != 0) {
+            unavailableUntil = 0;
+            log.info("Redis rate limiter reachable again, limits are shared across replicas");
+        }
+        long granted = ((Number) result.get(0)).longValue();
+        long retryAfter = granted == 0 ? Math.max(1, ((Number) result.get(1)).longValue()) : 0;
+        return new long[] {granted, retryAfter};
+    }
+
+    private static Lease[] newLeases(long client) {
+        Lease[] leases = new Lease[RateLimitCategory.COUNT];
+        for (int i = 0; i < leases.length; i++) {
+            leases[i] = new Lease();
+        }
+        return leases;
+    }
+
+    private static long expiresAt(Lease[] leases) {
+        long latest = 0;
+        for (Lease lease : leases) {
+            latest = Math.max(latest, lease.idleFrom());
+        }
+        return latest;
+    }
+
+    private static final class Lease {
+        // Guards the fields below; never held across a Redis call
+        final ReentrantLock lock = new ReentrantLock();
+        boolean renewing;
+        int remaining;
+        long expiresAt;
+        long blockedUntil;
+
+        // A lease being renewed is busy: looked at again on a later sweep
+        long idleFrom() {
+            if (!lock.tryLock()) {
+                return Long.MAX_VALUE;
+            }
+            try {
+                return renewing ? Long.MAX_VALUE : Math.max(expiresAt, blockedUntil);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
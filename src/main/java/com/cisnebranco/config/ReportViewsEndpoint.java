@@ -0,0 +1,24 @@
+package com.cisnebranco.config;
+
+import com.cisnebranco.service.MaterializedViewRefresher;
+import com.cisnebranco.service.MaterializedViewRefresher.ViewRefreshStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** {@code GET /actuator/reportviews}: last refresh duration, row count and success per materialized view. */
+@Component
+@Endpoint(id = "reportviews")
+@RequiredArgsConstructor
+public class ReportViewsEndpoint {
+
+    private final MaterializedViewRefresher viewRefresher;
+
+    @ReadOperation
+    public List<ViewRefreshStats> views() {
+        return viewRefresher.getStats();
+    }
+}
@@ -49,14 +49,15 @@ public class SecurityConfig {
             @Value("${app.rate-limit.upload-requests-per-minute:5}") int uploadRequestsPerMinute,
             @Value("${app.rate-limit.report-requests-per-minute:10}") int reportRequestsPerMinute,
             @Value("${app.rate-limit.trusted-proxy-cidrs:172.16.0.0/12}") String trustedProxyCidrsStr,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            RateLimiter rateLimiter) {
         List<String> trustedProxyCidrs = Arrays.stream(trustedProxyCidrsStr.split(","))
                 .map(String::trim)
                 .filter(s -> !s.isBlank())
                 .toList();
         this.rateLimitFilter = new RateLimitFilter(requestsPerMinute, authRequestsPerMinute,
                 uploadRequestsPerMinute, reportRequestsPerMinute,
-                trustedProxyCidrs, objectMapper);
+                trustedProxyCidrs, objectMapper, rateLimiter);
         return this.rateLimitFilter;
     }
 
@@ -70,6 +71,7 @@ public class SecurityConfig {
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/api-docs/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.GET, "/breeds/**", "/service-types/**").authenticated()
                 .requestMatchers("/users/me").authenticated()
                 .requestMatchers("/sse/**").authenticated()
@@ -83,7 +85,7 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Scheduled(fixedRate = 300_000) // every 5 minutes
+    @Scheduled(fixedRate = 1_000) // every second; only clients that expired since the last run are visited
     public void evictRateLimitBuckets() {
         if (rateLimitFilter == null) {
             log.warn("evictRateLimitBuckets: rateLimitFilter not yet initialized, skipping");
@@ -0,0 +1,61 @@
+package com.cisnebranco.controller;
+
+import com.cisnebranco.dto.request.AuditSearchCriteria;
+import com.cisnebranco.dto.request.KeysetCursor;
+import com.cisnebranco.exception.BusinessException;
+import com.cisnebranco.service.AuditTrailService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/audit")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+@Tag(name = "Audit", description = "Audit trail search")
+public class AuditController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final AuditTrailService auditTrailService;
+
+    @Operation(summary = "Search the audit log by action, username and date range, newest first",
+            description = "Returns one keyset page as {items, nextCursor}. Pass nextCursor back as "
+                    + "'cursor' to fetch the next page; it is null on the last page. "
+                    + "The range defaults to the last 30 days.")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> search(
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(5000) int limit) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        if (!start.isBefore(end)) {
+            throw new BusinessException("'from' must be before 'to'");
+        }
+        AuditSearchCriteria criteria = new AuditSearchCriteria(blankToNull(action), blankToNull(username), start, end);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(auditTrailService.search(criteria, KeysetCursor.decode(cursor), limit));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
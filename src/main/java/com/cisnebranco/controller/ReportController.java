@@ -6,6 +6,12 @@ import com.cisnebranco.dto.response.report.GroomerPerformanceReport;
 import com.cisnebranco.dto.response.report.OsStatusDistribution;
 import com.cisnebranco.dto.response.report.PaymentMethodStats;
 import com.cisnebranco.dto.response.report.ServiceTypeReport;
+import com.cisnebranco.service.AnalyticsExportService;
+import com.cisnebranco.service.AnalyticsExportService.ExportRun;
+import com.cisnebranco.service.ReportCache;
+import com.cisnebranco.service.ReportCache.Format;
+import com.cisnebranco.service.ReportCache.Key;
+import com.cisnebranco.service.ReportCache.Report;
 import com.cisnebranco.service.ReportExportService;
 import com.cisnebranco.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -21,10 +27,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -37,6 +45,8 @@ public class ReportController {
 
     private final ReportService reportService;
     private final ReportExportService exportService;
+    private final ReportCache reportCache;
+    private final AnalyticsExportService analyticsExportService;
 
     // ── JSON endpoints ─────────────────────────────────────────────────
 
@@ -45,7 +55,7 @@ public class ReportController {
     public ResponseEntity<List<DailyRevenueReport>> getDailyRevenue(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return ResponseEntity.ok(reportService.getRevenueReport(startDate, endDate));
+        return ResponseEntity.ok(revenueRows(startDate, endDate));
     }
 
     @Operation(summary = "Get service type usage report for a date range")
@@ -53,14 +63,14 @@ public class ReportController {
     public ResponseEntity<List<ServiceTypeReport>> getServiceTypeReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return ResponseEntity.ok(reportService.getServiceTypeReport(startDate, endDate));
+        return ResponseEntity.ok(serviceTypeRows(startDate, endDate));
     }
 
     @Operation(summary = "Get top clients ranked by total spending")
     @GetMapping("/clients/top")
     public ResponseEntity<List<ClientSpendingReport>> getTopClients(
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit) {
-        return ResponseEntity.ok(reportService.getTopClients(limit));
+        return ResponseEntity.ok(topClientRows(limit));
     }
 
     @Operation(summary = "Get groomer performance report for a date range")
@@ -68,7 +78,7 @@ public class ReportController {
     public ResponseEntity<List<GroomerPerformanceReport>> getGroomerPerformance(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return ResponseEntity.ok(reportService.getGroomerPerformance(startDate, endDate));
+        return ResponseEntity.ok(groomerPerformanceRows(startDate, endDate));
     }
 
     @Operation(summary = "Get service order status distribution")
@@ -83,64 +93,64 @@ public class ReportController {
         return ResponseEntity.ok(reportService.getPaymentMethodStats());
     }
 
-    @Operation(summary = "Refresh materialized report views")
+    @Operation(summary = "Rebuild report aggregates and refresh materialized report views")
     @PostMapping("/refresh")
     public ResponseEntity<Void> refreshReports() {
+        reportService.reconcileAggregates();
         int failures = reportService.refreshMaterializedViews();
         return failures == 0
                 ? ResponseEntity.noContent().build()
                 : ResponseEntity.status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR).build();
     }
 
+    @Operation(summary = "Export OS, service items and payments as compressed CSV files for BI",
+            description = "Runs the nightly analytics export now. Incremental by default (rows changed since "
+                    + "the last export); full=true exports everything. Returns 204 if an export is already running.")
+    @PostMapping("/analytics-export")
+    public ResponseEntity<ExportRun> runAnalyticsExport(@RequestParam(defaultValue = "false") boolean full)
+            throws IOException {
+        ExportRun run = analyticsExportService.export(full);
+        return run != null ? ResponseEntity.ok(run) : ResponseEntity.noContent().build();
+    }
+
     // ── CSV export endpoints ───────────────────────────────────────────
+    // Streamed from a database cursor rather than cached, so exports of any size use constant memory
 
     @GetMapping("/revenue/daily/csv")
-    public ResponseEntity<byte[]> getDailyRevenueCsv(
+    public ResponseEntity<StreamingResponseBody> getDailyRevenueCsv(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        var data = reportService.getRevenueReport(startDate, endDate);
-        String csv = exportService.dailyRevenueToCsv(data);
-        return csvResponse(csv, "receita-diaria");
+        return csvResponse(reportService.streamRevenueCsv(startDate, endDate), "receita-diaria");
     }
 
     @GetMapping("/service-types/csv")
-    public ResponseEntity<byte[]> getServiceTypeReportCsv(
+    public ResponseEntity<StreamingResponseBody> getServiceTypeReportCsv(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        var data = reportService.getServiceTypeReport(startDate, endDate);
-        String csv = exportService.serviceTypeToCsv(data);
-        return csvResponse(csv, "tipos-servico");
+        return csvResponse(reportService.streamServiceTypeCsv(startDate, endDate), "tipos-servico");
     }
 
     @GetMapping("/clients/top/csv")
-    public ResponseEntity<byte[]> getTopClientsCsv(
+    public ResponseEntity<StreamingResponseBody> getTopClientsCsv(
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit) {
-        var data = reportService.getTopClients(limit);
-        String csv = exportService.clientSpendingToCsv(data);
-        return csvResponse(csv, "top-clientes");
+        return csvResponse(reportService.streamTopClientsCsv(limit), "top-clientes");
     }
 
     @GetMapping("/groomers/performance/csv")
-    public ResponseEntity<byte[]> getGroomerPerformanceCsv(
+    public ResponseEntity<StreamingResponseBody> getGroomerPerformanceCsv(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        var data = reportService.getGroomerPerformance(startDate, endDate);
-        String csv = exportService.groomerPerformanceToCsv(data);
-        return csvResponse(csv, "desempenho-groomers");
+        return csvResponse(reportService.streamGroomerPerformanceCsv(startDate, endDate), "desempenho-groomers");
     }
 
     @GetMapping("/status-distribution/csv")
-    public ResponseEntity<byte[]> getStatusDistributionCsv() {
-        var data = reportService.getStatusDistribution();
-        String csv = exportService.statusDistributionToCsv(data);
-        return csvResponse(csv, "distribuicao-status");
+    public ResponseEntity<StreamingResponseBody> getStatusDistributionCsv() {
+        return csvResponse(reportService.streamStatusDistributionCsv(), "distribuicao-status");
     }
 
     @GetMapping("/payment-methods/csv")
-    public ResponseEntity<byte[]> getPaymentMethodStatsCsv() {
-        var data = reportService.getPaymentMethodStats();
-        String csv = exportService.paymentMethodsToCsv(data);
-        return csvResponse(csv, "metodos-pagamento");
+    public ResponseEntity<StreamingResponseBody> getPaymentMethodStatsCsv() {
+        return csvResponse(reportService.streamPaymentMethodsCsv(), "metodos-pagamento");
     }
 
     // ── PDF export endpoints ───────────────────────────────────────────
@@ -149,8 +159,8 @@ public class ReportController {
     public ResponseEntity<byte[]> getDailyRevenuePdf(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        var data = reportService.getRevenueReport(startDate, endDate);
-        byte[] pdf = exportService.dailyRevenueToPdf(data, startDate, endDate);
+        byte[] pdf = reportCache.getBytes(Key.dated(Report.DAILY_REVENUE, Format.PDF, startDate, endDate),
+                () -> exportService.dailyRevenueToPdf(revenueRows(startDate, endDate), startDate, endDate));
         return pdfResponse(pdf, "receita-diaria");
     }
 
@@ -158,16 +168,16 @@ public class ReportController {
     public ResponseEntity<byte[]> getServiceTypeReportPdf(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        var data = reportService.getServiceTypeReport(startDate, endDate);
-        byte[] pdf = exportService.serviceTypeToPdf(data, startDate, endDate);
+        byte[] pdf = reportCache.getBytes(Key.dated(Report.SERVICE_TYPES, Format.PDF, startDate, endDate),
+                () -> exportService.serviceTypeToPdf(serviceTypeRows(startDate, endDate), startDate, endDate));
         return pdfResponse(pdf, "tipos-servico");
     }
 
     @GetMapping("/clients/top/pdf")
     public ResponseEntity<byte[]> getTopClientsPdf(
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit) {
-        var data = reportService.getTopClients(limit);
-        byte[] pdf = exportService.clientSpendingToPdf(data);
+        byte[] pdf = reportCache.getBytes(Key.top(Report.TOP_CLIENTS, Format.PDF, limit),
+                () -> exportService.clientSpendingToPdf(topClientRows(limit)));
         return pdfResponse(pdf, "top-clientes");
     }
 
@@ -175,19 +185,43 @@ public class ReportController {
     public ResponseEntity<byte[]> getGroomerPerformancePdf(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        var data = reportService.getGroomerPerformance(startDate, endDate);
-        byte[] pdf = exportService.groomerPerformanceToPdf(data, startDate, endDate);
+        byte[] pdf = reportCache.getBytes(Key.dated(Report.GROOMER_PERFORMANCE, Format.PDF, startDate, endDate),
+                () -> exportService.groomerPerformanceToPdf(groomerPerformanceRows(startDate, endDate), startDate, endDate));
         return pdfResponse(pdf, "desempenho-groomers");
     }
 
+    // ── Cached report rows ─────────────────────────────────────────────
+    // Shared by the JSON and PDF variants, so a PDF of a report the dashboard already shows does
+    // not query again.
+
+    private List<DailyRevenueReport> revenueRows(LocalDate startDate, LocalDate endDate) {
+        return reportCache.getRows(Key.dated(Report.DAILY_REVENUE, Format.JSON, startDate, endDate),
+                () -> reportService.getRevenueReport(startDate, endDate));
+    }
+
+    private List<ServiceTypeReport> serviceTypeRows(LocalDate startDate, LocalDate endDate) {
+        return reportCache.getRows(Key.dated(Report.SERVICE_TYPES, Format.JSON, startDate, endDate),
+                () -> reportService.getServiceTypeReport(startDate, endDate));
+    }
+
+    private List<ClientSpendingReport> topClientRows(int limit) {
+        return reportCache.getRows(Key.top(Report.TOP_CLIENTS, Format.JSON, limit),
+                () -> reportService.getTopClients(limit));
+    }
+
+    private List<GroomerPerformanceReport> groomerPerformanceRows(LocalDate startDate, LocalDate endDate) {
+        return reportCache.getRows(Key.dated(Report.GROOMER_PERFORMANCE, Format.JSON, startDate, endDate),
+                () -> reportService.getGroomerPerformance(startDate, endDate));
+    }
+
     // ── Response builders ──────────────────────────────────────────────
 
-    private ResponseEntity<byte[]> csvResponse(String csv, String filenamePrefix) {
+    private ResponseEntity<StreamingResponseBody> csvResponse(StreamingResponseBody csv, String filenamePrefix) {
         String filename = filenamePrefix + "-" + LocalDate.now() + ".csv";
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
                 .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
-                .body(csv.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                .body(csv);
     }
 
     private ResponseEntity<byte[]> pdfResponse(byte[] pdf, String filenamePrefix) {
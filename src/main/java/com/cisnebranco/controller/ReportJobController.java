@@ -0,0 +1,68 @@
+package com.cisnebranco.controller;
+
+import com.cisnebranco.dto.request.ReportJobRequest;
+import com.cisnebranco.dto.response.ReportJobResponse;
+import com.cisnebranco.security.UserPrincipal;
+import com.cisnebranco.service.ReportJobService;
+import com.cisnebranco.service.ReportJobService.JobFile;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/reports/jobs")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+@Tag(name = "Report Jobs", description = "Background PDF report generation")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+
+    @Operation(summary = "Queue a PDF report for background rendering",
+            description = "Returns 202 with the job; poll its Location until status is COMPLETED, "
+                    + "then download from /file.")
+    @PostMapping
+    public ResponseEntity<ReportJobResponse> submit(@Valid @RequestBody ReportJobRequest request,
+                                                    @AuthenticationPrincipal UserPrincipal principal) {
+        ReportJobResponse job = reportJobService.submit(request, principal.getUsername());
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{id}").buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+
+    @Operation(summary = "Get the status of a report job")
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJobResponse> getJob(@PathVariable UUID id) {
+        return ResponseEntity.ok(reportJobService.getJob(id));
+    }
+
+    // Returning a Resource lets Spring MVC answer Range requests with 206 partial content,
+    // so interrupted downloads of large PDFs can resume
+    @Operation(summary = "Download the rendered PDF of a completed report job (supports Range)")
+    @GetMapping("/{id}/file")
+    public ResponseEntity<Resource> download(@PathVariable UUID id) {
+        JobFile file = reportJobService.getFile(id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.filename() + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(new FileSystemResource(file.path()));
+    }
+}
@@ -35,6 +35,6 @@ public class SseController {
         } else {
             log.info("SSE connection opened for user: {} (id: {})", principal.getUsername(), principal.getId());
         }
-        return sseEmitterService.createEmitter(principal.getId(), isReconnect);
+        return sseEmitterService.createEmitter(principal.getId(), principal.getRole(), lastEventId);
     }
 }
@@ -5,13 +5,15 @@ import com.cisnebranco.dto.request.AdjustServiceItemPriceRequest;
 import com.cisnebranco.dto.request.CheckInRequest;
 import com.cisnebranco.dto.request.CreateIncidentRequest;
 import com.cisnebranco.dto.request.HealthChecklistRequest;
+import com.cisnebranco.dto.request.KeysetCursor;
 import com.cisnebranco.dto.request.OsStatusUpdateRequest;
 import com.cisnebranco.dto.request.TechnicalOsFilterRequest;
 import com.cisnebranco.dto.response.AuditLogResponse;
 import com.cisnebranco.dto.response.HealthChecklistResponse;
 import com.cisnebranco.dto.response.IncidentReportResponse;
 import com.cisnebranco.dto.response.InspectionPhotoResponse;
-import com.cisnebranco.dto.response.TechnicalOsGroomerViewResponse;
+import com.cisnebranco.dto.response.OpsBoardSnapshot;
+import com.cisnebranco.dto.response.TechnicalOsGroomerSummaryResponse;
 import com.cisnebranco.dto.response.TechnicalOsResponse;
 import com.cisnebranco.entity.enums.UserRole;
 import com.cisnebranco.exception.BusinessException;
@@ -19,10 +21,13 @@ import com.cisnebranco.security.UserPrincipal;
 import com.cisnebranco.service.HealthChecklistService;
 import com.cisnebranco.service.IncidentReportService;
 import com.cisnebranco.service.InspectionPhotoService;
+import com.cisnebranco.service.OpsBoardService;
 import com.cisnebranco.service.TechnicalOsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -34,6 +39,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -47,6 +53,7 @@ public class TechnicalOsController {
     private final InspectionPhotoService photoService;
     private final HealthChecklistService checklistService;
     private final IncidentReportService incidentService;
+    private final OpsBoardService opsBoardService;
 
     @Operation(summary = "Check in a pet and create a new service order")
     @PostMapping("/check-in")
@@ -73,14 +80,15 @@ public class TechnicalOsController {
         return ResponseEntity.ok(osService.assignGroomer(id, groomerId));
     }
 
-    @Operation(summary = "List service orders with optional filters")
+    @Operation(summary = "List service order summaries with optional filters",
+            description = "Rows carry list columns only; GET /os/{id} returns the full order.")
     @GetMapping
     public ResponseEntity<?> findAll(@AuthenticationPrincipal UserPrincipal principal,
                                       @ModelAttribute TechnicalOsFilterRequest filter,
                                       @PageableDefault(size = 20, sort = "createdAt") Pageable pageable) {
         if (principal.getRole() == UserRole.GROOMER) {
             requireGroomerProfile(principal);
-            Page<TechnicalOsGroomerViewResponse> result = osService.findByGroomer(principal.getGroomerId(), pageable);
+            Page<TechnicalOsGroomerSummaryResponse> result = osService.findByGroomer(principal.getGroomerId(), pageable);
             return ResponseEntity.ok(result);
         }
         boolean hasFilters = filter.status() != null || filter.groomerId() != null
@@ -93,6 +101,32 @@ public class TechnicalOsController {
         return ResponseEntity.ok(osService.findAll(pageable));
     }
 
+    @Operation(summary = "List service orders newest first, one keyset page at a time",
+            description = "Same filters and role rules as GET /os. Returns {items, nextCursor}; pass nextCursor "
+                    + "back as cursor for the next page. Every page costs the same regardless of depth.")
+    @GetMapping("/keyset")
+    public ResponseEntity<?> findPage(@AuthenticationPrincipal UserPrincipal principal,
+                                       @ModelAttribute TechnicalOsFilterRequest filter,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (principal.getRole() == UserRole.GROOMER) {
+            requireGroomerProfile(principal);
+            return ResponseEntity.ok(osService.findPageForGroomer(principal.getGroomerId(), after, limit));
+        }
+        return ResponseEntity.ok(osService.findPage(filter, after, limit));
+    }
+
+    @Operation(summary = "Snapshot of the live operations board (admin only)",
+            description = "Open service orders grouped by status, at a version. Keep it current by applying "
+                    + "ops-board SSE deltas from /sse/notifications whose event id is higher than the version; "
+                    + "reload after a resync event.")
+    @GetMapping("/board")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<OpsBoardSnapshot> board(@RequestParam(required = false) Long groomerId) {
+        return ResponseEntity.ok(opsBoardService.snapshot(groomerId));
+    }
+
     @Operation(summary = "Find a service order by ID")
     @GetMapping("/{id}")
     public ResponseEntity<?> findById(@PathVariable Long id,
@@ -210,6 +244,18 @@ public class TechnicalOsController {
         return ResponseEntity.ok(osService.getOsAuditLog(id));
     }
 
+    @Operation(summary = "Stream one keyset page of a service order's audit log, oldest first (admin only)")
+    @GetMapping(value = "/{id}/audit/entries", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAuditLog(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(5000) int limit) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(osService.streamOsAuditLog(id, KeysetCursor.decode(cursor), limit));
+    }
+
     private void requireGroomerProfile(UserPrincipal principal) {
         if (principal.getGroomerId() == null) {
             throw new BusinessException("User account is not linked to a groomer profile. Contact an administrator.");
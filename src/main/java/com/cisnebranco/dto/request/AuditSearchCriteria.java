@@ -0,0 +1,10 @@
+package com.cisnebranco.dto.request;
+
+import java.time.LocalDateTime;
+
+public record AuditSearchCriteria(
+        String action,
+        String username,
+        LocalDateTime from,
+        LocalDateTime to
+) {}
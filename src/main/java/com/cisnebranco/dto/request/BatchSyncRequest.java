@@ -2,6 +2,7 @@ package com.cisnebranco.dto.request;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.util.List;
 
@@ -11,6 +12,11 @@ public record BatchSyncRequest(
 ) {
     public record BatchStatusUpdate(
             @NotNull Long osId,
-            @Valid @NotNull OsStatusUpdateRequest statusUpdate
-    ) {}
+            @Valid @NotNull OsStatusUpdateRequest statusUpdate,
+            @Size(max = 64) String clientOperationId
+    ) {
+        public BatchStatusUpdate(Long osId, OsStatusUpdateRequest statusUpdate) {
+            this(osId, statusUpdate, null);
+        }
+    }
 }
@@ -5,6 +5,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -14,8 +15,15 @@ public record CheckInRequest(
         Long groomerId,
         @NotEmpty List<Long> serviceTypeIds,
         String notes,
-        @Valid PrepaidPaymentRequest prepaidPayment
+        @Valid PrepaidPaymentRequest prepaidPayment,
+        // Client-generated id used by /sync/batch to deduplicate retries; ignored elsewhere
+        @Size(max = 64) String clientOperationId
 ) {
+    public CheckInRequest(Long petId, Long groomerId, List<Long> serviceTypeIds, String notes,
+                          PrepaidPaymentRequest prepaidPayment) {
+        this(petId, groomerId, serviceTypeIds, notes, prepaidPayment, null);
+    }
+
     public record PrepaidPaymentRequest(
             @NotNull @Positive BigDecimal amount,
             @NotNull PaymentMethod method,
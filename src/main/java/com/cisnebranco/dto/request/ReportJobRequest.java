@@ -0,0 +1,20 @@
+package com.cisnebranco.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * Background PDF render. {@code startDate}/{@code endDate} are required for every report except
+ * TOP_CLIENTS, which takes {@code limit} instead (default 10).
+ */
+public record ReportJobRequest(
+        @NotNull ReportType report,
+        LocalDate startDate,
+        LocalDate endDate,
+        @Min(1) @Max(100) Integer limit
+) {
+    public enum ReportType { DAILY_REVENUE, SERVICE_TYPES, TOP_CLIENTS, GROOMER_PERFORMANCE }
+}
@@ -0,0 +1,9 @@
+package com.cisnebranco.dto.response;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page;
+ * otherwise pass it back as {@code cursor} to fetch the following page.
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {}
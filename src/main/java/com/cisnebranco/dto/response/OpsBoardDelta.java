@@ -0,0 +1,27 @@
+package com.cisnebranco.dto.response;
+
+/**
+ * One change to the live operations board, sent as the {@code ops-board} SSE event. Its version
+ * is the SSE event id: apply it only if that is higher than the version of the loaded
+ * {@link OpsBoardSnapshot}, and reload the snapshot after a {@code resync} event.
+ */
+public record OpsBoardDelta(
+        Op op,
+        Long osId,
+        TechnicalOsSummaryResponse item
+) {
+    public enum Op {
+        /** {@code item} was added or changed; replace any earlier row for {@code osId}. */
+        UPSERT,
+        /** The order was delivered or deleted; {@code item} is null. */
+        REMOVE
+    }
+
+    public static OpsBoardDelta upsert(TechnicalOsSummaryResponse item) {
+        return new OpsBoardDelta(Op.UPSERT, item.id(), item);
+    }
+
+    public static OpsBoardDelta remove(Long osId) {
+        return new OpsBoardDelta(Op.REMOVE, osId, null);
+    }
+}
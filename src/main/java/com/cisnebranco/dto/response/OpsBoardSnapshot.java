@@ -0,0 +1,16 @@
+package com.cisnebranco.dto.response;
+
+import com.cisnebranco.entity.enums.OsStatus;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The live operations board: every open (not yet delivered) service order, grouped by status and
+ * ordered by check-in time. {@code version} is the SSE event id of the last {@code ops-board}
+ * delta it includes, on whichever instance served it; apply deltas with a higher event id on top.
+ */
+public record OpsBoardSnapshot(
+        long version,
+        Map<OsStatus, List<TechnicalOsSummaryResponse>> byStatus
+) {}
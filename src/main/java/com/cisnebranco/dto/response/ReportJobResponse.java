@@ -0,0 +1,20 @@
+package com.cisnebranco.dto.response;
+
+import com.cisnebranco.dto.request.ReportJobRequest.ReportType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ReportJobResponse(
+        UUID id,
+        ReportType report,
+        Status status,
+        String requestedBy,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt,
+        LocalDateTime expiresAt,
+        Long sizeBytes,
+        String error
+) {
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+}
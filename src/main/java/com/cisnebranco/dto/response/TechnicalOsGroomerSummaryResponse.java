@@ -0,0 +1,20 @@
+package com.cisnebranco.dto.response;
+
+import com.cisnebranco.entity.enums.OsStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Groomer-queue row; like {@link TechnicalOsGroomerViewResponse}, no payment or client contact data. */
+public record TechnicalOsGroomerSummaryResponse(
+        Long id,
+        Long petId,
+        String petName,
+        String clientFirstName,
+        OsStatus status,
+        BigDecimal totalPrice,
+        BigDecimal totalCommission,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        LocalDateTime createdAt
+) {}
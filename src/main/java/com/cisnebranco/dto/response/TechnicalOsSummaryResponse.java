@@ -0,0 +1,31 @@
+package com.cisnebranco.dto.response;
+
+import com.cisnebranco.entity.enums.OsStatus;
+import com.cisnebranco.entity.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * List-view row of a service order, read by a single constructor-expression query (see
+ * TechnicalOsPagingRepository). The full {@link TechnicalOsResponse} is served by GET /os/{id}.
+ */
+public record TechnicalOsSummaryResponse(
+        Long id,
+        Long petId,
+        String petName,
+        Long clientId,
+        String clientName,
+        Long groomerId,
+        String groomerName,
+        OsStatus status,
+        BigDecimal totalPrice,
+        BigDecimal totalCommission,
+        PaymentStatus paymentStatus,
+        BigDecimal totalPaid,
+        BigDecimal paymentBalance,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        LocalDateTime deliveredAt,
+        LocalDateTime createdAt
+) {}
@@ -0,0 +1,39 @@
+package com.cisnebranco.entity;
+
+import com.cisnebranco.entity.enums.SyncOperationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sync_operations")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SyncOperation {
+
+    @Id
+    @Column(name = "operation_id", length = 64)
+    private String operationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation_type", nullable = false, length = 20)
+    private SyncOperationType operationType;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "os_id")
+    private Long osId;
+
+    @Column(name = "created_at", nullable = false, updatable = false, insertable = false)
+    private LocalDateTime createdAt;
+}
@@ -16,7 +16,6 @@ import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -82,7 +81,8 @@ public class TechnicalOs extends BaseEntity {
     @OneToMany(mappedBy = "technicalOs", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<InspectionPhoto> photos = new ArrayList<>();
 
-    @Formula("(SELECT COUNT(*) FROM incident_reports ir WHERE ir.technical_os_id = id)")
+    // Maintained by the incident_reports trigger (V22); read-only in Java
+    @Column(name = "incident_count", insertable = false, updatable = false)
     private int incidentCount;
 
     @OneToOne(mappedBy = "technicalOs", cascade = CascadeType.ALL, orphanRemoval = true)
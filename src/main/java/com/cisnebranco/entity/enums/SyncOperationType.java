@@ -0,0 +1,6 @@
+package com.cisnebranco.entity.enums;
+
+public enum SyncOperationType {
+    CHECK_IN,
+    STATUS_UPDATE
+}
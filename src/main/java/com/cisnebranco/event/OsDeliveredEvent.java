@@ -0,0 +1,25 @@
+package com.cisnebranco.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+
+public class OsDeliveredEvent extends ApplicationEvent {
+
+    private final Long osId;
+    private final LocalDate deliveredDate;
+
+    public OsDeliveredEvent(Object source, Long osId, LocalDate deliveredDate) {
+        super(source);
+        this.osId = osId;
+        this.deliveredDate = deliveredDate;
+    }
+
+    public Long getOsId() {
+        return osId;
+    }
+
+    public LocalDate getDeliveredDate() {
+        return deliveredDate;
+    }
+}
@@ -0,0 +1,26 @@
+package com.cisnebranco.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+
+/** A payment or refund was recorded. {@code deliveredDate} is null while the OS is not yet delivered. */
+public class PaymentRecordedEvent extends ApplicationEvent {
+
+    private final Long osId;
+    private final LocalDate deliveredDate;
+
+    public PaymentRecordedEvent(Object source, Long osId, LocalDate deliveredDate) {
+        super(source);
+        this.osId = osId;
+        this.deliveredDate = deliveredDate;
+    }
+
+    public Long getOsId() {
+        return osId;
+    }
+
+    public LocalDate getDeliveredDate() {
+        return deliveredDate;
+    }
+}
@@ -0,0 +1,10 @@
+package com.cisnebranco.event;
+
+import org.springframework.context.ApplicationEvent;
+
+public class PricingChangedEvent extends ApplicationEvent {
+
+    public PricingChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -2,12 +2,15 @@ package com.cisnebranco.mapper;
 
 import com.cisnebranco.dto.response.OsServiceItemGroomerResponse;
 import com.cisnebranco.dto.response.OsServiceItemResponse;
+import com.cisnebranco.dto.response.TechnicalOsGroomerSummaryResponse;
 import com.cisnebranco.dto.response.TechnicalOsGroomerViewResponse;
 import com.cisnebranco.dto.response.TechnicalOsResponse;
+import com.cisnebranco.dto.response.TechnicalOsSummaryResponse;
 import com.cisnebranco.entity.OsServiceItem;
 import com.cisnebranco.entity.TechnicalOs;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 
 @Mapper(componentModel = "spring", uses = {PetMapper.class, GroomerMapper.class, HealthChecklistMapper.class, PaymentEventMapper.class, InspectionPhotoMapper.class})
 public interface TechnicalOsMapper {
@@ -17,6 +20,9 @@ public interface TechnicalOsMapper {
 
     TechnicalOsGroomerViewResponse toGroomerViewResponse(TechnicalOs os);
 
+    @Mapping(source = "clientName", target = "clientFirstName", qualifiedByName = "firstName")
+    TechnicalOsGroomerSummaryResponse toGroomerSummary(TechnicalOsSummaryResponse summary);
+
     @Mapping(source = "serviceType.id", target = "serviceTypeId")
     @Mapping(source = "serviceType.name", target = "serviceTypeName")
     @Mapping(source = "serviceType.defaultDurationMinutes", target = "defaultDurationMinutes")
@@ -24,4 +30,13 @@ public interface TechnicalOsMapper {
 
     @Mapping(source = "serviceType.name", target = "serviceTypeName")
     OsServiceItemGroomerResponse toServiceItemGroomerResponse(OsServiceItem item);
+
+    // Same rule as PetMapper.extractFirstName: groomers only see the client's first name
+    @Named("firstName")
+    default String firstName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.split(" ")[0];
+    }
 }
@@ -3,9 +3,12 @@ package com.cisnebranco.repository;
 import com.cisnebranco.entity.AuditLog;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
 
-    List<AuditLog> findByEntityTypeAndEntityIdOrderByCreatedAtAsc(String entityType, Long entityId);
+    // The createdAt lower bound lets PostgreSQL prune audit_log partitions older than it
+    List<AuditLog> findByEntityTypeAndEntityIdAndCreatedAtGreaterThanEqualOrderByCreatedAtAsc(
+            String entityType, Long entityId, LocalDateTime since);
 }
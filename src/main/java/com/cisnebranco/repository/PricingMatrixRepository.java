@@ -4,10 +4,42 @@ import com.cisnebranco.entity.PricingMatrix;
 import com.cisnebranco.entity.enums.PetSize;
 import com.cisnebranco.entity.enums.Species;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PricingMatrixRepository extends JpaRepository<PricingMatrix, Long> {
     Optional<PricingMatrix> findByServiceTypeIdAndSpeciesAndPetSize(
             Long serviceTypeId, Species species, PetSize petSize);
+
+    @Query("""
+            SELECT pm.serviceType.id AS serviceTypeId, pm.species AS species,
+                   pm.petSize AS petSize, pm.price AS price
+            FROM PricingMatrix pm
+            WHERE pm.serviceType.id IN :serviceTypeIds
+              AND pm.species = :species
+              AND pm.petSize = :petSize
+            """)
+    List<MatrixPriceRow> findPriceRows(@Param("serviceTypeIds") Collection<Long> serviceTypeIds,
+                                       @Param("species") Species species,
+                                       @Param("petSize") PetSize petSize);
+
+    // Flat projection for the in-memory pricing snapshot — avoids hydrating ServiceType proxies
+    @Query("""
+            SELECT pm.serviceType.id AS serviceTypeId, pm.species AS species,
+                   pm.petSize AS petSize, pm.price AS price
+            FROM PricingMatrix pm
+            """)
+    List<MatrixPriceRow> findAllPriceRows();
+
+    interface MatrixPriceRow {
+        Long getServiceTypeId();
+        Species getSpecies();
+        PetSize getPetSize();
+        BigDecimal getPrice();
+    }
 }
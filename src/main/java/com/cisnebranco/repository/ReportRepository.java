@@ -7,50 +7,51 @@ import com.cisnebranco.dto.response.report.OsStatusDistribution;
 import com.cisnebranco.dto.response.report.PaymentMethodStats;
 import com.cisnebranco.dto.response.report.ServiceTypeReport;
 import com.cisnebranco.entity.TechnicalOs;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ReportRepository extends JpaRepository<TechnicalOs, Long> {
 
-    @Query(value = """
-            SELECT DATE(delivered_at) AS reportDate,
-                   COUNT(*)::INT AS totalOrders,
-                   COALESCE(SUM(total_price), 0) AS totalRevenue,
-                   COALESCE(SUM(total_commission), 0) AS totalCommission,
-                   COALESCE(SUM(balance), 0) AS totalBalance,
-                   COALESCE(SUM(total_paid), 0) AS totalPaid
-            FROM technical_os
-            WHERE status = 'DELIVERED'
-              AND DATE(delivered_at) BETWEEN :startDate AND :endDate
-            GROUP BY DATE(delivered_at)
-            ORDER BY reportDate DESC
-            """, nativeQuery = true)
-    List<DailyRevenueReport> getRevenueReport(@Param("startDate") LocalDate startDate,
-                                               @Param("endDate") LocalDate endDate);
+    // Except for top clients, reports read the trigger-maintained report_* aggregate tables (V18).
+    // Each query backs a List method (JSON/PDF) and a Stream method (CSV export).
 
-    @Query(value = """
+    String DAILY_REVENUE_SQL = """
+            SELECT report_date AS reportDate,
+                   total_orders AS totalOrders,
+                   total_revenue AS totalRevenue,
+                   total_commission AS totalCommission,
+                   total_balance AS totalBalance,
+                   total_paid AS totalPaid
+            FROM report_daily_revenue
+            WHERE report_date BETWEEN :startDate AND :endDate
+              AND total_orders > 0
+            ORDER BY report_date DESC
+            """;
+
+    String SERVICE_TYPE_SQL = """
             SELECT st.id AS serviceTypeId,
                    st.name AS serviceName,
-                   COUNT(osi.id)::INT AS totalServices,
-                   COALESCE(SUM(osi.locked_price), 0) AS totalRevenue,
-                   COALESCE(AVG(osi.locked_price), 0) AS avgPrice
-            FROM os_service_items osi
-            JOIN service_types st ON st.id = osi.service_type_id
-            JOIN technical_os tos ON tos.id = osi.technical_os_id
-            WHERE tos.status = 'DELIVERED'
-              AND DATE(tos.delivered_at) BETWEEN :startDate AND :endDate
+                   SUM(a.total_services)::INT AS totalServices,
+                   SUM(a.total_revenue) AS totalRevenue,
+                   SUM(a.total_revenue) / SUM(a.total_services) AS avgPrice
+            FROM report_service_type_daily a
+            JOIN service_types st ON st.id = a.service_type_id
+            WHERE a.report_date BETWEEN :startDate AND :endDate
             GROUP BY st.id, st.name
+            HAVING SUM(a.total_services) > 0
             ORDER BY totalRevenue DESC
-            """, nativeQuery = true)
-    List<ServiceTypeReport> getServiceTypeReport(@Param("startDate") LocalDate startDate,
-                                                  @Param("endDate") LocalDate endDate);
+            """;
 
-    @Query(value = """
+    String TOP_CLIENTS_SQL = """
             SELECT c.id AS clientId,
                    c.name AS clientName,
                    COUNT(tos.id)::INT AS totalOrders,
@@ -64,27 +65,97 @@ public interface ReportRepository extends JpaRepository<TechnicalOs, Long> {
             GROUP BY c.id, c.name
             ORDER BY totalSpent DESC
             LIMIT :lim
-            """, nativeQuery = true)
-    List<ClientSpendingReport> getTopClientsBySpending(@Param("lim") int limit);
+            """;
 
-    @Query(value = """
+    String GROOMER_PERFORMANCE_SQL = """
             SELECT g.id AS groomerId,
                    g.name AS groomerName,
-                   COUNT(tos.id)::INT AS totalOrders,
-                   COALESCE(SUM(tos.total_price), 0) AS totalRevenue,
-                   COALESCE(SUM(tos.total_commission), 0) AS totalCommission,
-                   COALESCE(AVG(tos.total_price), 0) AS avgOrderValue
+                   COALESCE(SUM(a.total_orders), 0)::INT AS totalOrders,
+                   COALESCE(SUM(a.total_revenue), 0) AS totalRevenue,
+                   COALESCE(SUM(a.total_commission), 0) AS totalCommission,
+                   COALESCE(SUM(a.total_revenue) / NULLIF(SUM(a.total_orders), 0), 0) AS avgOrderValue
             FROM groomers g
-            LEFT JOIN technical_os tos ON tos.groomer_id = g.id
-                AND tos.status = 'DELIVERED'
-                AND DATE(tos.delivered_at) BETWEEN :startDate AND :endDate
+            LEFT JOIN report_groomer_daily a ON a.groomer_id = g.id
+                AND a.report_date BETWEEN :startDate AND :endDate
             WHERE g.active = TRUE
             GROUP BY g.id, g.name
             ORDER BY totalRevenue DESC
-            """, nativeQuery = true)
+            """;
+
+    // report_os_status is striped (V23); a status's totals are the sum of its rows
+    String STATUS_DISTRIBUTION_SQL = """
+            SELECT status,
+                   SUM(order_count)::INT AS orderCount,
+                   SUM(total_value) AS totalValue
+            FROM report_os_status
+            GROUP BY status
+            HAVING SUM(order_count) > 0
+            """;
+
+    String PAYMENT_METHOD_SQL = """
+            SELECT method,
+                   SUM(transaction_count)::INT AS transactionCount,
+                   SUM(total_amount) AS totalAmount,
+                   SUM(total_amount) / SUM(transaction_count) AS avgTransaction
+            FROM report_payment_method_daily
+            GROUP BY method
+            HAVING SUM(transaction_count) > 0
+            """;
+
+    @Query(value = DAILY_REVENUE_SQL, nativeQuery = true)
+    List<DailyRevenueReport> getRevenueReport(@Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
+    @Query(value = SERVICE_TYPE_SQL, nativeQuery = true)
+    List<ServiceTypeReport> getServiceTypeReport(@Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate);
+
+    @Query(value = TOP_CLIENTS_SQL, nativeQuery = true)
+    List<ClientSpendingReport> getTopClientsBySpending(@Param("lim") int limit);
+
+    @Query(value = GROOMER_PERFORMANCE_SQL, nativeQuery = true)
     List<GroomerPerformanceReport> getGroomerPerformanceReport(@Param("startDate") LocalDate startDate,
                                                                @Param("endDate") LocalDate endDate);
 
+    @Query(value = STATUS_DISTRIBUTION_SQL, nativeQuery = true)
+    List<OsStatusDistribution> getOsStatusDistribution();
+
+    @Query(value = PAYMENT_METHOD_SQL, nativeQuery = true)
+    List<PaymentMethodStats> getPaymentMethodStats();
+
+    // Forward-only cursors for the streaming CSV exports. PostgreSQL only honours the fetch size
+    // inside a transaction (otherwise the driver buffers the whole result), and the caller must
+    // close the stream.
+
+    String EXPORT_FETCH_SIZE = "500";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = DAILY_REVENUE_SQL, nativeQuery = true)
+    Stream<DailyRevenueReport> streamRevenueReport(@Param("startDate") LocalDate startDate,
+                                                    @Param("endDate") LocalDate endDate);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = SERVICE_TYPE_SQL, nativeQuery = true)
+    Stream<ServiceTypeReport> streamServiceTypeReport(@Param("startDate") LocalDate startDate,
+                                                       @Param("endDate") LocalDate endDate);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = TOP_CLIENTS_SQL, nativeQuery = true)
+    Stream<ClientSpendingReport> streamTopClientsBySpending(@Param("lim") int limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = GROOMER_PERFORMANCE_SQL, nativeQuery = true)
+    Stream<GroomerPerformanceReport> streamGroomerPerformanceReport(@Param("startDate") LocalDate startDate,
+                                                                    @Param("endDate") LocalDate endDate);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = STATUS_DISTRIBUTION_SQL, nativeQuery = true)
+    Stream<OsStatusDistribution> streamOsStatusDistribution();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = PAYMENT_METHOD_SQL, nativeQuery = true)
+    Stream<PaymentMethodStats> streamPaymentMethodStats();
+
     // Materialized view queries
 
     @Query(value = """
@@ -98,14 +169,6 @@ public interface ReportRepository extends JpaRepository<TechnicalOs, Long> {
     List<DailyRevenueReport> getDailyRevenueMV(@Param("startDate") LocalDate startDate,
                                                 @Param("endDate") LocalDate endDate);
 
-    @Query(value = "SELECT status, order_count AS orderCount, total_value AS totalValue FROM mv_os_status_distribution",
-            nativeQuery = true)
-    List<OsStatusDistribution> getOsStatusDistribution();
-
-    @Query(value = "SELECT method, transaction_count AS transactionCount, total_amount AS totalAmount, avg_transaction AS avgTransaction FROM mv_payment_method_stats",
-            nativeQuery = true)
-    List<PaymentMethodStats> getPaymentMethodStats();
-
     @Query(value = """
             SELECT service_type_id AS serviceTypeId, service_name AS serviceName,
                    total_services AS totalServices, total_revenue AS totalRevenue,
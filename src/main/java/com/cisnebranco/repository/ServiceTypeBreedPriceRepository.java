@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +14,15 @@ public interface ServiceTypeBreedPriceRepository extends JpaRepository<ServiceTy
 
     Optional<ServiceTypeBreedPrice> findByServiceTypeIdAndBreedId(Long serviceTypeId, Long breedId);
 
+    @Query("""
+            SELECT p.serviceType.id AS serviceTypeId, p.breed.id AS breedId, p.price AS price
+            FROM ServiceTypeBreedPrice p
+            WHERE p.serviceType.id IN :serviceTypeIds
+              AND p.breed.id = :breedId
+            """)
+    List<BreedPriceRow> findPriceRows(@Param("serviceTypeIds") Collection<Long> serviceTypeIds,
+                                      @Param("breedId") Long breedId);
+
     @Query("""
             SELECT p FROM ServiceTypeBreedPrice p
             JOIN FETCH p.serviceType st
@@ -21,4 +32,17 @@ public interface ServiceTypeBreedPriceRepository extends JpaRepository<ServiceTy
             ORDER BY st.name
             """)
     List<ServiceTypeBreedPrice> findByBreedId(@Param("breedId") Long breedId);
+
+    // Flat projection for the in-memory pricing snapshot — avoids hydrating ServiceType/Breed proxies
+    @Query("""
+            SELECT p.serviceType.id AS serviceTypeId, p.breed.id AS breedId, p.price AS price
+            FROM ServiceTypeBreedPrice p
+            """)
+    List<BreedPriceRow> findAllPriceRows();
+
+    interface BreedPriceRow {
+        Long getServiceTypeId();
+        Long getBreedId();
+        BigDecimal getPrice();
+    }
 }
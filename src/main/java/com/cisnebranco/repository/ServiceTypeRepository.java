@@ -3,6 +3,7 @@ package com.cisnebranco.repository;
 import com.cisnebranco.entity.ServiceType;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +13,6 @@ public interface ServiceTypeRepository extends JpaRepository<ServiceType, Long>
     List<ServiceType> findByActiveTrue();
 
     Optional<ServiceType> findByIdAndActiveTrue(Long id);
+
+    List<ServiceType> findByIdInAndActiveTrue(Collection<Long> ids);
 }
@@ -0,0 +1,31 @@
+package com.cisnebranco.repository;
+
+import com.cisnebranco.entity.SyncOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface SyncOperationRepository extends JpaRepository<SyncOperation, String> {
+
+    // Plain INSERT rather than save(): save() on an assigned id merges (SELECT first), and we
+    // want the primary key to reject a concurrent claim of the same operation id.
+    @Modifying
+    @Query(value = """
+            INSERT INTO sync_operations (operation_id, operation_type, user_id)
+            VALUES (:operationId, :operationType, :userId)
+            """, nativeQuery = true)
+    void claim(@Param("operationId") String operationId,
+               @Param("operationType") String operationType,
+               @Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE SyncOperation s SET s.osId = :osId WHERE s.operationId = :operationId")
+    void complete(@Param("operationId") String operationId, @Param("osId") Long osId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM SyncOperation s WHERE s.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
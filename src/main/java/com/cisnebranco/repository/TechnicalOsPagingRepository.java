@@ -0,0 +1,29 @@
+package com.cisnebranco.repository;
+
+import com.cisnebranco.dto.request.KeysetCursor;
+import com.cisnebranco.dto.response.TechnicalOsSummaryResponse;
+import com.cisnebranco.entity.TechnicalOs;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Paged OS listings read as {@link TechnicalOsSummaryResponse} rows by one constructor-expression
+ * query each: only the listed columns and the to-one pet, client and groomer joins, so no entity
+ * is managed, no collection is fetched and LIMIT/OFFSET runs on the database.
+ */
+public interface TechnicalOsPagingRepository {
+
+    /**
+     * Summaries of the orders matching {@code spec} on the requested offset page, in the page's
+     * sort order with id as tie-breaker so that rows with equal sort keys never straddle two pages.
+     */
+    List<TechnicalOsSummaryResponse> findSummaries(Specification<TechnicalOs> spec, Pageable pageable);
+
+    /**
+     * One keyset page: summaries of up to {@code limit} orders matching {@code spec}, newest first
+     * by (created_at, id), strictly after {@code after} (null for the first page).
+     */
+    List<TechnicalOsSummaryResponse> findSummariesAfter(Specification<TechnicalOs> spec, KeysetCursor after, int limit);
+}
@@ -0,0 +1,115 @@
+package com.cisnebranco.repository;
+
+import com.cisnebranco.dto.request.KeysetCursor;
+import com.cisnebranco.dto.response.TechnicalOsSummaryResponse;
+import com.cisnebranco.entity.Client;
+import com.cisnebranco.entity.Groomer;
+import com.cisnebranco.entity.Pet;
+import com.cisnebranco.entity.TechnicalOs;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+class TechnicalOsPagingRepositoryImpl implements TechnicalOsPagingRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<TechnicalOsSummaryResponse> findSummaries(Specification<TechnicalOs> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TechnicalOsSummaryResponse> query = cb.createQuery(TechnicalOsSummaryResponse.class);
+        Root<TechnicalOs> root = query.from(TechnicalOs.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        addFilter(predicates, spec, root, query, cb);
+        Sort sort = pageable.getSort();
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(sort, root, cb));
+        if (sort.getOrderFor("id") == null) {
+            orders.add(cb.asc(root.get("id")));
+        }
+        selectSummary(query, root, cb)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(orders);
+
+        TypedQuery<TechnicalOsSummaryResponse> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        return typed.getResultList();
+    }
+
+    @Override
+    public List<TechnicalOsSummaryResponse> findSummariesAfter(Specification<TechnicalOs> spec,
+                                                               KeysetCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TechnicalOsSummaryResponse> query = cb.createQuery(TechnicalOsSummaryResponse.class);
+        Root<TechnicalOs> root = query.from(TechnicalOs.class);
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        addFilter(predicates, spec, root, query, cb);
+        if (after != null) {
+            // (created_at, id) < (:createdAt, :id). The redundant created_at <= bound gives the
+            // planner an index range start, so a deep page seeks instead of scanning from the top.
+            predicates.add(cb.lessThanOrEqualTo(createdAt, after.createdAt()));
+            predicates.add(cb.or(cb.lessThan(createdAt, after.createdAt()), cb.lessThan(id, after.id())));
+        }
+
+        selectSummary(query, root, cb)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static void addFilter(List<Predicate> predicates, Specification<TechnicalOs> spec,
+                                  Root<TechnicalOs> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (filter != null) {
+            predicates.add(filter);
+        }
+    }
+
+    private static CriteriaQuery<TechnicalOsSummaryResponse> selectSummary(
+            CriteriaQuery<TechnicalOsSummaryResponse> query, Root<TechnicalOs> root, CriteriaBuilder cb) {
+        Join<TechnicalOs, Pet> pet = root.join("pet");
+        Join<Pet, Client> client = pet.join("client");
+        Join<TechnicalOs, Groomer> groomer = root.join("groomer", JoinType.LEFT);
+        // Argument order must match the TechnicalOsSummaryResponse constructor
+        return query.select(cb.construct(TechnicalOsSummaryResponse.class,
+                root.get("id"),
+                pet.get("id"),
+                pet.get("name"),
+                client.get("id"),
+                client.get("name"),
+                groomer.get("id"),
+                groomer.get("name"),
+                root.get("status"),
+                root.get("totalPrice"),
+                root.get("totalCommission"),
+                root.get("paymentStatus"),
+                root.get("totalPaid"),
+                root.get("paymentBalance"),
+                root.get("startedAt"),
+                root.get("finishedAt"),
+                root.get("deliveredAt"),
+                root.get("createdAt")));
+    }
+}
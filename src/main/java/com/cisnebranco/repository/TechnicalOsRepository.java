@@ -2,8 +2,6 @@ package com.cisnebranco.repository;
 
 import com.cisnebranco.entity.TechnicalOs;
 import com.cisnebranco.entity.enums.OsStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,16 +10,13 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface TechnicalOsRepository extends JpaRepository<TechnicalOs, Long>, JpaSpecificationExecutor<TechnicalOs> {
-
-    @EntityGraph(attributePaths = {"pet", "pet.client", "groomer", "serviceItems", "serviceItems.serviceType", "healthChecklist", "appointment"})
-    Page<TechnicalOs> findAll(Specification<TechnicalOs> spec, Pageable pageable);
+public interface TechnicalOsRepository extends JpaRepository<TechnicalOs, Long>, JpaSpecificationExecutor<TechnicalOs>,
+        TechnicalOsPagingRepository {
 
     @Query("SELECT os FROM TechnicalOs os JOIN FETCH os.pet p JOIN FETCH p.client LEFT JOIN FETCH os.appointment WHERE os.id = :id")
     Optional<TechnicalOs> findByIdWithPetAndClient(@Param("id") Long id);
@@ -38,18 +33,10 @@ public interface TechnicalOsRepository extends JpaRepository<TechnicalOs, Long>,
     @Query("SELECT os FROM TechnicalOs os")
     List<TechnicalOs> findAllWithDetails();
 
-    @EntityGraph(attributePaths = {"pet", "pet.client", "groomer", "serviceItems", "serviceItems.serviceType", "healthChecklist", "appointment"})
-    @Query("SELECT os FROM TechnicalOs os")
-    Page<TechnicalOs> findAllWithDetails(Pageable pageable);
-
     @EntityGraph(attributePaths = {"pet", "pet.client", "groomer", "serviceItems", "serviceItems.serviceType", "healthChecklist", "appointment"})
     @Query("SELECT os FROM TechnicalOs os WHERE os.groomer.id = :groomerId")
     List<TechnicalOs> findByGroomerIdWithDetails(@Param("groomerId") Long groomerId);
 
-    @EntityGraph(attributePaths = {"pet", "pet.client", "groomer", "serviceItems", "serviceItems.serviceType", "healthChecklist", "appointment"})
-    @Query("SELECT os FROM TechnicalOs os WHERE os.groomer.id = :groomerId")
-    Page<TechnicalOs> findByGroomerIdWithDetails(@Param("groomerId") Long groomerId, Pageable pageable);
-
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT os FROM TechnicalOs os LEFT JOIN FETCH os.appointment WHERE os.id = :id")
     Optional<TechnicalOs> findByIdForUpdate(@Param("id") Long id);
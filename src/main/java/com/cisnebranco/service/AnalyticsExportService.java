@@ -0,0 +1,307 @@
+package com.cisnebranco.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Nightly export of {@code technical_os}, {@code os_service_items} and {@code payment_events} to
+ * gzip-compressed CSV files for BI, so analytics reads files instead of paging through the API.
+ *
+ * Each run writes one directory under {@code app.analytics-export.dir}, named after its
+ * watermark (e.g. {@code 20261017T033000000}), holding one file per table and a
+ * {@code manifest.json} with the watermark window, column names and types, row counts and
+ * SHA-256 checksums. The directory is assembled under a temporary name and renamed when
+ * complete, so a directory with a manifest is always whole.
+ *
+ * An incremental run exports rows with {@code updated_at} in (previous watermark, new watermark];
+ * a full run exports everything up to the new watermark. The watermark trails the database clock
+ * by {@code lag-seconds}, leaving in-flight transactions time to commit before their rows fall
+ * behind it. All three tables are read in one REPEATABLE READ transaction, so a run is a
+ * consistent snapshot. Deleted rows are not tracked; consumers needing them reload a full run.
+ *
+ * Every replica schedules the nightly run, so a run holds a transaction-level advisory lock from
+ * before it reads the previous watermark until its row in {@code analytics_export_runs} commits;
+ * the others find the lock taken and skip.
+ */
+@Service
+@Slf4j
+public class AnalyticsExportService {
+
+    private static final DateTimeFormatter RUN_ID_FMT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS");
+    private static final int FETCH_SIZE = 1000;
+    // Any constant unique among the application's advisory locks
+    static final long EXPORT_LOCK_KEY = 7236106;
+
+    // Free-text notes are left out: analytics does not need them and they may hold personal data
+    static final List<ExportTable> TABLES = List.of(
+            new ExportTable("technical_os", """
+                    id, pet_id, groomer_id, status, payment_status, total_price, total_commission, balance,
+                    total_paid, payment_balance, started_at, finished_at, delivered_at, created_at, updated_at"""),
+            new ExportTable("os_service_items", """
+                    id, technical_os_id, service_type_id, locked_price, locked_commission_rate,
+                    commission_value, created_at, updated_at"""),
+            new ExportTable("payment_events", """
+                    id, technical_os_id, amount, method, transaction_ref, refund_of_id, created_by,
+                    created_at, updated_at""")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lockTransaction;
+    private final TransactionTemplate snapshotTransaction;
+    private final ObjectMapper objectMapper;
+    private final Path exportDir;
+    private final long lagSeconds;
+
+    public AnalyticsExportService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.analytics-export.dir:./data/analytics-export}") String exportDir,
+                                  @Value("${app.analytics-export.lag-seconds:300}") long lagSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.exportDir = Path.of(exportDir);
+        this.lagSeconds = lagSeconds;
+        this.lockTransaction = new TransactionTemplate(transactionManager);
+        // Its own connection, so the lock transaction stays open around it
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    @Scheduled(cron = "${app.analytics-export.cron:0 45 3 * * *}")
+    public void runNightlyExport() {
+        try {
+            export(false);
+        } catch (Exception e) {
+            log.error("Analytics export failed", e);
+        }
+    }
+
+    /**
+     * Runs one export. Incremental runs continue from the last completed run (the first one is
+     * always full). Returns null if another export is already running, here or on another
+     * instance.
+     */
+    public ExportRun export(boolean full) throws IOException {
+        try {
+            return lockTransaction.execute(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, EXPORT_LOCK_KEY))) {
+                    log.warn("Skipping analytics export — another run is in progress");
+                    return null;
+                }
+                try {
+                    return doExport(full);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Runs in the lock transaction: the run row commits, and becomes visible to the next reader
+    // of MAX(watermark_to), before the lock is released
+    private ExportRun doExport(boolean full) throws IOException {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Timestamp previous = full ? null : jdbcTemplate.queryForObject(
+                "SELECT MAX(watermark_to) FROM analytics_export_runs", Timestamp.class);
+        LocalDateTime from = previous != null ? previous.toLocalDateTime() : null;
+        String mode = from == null ? "FULL" : "INCREMENTAL";
+
+        Files.createDirectories(exportDir);
+        Path tmpDir = Files.createTempDirectory(exportDir, ".export-");
+        try {
+            Manifest manifest = snapshotTransaction.execute(status -> {
+                LocalDateTime to = jdbcTemplate.queryForObject(
+                        "SELECT (now() - make_interval(secs => ?))::timestamp", LocalDateTime.class, lagSeconds);
+                List<ExportedFile> files = new ArrayList<>();
+                for (ExportTable table : TABLES) {
+                    files.add(exportTable(table, from, to, tmpDir));
+                }
+                return new Manifest(to.format(RUN_ID_FMT), mode, from, to, LocalDateTime.now(), files);
+            });
+
+            if (from != null && !manifest.watermarkTo().isAfter(from)) {
+                log.info("Analytics export skipped — watermark has not advanced past {}", from);
+                deleteRecursively(tmpDir);
+                return null;
+            }
+
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .writeValue(tmpDir.resolve("manifest.json").toFile(), manifest);
+            Path runDir = exportDir.resolve(manifest.runId());
+            Files.move(tmpDir, runDir, StandardCopyOption.ATOMIC_MOVE);
+
+            Map<String, Long> rows = new HashMap<>();
+            manifest.files().forEach(f -> rows.put(f.table(), f.rows()));
+            jdbcTemplate.update("""
+                            INSERT INTO analytics_export_runs
+                                (mode, watermark_from, watermark_to, directory, os_rows, item_rows,
+                                 payment_rows, started_at, finished_at)
+                            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                            """,
+                    mode, from != null ? Timestamp.valueOf(from) : null, Timestamp.valueOf(manifest.watermarkTo()),
+                    runDir.getFileName().toString(), rows.get("technical_os"), rows.get("os_service_items"),
+                    rows.get("payment_events"), Timestamp.valueOf(startedAt), Timestamp.valueOf(LocalDateTime.now()));
+
+            log.info("Analytics export {} ({}) written to {}: {}", manifest.runId(), mode, runDir, rows);
+            return new ExportRun(runDir.getFileName().toString(), manifest);
+        } catch (UncheckedIOException e) {
+            deleteRecursively(tmpDir);
+            throw e.getCause();
+        } catch (RuntimeException | IOException e) {
+            deleteRecursively(tmpDir);
+            throw e;
+        }
+    }
+
+    // Runs inside the snapshot transaction, so the cursor is server-side and sees the same data
+    // as the other tables
+    private ExportedFile exportTable(ExportTable table, LocalDateTime from, LocalDateTime to, Path dir) {
+        String fileName = table.name() + ".csv.gz";
+        MessageDigest sha256 = sha256();
+        long[] rows = {0};
+        List<ColumnInfo> columns = new ArrayList<>();
+        Path file = dir.resolve(fileName);
+
+        try (OutputStream raw = new DigestOutputStream(Files.newOutputStream(file), sha256);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                     new GZIPOutputStream(raw), StandardCharsets.UTF_8))) {
+            jdbcTemplate.query(con -> {
+                // Table and column names are constants from TABLES — safe to inline
+                String sql = "SELECT " + table.columns() + " FROM " + table.name()
+                        + " WHERE updated_at <= ?" + (from != null ? " AND updated_at > ?" : "")
+                        + " ORDER BY id";
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setTimestamp(1, Timestamp.valueOf(to));
+                if (from != null) {
+                    ps.setTimestamp(2, Timestamp.valueOf(from));
+                }
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, rs -> {
+                try {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int count = meta.getColumnCount();
+                    if (columns.isEmpty()) {
+                        for (int i = 1; i <= count; i++) {
+                            columns.add(new ColumnInfo(meta.getColumnName(i), meta.getColumnTypeName(i)));
+                        }
+                        writeHeader(out, columns);
+                    }
+                    for (int i = 1; i <= count; i++) {
+                        if (i > 1) {
+                            out.write(',');
+                        }
+                        out.write(csv(rs.getString(i)));
+                    }
+                    out.newLine();
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (columns.isEmpty()) {
+                // No rows: still write the header so every file has the same shape
+                Stream.of(table.columns().split(","))
+                        .map(String::trim)
+                        .forEach(name -> columns.add(new ColumnInfo(name, null)));
+                writeHeader(out, columns);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            return new ExportedFile(table.name(), fileName, rows[0], Files.size(file),
+                    HexFormat.of().formatHex(sha256.digest()), columns);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeHeader(BufferedWriter out, List<ColumnInfo> columns) throws IOException {
+        out.write(String.join(",", columns.stream().map(ColumnInfo::name).toList()));
+        out.newLine();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not clean up {}: {}", dir, e.getMessage());
+        }
+    }
+
+    record ExportTable(String name, String columns) {}
+
+    public record ColumnInfo(String name, String type) {}
+
+    public record ExportedFile(String table, String file, long rows, long bytes, String sha256,
+                               List<ColumnInfo> columns) {}
+
+    public record Manifest(String runId, String mode, LocalDateTime watermarkFrom, LocalDateTime watermarkTo,
+                           LocalDateTime generatedAt, List<ExportedFile> files) {}
+
+    public record ExportRun(String directory, Manifest manifest) {}
+}
@@ -10,7 +10,6 @@ import com.cisnebranco.entity.AvailabilityWindow;
 import com.cisnebranco.entity.Client;
 import com.cisnebranco.entity.Groomer;
 import com.cisnebranco.entity.Pet;
-import com.cisnebranco.entity.PricingMatrix;
 import com.cisnebranco.entity.ServiceType;
 import com.cisnebranco.entity.enums.AppointmentStatus;
 import com.cisnebranco.exception.BusinessException;
@@ -21,8 +20,6 @@ import com.cisnebranco.repository.AvailabilityWindowRepository;
 import com.cisnebranco.repository.ClientRepository;
 import com.cisnebranco.repository.GroomerRepository;
 import com.cisnebranco.repository.PetRepository;
-import com.cisnebranco.repository.PricingMatrixRepository;
-import com.cisnebranco.repository.ServiceTypeBreedPriceRepository;
 import com.cisnebranco.repository.ServiceTypeRepository;
 import com.cisnebranco.repository.TechnicalOsRepository;
 import lombok.RequiredArgsConstructor;
@@ -59,10 +56,9 @@ public class AppointmentService {
     private final PetRepository petRepository;
     private final GroomerRepository groomerRepository;
     private final ServiceTypeRepository serviceTypeRepository;
-    private final PricingMatrixRepository pricingMatrixRepository;
-    private final ServiceTypeBreedPriceRepository breedPriceRepository;
     private final TechnicalOsRepository technicalOsRepository;
     private final TechnicalOsService osService;
+    private final PricingEngine pricingEngine;
     private final AppointmentMapper appointmentMapper;
 
     @Transactional
@@ -255,15 +251,6 @@ public class AppointmentService {
     }
 
     private Optional<BigDecimal> estimatePrice(ServiceType serviceType, Pet pet) {
-        if (pet.getBreed() != null) {
-            var breedPrice = breedPriceRepository
-                    .findByServiceTypeIdAndBreedId(serviceType.getId(), pet.getBreed().getId());
-            if (breedPrice.isPresent()) {
-                return Optional.of(breedPrice.get().getPrice());
-            }
-        }
-        return pricingMatrixRepository
-                .findByServiceTypeIdAndSpeciesAndPetSize(serviceType.getId(), pet.getSpecies(), pet.getSize())
-                .map(PricingMatrix::getPrice);
+        return Optional.ofNullable(pricingEngine.findPrice(serviceType.getId(), pet));
     }
 }
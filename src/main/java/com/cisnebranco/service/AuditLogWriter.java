@@ -0,0 +1,411 @@
+package com.cisnebranco.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer for non-critical audit entries. Callers enqueue into a bounded ring buffer
+ * and return immediately; a single writer thread flushes the buffer with JDBC batch inserts
+ * every {@code flush-interval-ms} or {@code batch-size} entries, whichever comes first — no
+ * second pool connection is taken on the caller's request path.
+ *
+ * When the buffer is full the caller waits up to {@code enqueue-timeout-ms} (backpressure) and
+ * then appends the entry to an on-disk journal instead of dropping it. Batches the database
+ * rejects are journaled too. The journal is replayed once the database accepts writes again
+ * and on the next startup, so entries survive a slow or unavailable database and restarts.
+ * Journaled entries the database rejects on their own (or lines that cannot be read) are moved
+ * to a dead-letter file for manual review instead of holding up the rest of the replay.
+ */
+@Service
+@Slf4j
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO audit_log (action, entity_type, entity_id, username, details, ip_address, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String JOURNAL_FILE = "audit-journal.ndjson";
+    private static final String REPLAY_FILE = "audit-journal.replay.ndjson";
+    // Lines of the replay file already committed, so a retry resumes after them
+    private static final String REPLAY_PROGRESS_FILE = "audit-journal.replay.progress";
+    private static final String DEAD_LETTER_FILE = "audit-journal.dead-letter.ndjson";
+
+    public record AuditRecord(String action, String entityType, Long entityId, String username,
+                              String details, String ipAddress, LocalDateTime createdAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<AuditRecord> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long enqueueTimeoutMs;
+    private final long replayRetryNanos;
+    private final Path journalDir;
+    private final Object journalLock = new Object();
+
+    private final Counter writtenCounter;
+    private final Counter journaledCounter;
+    private final Counter lostCounter;
+    private final Counter rejectedCounter;
+
+    private volatile boolean running;
+    private volatile boolean journalPending;
+    private long lastReplayAttempt;
+    private Thread writerThread;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.audit.buffer-capacity:8192}") int bufferCapacity,
+                          @Value("${app.audit.batch-size:200}") int batchSize,
+                          @Value("${app.audit.flush-interval-ms:250}") long flushIntervalMs,
+                          @Value("${app.audit.enqueue-timeout-ms:50}") long enqueueTimeoutMs,
+                          @Value("${app.audit.replay-retry-ms:30000}") long replayRetryMs,
+                          @Value("${app.audit.journal-dir:./data/audit-journal}") String journalDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.replayRetryNanos = TimeUnit.MILLISECONDS.toNanos(replayRetryMs);
+        this.journalDir = Path.of(journalDir);
+        this.lastReplayAttempt = System.nanoTime() - replayRetryNanos;
+
+        meterRegistry.gauge("audit.buffer.size", buffer, BlockingQueue::size);
+        this.writtenCounter = meterRegistry.counter("audit.entries.written");
+        this.journaledCounter = meterRegistry.counter("audit.entries.journaled");
+        this.lostCounter = meterRegistry.counter("audit.entries.lost");
+        this.rejectedCounter = meterRegistry.counter("audit.entries.rejected");
+    }
+
+    @PostConstruct
+    void start() {
+        journalPending = Files.exists(journalDir.resolve(JOURNAL_FILE))
+                || Files.exists(journalDir.resolve(REPLAY_FILE));
+        running = true;
+        writerThread = Thread.ofPlatform().name("audit-writer").daemon(true).start(this::runWriter);
+    }
+
+    /**
+     * Drains the buffer before the DataSource is closed. Anything the database does not take
+     * ends up in the journal for the next startup.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        List<AuditRecord> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            appendToJournal(remaining);
+        }
+    }
+
+    /**
+     * Queues an entry for the next batch. Never throws: if the buffer stays full for longer than
+     * the enqueue timeout the entry goes straight to the journal.
+     */
+    public void enqueue(AuditRecord entry) {
+        try {
+            if (buffer.offer(entry, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            log.warn("Audit buffer full ({} entries) — journaling entry {} {}#{}",
+                    buffer.size(), entry.action(), entry.entityType(), entry.entityId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendToJournal(List.of(entry));
+    }
+
+    private void runWriter() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditRecord first = buffer.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    replayJournalIfDue();
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                // stop() interrupts us — fall through and write what we already hold
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeOrJournal(batch);
+                batch.clear();
+            }
+        }
+        // Final drain; stop() journals anything that arrives after this. Clear a pending
+        // interrupt first — it would close the journal file channel mid-write.
+        Thread.interrupted();
+        buffer.drainTo(batch);
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            writeOrJournal(batch.subList(from, Math.min(batch.size(), from + batchSize)));
+        }
+    }
+
+    // Fills the batch until it is full or the flush interval since its first entry has elapsed.
+    private void collectBatch(List<AuditRecord> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            AuditRecord next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeOrJournal(List<AuditRecord> batch) {
+        try {
+            insertBatch(batch);
+            writtenCounter.increment(batch.size());
+            log.debug("Audit: flushed {} entries", batch.size());
+        } catch (Exception e) {
+            log.error("[AUDIT_FAILURE] batch insert of {} entries failed — journaling to {}",
+                    batch.size(), journalDir, e);
+            appendToJournal(batch);
+            // Give the database a moment before replaying into it
+            lastReplayAttempt = System.nanoTime();
+        }
+    }
+
+    // One transaction per batch so a failed batch is journaled whole rather than half-written.
+    private void insertBatch(List<AuditRecord> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+                (ps, entry) -> {
+                    ps.setString(1, entry.action());
+                    ps.setString(2, entry.entityType());
+                    if (entry.entityId() != null) {
+                        ps.setLong(3, entry.entityId());
+                    } else {
+                        ps.setNull(3, Types.BIGINT);
+                    }
+                    ps.setString(4, entry.username());
+                    ps.setString(5, entry.details());
+                    ps.setString(6, entry.ipAddress());
+                    ps.setTimestamp(7, Timestamp.valueOf(entry.createdAt()));
+                }));
+    }
+
+    private void appendToJournal(List<AuditRecord> entries) {
+        synchronized (journalLock) {
+            try {
+                Files.createDirectories(journalDir);
+                try (BufferedWriter writer = Files.newBufferedWriter(journalDir.resolve(JOURNAL_FILE),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (AuditRecord entry : entries) {
+                        writer.write(objectMapper.writeValueAsString(entry));
+                        writer.newLine();
+                    }
+                }
+                journalPending = true;
+                journaledCounter.increment(entries.size());
+            } catch (IOException e) {
+                // Last resort: the entries are only in this log line now
+                lostCounter.increment(entries.size());
+                log.error("[AUDIT_FAILURE] could not journal {} audit entries — entries lost: {}",
+                        entries.size(), entries, e);
+            }
+        }
+    }
+
+    /**
+     * Replays journaled entries once the writer is idle. The journal is first moved aside so
+     * new spills go to a fresh file; a replay file left by a failed attempt or a crash is
+     * retried before the journal is rotated again.
+     */
+    private void replayJournalIfDue() {
+        if (!journalPending || System.nanoTime() - lastReplayAttempt < replayRetryNanos) {
+            return;
+        }
+        lastReplayAttempt = System.nanoTime();
+        Path replayFile = journalDir.resolve(REPLAY_FILE);
+        try {
+            if (!Files.exists(replayFile)) {
+                synchronized (journalLock) {
+                    Path journalFile = journalDir.resolve(JOURNAL_FILE);
+                    if (!Files.exists(journalFile)) {
+                        journalPending = false;
+                        return;
+                    }
+                    // Progress left by a crash after the previous replay file was deleted
+                    Files.deleteIfExists(journalDir.resolve(REPLAY_PROGRESS_FILE));
+                    Files.move(journalFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            int replayed = replayFile(replayFile);
+            Files.delete(replayFile);
+            Files.deleteIfExists(journalDir.resolve(REPLAY_PROGRESS_FILE));
+            log.info("Replayed {} journaled audit entries", replayed);
+            synchronized (journalLock) {
+                journalPending = Files.exists(journalDir.resolve(JOURNAL_FILE));
+            }
+        } catch (Exception e) {
+            log.warn("Audit journal replay failed, will retry in {}s: {}",
+                    TimeUnit.NANOSECONDS.toSeconds(replayRetryNanos), e.getMessage());
+        }
+    }
+
+    /**
+     * Replays the file in batches, recording after each committed one how many lines are done,
+     * so a retry resumes where the last attempt stopped; only a crash between a commit and its
+     * record replays that batch twice. A batch the database rejects is retried entry by entry.
+     * An outage aborts the replay for a later retry, while an entry rejected on its own goes to
+     * the dead-letter file.
+     */
+    private int replayFile(Path file) throws IOException {
+        Path progressFile = journalDir.resolve(REPLAY_PROGRESS_FILE);
+        long done = Files.exists(progressFile) ? Long.parseLong(Files.readString(progressFile).trim()) : 0;
+        int replayed = 0;
+        long lineNumber = 0;
+        List<String> lines = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= done) {
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    replayed += replayBatch(lines, lineNumber - lines.size(), progressFile);
+                    lines.clear();
+                }
+            }
+        }
+        if (!lines.isEmpty()) {
+            replayed += replayBatch(lines, lineNumber - lines.size(), progressFile);
+        }
+        return replayed;
+    }
+
+    // firstLine is the number of lines of the file before lines.get(0)
+    private int replayBatch(List<String> lines, long firstLine, Path progressFile) throws IOException {
+        List<AuditRecord> entries = new ArrayList<>(lines.size());
+        List<String> unreadable = new ArrayList<>();
+        for (String line : lines) {
+            AuditRecord entry = parse(line);
+            if (entry != null) {
+                entries.add(entry);
+            } else if (!line.isBlank()) {
+                unreadable.add(line);
+            }
+        }
+        try {
+            if (!entries.isEmpty()) {
+                insertBatch(entries);
+                writtenCounter.increment(entries.size());
+            }
+            for (String line : unreadable) {
+                deadLetter(line, "unreadable line", null);
+            }
+            recordProgress(progressFile, firstLine + lines.size());
+            return entries.size();
+        } catch (RuntimeException e) {
+            if (isOutage(e)) {
+                throw e;
+            }
+            log.warn("Audit journal batch of {} entries rejected, retrying them one by one: {}",
+                    entries.size(), e.getMessage());
+        }
+
+        int written = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            AuditRecord entry = parse(line);
+            if (entry != null) {
+                try {
+                    insertBatch(List.of(entry));
+                    writtenCounter.increment();
+                    written++;
+                } catch (RuntimeException e) {
+                    if (isOutage(e)) {
+                        throw e;
+                    }
+                    deadLetter(line, "rejected by the database", e);
+                }
+            } else if (!line.isBlank()) {
+                deadLetter(line, "unreadable line", null);
+            }
+            recordProgress(progressFile, firstLine + i + 1);
+        }
+        return written;
+    }
+
+    private AuditRecord parse(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(line, AuditRecord.class);
+        } catch (IOException e) {
+            // Typically a torn last line from a crash mid-append
+            return null;
+        }
+    }
+
+    // The database is unreachable rather than refusing this data — worth retrying later as is
+    private static boolean isOutage(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private void deadLetter(String line, String reason, Exception cause) throws IOException {
+        Files.writeString(journalDir.resolve(DEAD_LETTER_FILE), line + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        rejectedCounter.increment();
+        log.error("[AUDIT_FAILURE] journaled audit entry {} — moved to {}: {}",
+                reason, journalDir.resolve(DEAD_LETTER_FILE), line, cause);
+    }
+
+    private static void recordProgress(Path progressFile, long lines) throws IOException {
+        Path tmp = progressFile.resolveSibling(progressFile.getFileName() + ".tmp");
+        Files.writeString(tmp, Long.toString(lines), StandardCharsets.UTF_8);
+        Files.move(tmp, progressFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,256 @@
+package com.cisnebranco.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly {@code audit_log} partitions (V16) in shape: creates partitions ahead of
+ * time so inserts never hit a missing month, and moves months older than the retention window
+ * out of the database as gzip-compressed CSV files.
+ *
+ * An expired partition is detached first (new rows can no longer land in it), exported, and
+ * only dropped once the archive file is complete. A partition left detached by a failed export
+ * is picked up again on the next run.
+ *
+ * Rows for a month without a partition land in {@code audit_log_default} (V25); each run moves
+ * them into a partition for their month, so expired ones are archived like any other. Every
+ * replica schedules the run, and a session-level advisory lock lets only one of them work at a
+ * time — a transaction-level lock would keep the DETACH's exclusive lock on {@code audit_log},
+ * and so every audited write, waiting for the whole export.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditPartitionMaintenanceService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^audit_log_y(\\d{4})m(\\d{2})$");
+    private static final String CSV_HEADER = "id,action,entity_type,entity_id,username,details,ip_address,created_at";
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    // Any constant unique among the application's advisory locks
+    static final long MAINTENANCE_LOCK_KEY = 7236108;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+
+    @Value("${app.audit.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.audit.partition.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${app.audit.partition.archive-dir:./data/audit-archive}")
+    private String archiveDir;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        try {
+            ensureFuturePartitions();
+        } catch (Exception e) {
+            log.error("Failed to pre-create audit_log partitions on startup", e);
+        }
+    }
+
+    @Scheduled(cron = "0 15 2 * * *")
+    public void runMaintenance() {
+        // The lock belongs to this connection's session, so it is held here for the whole run
+        // and released even if the instance dies
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!advisoryLock(lockConnection, "pg_try_advisory_lock")) {
+                log.warn("Skipping audit partition maintenance — another run is in progress");
+                return;
+            }
+            try {
+                ensureFuturePartitions();
+                rehomeDefaultRows();
+                archiveExpiredPartitions();
+            } finally {
+                advisoryLock(lockConnection, "pg_advisory_unlock");
+            }
+        } catch (Exception e) {
+            log.error("Audit partition maintenance failed", e);
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT " + function + "(?)")) {
+            ps.setLong(1, MAINTENANCE_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /** Creates partitions for the current month through {@code months-ahead} months ahead. */
+    public List<String> ensureFuturePartitions() {
+        YearMonth current = YearMonth.now();
+        List<String> partitions = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = current.plusMonths(i).atDay(1);
+            partitions.add(jdbcTemplate.queryForObject(
+                    "SELECT create_audit_log_partition(?)", String.class, month));
+        }
+        log.debug("Ensured audit_log partitions: {}", partitions);
+        return partitions;
+    }
+
+    /**
+     * Moves rows out of {@code audit_log_default} into partitions for their months, creating
+     * them. Rows only end up there when their month had no partition, so finding any is logged
+     * as a warning. Returns the number of rows moved.
+     */
+    public long rehomeDefaultRows() {
+        List<LocalDate> months = jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', created_at)::date FROM audit_log_default ORDER BY 1",
+                LocalDate.class);
+        if (months.isEmpty()) {
+            return 0;
+        }
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM audit_log_default", Long.class);
+        log.warn("audit_log_default holds {} rows for months without a partition {} — moving them into new partitions",
+                rows, months);
+        for (LocalDate month : months) {
+            jdbcTemplate.queryForObject("SELECT create_audit_log_partition(?)", String.class, month);
+        }
+        return rows;
+    }
+
+    /**
+     * Detaches, exports and drops every partition whose month lies entirely before the
+     * retention window. Returns the archive files written.
+     */
+    public List<Path> archiveExpiredPartitions() throws IOException {
+        YearMonth oldestRetained = YearMonth.now().minusMonths(retentionMonths);
+        Path targetDir = Path.of(archiveDir);
+        Files.createDirectories(targetDir);
+
+        List<Path> archives = new ArrayList<>();
+        for (PartitionInfo partition : listPartitions()) {
+            if (!partition.month().isBefore(oldestRetained)) {
+                continue;
+            }
+            if (partition.attached()) {
+                jdbcTemplate.execute("ALTER TABLE audit_log DETACH PARTITION " + partition.name());
+                log.info("Detached audit_log partition {}", partition.name());
+            }
+            Path archive = targetDir.resolve(partition.name() + ".csv.gz");
+            long rows = exportPartition(partition.name(), archive);
+            jdbcTemplate.execute("DROP TABLE " + partition.name());
+            log.info("Archived audit_log partition {} ({} rows) to {}", partition.name(), rows, archive);
+            archives.add(archive);
+        }
+        return archives;
+    }
+
+    private List<PartitionInfo> listPartitions() {
+        // Includes detached leftovers from a previous failed export (attached = false)
+        return jdbcTemplate.query("""
+                        SELECT c.relname AS name, i.inhrelid IS NOT NULL AS attached
+                        FROM pg_class c
+                        LEFT JOIN pg_inherits i
+                          ON i.inhrelid = c.oid AND i.inhparent = 'audit_log'::regclass
+                        WHERE c.relkind = 'r'
+                          AND c.relnamespace = current_schema()::regnamespace
+                          AND c.relname ~ '^audit_log_y[0-9]{4}m[0-9]{2}$'
+                        ORDER BY c.relname
+                        """,
+                (rs, rowNum) -> {
+                    String name = rs.getString("name");
+                    Matcher m = PARTITION_NAME.matcher(name);
+                    if (!m.matches()) {
+                        throw new IllegalStateException("Unexpected audit_log partition name: " + name);
+                    }
+                    YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                    return new PartitionInfo(name, month, rs.getBoolean("attached"));
+                });
+    }
+
+    /**
+     * Streams the partition through a server-side cursor (fetch size inside a transaction) into a
+     * temp file that is moved into place only when complete, so a half-written archive never
+     * looks finished and the partition is never dropped without a full copy.
+     */
+    private long exportPartition(String partitionName, Path archive) throws IOException {
+        Path tmp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        AtomicLong rows = new AtomicLong();
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+            out.write(CSV_HEADER);
+            out.newLine();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                // partitionName comes from pg_class and matched PARTITION_NAME — safe to inline
+                PreparedStatement ps = con.prepareStatement(
+                        "SELECT id, action, entity_type, entity_id, username, details, ip_address, created_at FROM "
+                                + partitionName + " ORDER BY created_at, id");
+                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                return ps;
+            }, rs -> {
+                try {
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    out.write(rs.getLong("id") + ","
+                            + csv(rs.getString("action")) + ","
+                            + csv(rs.getString("entity_type")) + ","
+                            + (rs.getObject("entity_id") != null ? rs.getLong("entity_id") : "") + ","
+                            + csv(rs.getString("username")) + ","
+                            + csv(rs.getString("details")) + ","
+                            + csv(rs.getString("ip_address")) + ","
+                            + createdAt.toLocalDateTime());
+                    out.newLine();
+                    rows.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tmp);
+            throw e.getCause();
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows.get();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private record PartitionInfo(String name, YearMonth month, boolean attached) {}
+}
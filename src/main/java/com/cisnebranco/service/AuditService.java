@@ -14,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -22,15 +23,17 @@ import java.util.List;
 public class AuditService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    // Non-critical entries go through the batched background writer: no transaction and no
+    // extra pool connection on the caller's path. Username and IP are captured here because
+    // they live in thread-bound request state the writer thread cannot see.
     public void log(String action, String entityType, Long entityId, String details) {
-        persistEntry(action, entityType, entityId, details, getCurrentUsername());
+        enqueueEntry(action, entityType, entityId, details, getCurrentUsername());
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void log(String action, String entityType, Long entityId, String details, String username) {
-        persistEntry(action, entityType, entityId, details, username);
+        enqueueEntry(action, entityType, entityId, details, username);
     }
 
     /**
@@ -51,10 +54,16 @@ public class AuditService {
         log.debug("Audit (critical): {} {} #{} — {}", action, entityType, entityId, details);
     }
 
+    /**
+     * Nothing is audited for an OS before it exists, so its creation time bounds the search and
+     * only audit_log partitions from that month onward are scanned. The one-day margin absorbs
+     * clock skew between the application (entry timestamps) and the database (OS created_at).
+     */
     @Transactional(readOnly = true)
-    public List<AuditLogResponse> findByOs(Long osId) {
+    public List<AuditLogResponse> findByOs(Long osId, LocalDateTime osCreatedAt) {
         return auditLogRepository
-                .findByEntityTypeAndEntityIdOrderByCreatedAtAsc("TechnicalOs", osId)
+                .findByEntityTypeAndEntityIdAndCreatedAtGreaterThanEqualOrderByCreatedAtAsc(
+                        "TechnicalOs", osId, osCreatedAt.minusDays(1))
                 .stream()
                 .map(e -> new AuditLogResponse(
                         e.getId(), e.getAction(), e.getEntityType(), e.getEntityId(),
@@ -62,20 +71,13 @@ public class AuditService {
                 .toList();
     }
 
-    private void persistEntry(String action, String entityType, Long entityId, String details, String username) {
+    private void enqueueEntry(String action, String entityType, Long entityId, String details, String username) {
         try {
-            AuditLog entry = new AuditLog();
-            entry.setAction(action);
-            entry.setEntityType(entityType);
-            entry.setEntityId(entityId);
-            entry.setDetails(details);
-            entry.setUsername(username);
-            entry.setIpAddress(getCurrentIp());
-
-            auditLogRepository.save(entry);
+            auditLogWriter.enqueue(new AuditLogWriter.AuditRecord(action, entityType, entityId, username,
+                    details, getCurrentIp(), LocalDateTime.now()));
             log.debug("Audit: {} {} #{} by {} - {}", action, entityType, entityId, username, details);
         } catch (Exception e) {
-            // [AUDIT_FAILURE] Intentionally non-fatal — the business operation has already committed.
+            // [AUDIT_FAILURE] Intentionally non-fatal — never fail the business operation over an audit entry.
             // Alert on this log pattern to detect audit gaps before they become a compliance issue.
             log.error("[AUDIT_FAILURE] action={} entity={}#{} user={} — audit entry lost",
                     action, entityType, entityId, username, e);
@@ -0,0 +1,150 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.request.AuditSearchCriteria;
+import com.cisnebranco.dto.request.KeysetCursor;
+import com.cisnebranco.dto.response.AuditLogResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset-paginated reads of {@code audit_log}, streamed straight from a JDBC cursor into the
+ * response as {@code {"items": [...], "nextCursor": "..."}}. Rows are serialized as they are
+ * fetched, so memory stays constant regardless of page size, and each page is an index range
+ * scan on (created_at, id) no matter how deep the client has paged.
+ *
+ * Both methods validate their input eagerly; the returned body only runs the query.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditTrailService {
+
+    private static final String COLUMNS =
+            "id, action, entity_type, entity_id, username, details, ip_address, created_at";
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * One entity's history, oldest first. {@code since} bounds the scan so audit_log partitions
+     * from before the entity existed are pruned.
+     */
+    public StreamingResponseBody streamEntityTrail(String entityType, Long entityId, LocalDateTime since,
+                                                   KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM audit_log"
+                + " WHERE entity_type = ? AND entity_id = ? AND created_at >= ?");
+        List<Object> args = new ArrayList<>(List.of(entityType, entityId, Timestamp.valueOf(since)));
+        if (after != null) {
+            sql.append(" AND (created_at, id) > (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY created_at, id");
+        return streamPage(sql.toString(), args, limit);
+    }
+
+    /** Global search, newest first, within a mandatory date range (keeps partition pruning). */
+    public StreamingResponseBody search(AuditSearchCriteria criteria, KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM audit_log"
+                + " WHERE created_at >= ? AND created_at < ?");
+        List<Object> args = new ArrayList<>(List.of(
+                Timestamp.valueOf(criteria.from()), Timestamp.valueOf(criteria.to())));
+        if (criteria.action() != null) {
+            sql.append(" AND action = ?");
+            args.add(criteria.action());
+        }
+        if (criteria.username() != null) {
+            sql.append(" AND username = ?");
+            args.add(criteria.username());
+        }
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        return streamPage(sql.toString(), args, limit);
+    }
+
+    // Fetches limit + 1 rows: the extra row only signals that another page exists.
+    private StreamingResponseBody streamPage(String sql, List<Object> args, int limit) {
+        return out -> {
+            JsonGenerator json = objectMapper.createGenerator(out);
+            json.writeStartObject();
+            json.writeArrayFieldStart("items");
+
+            PageState page = new PageState();
+            try {
+                // The PostgreSQL driver only uses a server-side cursor inside a transaction
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(sql + " LIMIT ?");
+                    for (int i = 0; i < args.size(); i++) {
+                        ps.setObject(i + 1, args.get(i));
+                    }
+                    ps.setInt(args.size() + 1, limit + 1);
+                    ps.setFetchSize(FETCH_SIZE);
+                    return ps;
+                }, rs -> {
+                    if (page.written == limit) {
+                        page.hasMore = true;
+                        return;
+                    }
+                    AuditLogResponse entry = mapRow(rs);
+                    try {
+                        json.writeObject(entry);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    page.written++;
+                    page.last = new KeysetCursor(entry.createdAt(), entry.id());
+                }));
+            } catch (UncheckedIOException e) {
+                // Client went away mid-stream
+                throw e.getCause();
+            }
+
+            json.writeEndArray();
+            if (page.hasMore) {
+                json.writeStringField("nextCursor", page.last.encode());
+            } else {
+                json.writeNullField("nextCursor");
+            }
+            json.writeEndObject();
+            json.flush();
+        };
+    }
+
+    private static AuditLogResponse mapRow(ResultSet rs) throws SQLException {
+        return new AuditLogResponse(
+                rs.getLong("id"),
+                rs.getString("action"),
+                rs.getString("entity_type"),
+                rs.getObject("entity_id", Long.class),
+                rs.getString("username"),
+                rs.getString("details"),
+                rs.getString("ip_address"),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    }
+
+    private static final class PageState {
+        int written;
+        boolean hasMore;
+        KeysetCursor last;
+    }
+}
@@ -1,67 +1,231 @@
 package com.cisnebranco.service;
 
 import com.cisnebranco.dto.request.BatchSyncRequest;
+import com.cisnebranco.dto.request.BatchSyncRequest.BatchStatusUpdate;
 import com.cisnebranco.dto.request.CheckInRequest;
 import com.cisnebranco.dto.response.BatchSyncResponse;
 import com.cisnebranco.dto.response.BatchSyncResponse.BatchItemResult;
-import com.cisnebranco.dto.response.TechnicalOsResponse;
+import com.cisnebranco.entity.enums.SyncOperationType;
 import com.cisnebranco.exception.BusinessException;
 import com.cisnebranco.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Applies an offline batch concurrently. Every operation runs on its own virtual thread and in
+ * its own transaction (the {@link TechnicalOsService} methods are {@code @Transactional}), so a
+ * failing item never rolls back its neighbours.
+ *
+ * Check-ins each create a new OS and are fully independent. Status updates are grouped by
+ * {@code osId}: one group runs its updates sequentially in request order (WAITING → IN_PROGRESS
+ * → READY must not be reordered), while different groups run in parallel. Results are written
+ * into slots keyed by request index, so the response order matches the request exactly.
+ *
+ * Items carrying a {@code clientOperationId} are applied at most once: a retried sync gets the
+ * stored result back instead of re-executing (see {@link SyncOperationService}).
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BatchSyncService {
 
+    private static final String CHECK_IN = "check_in";
+    private static final String STATUS_UPDATE = "status_update";
+
     private final TechnicalOsService osService;
+    private final SyncOperationService syncOperationService;
+    private final MeterRegistry meterRegistry;
+
+    // Each operation holds one pooled connection for its transaction (audit entries are queued
+    // to AuditLogWriter, not written on it) — keep a few connections of the Hikari pool free
+    // for interactive requests.
+    @Value("${app.sync.max-concurrency:6}")
+    private int maxConcurrency;
 
     public BatchSyncResponse processBatch(BatchSyncRequest request, Long userId) {
-        List<BatchItemResult> checkInResults = new ArrayList<>();
-        List<BatchItemResult> statusResults = new ArrayList<>();
-
-        if (request.checkIns() != null) {
-            for (int i = 0; i < request.checkIns().size(); i++) {
-                CheckInRequest checkIn = request.checkIns().get(i);
-                try {
-                    TechnicalOsResponse os = osService.checkIn(checkIn, userId);
-                    checkInResults.add(BatchItemResult.ok(i, os.id()));
-                } catch (ResourceNotFoundException | BusinessException e) {
-                    log.warn("Batch check-in failed at index {}: {}", i, e.getMessage());
-                    checkInResults.add(BatchItemResult.fail(i, e.getMessage()));
-                } catch (Exception e) {
-                    var prepaid = checkIn.prepaidPayment();
-                    log.error("Unexpected error in batch check-in at index {} (petId={}, prepaid={}/{}): {}",
-                            i, checkIn.petId(),
-                            prepaid != null ? prepaid.amount().toPlainString() : "none",
-                            prepaid != null ? prepaid.method() : "—",
-                            e.getMessage(), e);
-                    checkInResults.add(BatchItemResult.fail(i, "Internal error"));
-                }
+        List<CheckInRequest> checkIns = request.checkIns() != null ? request.checkIns() : List.of();
+        List<BatchStatusUpdate> statusUpdates = request.statusUpdates() != null ? request.statusUpdates() : List.of();
+
+        BatchItemResult[] checkInResults = new BatchItemResult[checkIns.size()];
+        BatchItemResult[] statusResults = new BatchItemResult[statusUpdates.size()];
+
+        Map<Long, List<Integer>> updatesByOs = new LinkedHashMap<>();
+        for (int i = 0; i < statusUpdates.size(); i++) {
+            updatesByOs.computeIfAbsent(statusUpdates.get(i).osId(), k -> new ArrayList<>()).add(i);
+        }
+
+        // Bounds DB work, not threads: virtual threads are cheap, pooled connections are not
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrency));
+        CallerContext callerContext = CallerContext.capture();
+        List<Future<?>> futures = new ArrayList<>(checkIns.size() + updatesByOs.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < checkIns.size(); i++) {
+                int index = i;
+                long queuedAt = System.nanoTime();
+                futures.add(executor.submit(() -> checkInResults[index] = runWithPermit(
+                        permits, callerContext, CHECK_IN, queuedAt,
+                        () -> checkIn(index, checkIns.get(index), userId))));
+            }
+            for (List<Integer> indices : updatesByOs.values()) {
+                long queuedAt = System.nanoTime();
+                futures.add(executor.submit(() -> {
+                    for (int index : indices) {
+                        statusResults[index] = runWithPermit(
+                                permits, callerContext, STATUS_UPDATE, queuedAt,
+                                () -> statusUpdate(index, statusUpdates.get(index), userId));
+                    }
+                }));
             }
+            awaitAll(futures);
         }
 
-        if (request.statusUpdates() != null) {
-            for (int i = 0; i < request.statusUpdates().size(); i++) {
-                var update = request.statusUpdates().get(i);
-                try {
-                    TechnicalOsResponse os = osService.updateStatus(update.osId(), update.statusUpdate());
-                    statusResults.add(BatchItemResult.ok(i, os.id()));
-                } catch (ResourceNotFoundException | BusinessException e) {
-                    log.warn("Batch status update failed at index {}: {}", i, e.getMessage());
-                    statusResults.add(BatchItemResult.fail(i, e.getMessage()));
-                } catch (Exception e) {
-                    log.error("Unexpected error in batch status update at index {}", i, e);
-                    statusResults.add(BatchItemResult.fail(i, "Internal error"));
-                }
+        return new BatchSyncResponse(Arrays.asList(checkInResults), Arrays.asList(statusResults));
+    }
+
+    private BatchItemResult checkIn(int index, CheckInRequest checkIn, Long userId) {
+        try {
+            Long osId = executeOnce(checkIn.clientOperationId(), SyncOperationType.CHECK_IN, userId,
+                    () -> osService.checkIn(checkIn, userId).id());
+            return BatchItemResult.ok(index, osId);
+        } catch (ResourceNotFoundException | BusinessException e) {
+            log.warn("Batch check-in failed at index {}: {}", index, e.getMessage());
+            return BatchItemResult.fail(index, e.getMessage());
+        } catch (Exception e) {
+            var prepaid = checkIn.prepaidPayment();
+            log.error("Unexpected error in batch check-in at index {} (petId={}, prepaid={}/{}): {}",
+                    index, checkIn.petId(),
+                    prepaid != null ? prepaid.amount().toPlainString() : "none",
+                    prepaid != null ? prepaid.method() : "—",
+                    e.getMessage(), e);
+            return BatchItemResult.fail(index, "Internal error");
+        }
+    }
+
+    private BatchItemResult statusUpdate(int index, BatchStatusUpdate update, Long userId) {
+        try {
+            Long osId = executeOnce(update.clientOperationId(), SyncOperationType.STATUS_UPDATE, userId,
+                    () -> osService.updateStatus(update.osId(), update.statusUpdate()).id());
+            return BatchItemResult.ok(index, osId);
+        } catch (ResourceNotFoundException | BusinessException e) {
+            log.warn("Batch status update failed at index {}: {}", index, e.getMessage());
+            return BatchItemResult.fail(index, e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error in batch status update at index {}", index, e);
+            return BatchItemResult.fail(index, "Internal error");
+        }
+    }
+
+    private Long executeOnce(String operationId, SyncOperationType type, Long userId, Supplier<Long> operation) {
+        if (operationId == null) {
+            return operation.get();
+        }
+        Optional<Long> replayed = syncOperationService.findCompletedOsId(operationId, type, userId);
+        if (replayed.isPresent()) {
+            meterRegistry.counter("sync.batch.replayed", "type", typeTag(type)).increment();
+            log.debug("Replaying stored result for sync operation {} ({})", operationId, type);
+            return replayed.get();
+        }
+        try {
+            return syncOperationService.executeOnce(operationId, type, userId, operation);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent retry claimed the same id first; its transaction has ended by now
+            Optional<Long> winner = syncOperationService.findCompletedOsId(operationId, type, userId);
+            if (winner.isEmpty()) {
+                throw e;
             }
+            meterRegistry.counter("sync.batch.replayed", "type", typeTag(type)).increment();
+            return winner.get();
         }
+    }
 
-        return new BatchSyncResponse(checkInResults, statusResults);
+    private static String typeTag(SyncOperationType type) {
+        return type == SyncOperationType.CHECK_IN ? CHECK_IN : STATUS_UPDATE;
+    }
+
+    /**
+     * Queue wait runs from submission until a permit is granted — for a status update this
+     * includes waiting behind earlier updates of the same OS.
+     */
+    private BatchItemResult runWithPermit(Semaphore permits, CallerContext callerContext,
+                                          String type, long queuedAt, Supplier<BatchItemResult> operation) {
+        permits.acquireUninterruptibly();
+        try {
+            long startedAt = System.nanoTime();
+            meterRegistry.timer("sync.batch.queue.wait", "type", type)
+                    .record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+
+            BatchItemResult result;
+            callerContext.apply();
+            try {
+                result = operation.get();
+            } finally {
+                CallerContext.clear();
+            }
+
+            meterRegistry.timer("sync.batch.operation", "type", type,
+                            "outcome", result.success() ? "success" : "failure")
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return result;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for batch sync operations", e);
+            } catch (ExecutionException e) {
+                // Operations catch Exception themselves; only Errors reach this point
+                throw new IllegalStateException("Batch sync operation failed unexpectedly", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Thread-bound request state the operations rely on: the authenticated user (audit username)
+     * and the servlet request (audit IP). Worker threads start without either.
+     */
+    private record CallerContext(SecurityContext securityContext, RequestAttributes requestAttributes) {
+
+        static CallerContext capture() {
+            return new CallerContext(SecurityContextHolder.getContext(), RequestContextHolder.getRequestAttributes());
+        }
+
+        void apply() {
+            SecurityContextHolder.setContext(securityContext);
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+        }
+
+        static void clear() {
+            SecurityContextHolder.clearContext();
+            RequestContextHolder.resetRequestAttributes();
+        }
     }
 }
@@ -5,12 +5,14 @@ import com.cisnebranco.dto.response.BreedServicePriceResponse;
 import com.cisnebranco.entity.Breed;
 import com.cisnebranco.entity.ServiceType;
 import com.cisnebranco.entity.ServiceTypeBreedPrice;
+import com.cisnebranco.event.PricingChangedEvent;
 import com.cisnebranco.exception.BusinessException;
 import com.cisnebranco.exception.ResourceNotFoundException;
 import com.cisnebranco.repository.BreedRepository;
 import com.cisnebranco.repository.ServiceTypeBreedPriceRepository;
 import com.cisnebranco.repository.ServiceTypeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,7 @@ public class BreedPriceService {
     private final ServiceTypeBreedPriceRepository priceRepository;
     private final BreedRepository breedRepository;
     private final ServiceTypeRepository serviceTypeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<BreedServicePriceResponse> getServicePricesForBreed(Long breedId) {
@@ -56,6 +59,8 @@ public class BreedPriceService {
 
         price.setPrice(request.price());
         ServiceTypeBreedPrice saved = priceRepository.save(price);
+        // PricingEngine rebuilds its snapshot once this transaction commits
+        eventPublisher.publishEvent(new PricingChangedEvent(this));
         return toResponse(breedId, serviceType, saved.getPrice());
     }
 
@@ -0,0 +1,102 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.service.SseMessage.Audience;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Notifications between API instances over the {@link SseEventBus}, for in-memory state (caches,
+ * snapshots) that a write committed on another replica makes stale. Messages are addressed to
+ * {@link Audience#INSTANCES}, so no SSE connection ever sees them.
+ *
+ * The publisher has already applied the change to its own state, so handlers only run for
+ * messages from other instances. They run one at a time on a thread of their own, never on the
+ * bus's dispatch thread. With a bus that is not shared there is nobody to tell and publishing
+ * does nothing. Delivery is at most once, like the bus; callers keep their TTL or periodic
+ * refresh as the bound on staleness.
+ */
+@Component
+@Slf4j
+public class InstanceEvents {
+
+    private final SseEventBus eventBus;
+    private final ObjectMapper objectMapper;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("instance-events").factory());
+
+    public InstanceEvents(SseEventBus eventBus, ObjectMapper objectMapper) {
+        this.eventBus = eventBus;
+        this.objectMapper = objectMapper;
+        eventBus.subscribe(this::deliver);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+    }
+
+    /** Tells the other instances about {@code topic}; {@code payload} may be null. */
+    public void publish(String topic, String payload) {
+        if (!eventBus.isShared()) {
+            return;
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new Envelope(instanceId, payload));
+            eventBus.publish(new SseMessage(Audience.INSTANCES, topic, null, json));
+        } catch (Exception e) {
+            log.error("Failed to publish instance event '{}' — other instances stay stale until their next refresh",
+                    topic, e);
+        }
+    }
+
+    /** Runs {@code handler} with the payload of every {@code topic} message another instance publishes. */
+    public void subscribe(String topic, Consumer<String> handler) {
+        handlers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    // Called by the bus in id order, for every message
+    private void deliver(long id, SseMessage message) {
+        if (!message.audience().instancesOnly()) {
+            return;
+        }
+        List<Consumer<String>> topicHandlers = handlers.get(message.eventName());
+        if (topicHandlers == null) {
+            return;
+        }
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(message.data(), Envelope.class);
+        } catch (IOException e) {
+            log.error("Discarding malformed instance event '{}' ({})", message.eventName(), id, e);
+            return;
+        }
+        if (instanceId.equals(envelope.origin())) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            for (Consumer<String> handler : topicHandlers) {
+                try {
+                    handler.accept(envelope.payload());
+                } catch (Exception e) {
+                    log.error("Handler for instance event '{}' failed", message.eventName(), e);
+                }
+            }
+        });
+    }
+
+    record Envelope(String origin, String payload) {}
+}
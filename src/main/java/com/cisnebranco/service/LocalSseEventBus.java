@@ -0,0 +1,42 @@
+package com.cisnebranco.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process bus for a single instance: delivers synchronously on the publishing thread.
+ * Ids start at the startup time in microseconds, so ids handed out by a previous run are
+ * always lower than this run's.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sse.bus", havingValue = "local", matchIfMissing = true)
+public class LocalSseEventBus implements SseEventBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private long lastId = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+
+    @Override
+    public void publish(SseMessage message) {
+        lock.lock();
+        try {
+            long id = ++lastId;
+            for (Listener listener : listeners) {
+                listener.deliver(id, message);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
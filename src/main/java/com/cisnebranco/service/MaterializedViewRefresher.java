@@ -0,0 +1,261 @@
+package com.cisnebranco.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Refreshes the reporting materialized views (V7). Independent views refresh in parallel on
+ * virtual threads, each over its own pooled connection, bounded by
+ * {@code app.reports.view-refresh.parallelism}; a view listing other views in {@code dependsOn}
+ * starts only once those have finished, and is always refreshed if any of them was.
+ *
+ * A view is skipped when none of its source tables changed since its last successful refresh,
+ * judged by the striped change counters in {@code report_source_changes} (V19). The watermark is
+ * read before the refresh starts, so a write racing with the refresh leaves the counter ahead of
+ * the stored value and the view is picked up again on the next run.
+ *
+ * Per-view duration, row count and last success are kept in {@code materialized_view_refresh_state}
+ * and exposed through the {@code reportviews} actuator endpoint.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MaterializedViewRefresher {
+
+    // Listed in dependency order: a view may only depend on views above it
+    static final List<ViewDefinition> VIEWS = List.of(
+            new ViewDefinition("mv_daily_revenue", List.of("technical_os"), List.of()),
+            new ViewDefinition("mv_service_type_stats",
+                    List.of("os_service_items", "service_types", "technical_os"), List.of()),
+            new ViewDefinition("mv_groomer_performance", List.of("groomers", "technical_os"), List.of()),
+            new ViewDefinition("mv_os_status_distribution", List.of("technical_os"), List.of()),
+            new ViewDefinition("mv_payment_method_stats", List.of("payment_events"), List.of())
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Guard against overlapping runs (scheduled nightly run vs. POST /reports/refresh)
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean(false);
+
+    // Each refresh holds one pooled connection for its whole duration
+    @Value("${app.reports.view-refresh.parallelism:2}")
+    private int parallelism;
+
+    /**
+     * Refreshes every view whose sources changed ({@code force} refreshes all of them).
+     * REFRESH MATERIALIZED VIEW CONCURRENTLY cannot run inside a transaction block, so each
+     * statement runs through JdbcTemplate with autocommit.
+     */
+    public RefreshSummary refreshAll(boolean force) {
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            log.warn("Skipping materialized view refresh — previous run still in progress");
+            return new RefreshSummary(0, 0, 0);
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, Long> sourceWatermarks = loadSourceWatermarks();
+            Map<String, Long> refreshedAgainst = loadRefreshedWatermarks();
+            Semaphore permits = new Semaphore(Math.max(1, parallelism));
+            Map<String, CompletableFuture<Outcome>> outcomes = new LinkedHashMap<>();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (ViewDefinition view : VIEWS) {
+                    List<CompletableFuture<Outcome>> upstream = new ArrayList<>();
+                    for (String dependency : view.dependsOn()) {
+                        CompletableFuture<Outcome> future = outcomes.get(dependency);
+                        if (future == null) {
+                            throw new IllegalStateException(view.name() + " must be listed after " + dependency);
+                        }
+                        upstream.add(future);
+                    }
+                    long watermark = view.sourceTables().stream()
+                            .mapToLong(table -> sourceWatermarks.getOrDefault(table, 0L))
+                            .sum();
+
+                    outcomes.put(view.name(), CompletableFuture
+                            .allOf(upstream.toArray(CompletableFuture[]::new))
+                            .thenApplyAsync(ignored -> {
+                                boolean upstreamRefreshed = upstream.stream()
+                                        .anyMatch(f -> f.join() == Outcome.REFRESHED);
+                                boolean unchanged = Long.valueOf(watermark).equals(refreshedAgainst.get(view.name()));
+                                if (!force && !upstreamRefreshed && unchanged) {
+                                    log.debug("Materialized view '{}' is up to date, skipping", view.name());
+                                    return Outcome.SKIPPED;
+                                }
+                                return refreshWithPermit(permits, view, watermark);
+                            }, executor));
+                }
+                CompletableFuture.allOf(outcomes.values().toArray(CompletableFuture[]::new)).join();
+            }
+
+            Map<Outcome, Integer> counts = new HashMap<>();
+            outcomes.values().forEach(f -> counts.merge(f.join(), 1, Integer::sum));
+            RefreshSummary summary = new RefreshSummary(counts.getOrDefault(Outcome.REFRESHED, 0),
+                    counts.getOrDefault(Outcome.SKIPPED, 0), counts.getOrDefault(Outcome.FAILED, 0));
+
+            long durationMs = System.currentTimeMillis() - startTime;
+            if (summary.failed() > 0) {
+                log.error("Materialized view refresh finished with {}/{} failures in {} ms",
+                        summary.failed(), VIEWS.size(), durationMs);
+            } else {
+                log.info("Materialized view refresh completed in {} ms ({} refreshed, {} unchanged)",
+                        durationMs, summary.refreshed(), summary.skipped());
+            }
+            return summary;
+        } finally {
+            refreshInProgress.set(false);
+        }
+    }
+
+    /** Last recorded outcome for every view, plus whether its sources changed since. */
+    public List<ViewRefreshStats> getStats() {
+        Map<String, Long> sourceWatermarks = loadSourceWatermarks();
+        Map<String, ViewRefreshStats> stored = new HashMap<>();
+        jdbcTemplate.query("""
+                        SELECT view_name, source_watermark, last_success_at, last_duration_ms,
+                               row_count, last_attempt_at, last_error
+                        FROM materialized_view_refresh_state
+                        """,
+                rs -> {
+                    String name = rs.getString("view_name");
+                    stored.put(name, new ViewRefreshStats(name,
+                            rs.getObject("source_watermark", Long.class),
+                            toLocalDateTime(rs.getTimestamp("last_success_at")),
+                            rs.getObject("last_duration_ms", Long.class),
+                            rs.getObject("row_count", Long.class),
+                            toLocalDateTime(rs.getTimestamp("last_attempt_at")),
+                            rs.getString("last_error"),
+                            false));
+                });
+
+        return VIEWS.stream().map(view -> {
+            long current = view.sourceTables().stream()
+                    .mapToLong(table -> sourceWatermarks.getOrDefault(table, 0L))
+                    .sum();
+            ViewRefreshStats stats = stored.get(view.name());
+            if (stats == null) {
+                return new ViewRefreshStats(view.name(), null, null, null, null, null, null, true);
+            }
+            return stats.withStale(!Long.valueOf(current).equals(stats.sourceWatermark()));
+        }).toList();
+    }
+
+    private Outcome refreshWithPermit(Semaphore permits, ViewDefinition view, long watermark) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.FAILED;
+        }
+        LocalDateTime attemptedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + view.name());
+            long durationNanos = System.nanoTime() - start;
+            Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + view.name(), Long.class);
+
+            meterRegistry.timer("reports.view.refresh", "view", view.name())
+                    .record(durationNanos, TimeUnit.NANOSECONDS);
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+            jdbcTemplate.update("""
+                            INSERT INTO materialized_view_refresh_state
+                                (view_name, source_watermark, last_success_at, last_duration_ms,
+                                 row_count, last_attempt_at, last_error)
+                            VALUES (?, ?, ?, ?, ?, ?, NULL)
+                            ON CONFLICT (view_name) DO UPDATE
+                                SET source_watermark = EXCLUDED.source_watermark,
+                                    last_success_at  = EXCLUDED.last_success_at,
+                                    last_duration_ms = EXCLUDED.last_duration_ms,
+                                    row_count        = EXCLUDED.row_count,
+                                    last_attempt_at  = EXCLUDED.last_attempt_at,
+                                    last_error       = NULL
+                            """,
+                    view.name(), watermark, Timestamp.valueOf(LocalDateTime.now()), durationMs,
+                    rows, Timestamp.valueOf(attemptedAt));
+            log.info("Materialized view '{}' refreshed in {} ms ({} rows)", view.name(), durationMs, rows);
+            return Outcome.REFRESHED;
+        } catch (DataAccessException e) {
+            log.error("Failed to refresh materialized view '{}': {}", view.name(), e.getMessage(), e);
+            meterRegistry.counter("reports.view.refresh.failures", "view", view.name()).increment();
+            recordFailure(view.name(), attemptedAt, e);
+            return Outcome.FAILED;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void recordFailure(String viewName, LocalDateTime attemptedAt, DataAccessException cause) {
+        try {
+            jdbcTemplate.update("""
+                            INSERT INTO materialized_view_refresh_state (view_name, last_attempt_at, last_error)
+                            VALUES (?, ?, ?)
+                            ON CONFLICT (view_name) DO UPDATE
+                                SET last_attempt_at = EXCLUDED.last_attempt_at,
+                                    last_error      = EXCLUDED.last_error
+                            """,
+                    viewName, Timestamp.valueOf(attemptedAt), cause.getMostSpecificCause().getMessage());
+        } catch (DataAccessException e) {
+            log.warn("Could not record refresh failure for '{}': {}", viewName, e.getMessage());
+        }
+    }
+
+    private Map<String, Long> loadSourceWatermarks() {
+        Map<String, Long> watermarks = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT source_table, SUM(change_count) AS changes FROM report_source_changes GROUP BY source_table",
+                rs -> {
+                    watermarks.put(rs.getString("source_table"), rs.getLong("changes"));
+                });
+        return watermarks;
+    }
+
+    private Map<String, Long> loadRefreshedWatermarks() {
+        Map<String, Long> watermarks = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT view_name, source_watermark FROM materialized_view_refresh_state WHERE source_watermark IS NOT NULL",
+                rs -> {
+                    watermarks.put(rs.getString("view_name"), rs.getLong("source_watermark"));
+                });
+        return watermarks;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private enum Outcome { REFRESHED, SKIPPED, FAILED }
+
+    record ViewDefinition(String name, List<String> sourceTables, List<String> dependsOn) {}
+
+    public record RefreshSummary(int refreshed, int skipped, int failed) {}
+
+    public record ViewRefreshStats(String viewName, Long sourceWatermark, LocalDateTime lastSuccessAt,
+                                   Long lastDurationMs, Long rowCount, LocalDateTime lastAttemptAt,
+                                   String lastError, boolean stale) {
+
+        ViewRefreshStats withStale(boolean stale) {
+            return new ViewRefreshStats(viewName, sourceWatermark, lastSuccessAt, lastDurationMs,
+                    rowCount, lastAttemptAt, lastError, stale);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.response.OpsBoardDelta;
+import com.cisnebranco.dto.response.OpsBoardDelta.Op;
+import com.cisnebranco.dto.response.OpsBoardSnapshot;
+import com.cisnebranco.dto.response.TechnicalOsSummaryResponse;
+import com.cisnebranco.entity.enums.OsStatus;
+import com.cisnebranco.entity.enums.UserRole;
+import com.cisnebranco.event.PaymentRecordedEvent;
+import com.cisnebranco.repository.TechnicalOsRepository;
+import com.cisnebranco.specification.TechnicalOsSpecification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Live operations board: an in-memory index of every open (not delivered) service order as a
+ * {@link TechnicalOsSummaryResponse}, grouped by status and groomer. The reception screen loads
+ * a snapshot once and then applies {@code ops-board} SSE deltas instead of polling the OS list.
+ *
+ * Writers call {@link #refreshAfterCommit(Long)}; once their transaction commits, the order's
+ * current row is re-read and sent as a delta over the {@link SseEventBus}. The index is only
+ * changed by deltas coming back from the bus, so every instance applies the same deltas in the
+ * same order, whichever replica made the write, and a delta's version is its SSE event id. A
+ * snapshot's version is the id of the last delta applied to it, so a client can take its
+ * snapshot from any instance and its stream from another.
+ *
+ * Refreshes run on one thread per instance in commit order. Every refresh is sent, even when the
+ * row matches the local index, because that index may not yet show deltas still on the bus.
+ * Each instance seeds its index from the database when it is ready, without sending anything,
+ * and reconciles it every {@code reconcile-interval-ms}, sending a delta for each difference;
+ * that also picks up writes made outside the service layer.
+ *
+ * Deltas carry client names and payment data, so they are only sent to admins.
+ */
+@Service
+@Slf4j
+public class OpsBoardService {
+
+    static final String EVENT_NAME = "ops-board";
+
+    private final TechnicalOsRepository osRepository;
+    private final SseEmitterService sseEmitterService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTransaction;
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("ops-board").daemon().factory());
+
+    // Guarded by this. Mutated by bus deliveries and the seed; read by snapshot and refreshes.
+    private final Map<Long, TechnicalOsSummaryResponse> openOrders = new HashMap<>();
+    private final Map<OsStatus, Set<Long>> byStatus = new EnumMap<>(OsStatus.class);
+    private final Map<Long, Set<Long>> byGroomer = new HashMap<>();
+    private long version;
+    // Orders changed by deltas while the seed query runs; non-null only during the seed
+    private Set<Long> changedDuringSeed;
+
+    public OpsBoardService(TechnicalOsRepository osRepository,
+                           SseEmitterService sseEmitterService,
+                           SseEventBus eventBus,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager) {
+        this.osRepository = osRepository;
+        this.sseEmitterService = sseEmitterService;
+        this.objectMapper = objectMapper;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        eventBus.subscribe(this::onBusEvent);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        refresher.execute(this::seedNow);
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Re-reads the order once the current transaction commits. Outside a transaction the refresh
+     * is queued immediately.
+     */
+    public void refreshAfterCommit(Long osId) {
+        if (osId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresher.execute(() -> refreshNow(osId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresher.execute(() -> refreshNow(osId));
+            }
+        });
+    }
+
+    // Payments change totals and payment status; PaymentService publishes this inside its transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPaymentRecorded(PaymentRecordedEvent event) {
+        refresher.execute(() -> refreshNow(event.getOsId()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.ops-board.reconcile-interval-ms:300000}",
+            initialDelayString = "${app.ops-board.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        refresher.execute(this::reconcileNow);
+    }
+
+    /** Open orders as of the last applied delta, optionally only one groomer's. */
+    public synchronized OpsBoardSnapshot snapshot(Long groomerId) {
+        Set<Long> groomerOrders = groomerId != null ? byGroomer.getOrDefault(groomerId, Set.of()) : null;
+        Map<OsStatus, List<TechnicalOsSummaryResponse>> grouped = new EnumMap<>(OsStatus.class);
+        byStatus.forEach((status, ids) -> {
+            List<TechnicalOsSummaryResponse> rows = ids.stream()
+                    .filter(id -> groomerOrders == null || groomerOrders.contains(id))
+                    .map(openOrders::get)
+                    .sorted(Comparator.comparing(TechnicalOsSummaryResponse::createdAt)
+                            .thenComparing(TechnicalOsSummaryResponse::id))
+                    .toList();
+            if (!rows.isEmpty()) {
+                grouped.put(status, rows);
+            }
+        });
+        return new OpsBoardSnapshot(version, grouped);
+    }
+
+    private void refreshNow(Long osId) {
+        try {
+            TechnicalOsSummaryResponse row = readTransaction.execute(status -> {
+                List<TechnicalOsSummaryResponse> rows = osRepository.findSummaries(
+                        TechnicalOsSpecification.hasId(osId).and(TechnicalOsSpecification.isOpen()),
+                        Pageable.unpaged());
+                return rows.isEmpty() ? null : rows.get(0);
+            });
+            publish(row != null ? OpsBoardDelta.upsert(row) : OpsBoardDelta.remove(osId));
+        } catch (Exception e) {
+            // The next reconcile repairs the board
+            log.error("Failed to refresh OS #{} on the operations board", osId, e);
+        }
+    }
+
+    // A delta applied while the query runs may be newer than the row the query returns for that
+    // order, so those orders keep what the deltas left.
+    private void seedNow() {
+        synchronized (this) {
+            changedDuringSeed = new HashSet<>();
+        }
+        try {
+            List<TechnicalOsSummaryResponse> rows = readOpenOrders();
+            int skipped = 0;
+            synchronized (this) {
+                for (TechnicalOsSummaryResponse row : rows) {
+                    if (changedDuringSeed.contains(row.id())) {
+                        skipped++;
+                    } else {
+                        put(row);
+                    }
+                }
+            }
+            log.info("Operations board seeded with {} open orders ({} already updated by deltas)",
+                    rows.size() - skipped, skipped);
+        } catch (Exception e) {
+            // The first reconcile fills the board
+            log.error("Operations board seed failed", e);
+        } finally {
+            synchronized (this) {
+                changedDuringSeed = null;
+            }
+        }
+    }
+
+    private void reconcileNow() {
+        try {
+            List<TechnicalOsSummaryResponse> rows = readOpenOrders();
+            Map<Long, TechnicalOsSummaryResponse> current = rows.stream()
+                    .collect(Collectors.toMap(TechnicalOsSummaryResponse::id, Function.identity()));
+
+            List<OpsBoardDelta> deltas = new ArrayList<>();
+            synchronized (this) {
+                for (Long id : openOrders.keySet()) {
+                    if (!current.containsKey(id)) {
+                        deltas.add(OpsBoardDelta.remove(id));
+                    }
+                }
+                for (TechnicalOsSummaryResponse row : rows) {
+                    if (!row.equals(openOrders.get(row.id()))) {
+                        deltas.add(OpsBoardDelta.upsert(row));
+                    }
+                }
+            }
+            deltas.forEach(this::publish);
+            log.debug("Operations board reconciled: {} open orders, {} changes", current.size(), deltas.size());
+        } catch (Exception e) {
+            log.error("Operations board reconcile failed", e);
+        }
+    }
+
+    private List<TechnicalOsSummaryResponse> readOpenOrders() {
+        return readTransaction.execute(status -> osRepository.findSummaries(
+                TechnicalOsSpecification.isOpen(), Pageable.unpaged(Sort.by("id"))));
+    }
+
+    // Called by the bus in id order, on every instance including the one that sent the delta
+    private void onBusEvent(long id, SseMessage message) {
+        if (!EVENT_NAME.equals(message.eventName())) {
+            return;
+        }
+        OpsBoardDelta delta;
+        try {
+            delta = objectMapper.readValue(message.data(), OpsBoardDelta.class);
+        } catch (IOException e) {
+            log.error("Discarding malformed operations board delta {}", id, e);
+            return;
+        }
+        apply(id, delta);
+    }
+
+    private synchronized void apply(long id, OpsBoardDelta delta) {
+        if (changedDuringSeed != null) {
+            changedDuringSeed.add(delta.osId());
+        }
+        if (delta.op() == Op.UPSERT) {
+            put(delta.item());
+        } else {
+            TechnicalOsSummaryResponse previous = openOrders.remove(delta.osId());
+            if (previous != null) {
+                unindex(previous);
+            }
+        }
+        version = id;
+    }
+
+    // Caller holds the lock
+    private void put(TechnicalOsSummaryResponse row) {
+        TechnicalOsSummaryResponse previous = openOrders.put(row.id(), row);
+        if (previous != null) {
+            unindex(previous);
+        }
+        byStatus.computeIfAbsent(row.status(), s -> new HashSet<>()).add(row.id());
+        if (row.groomerId() != null) {
+            byGroomer.computeIfAbsent(row.groomerId(), g -> new HashSet<>()).add(row.id());
+        }
+    }
+
+    private void unindex(TechnicalOsSummaryResponse row) {
+        removeFromIndex(byStatus, row.status(), row.id());
+        if (row.groomerId() != null) {
+            removeFromIndex(byGroomer, row.groomerId(), row.id());
+        }
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<Long>> index, K key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    // Sent from the refresher thread, so this instance's deltas reach the bus in commit order
+    private void publish(OpsBoardDelta delta) {
+        try {
+            sseEmitterService.sendToRole(UserRole.ADMIN, EVENT_NAME, delta);
+        } catch (Exception e) {
+            log.error("Failed to broadcast operations board {} of OS #{}", delta.op(), delta.osId(), e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.request.TechnicalOsFilterRequest;
+import com.cisnebranco.event.OsCheckInEvent;
+import com.cisnebranco.event.OsDeliveredEvent;
+import com.cisnebranco.event.OsReadyEvent;
+import com.cisnebranco.event.OsStartedEvent;
+import com.cisnebranco.event.PaymentRecordedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of OS list totals, keyed by filter. Paging through a listing repeats the
+ * same count for every page; with this only the first page pays for it.
+ *
+ * Check-ins, status transitions and payments clear the cache once committed, on every instance
+ * (see {@link InstanceEvents}), so the usual changes show up in totals at once;
+ * {@code ttl-seconds} bounds staleness from the rest (groomer reassignment, cancellation). A TTL
+ * of 0 disables caching.
+ */
+@Component
+public class OsCountCache {
+
+    static final String INVALIDATED_TOPIC = "os-count-cache.invalidated";
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final InstanceEvents instanceEvents;
+    private final Map<TechnicalOsFilterRequest, Entry> entries = new ConcurrentHashMap<>();
+    private long generation; // guarded by this
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public OsCountCache(MeterRegistry meterRegistry,
+                        InstanceEvents instanceEvents,
+                        @Value("${app.os.count-cache.ttl-seconds:15}") long ttlSeconds,
+                        @Value("${app.os.count-cache.max-entries:1000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.instanceEvents = instanceEvents;
+        this.hits = meterRegistry.counter("os.count.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("os.count.cache.requests", "result", "miss");
+        instanceEvents.subscribe(INVALIDATED_TOPIC, payload -> clear());
+    }
+
+    public long get(TechnicalOsFilterRequest filter, LongSupplier counter) {
+        if (ttlNanos <= 0) {
+            return counter.getAsLong();
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.get(filter);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            return entry.count();
+        }
+        misses.increment();
+
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        long count = counter.getAsLong();
+        synchronized (this) {
+            // A count read while an invalidation happened may predate the invalidating commit
+            if (loadGeneration == generation) {
+                if (entries.size() >= maxEntries) {
+                    // Filters are mostly ad hoc; dropping everything is cheaper than tracking recency
+                    entries.clear();
+                }
+                entries.put(filter, new Entry(count, now));
+            }
+        }
+        return count;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCheckIn(OsCheckInEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStarted(OsStartedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReady(OsReadyEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDelivered(OsDeliveredEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPaymentRecorded(PaymentRecordedEvent event) {
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        clear();
+        instanceEvents.publish(INVALIDATED_TOPIC, null);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    private record Entry(long count, long loadedAt) {}
+}
@@ -7,6 +7,7 @@ import com.cisnebranco.entity.PaymentEvent;
 import com.cisnebranco.entity.TechnicalOs;
 import com.cisnebranco.entity.enums.OsStatus;
 import com.cisnebranco.entity.enums.PaymentStatus;
+import com.cisnebranco.event.PaymentRecordedEvent;
 import com.cisnebranco.exception.BusinessException;
 import com.cisnebranco.exception.ResourceNotFoundException;
 import com.cisnebranco.mapper.PaymentEventMapper;
@@ -14,10 +15,12 @@ import com.cisnebranco.repository.AppUserRepository;
 import com.cisnebranco.repository.PaymentEventRepository;
 import com.cisnebranco.repository.TechnicalOsRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
@@ -29,6 +32,7 @@ public class PaymentService {
     private final AppUserRepository userRepository;
     private final PaymentEventMapper paymentEventMapper;
     private final AuditService auditService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public PaymentEventResponse recordPayment(Long osId, PaymentRequest request, Long userId) {
@@ -71,6 +75,7 @@ public class PaymentService {
 
         auditService.log("PAYMENT_RECORDED", "TechnicalOs", osId,
                 "Amount: " + request.amount() + " via " + request.method());
+        eventPublisher.publishEvent(new PaymentRecordedEvent(this, osId, deliveredDate(os)));
 
         return paymentEventMapper.toResponse(event);
     }
@@ -126,6 +131,7 @@ public class PaymentService {
 
         auditService.log("PAYMENT_REFUNDED", "TechnicalOs", osId,
                 "Refund of payment #" + original.getId() + " amount: " + original.getAmount());
+        eventPublisher.publishEvent(new PaymentRecordedEvent(this, osId, deliveredDate(os)));
 
         return paymentEventMapper.toResponse(refund);
     }
@@ -140,4 +146,8 @@ public class PaymentService {
                 .map(paymentEventMapper::toResponse)
                 .toList();
     }
+
+    private static LocalDate deliveredDate(TechnicalOs os) {
+        return os.getDeliveredAt() != null ? os.getDeliveredAt().toLocalDate() : null;
+    }
 }
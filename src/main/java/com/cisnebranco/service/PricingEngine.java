@@ -0,0 +1,337 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.entity.Pet;
+import com.cisnebranco.entity.PricingMatrix;
+import com.cisnebranco.entity.enums.PetSize;
+import com.cisnebranco.entity.enums.Species;
+import com.cisnebranco.event.PricingChangedEvent;
+import com.cisnebranco.repository.PricingMatrixRepository;
+import com.cisnebranco.repository.ServiceTypeBreedPriceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the locked price of a service for a pet from an immutable in-memory snapshot of
+ * breed overrides and the species/size matrix, so check-in and price estimation no longer
+ * issue two repository queries per service item.
+ *
+ * The snapshot is rebuilt after every committed pricing change (see {@link PricingChangedEvent}),
+ * on the other instances too (see {@link InstanceEvents}), and swapped in with a single volatile
+ * write — readers never observe a half-built index.
+ * A full miss (no breed override and no matrix row) falls back to the repositories so rows
+ * written outside the pricing services (migrations, manual SQL, tests) are still honoured;
+ * the periodic refresh heals the snapshot for those.
+ */
+@Service
+@Slf4j
+public class PricingEngine {
+
+    static final String CHANGED_TOPIC = "pricing.changed";
+
+    private final PricingMatrixRepository pricingMatrixRepository;
+    private final ServiceTypeBreedPriceRepository breedPriceRepository;
+    private final InstanceEvents instanceEvents;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public PricingEngine(PricingMatrixRepository pricingMatrixRepository,
+                         ServiceTypeBreedPriceRepository breedPriceRepository,
+                         InstanceEvents instanceEvents) {
+        this.pricingMatrixRepository = pricingMatrixRepository;
+        this.breedPriceRepository = breedPriceRepository;
+        this.instanceEvents = instanceEvents;
+        instanceEvents.subscribe(CHANGED_TOPIC, payload -> {
+            try {
+                reload();
+            } catch (Exception e) {
+                log.error("Failed to rebuild pricing snapshot after a change on another instance — keeping previous snapshot", e);
+            }
+        });
+    }
+
+    /**
+     * Returns the price for the given service and pet, or {@code null} when neither a breed
+     * override nor a pricing-matrix row exists.
+     */
+    public BigDecimal findPrice(Long serviceTypeId, Pet pet) {
+        // getId() on a lazy Breed proxy does not initialize it — no extra query here
+        Long breedId = pet.getBreed() != null ? pet.getBreed().getId() : null;
+        BigDecimal price = snapshot.resolve(serviceTypeId,
+                breedId != null ? breedId : Snapshot.NO_BREED, pet.getSpecies(), pet.getSize());
+        if (price != null) {
+            return price;
+        }
+        log.debug("Pricing snapshot miss for serviceType={} breed={} {}/{} — querying repositories",
+                serviceTypeId, breedId, pet.getSpecies(), pet.getSize());
+        return findPriceInRepositories(serviceTypeId, breedId, pet.getSpecies(), pet.getSize());
+    }
+
+    /**
+     * Resolves prices for several services at once. Snapshot misses are looked up with at most
+     * two queries keyed by the whole miss list (breed overrides, then matrix rows), so the
+     * query count does not grow with the number of services. Services without any price are
+     * absent from the returned map.
+     */
+    public Map<Long, BigDecimal> findPrices(Collection<Long> serviceTypeIds, Pet pet) {
+        Long breedId = pet.getBreed() != null ? pet.getBreed().getId() : null;
+        long breedKey = breedId != null ? breedId : Snapshot.NO_BREED;
+        Snapshot current = snapshot;
+
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long serviceTypeId : serviceTypeIds) {
+            BigDecimal price = current.resolve(serviceTypeId, breedKey, pet.getSpecies(), pet.getSize());
+            if (price != null) {
+                prices.put(serviceTypeId, price);
+            } else if (!misses.contains(serviceTypeId)) {
+                misses.add(serviceTypeId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return prices;
+        }
+
+        log.debug("Pricing snapshot miss for serviceTypes={} breed={} {}/{} — querying repositories",
+                misses, breedId, pet.getSpecies(), pet.getSize());
+        if (breedId != null) {
+            for (var row : breedPriceRepository.findPriceRows(misses, breedId)) {
+                prices.put(row.getServiceTypeId(), row.getPrice());
+                misses.remove(row.getServiceTypeId());
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (var row : pricingMatrixRepository.findPriceRows(misses, pet.getSpecies(), pet.getSize())) {
+                prices.put(row.getServiceTypeId(), row.getPrice());
+            }
+        }
+        return prices;
+    }
+
+    Snapshot currentSnapshot() {
+        return snapshot;
+    }
+
+    // Synchronized so two commits racing to rebuild cannot publish an older snapshot last.
+    @Transactional(readOnly = true)
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        Snapshot.Builder builder = Snapshot.builder();
+        for (var row : breedPriceRepository.findAllPriceRows()) {
+            builder.breedPrice(row.getServiceTypeId(), row.getBreedId(), row.getPrice());
+        }
+        for (var row : pricingMatrixRepository.findAllPriceRows()) {
+            builder.matrixPrice(row.getServiceTypeId(), row.getSpecies(), row.getPetSize(), row.getPrice());
+        }
+        Snapshot next = builder.build();
+        snapshot = next;
+        log.info("Pricing snapshot rebuilt: {} breed overrides, {} matrix rows in {} ms",
+                next.breedCount(), next.matrixCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // Non-fatal: every lookup falls back to the repositories until the next refresh
+            log.error("Failed to build initial pricing snapshot — falling back to repository lookups", e);
+        }
+    }
+
+    // Runs in its own transaction: the publishing transaction has already committed.
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPricingChanged(PricingChangedEvent event) {
+        instanceEvents.publish(CHANGED_TOPIC, null);
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Failed to rebuild pricing snapshot after pricing change — keeping previous snapshot", e);
+        }
+    }
+
+    // Safety net for rows changed outside PricingMatrixService/BreedPriceService.
+    @Scheduled(fixedDelay = 600_000, initialDelay = 600_000)
+    @Transactional(readOnly = true)
+    public void refreshPeriodically() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Periodic pricing snapshot refresh failed — keeping previous snapshot", e);
+        }
+    }
+
+    private BigDecimal findPriceInRepositories(Long serviceTypeId, Long breedId, Species species, PetSize size) {
+        if (breedId != null) {
+            var breedPrice = breedPriceRepository.findByServiceTypeIdAndBreedId(serviceTypeId, breedId);
+            if (breedPrice.isPresent()) {
+                return breedPrice.get().getPrice();
+            }
+        }
+        return pricingMatrixRepository
+                .findByServiceTypeIdAndSpeciesAndPetSize(serviceTypeId, species, size)
+                .map(PricingMatrix::getPrice)
+                .orElse(null);
+    }
+
+    /**
+     * Immutable price index. Breed overrides are an open-addressing table keyed by the
+     * (serviceTypeId, breedId) pair; the matrix is keyed by serviceTypeId and holds one
+     * price per species/size slot. Lookups touch only primitive arrays and return the
+     * stored BigDecimal instances, so a resolution allocates nothing.
+     */
+    static final class Snapshot {
+
+        static final long NO_BREED = -1L;
+        static final Snapshot EMPTY = builder().build();
+
+        private static final PetSize[] SIZES = PetSize.values();
+        private static final int MATRIX_SLOTS = Species.values().length * SIZES.length;
+
+        private final long[] breedServiceKeys;
+        private final long[] breedKeys;
+        private final BigDecimal[] breedPrices;
+        private final int breedMask;
+        private final int breedCount;
+
+        private final long[] matrixServiceKeys;
+        private final BigDecimal[][] matrixPrices;
+        private final int matrixMask;
+        private final int matrixCount;
+
+        private Snapshot(Map<Long, Map<Long, BigDecimal>> breedPriceMap,
+                         Map<Long, BigDecimal[]> matrixPriceMap, int breedCount, int matrixCount) {
+            int breedCapacity = tableSize(breedCount);
+            this.breedServiceKeys = new long[breedCapacity];
+            this.breedKeys = new long[breedCapacity];
+            this.breedPrices = new BigDecimal[breedCapacity];
+            this.breedMask = breedCapacity - 1;
+            this.breedCount = breedCount;
+            breedPriceMap.forEach((serviceTypeId, byBreed) -> byBreed.forEach((breedId, price) -> {
+                int i = hash(serviceTypeId, breedId) & breedMask;
+                while (breedPrices[i] != null) {
+                    i = (i + 1) & breedMask;
+                }
+                breedServiceKeys[i] = serviceTypeId;
+                breedKeys[i] = breedId;
+                breedPrices[i] = price;
+            }));
+
+            int matrixCapacity = tableSize(matrixPriceMap.size());
+            this.matrixServiceKeys = new long[matrixCapacity];
+            this.matrixPrices = new BigDecimal[matrixCapacity][];
+            this.matrixMask = matrixCapacity - 1;
+            this.matrixCount = matrixCount;
+            matrixPriceMap.forEach((serviceTypeId, prices) -> {
+                int i = hash(serviceTypeId, 0) & matrixMask;
+                while (matrixPrices[i] != null) {
+                    i = (i + 1) & matrixMask;
+                }
+                matrixServiceKeys[i] = serviceTypeId;
+                matrixPrices[i] = prices;
+            });
+        }
+
+        static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Breed override first, then the species/size matrix — same precedence as the
+         * repository path. Returns {@code null} when neither is present.
+         */
+        BigDecimal resolve(long serviceTypeId, long breedId, Species species, PetSize size) {
+            if (breedId != NO_BREED) {
+                int i = hash(serviceTypeId, breedId) & breedMask;
+                BigDecimal price;
+                while ((price = breedPrices[i]) != null) {
+                    if (breedServiceKeys[i] == serviceTypeId && breedKeys[i] == breedId) {
+                        return price;
+                    }
+                    i = (i + 1) & breedMask;
+                }
+            }
+            int i = hash(serviceTypeId, 0) & matrixMask;
+            BigDecimal[] prices;
+            while ((prices = matrixPrices[i]) != null) {
+                if (matrixServiceKeys[i] == serviceTypeId) {
+                    return prices[matrixSlot(species, size)];
+                }
+                i = (i + 1) & matrixMask;
+            }
+            return null;
+        }
+
+        int breedCount() {
+            return breedCount;
+        }
+
+        int matrixCount() {
+            return matrixCount;
+        }
+
+        private static int matrixSlot(Species species, PetSize size) {
+            return species.ordinal() * SIZES.length + size.ordinal();
+        }
+
+        // Load factor <= 0.5 keeps linear-probe chains short; always at least one empty slot.
+        private static int tableSize(int entries) {
+            int capacity = 2;
+            while (capacity < entries * 2) {
+                capacity <<= 1;
+            }
+            return capacity;
+        }
+
+        private static int hash(long a, long b) {
+            long h = a * 0x9E3779B97F4A7C15L + b;
+            h ^= h >>> 32;
+            h *= 0xD6E8FEB86659FD93L;
+            h ^= h >>> 32;
+            return (int) h;
+        }
+
+        static final class Builder {
+            private final Map<Long, Map<Long, BigDecimal>> breedPrices = new HashMap<>();
+            private final Map<Long, BigDecimal[]> matrixPrices = new HashMap<>();
+            private int breedCount;
+            private int matrixCount;
+
+            Builder breedPrice(long serviceTypeId, long breedId, BigDecimal price) {
+                if (breedPrices.computeIfAbsent(serviceTypeId, k -> new HashMap<>()).put(breedId, price) == null) {
+                    breedCount++;
+                }
+                return this;
+            }
+
+            Builder matrixPrice(long serviceTypeId, Species species, PetSize size, BigDecimal price) {
+                BigDecimal[] prices = matrixPrices.computeIfAbsent(serviceTypeId, k -> new BigDecimal[MATRIX_SLOTS]);
+                int slot = matrixSlot(species, size);
+                if (prices[slot] == null) {
+                    matrixCount++;
+                }
+                prices[slot] = price;
+                return this;
+            }
+
+            Snapshot build() {
+                return new Snapshot(breedPrices, matrixPrices, breedCount, matrixCount);
+            }
+        }
+    }
+}
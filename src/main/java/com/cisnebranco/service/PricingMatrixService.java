@@ -4,11 +4,13 @@ import com.cisnebranco.dto.request.PricingMatrixRequest;
 import com.cisnebranco.dto.response.PricingMatrixResponse;
 import com.cisnebranco.entity.PricingMatrix;
 import com.cisnebranco.entity.ServiceType;
+import com.cisnebranco.event.PricingChangedEvent;
 import com.cisnebranco.exception.ResourceNotFoundException;
 import com.cisnebranco.mapper.PricingMatrixMapper;
 import com.cisnebranco.repository.PricingMatrixRepository;
 import com.cisnebranco.repository.ServiceTypeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +23,7 @@ public class PricingMatrixService {
     private final PricingMatrixRepository pricingMatrixRepository;
     private final ServiceTypeRepository serviceTypeRepository;
     private final PricingMatrixMapper pricingMatrixMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<PricingMatrixResponse> findAll() {
@@ -43,7 +46,10 @@ public class PricingMatrixService {
         pm.setPetSize(request.petSize());
         pm.setPrice(request.price());
 
-        return pricingMatrixMapper.toResponse(pricingMatrixRepository.save(pm));
+        PricingMatrixResponse response = pricingMatrixMapper.toResponse(pricingMatrixRepository.save(pm));
+        // PricingEngine rebuilds its snapshot once this transaction commits
+        eventPublisher.publishEvent(new PricingChangedEvent(this));
+        return response;
     }
 
     @Transactional
@@ -51,5 +57,6 @@ public class PricingMatrixService {
         PricingMatrix pm = pricingMatrixRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("PricingMatrix", id));
         pricingMatrixRepository.delete(pm);
+        eventPublisher.publishEvent(new PricingChangedEvent(this));
     }
 }
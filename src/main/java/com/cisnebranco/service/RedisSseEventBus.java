@@ -0,0 +1,129 @@
+package com.cisnebranco.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bus shared by every API replica through Redis pub/sub. Each event is published once, by a Lua
+ * script that increments the sequence key and publishes {@code id \n message} atomically, so
+ * Redis hands messages to subscribers in id order. Every instance, the publisher included,
+ * receives the message from the channel and delivers it to its local connections.
+ *
+ * Publishing runs on one background thread per instance, keeping the Redis round trip off the
+ * committing thread while preserving this instance's publish order. Pub/sub is at-most-once: an
+ * instance whose subscription drops sees a gap in the ids, and SseEmitterService tells its
+ * clients to resync. The sequence is seeded from the clock the first time, so if Redis loses it
+ * the new ids still sort after the old ones.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sse.bus", havingValue = "redis")
+@Slf4j
+public class RedisSseEventBus implements SseEventBus {
+
+    private static final byte[] PUBLISH_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('SET', KEYS[1], ARGV[3])
+            end
+            local id = redis.call('INCR', KEYS[1])
+            redis.call('PUBLISH', ARGV[1], id .. '\\n' .. ARGV[2])
+            return id
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final String channel;
+    private final byte[] sequenceKey;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("sse-redis-publisher").factory());
+    // One dispatch thread, so messages reach listeners in the order Redis sent them
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("sse-redis-dispatcher").factory());
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    public RedisSseEventBus(RedisConnectionFactory connectionFactory,
+                            @Value("${app.sse.redis-channel:cisnebranco:sse}") String channel) {
+        this.connectionFactory = connectionFactory;
+        this.channel = channel;
+        this.sequenceKey = (channel + ":seq").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostConstruct
+    void start() {
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(dispatcher);
+        container.addMessageListener(this::onMessage, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    void stop() throws Exception {
+        publisher.shutdown();
+        publisher.awaitTermination(5, TimeUnit.SECONDS);
+        container.destroy();
+        dispatcher.shutdownNow();
+    }
+
+    @Override
+    public void publish(SseMessage message) {
+        byte[] encoded = message.encode();
+        publisher.execute(() -> {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.scriptingCommands().eval(PUBLISH_SCRIPT, ReturnType.INTEGER, 1, sequenceKey,
+                        channel.getBytes(StandardCharsets.UTF_8), encoded, seed());
+            } catch (Exception e) {
+                log.error("Failed to publish SSE event '{}' to Redis — not delivered", message.eventName(), e);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        byte[] body = message.getBody();
+        try {
+            int newline = 0;
+            while (body[newline] != '\n') {
+                newline++;
+            }
+            long id = Long.parseLong(new String(body, 0, newline, StandardCharsets.US_ASCII));
+            SseMessage decoded = SseMessage.decode(Arrays.copyOfRange(body, newline + 1, body.length));
+            for (Listener listener : listeners) {
+                listener.deliver(id, decoded);
+            }
+        } catch (RuntimeException e) {
+            log.error("Discarding malformed SSE message from Redis channel {}", channel, e);
+        }
+    }
+
+    private static byte[] seed() {
+        return String.valueOf(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()))
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+}
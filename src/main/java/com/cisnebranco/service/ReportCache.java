@@ -0,0 +1,217 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.event.OsDeliveredEvent;
+import com.cisnebranco.event.PaymentRecordedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded cache for report results and their rendered PDF exports, keyed by report, format
+ * and parameters. The dashboard polls the same few reports from every open tab, so most requests
+ * are answered without a query or a re-render.
+ *
+ * Entries are weighed in approximate bytes and evicted least-recently-used once
+ * {@code app.reports.cache.max-bytes} is exceeded. A committed delivery on day D drops every
+ * entry whose date range contains D, plus the undated top-clients ranking, on every instance
+ * (see {@link InstanceEvents}); everything else stays cached. {@code ttl-seconds} bounds staleness from edits that publish no event, such as
+ * renaming a groomer.
+ *
+ * A result loaded while an invalidation happened is returned but not cached, since it may
+ * have been read before the invalidating commit.
+ */
+@Service
+@Slf4j
+public class ReportCache {
+
+    // Rough retained size of one report projection row
+    static final long ESTIMATED_ROW_BYTES = 256;
+    // Payload: the invalidated delivery date, or null for everything
+    static final String INVALIDATED_TOPIC = "report-cache.invalidated";
+
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final InstanceEvents instanceEvents;
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by this.
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidations;
+
+    public ReportCache(MeterRegistry meterRegistry,
+                       InstanceEvents instanceEvents,
+                       @Value("${app.reports.cache.max-bytes:33554432}") long maxBytes,
+                       @Value("${app.reports.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.instanceEvents = instanceEvents;
+        this.hits = meterRegistry.counter("reports.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("reports.cache.requests", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("reports.cache.evictions", "cause", "size");
+        this.expiredEvictions = meterRegistry.counter("reports.cache.evictions", "cause", "expired");
+        this.invalidations = meterRegistry.counter("reports.cache.evictions", "cause", "invalidated");
+        Gauge.builder("reports.cache.entries", this, ReportCache::size).register(meterRegistry);
+        Gauge.builder("reports.cache.bytes", this, ReportCache::weightInBytes).register(meterRegistry);
+        instanceEvents.subscribe(INVALIDATED_TOPIC, date -> {
+            if (date != null) {
+                invalidateDateLocally(LocalDate.parse(date));
+            } else {
+                invalidate(key -> true);
+            }
+        });
+    }
+
+    public <T> List<T> getRows(Key key, Supplier<List<T>> loader) {
+        return get(key, loader, rows -> rows.size() * ESTIMATED_ROW_BYTES);
+    }
+
+    public byte[] getBytes(Key key, Supplier<byte[]> loader) {
+        return get(key, loader, bytes -> bytes.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(Key key, Supplier<T> loader, ToLongFunction<T> weigher) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt() < ttlNanos) {
+                    hits.increment();
+                    return (T) entry.value();
+                }
+                remove(key, entry);
+                expiredEvictions.increment();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        T value = loader.get();
+        long weight = weigher.applyAsLong(value);
+        synchronized (this) {
+            if (generation != loadGeneration || weight > maxBytes) {
+                return value;
+            }
+            Entry previous = entries.put(key, new Entry(value, weight, System.nanoTime()));
+            if (previous != null) {
+                totalBytes -= previous.weight();
+            }
+            totalBytes += weight;
+            evictToFit();
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOsDelivered(OsDeliveredEvent event) {
+        invalidateDate(event.getDeliveredDate());
+    }
+
+    // Payments are only accepted before delivery today, so this is normally a no-op; it keeps
+    // revenue totals correct should post-delivery payments ever be allowed.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPaymentRecorded(PaymentRecordedEvent event) {
+        if (event.getDeliveredDate() != null) {
+            invalidateDate(event.getDeliveredDate());
+        }
+    }
+
+    /** Drops every entry whose result depends on deliveries made on {@code date}. */
+    public void invalidateDate(LocalDate date) {
+        invalidateDateLocally(date);
+        instanceEvents.publish(INVALIDATED_TOPIC, date.toString());
+    }
+
+    public void invalidateAll() {
+        invalidate(key -> true);
+        instanceEvents.publish(INVALIDATED_TOPIC, null);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weightInBytes() {
+        return totalBytes;
+    }
+
+    private void invalidateDateLocally(LocalDate date) {
+        int removed = invalidate(key -> key.covers(date));
+        log.debug("Invalidated {} cached reports covering {}", removed, date);
+    }
+
+    private synchronized int invalidate(Predicate<Key> affected) {
+        generation++;
+        int removed = 0;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (affected.test(e.getKey())) {
+                totalBytes -= e.getValue().weight();
+                it.remove();
+                removed++;
+            }
+        }
+        invalidations.increment(removed);
+        return removed;
+    }
+
+    private void evictToFit() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            totalBytes -= it.next().getValue().weight();
+            it.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.weight();
+    }
+
+    public enum Report { DAILY_REVENUE, SERVICE_TYPES, TOP_CLIENTS, GROOMER_PERFORMANCE }
+
+    // CSV exports are streamed from a cursor (see ReportService) and never cached
+    public enum Format { JSON, PDF }
+
+    /** {@code startDate}/{@code endDate} are null for undated reports, {@code limit} for dated ones. */
+    public record Key(Report report, Format format, LocalDate startDate, LocalDate endDate, Integer limit) {
+
+        public static Key dated(Report report, Format format, LocalDate startDate, LocalDate endDate) {
+            return new Key(report, format, startDate, endDate, null);
+        }
+
+        public static Key top(Report report, Format format, int limit) {
+            return new Key(report, format, null, null, limit);
+        }
+
+        // Undated reports aggregate all deliveries, so any delivery affects them
+        boolean covers(LocalDate date) {
+            return startDate == null || (!date.isBefore(startDate) && !date.isAfter(endDate));
+        }
+    }
+
+    private record Entry(Object value, long weight, long loadedAt) {}
+}
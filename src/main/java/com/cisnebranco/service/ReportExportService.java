@@ -20,12 +20,16 @@ import org.springframework.stereotype.Service;
 
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class ReportExportService {
@@ -33,109 +37,105 @@ public class ReportExportService {
     private static final String BOM = "\uFEFF";
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATETIME_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final int PDF_FLUSH_ROWS = 200;
 
     // ── CSV Export ──────────────────────────────────────────────────────
-
-    public String dailyRevenueToCsv(List<DailyRevenueReport> data) {
-        StringWriter sw = new StringWriter();
-        sw.write(BOM);
-        PrintWriter pw = new PrintWriter(sw);
-        pw.println("Data,Total OS,Receita Total,Comissão Total,Saldo Total,Total Pago");
-        for (DailyRevenueReport r : data) {
-            pw.printf("%s,%d,%s,%s,%s,%s%n",
-                    r.getReportDate().format(DATE_FMT),
-                    r.getTotalOrders(),
-                    fmtMoney(r.getTotalRevenue()),
-                    fmtMoney(r.getTotalCommission()),
-                    fmtMoney(r.getTotalBalance()),
-                    fmtMoney(r.getTotalPaid()));
-        }
-        return sw.toString();
+    // Rows are written to the caller's writer as the stream yields them, so an export never holds
+    // more than the current row. An IOException (typically the client disconnecting) propagates
+    // and stops consuming the stream.
+
+    public void writeDailyRevenueCsv(Stream<DailyRevenueReport> rows, Writer out) throws IOException {
+        writeCsv(out, "Data,Total OS,Receita Total,Comissão Total,Saldo Total,Total Pago", rows,
+                r -> String.format("%s,%d,%s,%s,%s,%s%n",
+                        r.getReportDate().format(DATE_FMT),
+                        r.getTotalOrders(),
+                        fmtMoney(r.getTotalRevenue()),
+                        fmtMoney(r.getTotalCommission()),
+                        fmtMoney(r.getTotalBalance()),
+                        fmtMoney(r.getTotalPaid())));
     }
 
-    public String serviceTypeToCsv(List<ServiceTypeReport> data) {
-        StringWriter sw = new StringWriter();
-        sw.write(BOM);
-        PrintWriter pw = new PrintWriter(sw);
-        pw.println("ID,Serviço,Total Serviços,Receita Total,Preço Médio");
-        for (ServiceTypeReport r : data) {
-            pw.printf("%d,%s,%d,%s,%s%n",
-                    r.getServiceTypeId(),
-                    escapeCsv(r.getServiceName()),
-                    r.getTotalServices(),
-                    fmtMoney(r.getTotalRevenue()),
-                    fmtMoney(r.getAvgPrice()));
-        }
-        return sw.toString();
+    public void writeServiceTypeCsv(Stream<ServiceTypeReport> rows, Writer out) throws IOException {
+        writeCsv(out, "ID,Serviço,Total Serviços,Receita Total,Preço Médio", rows,
+                r -> String.format("%d,%s,%d,%s,%s%n",
+                        r.getServiceTypeId(),
+                        escapeCsv(r.getServiceName()),
+                        r.getTotalServices(),
+                        fmtMoney(r.getTotalRevenue()),
+                        fmtMoney(r.getAvgPrice())));
     }
 
-    public String clientSpendingToCsv(List<ClientSpendingReport> data) {
-        StringWriter sw = new StringWriter();
-        sw.write(BOM);
-        PrintWriter pw = new PrintWriter(sw);
-        pw.println("ID,Cliente,Total OS,Total Gasto,Primeira Visita,Última Visita");
-        for (ClientSpendingReport r : data) {
-            pw.printf("%d,%s,%d,%s,%s,%s%n",
-                    r.getClientId(),
-                    escapeCsv(r.getClientName()),
-                    r.getTotalOrders(),
-                    fmtMoney(r.getTotalSpent()),
-                    r.getFirstVisit() != null ? r.getFirstVisit().format(DATETIME_FMT) : "",
-                    r.getLastVisit() != null ? r.getLastVisit().format(DATETIME_FMT) : "");
-        }
-        return sw.toString();
+    public void writeClientSpendingCsv(Stream<ClientSpendingReport> rows, Writer out) throws IOException {
+        writeCsv(out, "ID,Cliente,Total OS,Total Gasto,Primeira Visita,Última Visita", rows,
+                r -> String.format("%d,%s,%d,%s,%s,%s%n",
+                        r.getClientId(),
+                        escapeCsv(r.getClientName()),
+                        r.getTotalOrders(),
+                        fmtMoney(r.getTotalSpent()),
+                        r.getFirstVisit() != null ? r.getFirstVisit().format(DATETIME_FMT) : "",
+                        r.getLastVisit() != null ? r.getLastVisit().format(DATETIME_FMT) : ""));
     }
 
-    public String groomerPerformanceToCsv(List<GroomerPerformanceReport> data) {
-        StringWriter sw = new StringWriter();
-        sw.write(BOM);
-        PrintWriter pw = new PrintWriter(sw);
-        pw.println("ID,Groomer,Total OS,Receita Total,Comissão Total,Valor Médio OS");
-        for (GroomerPerformanceReport r : data) {
-            pw.printf("%d,%s,%d,%s,%s,%s%n",
-                    r.getGroomerId(),
-                    escapeCsv(r.getGroomerName()),
-                    r.getTotalOrders(),
-                    fmtMoney(r.getTotalRevenue()),
-                    fmtMoney(r.getTotalCommission()),
-                    fmtMoney(r.getAvgOrderValue()));
-        }
-        return sw.toString();
+    public void writeGroomerPerformanceCsv(Stream<GroomerPerformanceReport> rows, Writer out) throws IOException {
+        writeCsv(out, "ID,Groomer,Total OS,Receita Total,Comissão Total,Valor Médio OS", rows,
+                r -> String.format("%d,%s,%d,%s,%s,%s%n",
+                        r.getGroomerId(),
+                        escapeCsv(r.getGroomerName()),
+                        r.getTotalOrders(),
+                        fmtMoney(r.getTotalRevenue()),
+                        fmtMoney(r.getTotalCommission()),
+                        fmtMoney(r.getAvgOrderValue())));
     }
 
-    public String statusDistributionToCsv(List<OsStatusDistribution> data) {
-        StringWriter sw = new StringWriter();
-        sw.write(BOM);
-        PrintWriter pw = new PrintWriter(sw);
-        pw.println("Status,Quantidade,Valor Total");
-        for (OsStatusDistribution r : data) {
-            pw.printf("%s,%d,%s%n", escapeCsv(r.getStatus()), r.getOrderCount(), fmtMoney(r.getTotalValue()));
-        }
-        return sw.toString();
+    public void writeStatusDistributionCsv(Stream<OsStatusDistribution> rows, Writer out) throws IOException {
+        writeCsv(out, "Status,Quantidade,Valor Total", rows,
+                r -> String.format("%s,%d,%s%n",
+                        escapeCsv(r.getStatus()), r.getOrderCount(), fmtMoney(r.getTotalValue())));
     }
 
-    public String paymentMethodsToCsv(List<PaymentMethodStats> data) {
-        StringWriter sw = new StringWriter();
-        sw.write(BOM);
-        PrintWriter pw = new PrintWriter(sw);
-        pw.println("Método,Transações,Valor Total,Valor Médio");
-        for (PaymentMethodStats r : data) {
-            pw.printf("%s,%d,%s,%s%n",
-                    escapeCsv(r.getMethod()), r.getTransactionCount(),
-                    fmtMoney(r.getTotalAmount()), fmtMoney(r.getAvgTransaction()));
-        }
-        return sw.toString();
+    public void writePaymentMethodsCsv(Stream<PaymentMethodStats> rows, Writer out) throws IOException {
+        writeCsv(out, "Método,Transações,Valor Total,Valor Médio", rows,
+                r -> String.format("%s,%d,%s,%s%n",
+                        escapeCsv(r.getMethod()), r.getTransactionCount(),
+                        fmtMoney(r.getTotalAmount()), fmtMoney(r.getAvgTransaction())));
     }
 
     // ── PDF Export ──────────────────────────────────────────────────────
+    // The write* methods render to any stream and flush the table every PDF_FLUSH_ROWS rows, so
+    // memory stays bounded when fed from a cursor (see ReportJobService). The byte[] variants
+    // serve the small, cached on-request exports.
 
     public byte[] dailyRevenueToPdf(List<DailyRevenueReport> data, LocalDate startDate, LocalDate endDate) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeDailyRevenuePdf(data.stream(), startDate, endDate, baos);
+        return baos.toByteArray();
+    }
+
+    public byte[] serviceTypeToPdf(List<ServiceTypeReport> data, LocalDate startDate, LocalDate endDate) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeServiceTypePdf(data.stream(), startDate, endDate, baos);
+        return baos.toByteArray();
+    }
+
+    public byte[] clientSpendingToPdf(List<ClientSpendingReport> data) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeClientSpendingPdf(data.stream(), baos);
+        return baos.toByteArray();
+    }
+
+    public byte[] groomerPerformanceToPdf(List<GroomerPerformanceReport> data, LocalDate startDate, LocalDate endDate) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeGroomerPerformancePdf(data.stream(), startDate, endDate, baos);
+        return baos.toByteArray();
+    }
+
+    public void writeDailyRevenuePdf(Stream<DailyRevenueReport> rows, LocalDate startDate, LocalDate endDate,
+                                     OutputStream out) {
         String title = "Relatório de Receita Diária — " + startDate.format(DATE_FMT) + " a " + endDate.format(DATE_FMT);
         String[] headers = {"Data", "Total OS", "Receita", "Comissão", "Saldo", "Pago"};
         float[] widths = {2f, 1f, 1.5f, 1.5f, 1.5f, 1.5f};
 
-        return buildPdf(title, headers, widths, data.size(), (table, i) -> {
-            DailyRevenueReport r = data.get(i);
+        writePdf(out, title, headers, widths, rows, (table, r) -> {
             addCell(table, r.getReportDate().format(DATE_FMT));
             addCell(table, String.valueOf(r.getTotalOrders()));
             addCellRight(table, "R$ " + fmtMoney(r.getTotalRevenue()));
@@ -145,13 +145,13 @@ public class ReportExportService {
         });
     }
 
-    public byte[] serviceTypeToPdf(List<ServiceTypeReport> data, LocalDate startDate, LocalDate endDate) {
+    public void writeServiceTypePdf(Stream<ServiceTypeReport> rows, LocalDate startDate, LocalDate endDate,
+                                    OutputStream out) {
         String title = "Relatório por Tipo de Serviço — " + startDate.format(DATE_FMT) + " a " + endDate.format(DATE_FMT);
         String[] headers = {"Serviço", "Total", "Receita", "Preço Médio"};
         float[] widths = {3f, 1f, 1.5f, 1.5f};
 
-        return buildPdf(title, headers, widths, data.size(), (table, i) -> {
-            ServiceTypeReport r = data.get(i);
+        writePdf(out, title, headers, widths, rows, (table, r) -> {
             addCell(table, r.getServiceName());
             addCell(table, String.valueOf(r.getTotalServices()));
             addCellRight(table, "R$ " + fmtMoney(r.getTotalRevenue()));
@@ -159,13 +159,12 @@ public class ReportExportService {
         });
     }
 
-    public byte[] clientSpendingToPdf(List<ClientSpendingReport> data) {
+    public void writeClientSpendingPdf(Stream<ClientSpendingReport> rows, OutputStream out) {
         String title = "Top Clientes por Gasto";
         String[] headers = {"Cliente", "Total OS", "Total Gasto", "Primeira Visita", "Última Visita"};
         float[] widths = {3f, 1f, 1.5f, 2f, 2f};
 
-        return buildPdf(title, headers, widths, data.size(), (table, i) -> {
-            ClientSpendingReport r = data.get(i);
+        writePdf(out, title, headers, widths, rows, (table, r) -> {
             addCell(table, r.getClientName());
             addCell(table, String.valueOf(r.getTotalOrders()));
             addCellRight(table, "R$ " + fmtMoney(r.getTotalSpent()));
@@ -174,13 +173,13 @@ public class ReportExportService {
         });
     }
 
-    public byte[] groomerPerformanceToPdf(List<GroomerPerformanceReport> data, LocalDate startDate, LocalDate endDate) {
+    public void writeGroomerPerformancePdf(Stream<GroomerPerformanceReport> rows, LocalDate startDate,
+                                           LocalDate endDate, OutputStream out) {
         String title = "Desempenho dos Groomers — " + startDate.format(DATE_FMT) + " a " + endDate.format(DATE_FMT);
         String[] headers = {"Groomer", "Total OS", "Receita", "Comissão", "Valor Médio"};
         float[] widths = {3f, 1f, 1.5f, 1.5f, 1.5f};
 
-        return buildPdf(title, headers, widths, data.size(), (table, i) -> {
-            GroomerPerformanceReport r = data.get(i);
+        writePdf(out, title, headers, widths, rows, (table, r) -> {
             addCell(table, r.getGroomerName());
             addCell(table, String.valueOf(r.getTotalOrders()));
             addCellRight(table, "R$ " + fmtMoney(r.getTotalRevenue()));
@@ -191,15 +190,29 @@ public class ReportExportService {
 
     // ── Private helpers ────────────────────────────────────────────────
 
+    private <T> void writeCsv(Writer out, String header, Stream<T> rows,
+                              Function<T, String> formatter) throws IOException {
+        out.write(BOM);
+        out.write(header);
+        out.write(System.lineSeparator());
+        Iterator<T> it = rows.iterator();
+        while (it.hasNext()) {
+            out.write(formatter.apply(it.next()));
+        }
+        out.flush();
+    }
+
     @FunctionalInterface
-    private interface RowWriter {
-        void writeRow(PdfPTable table, int index);
+    private interface RowWriter<T> {
+        void writeRow(PdfPTable table, T row);
     }
 
-    private byte[] buildPdf(String title, String[] headers, float[] widths, int rowCount, RowWriter rowWriter) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    // Renders the table as a large element: every PDF_FLUSH_ROWS rows the completed part is laid
+    // out onto pages and dropped from memory, and the header row repeats on each page.
+    private <T> void writePdf(OutputStream out, String title, String[] headers, float[] widths,
+                              Stream<T> rows, RowWriter<T> rowWriter) {
         Document document = new Document(PageSize.A4.rotate(), 36, 36, 54, 36);
-        PdfWriter.getInstance(document, baos);
+        PdfWriter.getInstance(document, out);
         document.open();
         try {
             Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
@@ -217,6 +230,8 @@ public class ReportExportService {
             PdfPTable table = new PdfPTable(headers.length);
             table.setWidthPercentage(100);
             table.setWidths(widths);
+            table.setHeaderRows(1);
+            table.setComplete(false);
 
             Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.WHITE);
             for (String header : headers) {
@@ -227,15 +242,24 @@ public class ReportExportService {
                 table.addCell(cell);
             }
 
-            for (int i = 0; i < rowCount; i++) {
-                rowWriter.writeRow(table, i);
+            long written = 0;
+            Iterator<T> it = rows.iterator();
+            while (it.hasNext()) {
+                rowWriter.writeRow(table, it.next());
+                if (++written % PDF_FLUSH_ROWS == 0) {
+                    document.add(table);
+                }
             }
 
+            if (written == 0) {
+                // A table holding nothing but header rows is skipped; keep the header visible
+                table.setHeaderRows(0);
+            }
+            table.setComplete(true);
             document.add(table);
         } finally {
             document.close();
         }
-        return baos.toByteArray();
     }
 
     private void addCell(PdfPTable table, String text) {
@@ -0,0 +1,368 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.request.ReportJobRequest;
+import com.cisnebranco.dto.request.ReportJobRequest.ReportType;
+import com.cisnebranco.dto.response.ReportJobResponse;
+import com.cisnebranco.dto.response.ReportJobResponse.Status;
+import com.cisnebranco.exception.BusinessException;
+import com.cisnebranco.exception.ResourceNotFoundException;
+import com.cisnebranco.repository.ReportRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders report PDFs in the background. A job reads its report through a forward-only cursor
+ * and writes the PDF incrementally to a file under {@code app.reports.jobs.dir}, so neither the
+ * rows nor the document are ever held in memory and no request thread waits on the render.
+ *
+ * Jobs run on virtual threads of the instance that accepted them; at most
+ * {@code max-concurrent-renders} render at once (each holds a pooled connection) and at most
+ * {@code max-pending} may be queued or running per instance. Job state is kept in
+ * {@code report_jobs} and the directory must be one every replica mounts, so any replica can
+ * answer a poll or serve the file. Finished jobs and their files are removed {@code ttl-minutes}
+ * after completion; a job still unfinished after {@code ttl-minutes} is marked failed, as the
+ * instance rendering it has stopped.
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    private static final int DEFAULT_TOP_CLIENTS = 10;
+    private static final String PART_SUFFIX = ".pdf.part";
+
+    private static final String SELECT_JOB = """
+            SELECT id, report, status, requested_by, created_at, finished_at, expires_at, file_name,
+                   size_bytes, error
+            FROM report_jobs WHERE id = ?
+            """;
+
+    private final ReportRepository reportRepository;
+    private final ReportExportService exportService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final Path jobDir;
+    private final int maxPending;
+    private final Duration ttl;
+    private final Semaphore renderPermits;
+
+    // Jobs this instance is rendering, failed on shutdown since nobody else will finish them
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ReportJobService(ReportRepository reportRepository,
+                            ReportExportService exportService,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            JdbcTemplate jdbcTemplate,
+                            @Value("${app.reports.jobs.dir:./data/report-jobs}") String jobDir,
+                            @Value("${app.reports.jobs.max-concurrent-renders:2}") int maxConcurrentRenders,
+                            @Value("${app.reports.jobs.max-pending:20}") int maxPending,
+                            @Value("${app.reports.jobs.ttl-minutes:60}") long ttlMinutes) {
+        this.reportRepository = reportRepository;
+        this.exportService = exportService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobDir = Path.of(jobDir).toAbsolutePath().normalize();
+        this.renderPermits = new Semaphore(Math.max(1, maxConcurrentRenders));
+        this.maxPending = maxPending;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+
+        meterRegistry.gauge("reports.jobs.pending", pending);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        // Other replicas may be writing here, so leftovers are only removed by purgeExpiredJobs
+        Files.createDirectories(jobDir);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+        for (UUID id : inFlight) {
+            fail(id, "Interrupted by server shutdown");
+        }
+    }
+
+    public ReportJobResponse submit(ReportJobRequest request, String requestedBy) {
+        validate(request);
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new BusinessException("Too many report jobs in progress, try again later");
+        }
+        UUID id = UUID.randomUUID();
+        try {
+            jdbcTemplate.update("""
+                            INSERT INTO report_jobs
+                                (id, report, start_date, end_date, report_limit, status, requested_by, created_at)
+                            VALUES (?, ?, ?, ?, ?, 'QUEUED', ?, ?)
+                            """,
+                    id, request.report().name(), request.startDate(), request.endDate(), request.limit(),
+                    requestedBy, Timestamp.valueOf(LocalDateTime.now()));
+            inFlight.add(id);
+            executor.execute(() -> run(id, request));
+        } catch (RuntimeException e) {
+            inFlight.remove(id);
+            jdbcTemplate.update("DELETE FROM report_jobs WHERE id = ?", id);
+            pending.decrementAndGet();
+            throw e;
+        }
+        log.info("Report job {} queued: {} by {}", id, request.report(), requestedBy);
+        return getJob(id);
+    }
+
+    public ReportJobResponse getJob(UUID id) {
+        return findJob(id).response();
+    }
+
+    /** The rendered file of a completed job, with the download filename. */
+    public JobFile getFile(UUID id) {
+        StoredJob job = findJob(id);
+        ReportJobResponse response = job.response();
+        if (response.status() != Status.COMPLETED) {
+            throw new BusinessException("Report job " + id + " is " + response.status() + ", no file to download");
+        }
+        Path file = jobDir.resolve(job.fileName());
+        if (!Files.isReadable(file)) {
+            log.error("Report job {} is completed but {} is missing — {} must be shared by every replica",
+                    id, file, jobDir);
+            throw new ResourceNotFoundException("File of report job " + id + " is not available");
+        }
+        String prefix = switch (response.report()) {
+            case DAILY_REVENUE -> "receita-diaria";
+            case SERVICE_TYPES -> "tipos-servico";
+            case TOP_CLIENTS -> "top-clientes";
+            case GROOMER_PERFORMANCE -> "desempenho-groomers";
+        };
+        return new JobFile(file, prefix + "-" + response.createdAt().toLocalDate() + ".pdf");
+    }
+
+    /** Runs on every replica; each expired row is deleted by exactly one of them, which removes its file. */
+    @Scheduled(fixedDelayString = "${app.reports.jobs.cleanup-interval-ms:300000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int abandoned = jdbcTemplate.update("""
+                        UPDATE report_jobs SET status = 'FAILED', error = ?, finished_at = ?, expires_at = ?
+                        WHERE finished_at IS NULL AND created_at < ?
+                        """,
+                "Abandoned: the server rendering it stopped", Timestamp.valueOf(now),
+                Timestamp.valueOf(now.plus(ttl)), Timestamp.valueOf(now.minus(ttl)));
+        if (abandoned > 0) {
+            log.warn("Marked {} report jobs unfinished after {} as failed", abandoned, ttl);
+        }
+
+        List<String> files = jdbcTemplate.queryForList(
+                "DELETE FROM report_jobs WHERE expires_at < ? RETURNING file_name", String.class,
+                Timestamp.valueOf(now));
+        for (String file : files) {
+            if (file != null) {
+                deleteQuietly(jobDir.resolve(file));
+            }
+        }
+        int orphans = deleteOrphanFiles(now.minus(ttl));
+        if (!files.isEmpty() || orphans > 0) {
+            log.info("Purged {} expired report jobs and {} orphaned files", files.size(), orphans);
+        }
+    }
+
+    // Files older than the TTL with no job row: left by a crash mid-render or by a purge that
+    // could not delete them
+    private int deleteOrphanFiles(LocalDateTime cutoff) {
+        int deleted = 0;
+        try (DirectoryStream<Path> candidates = Files.newDirectoryStream(jobDir, "*.{pdf,part}")) {
+            for (Path candidate : candidates) {
+                String name = candidate.getFileName().toString();
+                UUID id;
+                try {
+                    id = UUID.fromString(name.substring(0, name.indexOf('.')));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                LocalDateTime modified;
+                try {
+                    modified = LocalDateTime.ofInstant(
+                            Files.getLastModifiedTime(candidate).toInstant(), ZoneId.systemDefault());
+                } catch (IOException e) {
+                    continue; // another replica's purge got there first
+                }
+                if (modified.isBefore(cutoff) && !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM report_jobs WHERE id = ?)", Boolean.class, id))) {
+                    deleteQuietly(candidate);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan {} for orphaned report files: {}", jobDir, e.getMessage());
+        }
+        return deleted;
+    }
+
+    private void run(UUID id, ReportJobRequest request) {
+        String fileName = id + ".pdf";
+        Path part = jobDir.resolve(id + PART_SUFFIX);
+        Path file = jobDir.resolve(fileName);
+        String outcome = "failed";
+        try {
+            renderPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(id, "Interrupted before rendering started");
+            inFlight.remove(id);
+            pending.decrementAndGet();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.update("UPDATE report_jobs SET status = 'RUNNING' WHERE id = ? AND status = 'QUEUED'", id);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                // The PostgreSQL driver only uses a server-side cursor inside a transaction
+                transactionTemplate.executeWithoutResult(status -> render(request, out));
+            }
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            long sizeBytes = Files.size(file);
+            LocalDateTime finishedAt = LocalDateTime.now();
+            int recorded = jdbcTemplate.update("""
+                            UPDATE report_jobs
+                            SET status = 'COMPLETED', file_name = ?, size_bytes = ?, finished_at = ?, expires_at = ?
+                            WHERE id = ? AND status = 'RUNNING'
+                            """,
+                    fileName, sizeBytes, Timestamp.valueOf(finishedAt), Timestamp.valueOf(finishedAt.plus(ttl)), id);
+            if (recorded == 0) {
+                // Given up as abandoned or purged while rendering; nobody can download it now
+                deleteQuietly(file);
+                log.warn("Report job {} finished after it was given up, discarded its file", id);
+            } else {
+                outcome = "completed";
+                log.info("Report job {} completed: {} bytes in {} ms", id, sizeBytes,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Report job {} ({}) failed: {}", id, request.report(), e.getMessage(), e);
+            deleteQuietly(part);
+            fail(id, "Report rendering failed");
+        } finally {
+            renderPermits.release();
+            inFlight.remove(id);
+            pending.decrementAndGet();
+            meterRegistry.timer("reports.jobs.render", "report", request.report().name(), "outcome", outcome)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void fail(UUID id, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update("""
+                            UPDATE report_jobs SET status = 'FAILED', error = ?, finished_at = ?, expires_at = ?
+                            WHERE id = ? AND finished_at IS NULL
+                            """,
+                    error, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)), id);
+        } catch (RuntimeException e) {
+            // The purge marks it failed once it is older than the TTL
+            log.error("Could not record failure of report job {}", id, e);
+        }
+    }
+
+    private void render(ReportJobRequest request, OutputStream out) {
+        LocalDate startDate = request.startDate();
+        LocalDate endDate = request.endDate();
+        switch (request.report()) {
+            case DAILY_REVENUE -> {
+                try (var rows = reportRepository.streamRevenueReport(startDate, endDate)) {
+                    exportService.writeDailyRevenuePdf(rows, startDate, endDate, out);
+                }
+            }
+            case SERVICE_TYPES -> {
+                try (var rows = reportRepository.streamServiceTypeReport(startDate, endDate)) {
+                    exportService.writeServiceTypePdf(rows, startDate, endDate, out);
+                }
+            }
+            case TOP_CLIENTS -> {
+                int limit = request.limit() != null ? request.limit() : DEFAULT_TOP_CLIENTS;
+                try (var rows = reportRepository.streamTopClientsBySpending(limit)) {
+                    exportService.writeClientSpendingPdf(rows, out);
+                }
+            }
+            case GROOMER_PERFORMANCE -> {
+                try (var rows = reportRepository.streamGroomerPerformanceReport(startDate, endDate)) {
+                    exportService.writeGroomerPerformancePdf(rows, startDate, endDate, out);
+                }
+            }
+        }
+    }
+
+    private void validate(ReportJobRequest request) {
+        if (request.report() == ReportType.TOP_CLIENTS) {
+            return;
+        }
+        if (request.startDate() == null || request.endDate() == null) {
+            throw new BusinessException("startDate and endDate are required for " + request.report());
+        }
+        if (request.startDate().isAfter(request.endDate())) {
+            throw new BusinessException("startDate must not be after endDate");
+        }
+    }
+
+    private StoredJob findJob(UUID id) {
+        List<StoredJob> rows = jdbcTemplate.query(SELECT_JOB, (rs, n) -> new StoredJob(
+                new ReportJobResponse(
+                        rs.getObject("id", UUID.class),
+                        ReportType.valueOf(rs.getString("report")),
+                        Status.valueOf(rs.getString("status")),
+                        rs.getString("requested_by"),
+                        rs.getObject("created_at", LocalDateTime.class),
+                        rs.getObject("finished_at", LocalDateTime.class),
+                        rs.getObject("expires_at", LocalDateTime.class),
+                        rs.getObject("size_bytes", Long.class),
+                        rs.getString("error")),
+                rs.getString("file_name")), id);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("ReportJob not found with id " + id);
+        }
+        return rows.get(0);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}: {}", path, e.getMessage());
+        }
+    }
+
+    public record JobFile(Path path, String filename) {}
+
+    private record StoredJob(ReportJobResponse response, String fileName) {}
+}
@@ -10,34 +10,38 @@ import com.cisnebranco.repository.ReportRepository;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ReportService {
 
+    private static final int CSV_BUFFER_CHARS = 16 * 1024;
+
     private final ReportRepository reportRepository;
     private final JdbcTemplate jdbcTemplate;
-
-    // Guard against overlapping runs — relevant when virtual threads are enabled
-    // (spring.threads.virtual.enabled=true removes single-thread serialization).
-    private final AtomicBoolean refreshInProgress = new AtomicBoolean(false);
-
-    private static final String[] MATERIALIZED_VIEWS = {
-            "mv_daily_revenue",
-            "mv_service_type_stats",
-            "mv_groomer_performance",
-            "mv_os_status_distribution",
-            "mv_payment_method_stats"
-    };
+    private final MaterializedViewRefresher viewRefresher;
+    private final ReportCache reportCache;
+    private final ReportExportService exportService;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
     public List<DailyRevenueReport> getRevenueReport(LocalDate startDate, LocalDate endDate) {
@@ -69,40 +73,98 @@ public class ReportService {
         return reportRepository.getPaymentMethodStats();
     }
 
-    // REFRESH MATERIALIZED VIEW CONCURRENTLY cannot run inside a transaction block.
-    // JdbcTemplate.execute() runs with autocommit, satisfying PostgreSQL's requirement.
-    // Returns the number of views that failed to refresh (0 = all succeeded).
-    @Scheduled(cron = "0 0 * * * *")
-    public int refreshMaterializedViews() {
-        if (!refreshInProgress.compareAndSet(false, true)) {
-            log.warn("Skipping materialized view refresh — previous run still in progress");
-            return 0;
-        }
-        long startTime = System.currentTimeMillis();
-        log.info("Starting scheduled refresh of {} materialized views", MATERIALIZED_VIEWS.length);
-        int failures = 0;
+    // ── Streaming CSV exports ──────────────────────────────────────────
+    // Each body reads its report through a forward-only cursor and writes rows straight to the
+    // response, so memory stays flat however large the date range. The query runs when the body
+    // is written, on the async request thread.
 
-        try {
-            for (String viewName : MATERIALIZED_VIEWS) {
-                try {
-                    jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + viewName);
-                    log.info("Materialized view '{}' refreshed successfully", viewName);
-                } catch (org.springframework.dao.DataAccessException e) {
-                    failures++;
-                    log.error("Failed to refresh materialized view '{}': {}", viewName, e.getMessage(), e);
-                }
+    public StreamingResponseBody streamRevenueCsv(LocalDate startDate, LocalDate endDate) {
+        return streamCsv(() -> reportRepository.streamRevenueReport(startDate, endDate),
+                exportService::writeDailyRevenueCsv);
+    }
+
+    public StreamingResponseBody streamServiceTypeCsv(LocalDate startDate, LocalDate endDate) {
+        return streamCsv(() -> reportRepository.streamServiceTypeReport(startDate, endDate),
+                exportService::writeServiceTypeCsv);
+    }
+
+    public StreamingResponseBody streamTopClientsCsv(int limit) {
+        return streamCsv(() -> reportRepository.streamTopClientsBySpending(limit),
+                exportService::writeClientSpendingCsv);
+    }
+
+    public StreamingResponseBody streamGroomerPerformanceCsv(LocalDate startDate, LocalDate endDate) {
+        return streamCsv(() -> reportRepository.streamGroomerPerformanceReport(startDate, endDate),
+                exportService::writeGroomerPerformanceCsv);
+    }
+
+    public StreamingResponseBody streamStatusDistributionCsv() {
+        return streamCsv(reportRepository::streamOsStatusDistribution,
+                exportService::writeStatusDistributionCsv);
+    }
+
+    public StreamingResponseBody streamPaymentMethodsCsv() {
+        return streamCsv(reportRepository::streamPaymentMethodStats,
+                exportService::writePaymentMethodsCsv);
+    }
+
+    private <T> StreamingResponseBody streamCsv(Supplier<Stream<T>> query, CsvWriter<T> csvWriter) {
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_CHARS);
+            try {
+                // The PostgreSQL driver only uses a server-side cursor inside a transaction
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<T> rows = query.get()) {
+                        csvWriter.write(rows, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Client went away mid-stream
+                throw e.getCause();
             }
-        } finally {
-            refreshInProgress.set(false);
+        };
+    }
+
+    @FunctionalInterface
+    private interface CsvWriter<T> {
+        void write(Stream<T> rows, Writer out) throws IOException;
+    }
+
+    // The report_* aggregates are kept current by triggers (V18), so the full recompute only runs
+    // nightly as a reconciliation. The materialized views are no longer read by the API and are
+    // refreshed alongside it for direct SQL consumers.
+    @Scheduled(cron = "0 30 3 * * *")
+    public void runNightlyReconciliation() {
+        try {
+            reconcileAggregates();
+        } catch (DataAccessException e) {
+            log.error("Report aggregate reconciliation failed: {}", e.getMessage(), e);
         }
+        refreshMaterializedViews();
+    }
 
+    // Recomputes every aggregate table from source and returns how many rows had drifted from the
+    // trigger-maintained values. Drift should be zero; anything else points at a write path that
+    // bypassed the triggers (e.g. a manual data fix with triggers disabled).
+    public int reconcileAggregates() {
+        long startTime = System.currentTimeMillis();
+        Integer drifted = jdbcTemplate.queryForObject("SELECT rebuild_report_aggregates()", Integer.class);
+        int drift = drifted != null ? drifted : 0;
         long durationMs = System.currentTimeMillis() - startTime;
-        if (failures > 0) {
-            log.error("Materialized view refresh finished with {}/{} failures in {} ms",
-                    failures, MATERIALIZED_VIEWS.length, durationMs);
+        if (drift > 0) {
+            log.warn("Report aggregate reconciliation corrected {} drifted rows in {} ms", drift, durationMs);
+            reportCache.invalidateAll();
         } else {
-            log.info("Materialized view refresh cycle completed in {} ms", durationMs);
+            log.info("Report aggregate reconciliation found no drift ({} ms)", durationMs);
         }
-        return failures;
+        return drift;
+    }
+
+    // Refreshes the views whose source tables changed since their last refresh (see
+    // MaterializedViewRefresher). Returns the number of views that failed (0 = all succeeded).
+    public int refreshMaterializedViews() {
+        return viewRefresher.refreshAll(false).failed();
     }
 }
@@ -1,88 +1,176 @@
 package com.cisnebranco.service;
 
+import com.cisnebranco.entity.enums.UserRole;
+import com.cisnebranco.service.SseMessage.Audience;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Server-Sent Events fan-out. Publishing never writes to a socket: each event is serialized to
+ * JSON bytes once and handed to the {@link SseEventBus}, which numbers it and delivers it to this
+ * service on every instance. There the frame is built once and appended to every matching local
+ * subscriber's bounded queue. Each subscriber has its own virtual-thread writer draining its queue, so a slow client
+ * only delays itself, never the committing thread or other clients.
+ *
+ * Slow consumers are handled in two steps. An entity-change notification that is still queued
+ * is dropped for a newer one for the same entity (coalesced), since clients only use it as a
+ * signal to re-fetch. The newer one joins the end of the queue, so ids still reach the client in
+ * order. If the queue is still full, its pending events are dropped and replaced by
+ * a single {@code resync} event telling the client to reload its state.
+ *
+ * The last {@code replay-buffer-size} published events are kept in a ring indexed by event id.
+ * A client reconnecting with {@code Last-Event-ID} gets the events it missed that were addressed
+ * to it, or a {@code resync} event if the gap is older than the ring or not covered by it. Ids
+ * come from the bus, so a client can resume on any instance. If the bus skips ids (a broker
+ * subscription dropped), the ring restarts and connected clients are told to resync.
+ * Connection-local events ({@code connected}, {@code resync}, heartbeats) carry no id and leave
+ * the client's last event id unchanged.
+ *
+ * Metrics: {@code sse.subscribers}, {@code sse.queue.depth} (events queued across all
+ * subscribers), {@code sse.events.dropped{reason=coalesced|overflow}},
+ * {@code sse.send.latency} (queued to written) and {@code sse.reconnects{result=replayed|resync}}.
+ */
 @Service
 @Slf4j
 public class SseEmitterService {
 
     private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    static final String RESYNC_EVENT = "resync";
 
-    private final Map<Long, SseEmitter> emitters = new ConcurrentHashMap<>();
-    private final AtomicLong eventIdCounter = new AtomicLong(0);
+    private final SseEventBus eventBus;
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
 
-    public SseEmitter createEmitter(Long userId, boolean isReconnect) {
-        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    // Recording a delivered event and queueing it happen under one lock, so a reconnecting
+    // subscriber registered under the same lock misses nothing and sees nothing twice.
+    // The ring holds ids [firstEventId, lastEventId], at most replay.length of them; 0 = none yet.
+    private final ReentrantLock sequenceLock = new ReentrantLock();
+    private final Recorded[] replay;
+    private long firstEventId;
+    private long lastEventId;
+
+    private final Counter coalesced;
+    private final Counter overflowed;
+    private final Counter replayed;
+    private final Counter resynced;
+    private final Timer sendLatency;
+
+    public SseEmitterService(SseEventBus eventBus,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.sse.queue-capacity:256}") int queueCapacity,
+                             @Value("${app.sse.replay-buffer-size:1024}") int replayBufferSize) {
+        this.eventBus = eventBus;
+        this.objectMapper = objectMapper;
+        this.queueCapacity = Math.max(2, queueCapacity);
+        this.replay = new Recorded[Math.max(1, replayBufferSize)];
+        this.coalesced = meterRegistry.counter("sse.events.dropped", "reason", "coalesced");
+        this.overflowed = meterRegistry.counter("sse.events.dropped", "reason", "overflow");
+        this.replayed = meterRegistry.counter("sse.reconnects", "result", "replayed");
+        this.resynced = meterRegistry.counter("sse.reconnects", "result", "resync");
+        this.sendLatency = meterRegistry.timer("sse.send.latency");
+        Gauge.builder("sse.subscribers", subscribers, Map::size).register(meterRegistry);
+        Gauge.builder("sse.queue.depth", this, SseEmitterService::queuedEvents).register(meterRegistry);
+        eventBus.subscribe(this::deliver);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(Subscriber::close);
+    }
+
+    /**
+     * Opens a stream for the user, replacing any previous one. {@code lastEventId} is the
+     * client's {@code Last-Event-ID} header, null on a first connection.
+     */
+    public SseEmitter createEmitter(Long userId, UserRole role, String lastEventId) {
+        boolean isReconnect = lastEventId != null && !lastEventId.isBlank();
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(userId, role, emitter);
 
         emitter.onCompletion(() -> {
             log.info("SSE completed for user: {}", userId);
-            emitters.remove(userId, emitter);
+            unsubscribe(subscriber);
         });
 
         emitter.onTimeout(() -> {
             log.info("SSE timeout for user: {}", userId);
-            emitters.remove(userId, emitter);
+            unsubscribe(subscriber);
         });
 
         emitter.onError(e -> {
             log.warn("SSE error for user: {}", userId, e);
-            emitters.remove(userId, emitter);
+            unsubscribe(subscriber);
         });
 
-        SseEmitter old = emitters.put(userId, emitter);
+        Subscriber old;
+        sequenceLock.lock();
+        try {
+            old = subscribers.put(userId, subscriber);
+            OutboundEvent connected = connectionEvent("connected", Map.of("reconnect", isReconnect), null);
+            if (connected != null) {
+                subscriber.offer(connected);
+            }
+            if (isReconnect) {
+                replayAfter(subscriber, lastEventId.strip());
+            }
+        } finally {
+            sequenceLock.unlock();
+        }
         if (old != null) {
+            old.close();
             try {
-                old.complete();
+                old.emitter.complete();
             } catch (Exception e) {
                 log.debug("Could not complete previous emitter for user {} during replacement: {}", userId, e.getMessage());
             }
         }
-
-        try {
-            emitter.send(SseEmitter.event()
-                    .id(String.valueOf(eventIdCounter.incrementAndGet()))
-                    .name("connected")
-                    .data(Map.of("reconnect", isReconnect)));
-        } catch (IOException | IllegalStateException e) {
-            log.warn("Failed to send initial connected event for user {}, aborting emitter registration: {}", userId, e.getMessage());
-            emitters.remove(userId, emitter);
-            emitter.completeWithError(e);
-        } catch (Exception e) {
-            log.error("Unexpected error sending initial connected event for user {}, aborting emitter registration", userId, e);
-            emitters.remove(userId, emitter);
-            emitter.completeWithError(e);
-        }
-
+        subscriber.start();
         return emitter;
     }
 
     public void sendToUser(Long userId, String eventName, Object data) {
-        SseEmitter emitter = emitters.get(userId);
-        if (emitter == null) {
-            log.debug("SSE event '{}' not delivered to user {} — no active connection", eventName, userId);
-            return;
-        }
-        trySend(userId, emitter, eventName, data);
+        publish(eventName, data, null, Audience.user(userId));
     }
 
     public void sendToAll(String eventName, Object data) {
-        emitters.forEach((userId, emitter) -> trySend(userId, emitter, eventName, data));
+        publish(eventName, data, null, Audience.ALL);
+    }
+
+    public void sendToRole(UserRole role, String eventName, Object data) {
+        publish(eventName, data, null, Audience.role(role));
     }
 
     /**
      * Registers an afterCommit hook that broadcasts an entity-change SSE event once the
      * current transaction commits successfully. Safe to call from any @Transactional method.
+     * A still-queued notification for the same entity is superseded by the newer one.
      *
      * Guards:
      * - Null id: logs at error and returns — prevents NPE inside Map.of()
@@ -102,55 +190,309 @@ public class SseEmitterService {
             @Override
             public void afterCommit() {
                 try {
-                    sendToAll(eventName, Map.of("action", action, "id", id));
+                    publish(eventName, Map.of("action", action, "id", id), eventName + ":" + id, Audience.ALL);
                 } catch (Exception e) {
-                    // sendToAll handles IOException/IllegalStateException internally via trySend;
-                    // this catch is a final safety net for any unexpected runtime exception.
+                    // publish only enqueues; this catch is a final safety net for any unexpected
+                    // runtime exception.
                     log.error("Unexpected error broadcasting SSE event '{}' for id {}", eventName, id, e);
                 }
             }
         });
     }
 
-    private void trySend(Long userId, SseEmitter emitter, String eventName, Object data) {
+    @Scheduled(fixedRate = 30_000)
+    void sendHeartbeat() {
+        OutboundEvent heartbeat = new OutboundEvent(null, null, SseEmitter.event().comment("heartbeat").build(),
+                "heartbeat", System.nanoTime());
+        subscribers.values().forEach(subscriber -> subscriber.offer(heartbeat));
+    }
+
+    public int getActiveConnectionCount() {
+        return subscribers.size();
+    }
+
+    // Overridden in tests to observe and stall writes
+    SseEmitter newEmitter() {
+        return new SseEmitter(EMITTER_TIMEOUT_MS);
+    }
+
+    int queuedEvents() {
+        int total = 0;
+        for (Subscriber subscriber : subscribers.values()) {
+            total += subscriber.depth();
+        }
+        return total;
+    }
+
+    private void publish(String eventName, Object data, String coalesceKey, Audience audience) {
+        byte[] json = serialize(eventName, data);
+        if (json != null) {
+            eventBus.publish(new SseMessage(audience, eventName, coalesceKey, json));
+        }
+    }
+
+    // Called by the bus in id order. Recorded even with nobody connected: a client that is
+    // reconnecting still needs it.
+    void deliver(long id, SseMessage message) {
+        sequenceLock.lock();
         try {
-            emitter.send(SseEmitter.event()
-                    .id(String.valueOf(eventIdCounter.incrementAndGet()))
-                    .name(eventName)
-                    .data(data));
-        } catch (IOException e) {
-            log.warn("SSE send failed (IO) for event '{}' to user {}, removing emitter: {}", eventName, userId, e.getMessage());
-            emitters.remove(userId, emitter);
-        } catch (IllegalStateException e) {
-            log.warn("SSE send failed (emitter already closed) for event '{}' to user {}, removing emitter: {}", eventName, userId, e.getMessage());
-            emitters.remove(userId, emitter);
-        } catch (Exception e) {
-            log.error("Unexpected error sending SSE event '{}' to user {}, completing emitter with error", eventName, userId, e);
-            emitters.remove(userId, emitter);
-            emitter.completeWithError(e);
+            if (lastEventId != 0 && id <= lastEventId) {
+                log.warn("SSE event {} delivered after {} — ignored", id, lastEventId);
+                return;
+            }
+            if (lastEventId == 0 || id != lastEventId + 1) {
+                if (lastEventId != 0) {
+                    log.warn("SSE events {}..{} were never delivered — clients told to resync", lastEventId + 1, id - 1);
+                    resyncAll("gap");
+                }
+                firstEventId = id;
+            }
+            lastEventId = id;
+            Audience audience = message.audience();
+            // Instance-only messages still take their place in the sequence, but no frame
+            OutboundEvent event = audience.instancesOnly()
+                    ? null
+                    : toEvent(id, message.eventName(), message.data(), message.coalesceKey());
+            replay[(int) (id % replay.length)] = new Recorded(event, audience);
+            if (event == null) {
+                return;
+            }
+            for (Subscriber subscriber : subscribers.values()) {
+                if (audience.includes(subscriber.userId, subscriber.role)) {
+                    subscriber.offer(event);
+                }
+            }
+        } finally {
+            sequenceLock.unlock();
         }
     }
 
-    @Scheduled(fixedRate = 30_000)
-    void sendHeartbeat() {
-        emitters.forEach((userId, emitter) -> {
+    // Caller holds sequenceLock
+    private void resyncAll(String reason) {
+        OutboundEvent resync = connectionEvent(RESYNC_EVENT, Map.of("reason", reason), RESYNC_EVENT);
+        if (resync != null) {
+            subscribers.values().forEach(subscriber -> subscriber.offer(resync));
+        }
+    }
+
+    // Caller holds sequenceLock
+    private void replayAfter(Subscriber subscriber, String lastSeen) {
+        long oldest = Math.max(firstEventId, lastEventId - replay.length + 1);
+        long after;
+        try {
+            after = Long.parseLong(lastSeen);
+        } catch (NumberFormatException e) {
+            after = Long.MIN_VALUE;
+        }
+        if (lastEventId == 0 || after < oldest - 1 || after > lastEventId) {
+            log.info("SSE user {} resumed after event {}, outside the replay window [{}, {}] — resync required",
+                    subscriber.userId, lastSeen, oldest, lastEventId);
+            resynced.increment();
+            OutboundEvent resync = connectionEvent(RESYNC_EVENT, Map.of("reason", "replay-gap"), RESYNC_EVENT);
+            if (resync != null) {
+                subscriber.offer(resync);
+            }
+            return;
+        }
+        int count = 0;
+        for (long id = after + 1; id <= lastEventId; id++) {
+            Recorded recorded = replay[(int) (id % replay.length)];
+            if (recorded.audience().includes(subscriber.userId, subscriber.role)) {
+                subscriber.offer(recorded.event());
+                count++;
+            }
+        }
+        replayed.increment();
+        log.debug("SSE user {} resumed after event {}, replayed {} events", subscriber.userId, after, count);
+    }
+
+    private byte[] serialize(String eventName, Object data) {
+        try {
+            return objectMapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize SSE event '{}', not sent", eventName, e);
+            return null;
+        }
+    }
+
+    // Builds the frame once; it is shared by every subscriber the event is queued for
+    private static OutboundEvent toEvent(Long id, String eventName, byte[] json, String coalesceKey) {
+        SseEmitter.SseEventBuilder builder = SseEmitter.event();
+        if (id != null) {
+            builder.id(String.valueOf(id));
+        }
+        Set<DataWithMediaType> frame = builder
+                .name(eventName)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build();
+        return new OutboundEvent(id, eventName, frame, coalesceKey, System.nanoTime());
+    }
+
+    // For events about the connection itself: no id, never recorded for replay
+    private OutboundEvent connectionEvent(String eventName, Object data, String coalesceKey) {
+        byte[] json = serialize(eventName, data);
+        return json != null ? toEvent(null, eventName, json, coalesceKey) : null;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber.userId, subscriber);
+        subscriber.close();
+    }
+
+    /**
+     * A serialized frame; {@code id} null for connection-local events, {@code coalesceKey}
+     * non-null if a newer event with the same key supersedes it.
+     */
+    record OutboundEvent(Long id, String name, Set<DataWithMediaType> frame, String coalesceKey, long publishedAt) {}
+
+    private record Recorded(OutboundEvent event, Audience audience) {}
+
+    /** One connection: a bounded queue drained by its own virtual thread. */
+    private final class Subscriber {
+        final Long userId;
+        final UserRole role;
+        final SseEmitter emitter;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        // Guarded by lock. Slots let a connection-local event be replaced in place, keeping its position.
+        private final ArrayDeque<Slot> queue = new ArrayDeque<>();
+        private final Map<String, Slot> pendingByKey = new HashMap<>();
+        private boolean closed;
+
+        Subscriber(Long userId, UserRole role, SseEmitter emitter) {
+            this.userId = userId;
+            this.role = role;
+            this.emitter = emitter;
+        }
+
+        void start() {
+            Thread.ofVirtual().name("sse-writer-" + userId).start(this::drain);
+        }
+
+        void offer(OutboundEvent event) {
+            lock.lock();
             try {
-                emitter.send(SseEmitter.event().comment("heartbeat"));
-            } catch (IOException e) {
-                log.warn("SSE heartbeat failed (IO) for user {}, removing emitter: {}", userId, e.getMessage());
-                emitters.remove(userId, emitter);
-            } catch (IllegalStateException e) {
-                log.warn("SSE heartbeat failed (emitter already closed) for user {}, removing emitter: {}", userId, e.getMessage());
-                emitters.remove(userId, emitter);
-            } catch (Exception e) {
-                log.error("Unexpected error during SSE heartbeat for user {}, completing emitter with error", userId, e);
-                emitters.remove(userId, emitter);
-                emitter.completeWithError(e);
+                if (closed) {
+                    return;
+                }
+                if (event.coalesceKey() != null) {
+                    Slot pending = pendingByKey.get(event.coalesceKey());
+                    if (pending != null) {
+                        coalesced.increment();
+                        if (event.id() == null) {
+                            pending.event = event;
+                            return;
+                        }
+                        // Replaced in place, it would be written before lower ids still queued
+                        // behind the old slot, and a client resuming from its id would never
+                        // get them. Ids must leave in order, so it goes to the tail instead.
+                        queue.remove(pending);
+                        pendingByKey.remove(event.coalesceKey());
+                    }
+                }
+                if (queue.size() >= queueCapacity) {
+                    overflow();
+                }
+                Slot slot = new Slot(event);
+                queue.addLast(slot);
+                if (event.coalesceKey() != null) {
+                    pendingByKey.put(event.coalesceKey(), slot);
+                }
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
             }
-        });
+        }
+
+        // Caller holds lock. Everything queued is obsolete once the client reloads, so drop it
+        // all and leave one resync in its place.
+        private void overflow() {
+            overflowed.increment(queue.size());
+            log.warn("SSE queue full for user {}, dropped {} events and requested a resync", userId, queue.size());
+            queue.clear();
+            pendingByKey.clear();
+            OutboundEvent resync = connectionEvent(RESYNC_EVENT, Map.of("reason", "overflow"), RESYNC_EVENT);
+            if (resync != null) {
+                Slot slot = new Slot(resync);
+                queue.addLast(slot);
+                pendingByKey.put(RESYNC_EVENT, slot);
+            }
+        }
+
+        private OutboundEvent take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.await();
+                }
+                if (closed) {
+                    return null;
+                }
+                Slot slot = queue.pollFirst();
+                OutboundEvent event = slot.event;
+                if (event.coalesceKey() != null) {
+                    pendingByKey.remove(event.coalesceKey(), slot);
+                }
+                return event;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drain() {
+            try {
+                OutboundEvent event;
+                while ((event = take()) != null) {
+                    try {
+                        emitter.send(event.frame());
+                        if (event.name() != null) {
+                            sendLatency.record(System.nanoTime() - event.publishedAt(), TimeUnit.NANOSECONDS);
+                        }
+                    } catch (IOException e) {
+                        log.warn("SSE send failed (IO) for event '{}' to user {}, removing emitter: {}", event.name(), userId, e.getMessage());
+                        unsubscribe(this);
+                    } catch (IllegalStateException e) {
+                        log.warn("SSE send failed (emitter already closed) for event '{}' to user {}, removing emitter: {}", event.name(), userId, e.getMessage());
+                        unsubscribe(this);
+                    } catch (Exception e) {
+                        log.error("Unexpected error sending SSE event '{}' to user {}, completing emitter with error", event.name(), userId, e);
+                        unsubscribe(this);
+                        emitter.completeWithError(e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int depth() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                queue.clear();
+                pendingByKey.clear();
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
-    public int getActiveConnectionCount() {
-        return emitters.size();
+    private static final class Slot {
+        OutboundEvent event;
+
+        Slot(OutboundEvent event) {
+            this.event = event;
+        }
     }
 }
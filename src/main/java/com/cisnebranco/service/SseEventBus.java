@@ -0,0 +1,27 @@
+package com.cisnebranco.service;
+
+/**
+ * Carries SSE events to the {@link SseEmitterService} of every API instance. Implementations
+ * assign each published event the next id of one global sequence and deliver events to every
+ * listener in id order, which is what lets {@code Last-Event-ID} replay work on any instance.
+ *
+ * Selected by {@code app.sse.bus}: {@code local} (default, this JVM only) or {@code redis}.
+ */
+public interface SseEventBus {
+
+    /** Publishes without waiting for delivery to other instances. */
+    void publish(SseMessage message);
+
+    void subscribe(Listener listener);
+
+    /** Whether other instances receive what this one publishes. */
+    default boolean isShared() {
+        return false;
+    }
+
+    @FunctionalInterface
+    interface Listener {
+        /** Called with strictly increasing ids, one call at a time. */
+        void deliver(long id, SseMessage message);
+    }
+}
@@ -0,0 +1,83 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.entity.enums.UserRole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An SSE event as it travels over the {@link SseEventBus}: who it is for, its name, the optional
+ * coalesce key and the already-serialized JSON payload. The event id is assigned by the bus.
+ */
+public record SseMessage(Audience audience, String eventName, String coalesceKey, byte[] data) {
+
+    private static final String INSTANCES_ROLE = "*";
+
+    /**
+     * Recipients: every connection, one role's or one user's. {@link #INSTANCES} reaches no
+     * connection, only the bus listeners of each instance (see {@link InstanceEvents}).
+     */
+    public record Audience(UserRole role, Long userId, boolean instancesOnly) {
+
+        public static final Audience ALL = new Audience(null, null, false);
+        public static final Audience INSTANCES = new Audience(null, null, true);
+
+        public static Audience role(UserRole role) {
+            return new Audience(role, null, false);
+        }
+
+        public static Audience user(Long userId) {
+            return new Audience(null, userId, false);
+        }
+
+        boolean includes(Long subscriberId, UserRole subscriberRole) {
+            return !instancesOnly
+                    && (role == null || role == subscriberRole) && (userId == null || userId.equals(subscriberId));
+        }
+    }
+
+    /**
+     * Wire format for brokers: {@code role \n userId \n eventName \n coalesceKey \n data}, empty
+     * lines for nulls and {@value #INSTANCES_ROLE} as the role of {@link Audience#INSTANCES}. Event names and keys are code constants without line breaks, and the
+     * payload is compact JSON, so it goes last unescaped.
+     */
+    public byte[] encode() {
+        String header = String.join("\n",
+                audience.instancesOnly() ? INSTANCES_ROLE : audience.role() != null ? audience.role().name() : "",
+                audience.userId() != null ? audience.userId().toString() : "",
+                eventName,
+                coalesceKey != null ? coalesceKey : "") + "\n";
+        byte[] head = header.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = Arrays.copyOf(head, head.length + data.length);
+        System.arraycopy(data, 0, encoded, head.length, data.length);
+        return encoded;
+    }
+
+    public static SseMessage decode(byte[] encoded) {
+        String[] fields = new String[4];
+        int start = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int end = indexOf(encoded, (byte) '\n', start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Malformed SSE message: missing header field " + i);
+            }
+            fields[i] = new String(encoded, start, end - start, StandardCharsets.UTF_8);
+            start = end + 1;
+        }
+        Audience audience = fields[0].equals(INSTANCES_ROLE) ? Audience.INSTANCES : new Audience(
+                fields[0].isEmpty() ? null : UserRole.valueOf(fields[0]),
+                fields[1].isEmpty() ? null : Long.valueOf(fields[1]),
+                false);
+        return new SseMessage(audience, fields[2], fields[3].isEmpty() ? null : fields[3],
+                Arrays.copyOfRange(encoded, start, encoded.length));
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
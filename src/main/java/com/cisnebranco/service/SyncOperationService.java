@@ -0,0 +1,75 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.entity.SyncOperation;
+import com.cisnebranco.entity.enums.SyncOperationType;
+import com.cisnebranco.exception.BusinessException;
+import com.cisnebranco.repository.SyncOperationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Exactly-once execution of offline sync operations keyed by a client-generated operation id.
+ *
+ * Only successful operations are recorded: a failed operation rolls back together with its
+ * claim, so a retry re-executes it (a transient failure may succeed the second time, and a
+ * deterministic one is rejected again without writing anything).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncOperationService {
+
+    private final SyncOperationRepository syncOperationRepository;
+
+    @Value("${app.sync.operation-ttl-hours:72}")
+    private long operationTtlHours;
+
+    /**
+     * Returns the OS id stored for an already-applied operation, or empty if the id is unknown.
+     * Rejects ids that were recorded for another user or operation type.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findCompletedOsId(String operationId, SyncOperationType type, Long userId) {
+        Optional<SyncOperation> stored = syncOperationRepository.findById(operationId);
+        stored.ifPresent(op -> {
+            if (op.getOperationType() != type || !Objects.equals(op.getUserId(), userId)) {
+                throw new BusinessException("Operation id " + operationId + " was already used for a different operation");
+            }
+        });
+        return stored.map(SyncOperation::getOsId);
+    }
+
+    /**
+     * Claims the operation id, runs the operation and stores its OS id — all in one transaction.
+     * The claim is the first statement, so a concurrent retry of the same id blocks on the
+     * primary key until this transaction ends and then fails with a
+     * {@link org.springframework.dao.DataIntegrityViolationException} before doing any work.
+     * The {@code TechnicalOsService} methods join this transaction.
+     */
+    @Transactional
+    public Long executeOnce(String operationId, SyncOperationType type, Long userId, Supplier<Long> operation) {
+        syncOperationRepository.claim(operationId, type.name(), userId);
+        Long osId = operation.get();
+        syncOperationRepository.complete(operationId, osId);
+        return osId;
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void purgeExpiredOperations() {
+        int deleted = syncOperationRepository.deleteCreatedBefore(
+                LocalDateTime.now().minusHours(operationTtlHours));
+        if (deleted > 0) {
+            log.info("Purged {} sync operation records older than {}h", deleted, operationTtlHours);
+        }
+    }
+}
@@ -2,22 +2,25 @@ package com.cisnebranco.service;
 
 import com.cisnebranco.dto.request.AdjustServiceItemPriceRequest;
 import com.cisnebranco.dto.request.CheckInRequest;
+import com.cisnebranco.dto.request.KeysetCursor;
 import com.cisnebranco.dto.request.OsStatusUpdateRequest;
 import com.cisnebranco.dto.request.TechnicalOsFilterRequest;
 import com.cisnebranco.dto.response.AuditLogResponse;
+import com.cisnebranco.dto.response.KeysetPage;
+import com.cisnebranco.dto.response.TechnicalOsGroomerSummaryResponse;
 import com.cisnebranco.dto.response.TechnicalOsGroomerViewResponse;
 import com.cisnebranco.dto.response.TechnicalOsResponse;
+import com.cisnebranco.dto.response.TechnicalOsSummaryResponse;
 import com.cisnebranco.specification.TechnicalOsSpecification;
 import com.cisnebranco.entity.Groomer;
 import com.cisnebranco.entity.OsServiceItem;
 import com.cisnebranco.entity.Pet;
-import com.cisnebranco.entity.PricingMatrix;
 import com.cisnebranco.entity.ServiceType;
-import com.cisnebranco.entity.ServiceTypeBreedPrice;
 import com.cisnebranco.entity.TechnicalOs;
 import com.cisnebranco.entity.enums.OsStatus;
 import com.cisnebranco.entity.enums.UserRole;
 import com.cisnebranco.event.OsCheckInEvent;
+import com.cisnebranco.event.OsDeliveredEvent;
 import com.cisnebranco.event.OsReadyEvent;
 import com.cisnebranco.event.OsStartedEvent;
 import com.cisnebranco.exception.BusinessException;
@@ -31,8 +34,6 @@ import jakarta.persistence.EntityManager;
 import com.cisnebranco.repository.InspectionPhotoRepository;
 import com.cisnebranco.repository.PaymentEventRepository;
 import com.cisnebranco.repository.PetRepository;
-import com.cisnebranco.repository.PricingMatrixRepository;
-import com.cisnebranco.repository.ServiceTypeBreedPriceRepository;
 import com.cisnebranco.repository.ServiceTypeRepository;
 import com.cisnebranco.repository.TechnicalOsRepository;
 import com.cisnebranco.security.UserPrincipal;
@@ -42,11 +43,13 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -56,6 +59,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -75,12 +80,14 @@ public class TechnicalOsService {
             OsStatus.READY, OsStatus.DELIVERED
     );
 
+    private static final TechnicalOsFilterRequest NO_FILTER =
+            new TechnicalOsFilterRequest(null, null, null, null, null, null, null);
+
     private final TechnicalOsRepository osRepository;
     private final PetRepository petRepository;
     private final GroomerRepository groomerRepository;
     private final ServiceTypeRepository serviceTypeRepository;
-    private final PricingMatrixRepository pricingMatrixRepository;
-    private final ServiceTypeBreedPriceRepository breedPriceRepository;
+    private final PricingEngine pricingEngine;
     private final InspectionPhotoRepository photoRepository;
     private final PaymentEventRepository paymentEventRepository;
     private final AppUserRepository appUserRepository;
@@ -88,7 +95,10 @@ public class TechnicalOsService {
     private final TechnicalOsMapper osMapper;
     private final ApplicationEventPublisher eventPublisher;
     private final AuditService auditService;
+    private final AuditTrailService auditTrailService;
     private final SseEmitterService sseEmitterService;
+    private final OsCountCache osCountCache;
+    private final OpsBoardService opsBoardService;
 
     @Transactional
     public TechnicalOsResponse checkIn(CheckInRequest request, Long userId) {
@@ -109,11 +119,21 @@ public class TechnicalOsService {
         BigDecimal totalPrice = BigDecimal.ZERO;
         BigDecimal totalCommission = BigDecimal.ZERO;
 
+        // Set-based load: one query for the service types, at most two for prices the
+        // snapshot cannot answer. Walking the request in order below keeps the per-item
+        // error semantics — the first missing/inactive id or unpriced service fails.
+        Map<Long, ServiceType> serviceTypes = serviceTypeRepository
+                .findByIdInAndActiveTrue(request.serviceTypeIds()).stream()
+                .collect(Collectors.toMap(ServiceType::getId, Function.identity()));
+        Map<Long, BigDecimal> prices = pricingEngine.findPrices(serviceTypes.keySet(), pet);
+
         for (Long serviceTypeId : request.serviceTypeIds()) {
-            ServiceType serviceType = serviceTypeRepository.findByIdAndActiveTrue(serviceTypeId)
-                    .orElseThrow(() -> new ResourceNotFoundException("ServiceType", serviceTypeId));
+            ServiceType serviceType = serviceTypes.get(serviceTypeId);
+            if (serviceType == null) {
+                throw new ResourceNotFoundException("ServiceType", serviceTypeId);
+            }
 
-            BigDecimal lockedPrice = resolveLockedPrice(serviceTypeId, serviceType, pet);
+            BigDecimal lockedPrice = requirePrice(prices.get(serviceTypeId), serviceType, pet);
             BigDecimal commissionValue = lockedPrice
                     .multiply(serviceType.getCommissionRate())
                     .setScale(2, RoundingMode.HALF_UP);
@@ -150,6 +170,7 @@ public class TechnicalOsService {
         entityManager.refresh(saved);
 
         eventPublisher.publishEvent(new OsCheckInEvent(this, saved.getId()));
+        opsBoardService.refreshAfterCommit(saved.getId());
         return osMapper.toResponse(saved);
     }
 
@@ -222,6 +243,8 @@ public class TechnicalOsService {
         // Publish events after save so all listeners read committed data via AFTER_COMMIT.
         if (newStatus == OsStatus.READY) {
             eventPublisher.publishEvent(new OsReadyEvent(this, osId));
+        } else if (newStatus == OsStatus.DELIVERED) {
+            eventPublisher.publishEvent(new OsDeliveredEvent(this, osId, os.getDeliveredAt().toLocalDate()));
         }
         auditService.log("STATUS_CHANGED", "TechnicalOs", osId, currentStatus + " → " + newStatus);
 
@@ -234,6 +257,8 @@ public class TechnicalOsService {
                     "Groomer concluiu o atendimento da OS #" + osId);
         }
 
+        opsBoardService.refreshAfterCommit(osId);
+
         String petName = os.getPet().getName();
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -285,12 +310,14 @@ public class TechnicalOsService {
 
         log.info("Groomer reassigned on OS #{}: {} -> #{}", osId, previousGroomerId, groomerId);
 
-        // [I2] auditService uses REQUIRES_NEW — it commits independently of the outer transaction.
-        // If the outer transaction rolls back after this line, the audit entry will remain.
+        // [I2] auditService.log only enqueues to AuditLogWriter, which writes it on its own
+        // thread regardless of this transaction. If the outer transaction rolls back after this
+        // line, the audit entry will remain.
         // Accepted: audit over-recording is preferable to audit under-recording.
         auditService.log("GROOMER_REASSIGNED", "TechnicalOs", osId,
                 "Groomer changed from #" + previousGroomerId + " to #" + groomerId);
 
+        opsBoardService.refreshAfterCommit(osId);
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
@@ -354,6 +381,7 @@ public class TechnicalOsService {
 
         TechnicalOsResponse response = osMapper.toResponse(saved);
 
+        opsBoardService.refreshAfterCommit(osId);
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
@@ -414,6 +442,7 @@ public class TechnicalOsService {
 
         TechnicalOsResponse response = osMapper.toResponse(saved);
 
+        opsBoardService.refreshAfterCommit(osId);
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
@@ -429,22 +458,66 @@ public class TechnicalOsService {
     }
 
     @Transactional(readOnly = true)
-    public Page<TechnicalOsResponse> findAll(Pageable pageable) {
-        return osRepository.findAllWithDetails(pageable)
-                .map(osMapper::toResponse);
+    public Page<TechnicalOsSummaryResponse> findAll(Pageable pageable) {
+        return page(NO_FILTER, pageable);
     }
 
     @Transactional(readOnly = true)
-    public Page<TechnicalOsResponse> findByFilters(TechnicalOsFilterRequest filter, Pageable pageable) {
-        Specification<TechnicalOs> spec = Specification
+    public Page<TechnicalOsSummaryResponse> findByFilters(TechnicalOsFilterRequest filter, Pageable pageable) {
+        return page(filter, pageable);
+    }
+
+    /**
+     * One keyset page of service orders, newest first. Unlike the offset listing, the cost of a
+     * page does not grow with its depth: the (created_at, id) index is sought from the cursor.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<TechnicalOsSummaryResponse> findPage(TechnicalOsFilterRequest filter, KeysetCursor after, int limit) {
+        return seek(filter, after, limit, Function.identity());
+    }
+
+    /** Keyset variant of {@link #findByGroomer(Long, Pageable)}. */
+    @Transactional(readOnly = true)
+    public KeysetPage<TechnicalOsGroomerSummaryResponse> findPageForGroomer(Long groomerId, KeysetCursor after, int limit) {
+        return seek(groomerFilter(groomerId), after, limit, osMapper::toGroomerSummary);
+    }
+
+    private <T> KeysetPage<T> seek(TechnicalOsFilterRequest filter, KeysetCursor after, int limit,
+                                   Function<TechnicalOsSummaryResponse, T> mapper) {
+        // One extra row tells whether another page exists without a count query
+        List<TechnicalOsSummaryResponse> rows = osRepository.findSummariesAfter(filterSpec(filter), after, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            TechnicalOsSummaryResponse last = rows.get(rows.size() - 1);
+            nextCursor = new KeysetCursor(last.createdAt(), last.id()).encode();
+        }
+        return new KeysetPage<>(rows.stream().map(mapper).toList(), nextCursor);
+    }
+
+    // The total comes from a plain count, cached briefly per filter since every page of a listing
+    // repeats it, and is skipped when the page itself reveals it.
+    private Page<TechnicalOsSummaryResponse> page(TechnicalOsFilterRequest filter, Pageable pageable) {
+        Specification<TechnicalOs> spec = filterSpec(filter);
+        return PageableExecutionUtils.getPage(osRepository.findSummaries(spec, pageable), pageable,
+                () -> osCountCache.get(filter, () -> osRepository.count(spec)));
+    }
+
+    private static TechnicalOsFilterRequest groomerFilter(Long groomerId) {
+        return new TechnicalOsFilterRequest(null, groomerId, null, null, null, null, null);
+    }
+
+    private static Specification<TechnicalOs> filterSpec(TechnicalOsFilterRequest filter) {
+        return Specification
                 .where(TechnicalOsSpecification.hasStatus(filter.status()))
                 .and(TechnicalOsSpecification.hasGroomer(filter.groomerId()))
                 .and(TechnicalOsSpecification.hasClient(filter.clientId()))
                 .and(TechnicalOsSpecification.hasPet(filter.petId()))
                 .and(TechnicalOsSpecification.hasPaymentStatus(filter.paymentStatus()))
                 .and(TechnicalOsSpecification.createdBetween(filter.startDate(), filter.endDate()));
-
-        return osRepository.findAll(spec, pageable).map(osMapper::toResponse);
     }
 
     @Transactional(readOnly = true)
@@ -464,9 +537,8 @@ public class TechnicalOsService {
     }
 
     @Transactional(readOnly = true)
-    public Page<TechnicalOsGroomerViewResponse> findByGroomer(Long groomerId, Pageable pageable) {
-        return osRepository.findByGroomerIdWithDetails(groomerId, pageable)
-                .map(osMapper::toGroomerViewResponse);
+    public Page<TechnicalOsGroomerSummaryResponse> findByGroomer(Long groomerId, Pageable pageable) {
+        return page(groomerFilter(groomerId), pageable).map(osMapper::toGroomerSummary);
     }
 
     @Transactional(readOnly = true)
@@ -538,8 +610,8 @@ public class TechnicalOsService {
         os.setTotalPrice(newTotal);
         os.setTotalCommission(newTotalCommission);
 
-        // [I2] Save first, then audit — REQUIRES_NEW in AuditService would otherwise
-        // commit an audit entry even if the save rolls back
+        // [I2] Save first, then audit — the entry is written by AuditLogWriter independently of
+        // this transaction, so auditing before the save would record it even if the save fails
         TechnicalOsResponse response = osMapper.toResponse(osRepository.save(os));
 
         String auditDetail = "OS #" + osId + " item #" + itemId
@@ -548,6 +620,8 @@ public class TechnicalOsService {
                         ? " — motivo: " + request.reason() : "");
         auditService.log("PRICE_ADJUSTED", "OsServiceItem", itemId, auditDetail);
 
+        opsBoardService.refreshAfterCommit(osId);
+
         // [C3] SSE broadcast after commit — consistent with updateStatus pattern
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -573,24 +647,28 @@ public class TechnicalOsService {
 
     @Transactional(readOnly = true)
     public List<AuditLogResponse> getOsAuditLog(Long osId) {
-        findEntityById(osId); // verify OS exists before returning audit entries
-        return auditService.findByOs(osId);
+        TechnicalOs os = findEntityById(osId); // verify OS exists before returning audit entries
+        return auditService.findByOs(osId, os.getCreatedAt());
+    }
+
+    @Transactional(readOnly = true)
+    public StreamingResponseBody streamOsAuditLog(Long osId, KeysetCursor after, int limit) {
+        TechnicalOs os = findEntityById(osId); // 404 before the response starts streaming
+        // Same one-day clock-skew margin as AuditService.findByOs
+        return auditTrailService.streamEntityTrail("TechnicalOs", osId, os.getCreatedAt().minusDays(1), after, limit);
     }
 
     private BigDecimal resolveLockedPrice(Long serviceTypeId, ServiceType serviceType, Pet pet) {
-        if (pet.getBreed() != null) {
-            var breedPrice = breedPriceRepository
-                    .findByServiceTypeIdAndBreedId(serviceTypeId, pet.getBreed().getId());
-            if (breedPrice.isPresent()) {
-                return breedPrice.get().getPrice();
-            }
+        return requirePrice(pricingEngine.findPrice(serviceTypeId, pet), serviceType, pet);
+    }
+
+    private BigDecimal requirePrice(BigDecimal price, ServiceType serviceType, Pet pet) {
+        if (price == null) {
+            throw new BusinessException(
+                    "No pricing found for service " + serviceType.getName()
+                    + " / " + pet.getSpecies() + " / " + pet.getSize());
         }
-        return pricingMatrixRepository
-                .findByServiceTypeIdAndSpeciesAndPetSize(serviceTypeId, pet.getSpecies(), pet.getSize())
-                .map(PricingMatrix::getPrice)
-                .orElseThrow(() -> new BusinessException(
-                        "No pricing found for service " + serviceType.getName()
-                        + " / " + pet.getSpecies() + " / " + pet.getSize()));
+        return price;
     }
 
     private void validateInProgressRequirements(TechnicalOs os) {
@@ -45,4 +45,13 @@ public class TechnicalOsSpecification {
             return cb.between(root.get("createdAt"), start, end);
         };
     }
+
+    public static Specification<TechnicalOs> hasId(Long id) {
+        return (root, query, cb) ->
+                id == null ? null : cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<TechnicalOs> isOpen() {
+        return (root, query, cb) -> cb.notEqual(root.get("status"), OsStatus.DELIVERED);
+    }
 }
@@ -0,0 +1,12 @@
+-- Dedup store for offline batch sync. A client-generated operation id is claimed in the
+-- same transaction as the operation it guards, so a retried sync replays the stored result
+-- instead of creating a second OS. Rows are purged after a TTL by SyncOperationService.
+CREATE TABLE sync_operations (
+    operation_id   VARCHAR(64) PRIMARY KEY,
+    operation_type VARCHAR(20) NOT NULL,
+    user_id        BIGINT REFERENCES app_users(id) ON DELETE CASCADE,
+    os_id          BIGINT,
+    created_at     TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_sync_operations_created_at ON sync_operations(created_at);
@@ -0,0 +1,62 @@
+-- Convert audit_log into monthly range partitions on created_at.
+-- Old months can then be detached and archived by AuditPartitionMaintenanceService instead of
+-- being deleted row by row, and lookups bounded by created_at only touch matching months.
+
+ALTER TABLE audit_log RENAME TO audit_log_legacy;
+ALTER INDEX audit_log_pkey RENAME TO audit_log_legacy_pkey;
+DROP INDEX idx_audit_log_action;
+DROP INDEX idx_audit_log_entity;
+DROP INDEX idx_audit_log_username;
+DROP INDEX idx_audit_log_created_at;
+
+-- The partition key must be part of the primary key
+CREATE TABLE audit_log (
+    id          BIGINT       NOT NULL DEFAULT nextval('audit_log_id_seq'),
+    action      VARCHAR(50)  NOT NULL,
+    entity_type VARCHAR(50)  NOT NULL,
+    entity_id   BIGINT,
+    username    VARCHAR(100) NOT NULL,
+    details     TEXT,
+    ip_address  VARCHAR(45),
+    created_at  TIMESTAMP    NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE audit_log_id_seq OWNED BY audit_log.id;
+
+-- Only the entity timeline lookup needs a B-tree; created_at ranges are served by pruning
+-- plus a BRIN index, which is nearly free to maintain on append-only data. The action and
+-- username indexes are dropped to keep inserts cheap.
+CREATE INDEX idx_audit_log_entity ON audit_log(entity_type, entity_id, created_at);
+CREATE INDEX idx_audit_log_created_at ON audit_log USING brin(created_at);
+
+-- Creates the partition holding the month of p_month (idempotent). Returns the partition name.
+CREATE OR REPLACE FUNCTION create_audit_log_partition(p_month DATE)
+RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_end   DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::date;
+    v_name  TEXT := 'audit_log_y' || to_char(v_start, 'YYYY') || 'm' || to_char(v_start, 'MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_log FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_start, v_end);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Every month that has data, through three months ahead
+DO $$
+DECLARE
+    v_month DATE := date_trunc('month', COALESCE((SELECT min(created_at) FROM audit_log_legacy), now()))::date;
+BEGIN
+    WHILE v_month <= (date_trunc('month', now()) + INTERVAL '3 months')::date LOOP
+        PERFORM create_audit_log_partition(v_month);
+        v_month := (v_month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO audit_log (id, action, entity_type, entity_id, username, details, ip_address, created_at)
+SELECT id, action, entity_type, entity_id, username, details, ip_address, created_at
+FROM audit_log_legacy;
+
+DROP TABLE audit_log_legacy;
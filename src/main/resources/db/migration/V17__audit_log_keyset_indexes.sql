@@ -0,0 +1,9 @@
+-- Keyset pagination over audit_log walks (created_at, id) in both directions. Making that the
+-- primary key gives every partition a matching B-tree for free, so the BRIN index from V16 is
+-- no longer needed.
+ALTER TABLE audit_log DROP CONSTRAINT audit_log_pkey;
+ALTER TABLE audit_log ADD PRIMARY KEY (created_at, id);
+DROP INDEX idx_audit_log_created_at;
+
+-- Global audit search by user ("what did X do last week") in keyset order
+CREATE INDEX idx_audit_log_username ON audit_log(username, created_at, id);
@@ -0,0 +1,371 @@
+-- Delta-maintained report aggregates. Triggers on technical_os, os_service_items and
+-- payment_events apply each change to small per-day summary tables in the same transaction, so
+-- reports are always current and cost the same to read at any history size. A full rebuild from
+-- the *_source views runs only as the nightly reconciliation (rebuild_report_aggregates).
+
+CREATE TABLE report_daily_revenue (
+    report_date      DATE           PRIMARY KEY,
+    total_orders     INT            NOT NULL DEFAULT 0,
+    total_revenue    NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    total_commission NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    total_balance    NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    total_paid       NUMERIC(14, 2) NOT NULL DEFAULT 0
+) WITH (fillfactor = 70);
+
+CREATE TABLE report_service_type_daily (
+    report_date     DATE           NOT NULL,
+    service_type_id BIGINT         NOT NULL,
+    total_services  INT            NOT NULL DEFAULT 0,
+    total_revenue   NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (report_date, service_type_id)
+) WITH (fillfactor = 70);
+
+CREATE TABLE report_groomer_daily (
+    report_date      DATE           NOT NULL,
+    groomer_id       BIGINT         NOT NULL,
+    total_orders     INT            NOT NULL DEFAULT 0,
+    total_revenue    NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    total_commission NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (report_date, groomer_id)
+) WITH (fillfactor = 70);
+
+CREATE TABLE report_os_status (
+    status      VARCHAR(20)    PRIMARY KEY,
+    order_count INT            NOT NULL DEFAULT 0,
+    total_value NUMERIC(14, 2) NOT NULL DEFAULT 0
+) WITH (fillfactor = 50);
+
+-- Refunds (negative payment_events) are tracked separately, matching mv_payment_method_stats
+-- which only counts amount > 0
+CREATE TABLE report_payment_method_daily (
+    report_date       DATE           NOT NULL,
+    method            VARCHAR(20)    NOT NULL,
+    transaction_count INT            NOT NULL DEFAULT 0,
+    total_amount      NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    refund_count      INT            NOT NULL DEFAULT 0,
+    refund_amount     NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (report_date, method)
+) WITH (fillfactor = 70);
+
+-- Ground truth for each aggregate table; column order matches the table
+CREATE VIEW report_daily_revenue_source AS
+SELECT DATE(delivered_at) AS report_date,
+       COUNT(*)::INT AS total_orders,
+       SUM(total_price) AS total_revenue,
+       SUM(total_commission) AS total_commission,
+       SUM(balance) AS total_balance,
+       SUM(total_paid) AS total_paid
+FROM technical_os
+WHERE status = 'DELIVERED' AND delivered_at IS NOT NULL
+GROUP BY DATE(delivered_at);
+
+CREATE VIEW report_service_type_daily_source AS
+SELECT DATE(tos.delivered_at) AS report_date,
+       osi.service_type_id,
+       COUNT(*)::INT AS total_services,
+       SUM(osi.locked_price) AS total_revenue
+FROM os_service_items osi
+JOIN technical_os tos ON tos.id = osi.technical_os_id
+WHERE tos.status = 'DELIVERED' AND tos.delivered_at IS NOT NULL
+GROUP BY DATE(tos.delivered_at), osi.service_type_id;
+
+CREATE VIEW report_groomer_daily_source AS
+SELECT DATE(delivered_at) AS report_date,
+       groomer_id,
+       COUNT(*)::INT AS total_orders,
+       SUM(total_price) AS total_revenue,
+       SUM(total_commission) AS total_commission
+FROM technical_os
+WHERE status = 'DELIVERED' AND delivered_at IS NOT NULL AND groomer_id IS NOT NULL
+GROUP BY DATE(delivered_at), groomer_id;
+
+CREATE VIEW report_os_status_source AS
+SELECT status,
+       COUNT(*)::INT AS order_count,
+       SUM(total_price) AS total_value
+FROM technical_os
+GROUP BY status;
+
+CREATE VIEW report_payment_method_daily_source AS
+SELECT DATE(created_at) AS report_date,
+       method,
+       COUNT(*) FILTER (WHERE amount > 0)::INT AS transaction_count,
+       COALESCE(SUM(amount) FILTER (WHERE amount > 0), 0) AS total_amount,
+       COUNT(*) FILTER (WHERE amount < 0)::INT AS refund_count,
+       COALESCE(-SUM(amount) FILTER (WHERE amount < 0), 0) AS refund_amount
+FROM payment_events
+GROUP BY DATE(created_at), method;
+
+-- Every trigger takes this lock in shared mode; rebuild_report_aggregates() takes it exclusively,
+-- so a rebuild never interleaves with in-flight deltas
+CREATE OR REPLACE FUNCTION report_aggregates_lock_shared()
+RETURNS void AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock_shared(7236105);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION report_bump_status(p_status VARCHAR, p_count INT, p_value NUMERIC)
+RETURNS void AS $$
+BEGIN
+    INSERT INTO report_os_status AS s (status, order_count, total_value)
+    VALUES (p_status, p_count, p_value)
+    ON CONFLICT (status) DO UPDATE
+        SET order_count = s.order_count + EXCLUDED.order_count,
+            total_value = s.total_value + EXCLUDED.total_value;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Adds (p_sign = 1) or removes (p_sign = -1) a delivered OS's contribution to the per-day tables
+CREATE OR REPLACE FUNCTION report_apply_delivered(os technical_os, p_sign INT)
+RETURNS void AS $$
+DECLARE
+    v_day DATE;
+BEGIN
+    IF os.status <> 'DELIVERED' OR os.delivered_at IS NULL THEN
+        RETURN;
+    END IF;
+    v_day := DATE(os.delivered_at);
+
+    INSERT INTO report_daily_revenue AS r
+        (report_date, total_orders, total_revenue, total_commission, total_balance, total_paid)
+    VALUES (v_day, p_sign, p_sign * os.total_price, p_sign * os.total_commission,
+            p_sign * os.balance, p_sign * os.total_paid)
+    ON CONFLICT (report_date) DO UPDATE
+        SET total_orders     = r.total_orders + EXCLUDED.total_orders,
+            total_revenue    = r.total_revenue + EXCLUDED.total_revenue,
+            total_commission = r.total_commission + EXCLUDED.total_commission,
+            total_balance    = r.total_balance + EXCLUDED.total_balance,
+            total_paid       = r.total_paid + EXCLUDED.total_paid;
+
+    IF os.groomer_id IS NOT NULL THEN
+        INSERT INTO report_groomer_daily AS g
+            (report_date, groomer_id, total_orders, total_revenue, total_commission)
+        VALUES (v_day, os.groomer_id, p_sign, p_sign * os.total_price, p_sign * os.total_commission)
+        ON CONFLICT (report_date, groomer_id) DO UPDATE
+            SET total_orders     = g.total_orders + EXCLUDED.total_orders,
+                total_revenue    = g.total_revenue + EXCLUDED.total_revenue,
+                total_commission = g.total_commission + EXCLUDED.total_commission;
+    END IF;
+
+    INSERT INTO report_service_type_daily AS st (report_date, service_type_id, total_services, total_revenue)
+    SELECT v_day, osi.service_type_id, p_sign * COUNT(*)::INT, p_sign * SUM(osi.locked_price)
+    FROM os_service_items osi
+    WHERE osi.technical_os_id = os.id
+    GROUP BY osi.service_type_id
+    ORDER BY osi.service_type_id
+    ON CONFLICT (report_date, service_type_id) DO UPDATE
+        SET total_services = st.total_services + EXCLUDED.total_services,
+            total_revenue  = st.total_revenue + EXCLUDED.total_revenue;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION report_track_technical_os()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM report_aggregates_lock_shared();
+
+    IF TG_OP = 'INSERT' THEN
+        PERFORM report_bump_status(NEW.status, 1, NEW.total_price);
+        PERFORM report_apply_delivered(NEW, 1);
+        RETURN NEW;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        PERFORM report_bump_status(OLD.status, -1, -OLD.total_price);
+        PERFORM report_apply_delivered(OLD, -1);
+        RETURN OLD;
+    END IF;
+
+    IF OLD.status = NEW.status THEN
+        -- Payments only touch total_paid; leave the contended status row alone
+        IF OLD.total_price <> NEW.total_price THEN
+            PERFORM report_bump_status(NEW.status, 0, NEW.total_price - OLD.total_price);
+        END IF;
+    ELSIF OLD.status < NEW.status THEN
+        -- Lock the two status rows in a fixed order so concurrent transitions cannot deadlock
+        PERFORM report_bump_status(OLD.status, -1, -OLD.total_price);
+        PERFORM report_bump_status(NEW.status, 1, NEW.total_price);
+    ELSE
+        PERFORM report_bump_status(NEW.status, 1, NEW.total_price);
+        PERFORM report_bump_status(OLD.status, -1, -OLD.total_price);
+    END IF;
+    PERFORM report_apply_delivered(OLD, -1);
+    PERFORM report_apply_delivered(NEW, 1);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_report_technical_os_insert
+    AFTER INSERT ON technical_os
+    FOR EACH ROW
+    EXECUTE FUNCTION report_track_technical_os();
+
+-- Only columns that feed a report; timestamps, notes etc. skip the trigger entirely
+CREATE TRIGGER trg_report_technical_os_update
+    AFTER UPDATE ON technical_os
+    FOR EACH ROW
+    WHEN (OLD.status IS DISTINCT FROM NEW.status
+       OR OLD.total_price IS DISTINCT FROM NEW.total_price
+       OR OLD.total_commission IS DISTINCT FROM NEW.total_commission
+       OR OLD.total_paid IS DISTINCT FROM NEW.total_paid
+       OR OLD.groomer_id IS DISTINCT FROM NEW.groomer_id
+       OR OLD.delivered_at IS DISTINCT FROM NEW.delivered_at)
+    EXECUTE FUNCTION report_track_technical_os();
+
+-- BEFORE so the OS's service items are still present; ON DELETE CASCADE removes them afterwards
+CREATE TRIGGER trg_report_technical_os_delete
+    BEFORE DELETE ON technical_os
+    FOR EACH ROW
+    EXECUTE FUNCTION report_track_technical_os();
+
+-- Items only count once their OS is delivered; changes before delivery are picked up by
+-- report_apply_delivered when the OS transitions
+CREATE OR REPLACE FUNCTION report_bump_service_item(p_os_id BIGINT, p_service_type_id BIGINT,
+                                                    p_count INT, p_amount NUMERIC)
+RETURNS void AS $$
+DECLARE
+    v_delivered_at TIMESTAMP;
+BEGIN
+    SELECT delivered_at INTO v_delivered_at
+    FROM technical_os
+    WHERE id = p_os_id AND status = 'DELIVERED';
+
+    IF v_delivered_at IS NULL THEN
+        RETURN;
+    END IF;
+
+    INSERT INTO report_service_type_daily AS st (report_date, service_type_id, total_services, total_revenue)
+    VALUES (DATE(v_delivered_at), p_service_type_id, p_count, p_amount)
+    ON CONFLICT (report_date, service_type_id) DO UPDATE
+        SET total_services = st.total_services + EXCLUDED.total_services,
+            total_revenue  = st.total_revenue + EXCLUDED.total_revenue;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION report_track_os_service_item()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM report_aggregates_lock_shared();
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM report_bump_service_item(OLD.technical_os_id, OLD.service_type_id, -1, -OLD.locked_price);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM report_bump_service_item(NEW.technical_os_id, NEW.service_type_id, 1, NEW.locked_price);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_report_os_service_items
+    AFTER INSERT OR DELETE OR UPDATE OF technical_os_id, service_type_id, locked_price ON os_service_items
+    FOR EACH ROW
+    EXECUTE FUNCTION report_track_os_service_item();
+
+CREATE OR REPLACE FUNCTION report_bump_payment(p_created_at TIMESTAMP, p_method VARCHAR,
+                                               p_amount NUMERIC, p_sign INT)
+RETURNS void AS $$
+BEGIN
+    INSERT INTO report_payment_method_daily AS p
+        (report_date, method, transaction_count, total_amount, refund_count, refund_amount)
+    VALUES (DATE(p_created_at), p_method,
+            CASE WHEN p_amount > 0 THEN p_sign ELSE 0 END,
+            CASE WHEN p_amount > 0 THEN p_sign * p_amount ELSE 0 END,
+            CASE WHEN p_amount < 0 THEN p_sign ELSE 0 END,
+            CASE WHEN p_amount < 0 THEN -p_sign * p_amount ELSE 0 END)
+    ON CONFLICT (report_date, method) DO UPDATE
+        SET transaction_count = p.transaction_count + EXCLUDED.transaction_count,
+            total_amount      = p.total_amount + EXCLUDED.total_amount,
+            refund_count      = p.refund_count + EXCLUDED.refund_count,
+            refund_amount     = p.refund_amount + EXCLUDED.refund_amount;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION report_track_payment_event()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM report_aggregates_lock_shared();
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM report_bump_payment(OLD.created_at, OLD.method, OLD.amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM report_bump_payment(NEW.created_at, NEW.method, NEW.amount, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_report_payment_events
+    AFTER INSERT OR DELETE OR UPDATE OF amount, method, created_at ON payment_events
+    FOR EACH ROW
+    EXECUTE FUNCTION report_track_payment_event();
+
+-- Recomputes every aggregate table from its *_source view and returns how many rows had
+-- drifted (rows whose counters are all zero are ignored). Holding the advisory lock exclusively
+-- waits out in-flight writers and holds off new ones until the rebuild commits.
+CREATE OR REPLACE FUNCTION rebuild_report_aggregates()
+RETURNS INT AS $$
+DECLARE
+    v_drift INT := 0;
+    v_rows  INT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(7236105);
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_daily_revenue_source
+         EXCEPT SELECT * FROM report_daily_revenue WHERE total_orders <> 0)
+        UNION ALL
+        (SELECT * FROM report_daily_revenue WHERE total_orders <> 0
+         EXCEPT SELECT * FROM report_daily_revenue_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_daily_revenue;
+    INSERT INTO report_daily_revenue SELECT * FROM report_daily_revenue_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_service_type_daily_source
+         EXCEPT SELECT * FROM report_service_type_daily WHERE total_services <> 0)
+        UNION ALL
+        (SELECT * FROM report_service_type_daily WHERE total_services <> 0
+         EXCEPT SELECT * FROM report_service_type_daily_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_service_type_daily;
+    INSERT INTO report_service_type_daily SELECT * FROM report_service_type_daily_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_groomer_daily_source
+         EXCEPT SELECT * FROM report_groomer_daily WHERE total_orders <> 0)
+        UNION ALL
+        (SELECT * FROM report_groomer_daily WHERE total_orders <> 0
+         EXCEPT SELECT * FROM report_groomer_daily_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_groomer_daily;
+    INSERT INTO report_groomer_daily SELECT * FROM report_groomer_daily_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_os_status_source
+         EXCEPT SELECT * FROM report_os_status WHERE order_count <> 0)
+        UNION ALL
+        (SELECT * FROM report_os_status WHERE order_count <> 0
+         EXCEPT SELECT * FROM report_os_status_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_os_status;
+    INSERT INTO report_os_status SELECT * FROM report_os_status_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_payment_method_daily_source
+         EXCEPT SELECT * FROM report_payment_method_daily WHERE transaction_count <> 0 OR refund_count <> 0)
+        UNION ALL
+        (SELECT * FROM report_payment_method_daily WHERE transaction_count <> 0 OR refund_count <> 0
+         EXCEPT SELECT * FROM report_payment_method_daily_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_payment_method_daily;
+    INSERT INTO report_payment_method_daily SELECT * FROM report_payment_method_daily_source;
+
+    RETURN v_drift;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Backfill from existing history
+SELECT rebuild_report_aggregates();
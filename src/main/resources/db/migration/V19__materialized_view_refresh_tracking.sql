@@ -0,0 +1,57 @@
+-- Change counters for the tables behind the reporting materialized views (V7). A statement-level
+-- trigger bumps one of 16 striped rows per table, picked by backend pid so concurrent writers
+-- rarely wait on the same row. MaterializedViewRefresher sums the rows of a view's sources and
+-- skips the view when that watermark hasn't moved since its last successful refresh.
+CREATE TABLE report_source_changes (
+    source_table VARCHAR(63) NOT NULL,
+    slot         SMALLINT    NOT NULL,
+    change_count BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (source_table, slot)
+);
+
+INSERT INTO report_source_changes (source_table, slot)
+SELECT t, s
+FROM unnest(ARRAY['technical_os', 'os_service_items', 'service_types', 'groomers', 'payment_events']) AS t,
+     generate_series(0, 15) AS s;
+
+CREATE OR REPLACE FUNCTION report_count_source_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE report_source_changes
+    SET change_count = change_count + 1
+    WHERE source_table = TG_TABLE_NAME AND slot = pg_backend_pid() % 16;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_report_changes_technical_os
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON technical_os
+    FOR EACH STATEMENT EXECUTE FUNCTION report_count_source_change();
+
+CREATE TRIGGER trg_report_changes_os_service_items
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON os_service_items
+    FOR EACH STATEMENT EXECUTE FUNCTION report_count_source_change();
+
+CREATE TRIGGER trg_report_changes_service_types
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON service_types
+    FOR EACH STATEMENT EXECUTE FUNCTION report_count_source_change();
+
+CREATE TRIGGER trg_report_changes_groomers
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON groomers
+    FOR EACH STATEMENT EXECUTE FUNCTION report_count_source_change();
+
+CREATE TRIGGER trg_report_changes_payment_events
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON payment_events
+    FOR EACH STATEMENT EXECUTE FUNCTION report_count_source_change();
+
+-- Outcome of the last refresh of each view; source_watermark is the change count the view was
+-- last successfully refreshed against
+CREATE TABLE materialized_view_refresh_state (
+    view_name        VARCHAR(63) PRIMARY KEY,
+    source_watermark BIGINT,
+    last_success_at  TIMESTAMP,
+    last_duration_ms BIGINT,
+    row_count        BIGINT,
+    last_attempt_at  TIMESTAMP   NOT NULL,
+    last_error       TEXT
+);
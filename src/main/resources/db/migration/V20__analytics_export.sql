@@ -0,0 +1,40 @@
+-- Incremental analytics export (AnalyticsExportService) selects rows by updated_at and compares
+-- it with a watermark taken from the database clock. Stamp updated_at in the database on every
+-- write so the two clocks agree and no write path (JPA, native SQL, manual fixes) can leave it stale.
+CREATE OR REPLACE FUNCTION touch_updated_at()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_technical_os_updated_at
+    BEFORE INSERT OR UPDATE ON technical_os
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE TRIGGER trg_os_service_items_updated_at
+    BEFORE INSERT OR UPDATE ON os_service_items
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE TRIGGER trg_payment_events_updated_at
+    BEFORE INSERT OR UPDATE ON payment_events
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE INDEX idx_technical_os_updated_at     ON technical_os(updated_at);
+CREATE INDEX idx_os_service_items_updated_at ON os_service_items(updated_at);
+CREATE INDEX idx_payment_events_updated_at   ON payment_events(updated_at);
+
+-- One row per completed export; the next incremental run starts at MAX(watermark_to)
+CREATE TABLE analytics_export_runs (
+    id             BIGSERIAL PRIMARY KEY,
+    mode           VARCHAR(12)  NOT NULL CHECK (mode IN ('FULL', 'INCREMENTAL')),
+    watermark_from TIMESTAMP,
+    watermark_to   TIMESTAMP    NOT NULL,
+    directory      VARCHAR(255) NOT NULL,
+    os_rows        BIGINT       NOT NULL,
+    item_rows      BIGINT       NOT NULL,
+    payment_rows   BIGINT       NOT NULL,
+    started_at     TIMESTAMP    NOT NULL,
+    finished_at    TIMESTAMP    NOT NULL
+);
@@ -0,0 +1,7 @@
+-- Keyset pagination of the OS list seeks on (created_at, id) DESC. A B-tree on both columns lets
+-- every page start with an index seek, whatever its depth; it supersedes the created_at-only index.
+CREATE INDEX idx_technical_os_created_id ON technical_os(created_at, id);
+DROP INDEX idx_technical_os_created_at;
+
+-- Groomer queue in keyset order
+CREATE INDEX idx_technical_os_groomer_created ON technical_os(groomer_id, created_at, id);
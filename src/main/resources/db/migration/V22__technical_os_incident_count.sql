@@ -0,0 +1,34 @@
+-- TechnicalOs.incidentCount was a @Formula subquery on incident_reports, evaluated for every OS
+-- row loaded (list pages, row locks). Keep it as a counter column maintained by trigger instead,
+-- so every write path keeps it in step.
+ALTER TABLE technical_os ADD COLUMN incident_count INT NOT NULL DEFAULT 0 CHECK (incident_count >= 0);
+
+-- One-time backfill. Not a change analytics needs to re-export, so leave updated_at alone.
+ALTER TABLE technical_os DISABLE TRIGGER trg_technical_os_updated_at;
+
+UPDATE technical_os os
+SET incident_count = ir.cnt
+FROM (SELECT technical_os_id, COUNT(*) AS cnt
+      FROM incident_reports
+      GROUP BY technical_os_id) ir
+WHERE ir.technical_os_id = os.id;
+
+ALTER TABLE technical_os ENABLE TRIGGER trg_technical_os_updated_at;
+
+CREATE OR REPLACE FUNCTION track_incident_count()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE technical_os SET incident_count = incident_count - 1 WHERE id = OLD.technical_os_id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE technical_os SET incident_count = incident_count + 1 WHERE id = NEW.technical_os_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_incident_reports_count
+    AFTER INSERT OR DELETE OR UPDATE OF technical_os_id ON incident_reports
+    FOR EACH ROW
+    EXECUTE FUNCTION track_incident_count();
@@ -0,0 +1,85 @@
+-- report_os_status had one row per status, so every check-in and status change updated the same
+-- WAITING row and concurrent transactions queued on its row lock until commit. Like
+-- report_source_changes (V19), each status now has up to 16 striped rows picked by backend pid;
+-- readers sum the stripes.
+ALTER TABLE report_os_status ADD COLUMN slot SMALLINT NOT NULL DEFAULT 0;
+ALTER TABLE report_os_status DROP CONSTRAINT report_os_status_pkey;
+ALTER TABLE report_os_status ADD PRIMARY KEY (status, slot);
+
+CREATE OR REPLACE FUNCTION report_bump_status(p_status VARCHAR, p_count INT, p_value NUMERIC)
+RETURNS void AS $$
+BEGIN
+    INSERT INTO report_os_status AS s (status, slot, order_count, total_value)
+    VALUES (p_status, pg_backend_pid() % 16, p_count, p_value)
+    ON CONFLICT (status, slot) DO UPDATE
+        SET order_count = s.order_count + EXCLUDED.order_count,
+            total_value = s.total_value + EXCLUDED.total_value;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Same as V18 except for report_os_status, which is compared by its summed stripes and rebuilt
+-- into slot 0
+CREATE OR REPLACE FUNCTION rebuild_report_aggregates()
+RETURNS INT AS $$
+DECLARE
+    v_drift INT := 0;
+    v_rows  INT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(7236105);
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_daily_revenue_source
+         EXCEPT SELECT * FROM report_daily_revenue WHERE total_orders <> 0)
+        UNION ALL
+        (SELECT * FROM report_daily_revenue WHERE total_orders <> 0
+         EXCEPT SELECT * FROM report_daily_revenue_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_daily_revenue;
+    INSERT INTO report_daily_revenue SELECT * FROM report_daily_revenue_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_service_type_daily_source
+         EXCEPT SELECT * FROM report_service_type_daily WHERE total_services <> 0)
+        UNION ALL
+        (SELECT * FROM report_service_type_daily WHERE total_services <> 0
+         EXCEPT SELECT * FROM report_service_type_daily_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_service_type_daily;
+    INSERT INTO report_service_type_daily SELECT * FROM report_service_type_daily_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_groomer_daily_source
+         EXCEPT SELECT * FROM report_groomer_daily WHERE total_orders <> 0)
+        UNION ALL
+        (SELECT * FROM report_groomer_daily WHERE total_orders <> 0
+         EXCEPT SELECT * FROM report_groomer_daily_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_groomer_daily;
+    INSERT INTO report_groomer_daily SELECT * FROM report_groomer_daily_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_os_status_source
+         EXCEPT SELECT status, SUM(order_count)::INT, SUM(total_value) FROM report_os_status
+                GROUP BY status HAVING SUM(order_count) <> 0)
+        UNION ALL
+        (SELECT status, SUM(order_count)::INT, SUM(total_value) FROM report_os_status
+                GROUP BY status HAVING SUM(order_count) <> 0
+         EXCEPT SELECT * FROM report_os_status_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_os_status;
+    INSERT INTO report_os_status (status, slot, order_count, total_value)
+    SELECT status, 0, order_count, total_value FROM report_os_status_source;
+
+    SELECT count(*) INTO v_rows FROM (
+        (SELECT * FROM report_payment_method_daily_source
+         EXCEPT SELECT * FROM report_payment_method_daily WHERE transaction_count <> 0 OR refund_count <> 0)
+        UNION ALL
+        (SELECT * FROM report_payment_method_daily WHERE transaction_count <> 0 OR refund_count <> 0
+         EXCEPT SELECT * FROM report_payment_method_daily_source)) d;
+    v_drift := v_drift + v_rows;
+    DELETE FROM report_payment_method_daily;
+    INSERT INTO report_payment_method_daily SELECT * FROM report_payment_method_daily_source;
+
+    RETURN v_drift;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,22 @@
+-- Background PDF renders (ReportJobService). Job state used to live in the memory of the replica
+-- that accepted it, so polling or downloading through another replica returned 404 and a restart
+-- lost every job. The row is now shared; the file sits on a directory every replica mounts.
+CREATE TABLE report_jobs (
+    id           UUID         PRIMARY KEY,
+    report       VARCHAR(30)  NOT NULL,
+    start_date   DATE,
+    end_date     DATE,
+    report_limit INT,
+    status       VARCHAR(12)  NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'COMPLETED', 'FAILED')),
+    requested_by VARCHAR(100) NOT NULL,
+    created_at   TIMESTAMP    NOT NULL,
+    finished_at  TIMESTAMP,
+    expires_at   TIMESTAMP,
+    file_name    VARCHAR(100),
+    size_bytes   BIGINT,
+    error        VARCHAR(255)
+);
+
+-- Purge scans finished jobs by expiry and unfinished ones by age
+CREATE INDEX idx_report_jobs_expires_at ON report_jobs(expires_at) WHERE expires_at IS NOT NULL;
+CREATE INDEX idx_report_jobs_unfinished ON report_jobs(created_at) WHERE finished_at IS NULL;
@@ -0,0 +1,31 @@
+-- An audit row whose month had no partition (a skewed clock, a backfill, maintenance that did not
+-- run for months) failed to insert, and with it the audited action. Such rows now land in
+-- audit_log_default; AuditPartitionMaintenanceService warns about them and moves them into a
+-- partition for their month.
+CREATE TABLE audit_log_default PARTITION OF audit_log DEFAULT;
+
+-- Same as V16, except that rows already in the default partition for the month would violate the
+-- new partition's bounds, so the table is created detached, takes those rows, then is attached.
+-- Every replica calls this at startup; the advisory lock keeps them from racing on one month.
+CREATE OR REPLACE FUNCTION create_audit_log_partition(p_month DATE)
+RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_end   DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::date;
+    v_name  TEXT := 'audit_log_y' || to_char(v_start, 'YYYY') || 'm' || to_char(v_start, 'MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(7236107);
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+
+    -- Blocks inserts into the default partition until the new one is attached
+    LOCK TABLE audit_log_default IN SHARE MODE;
+    EXECUTE format('CREATE TABLE %I (LIKE audit_log INCLUDING DEFAULTS)', v_name);
+    EXECUTE format('WITH moved AS (DELETE FROM audit_log_default WHERE created_at >= %L AND created_at < %L RETURNING *)
+                    INSERT INTO %I SELECT * FROM moved', v_start, v_end, v_name);
+    EXECUTE format('ALTER TABLE audit_log ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_start, v_end);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
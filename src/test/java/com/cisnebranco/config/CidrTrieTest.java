@@ -0,0 +1,102 @@
+package com.cisnebranco.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CidrTrieTest {
+
+    @Test
+    void matches_exactAddressWithoutPrefix() {
+        assertThat(matches("192.168.1.1", "192.168.1.1")).isTrue();
+        assertThat(matches("192.168.1.2", "192.168.1.1")).isFalse();
+    }
+
+    @Test
+    void matches_ipInSubnet_returnsTrue() {
+        assertThat(matches("172.20.0.5", "172.16.0.0/12")).isTrue();
+    }
+
+    @Test
+    void matches_ipOutsideSubnet_returnsFalse() {
+        assertThat(matches("192.168.1.1", "172.16.0.0/12")).isFalse();
+    }
+
+    @Test
+    void matches_invalidIp_returnsFalse() {
+        assertThat(matches("not-an-ip", "172.16.0.0/12")).isFalse();
+    }
+
+    @Test
+    void compile_invalidPrefixLength_throwsWithCidr() {
+        assertThatThrownBy(() -> CidrTrie.compile(List.of("172.16.0.0/abc")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("172.16.0.0/abc");
+        assertThatThrownBy(() -> CidrTrie.compile(List.of("172.16.0.0/200")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("172.16.0.0/200");
+    }
+
+    @Test
+    void compile_invalidHost_throwsWithCidr() {
+        assertThatThrownBy(() -> CidrTrie.compile(List.of("not-a-host/24")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not-a-host/24");
+    }
+
+    @Test
+    void matches_zeroPrefixLength_matchesAllIps() {
+        // /0 = match every address — document this semantic so regressions in the walk are
+        // immediately visible
+        assertThat(matches("1.2.3.4", "0.0.0.0/0")).isTrue();
+        assertThat(matches("203.0.113.5", "0.0.0.0/0")).isTrue();
+    }
+
+    @Test
+    void matches_networkAndBroadcastBoundaries_returnTrue() {
+        assertThat(matches("172.16.0.0", "172.16.0.0/12")).isTrue();
+        assertThat(matches("172.31.255.255", "172.16.0.0/12")).isTrue();
+    }
+
+    @Test
+    void matches_oneAddressBeyondSubnetBoundary_returnsFalse() {
+        assertThat(matches("172.32.0.1", "172.16.0.0/12")).isFalse();
+        assertThat(matches("172.15.255.255", "172.16.0.0/12")).isFalse();
+    }
+
+    @Test
+    void matches_ipv4MappedIpv6VsIpv4Cidr_returnsTrue() {
+        // InetAddress unwraps "::ffff:172.20.0.2" to 4 bytes, so a Docker remoteAddr in a
+        // dual-stack environment is matched against the configured IPv4 CIDR
+        assertThat(matches("::ffff:172.20.0.2", "172.16.0.0/12")).isTrue();
+    }
+
+    @Test
+    void matches_ipv6Cidr() {
+        assertThat(matches("2001:db8::1", "2001:db8::/32")).isTrue();
+        assertThat(matches("2001:db9::1", "2001:db8::/32")).isFalse();
+        // IPv6 ranges never match IPv4 addresses, and the other way round
+        assertThat(matches("32.1.13.184", "2001:db8::/32")).isFalse();
+        assertThat(matches("::1", "0.0.0.0/0")).isFalse();
+    }
+
+    @Test
+    void matches_anyOfSeveralCidrs() {
+        assertThat(matches("192.168.1.50", "10.0.0.0/8", "192.168.0.0/16")).isTrue();
+        assertThat(matches("10.1.2.3", "10.0.0.0/8", "192.168.0.0/16")).isTrue();
+        assertThat(matches("172.20.0.2", "10.0.0.0/8", "192.168.0.0/16")).isFalse();
+    }
+
+    private static boolean matches(String ip, String... cidrs) {
+        CidrTrie trie = CidrTrie.compile(List.of(cidrs));
+        long ipv4 = ClientAddresses.parseIpv4(ip, 0, ip.length());
+        if (ipv4 != ClientAddresses.INVALID) {
+            return trie.matchesIpv4((int) ipv4);
+        }
+        byte[] address = ClientAddresses.parseIpv6(ip);
+        return address != null && trie.matches(address);
+    }
+}
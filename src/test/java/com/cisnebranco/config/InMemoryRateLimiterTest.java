@@ -0,0 +1,146 @@
+package com.cisnebranco.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.cisnebranco.config.RateLimitCategory.AUTH;
+import static com.cisnebranco.config.RateLimitCategory.GENERAL;
+import static com.cisnebranco.config.RateLimitCategory.UPLOAD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemoryRateLimiter limiter = new InMemoryRateLimiter(now::get);
+
+    private static final long CLIENT = ip("1.2.3.4");
+
+    @Test
+    void acquire_allowsBurstUpToLimitThenDenies() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.acquire(CLIENT, AUTH, 10)).isZero();
+        }
+        // One request every 6s refills
+        assertThat(limiter.acquire(CLIENT, AUTH, 10)).isEqualTo(6_000);
+    }
+
+    @Test
+    void acquire_refillsContinuously() {
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(CLIENT, AUTH, 10);
+        }
+        now.addAndGet(5_999);
+        assertThat(limiter.acquire(CLIENT, AUTH, 10)).isEqualTo(1);
+        now.addAndGet(1);
+        assertThat(limiter.acquire(CLIENT, AUTH, 10)).isZero();
+        assertThat(limiter.acquire(CLIENT, AUTH, 10)).isPositive();
+    }
+
+    @Test
+    void acquire_noDoubleBurstAcrossMinuteBoundary() {
+        now.addAndGet(59_000);
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (limiter.acquire(CLIENT, GENERAL, 10) == 0) {
+                allowed++;
+            }
+        }
+        // A fixed window resetting here would allow another 10
+        now.addAndGet(2_000);
+        for (int i = 0; i < 20; i++) {
+            if (limiter.acquire(CLIENT, GENERAL, 10) == 0) {
+                allowed++;
+            }
+        }
+        assertThat(allowed).isEqualTo(10);
+    }
+
+    @Test
+    void acquire_keysAreIndependent() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(CLIENT, UPLOAD, 5);
+        }
+        assertThat(limiter.acquire(CLIENT, UPLOAD, 5)).isPositive();
+        assertThat(limiter.acquire(CLIENT, GENERAL, 5)).isZero();
+        assertThat(limiter.acquire(ip("5.6.7.8"), UPLOAD, 5)).isZero();
+    }
+
+    @Test
+    void evictIdle_dropsOnlyFullyRefilledClients() {
+        limiter.acquire(ip("10.0.0.1"), GENERAL, 60);
+        now.addAndGet(500);
+        limiter.acquire(ip("10.0.0.2"), GENERAL, 60);
+
+        now.addAndGet(600);
+        limiter.evictIdle();
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictIdle_dropsClientsOnLaterSweepsAsTheyExpire() {
+        limiter.evictIdle();
+        limiter.acquire(ip("10.0.0.1"), AUTH, 10);
+        limiter.acquire(ip("10.0.0.2"), GENERAL, 60);
+
+        now.addAndGet(1_500);
+        limiter.evictIdle();
+        assertThat(limiter.size()).isEqualTo(1);
+
+        // Still in use: its expiry moves forward and it is kept
+        limiter.acquire(ip("10.0.0.1"), AUTH, 10);
+        now.addAndGet(6_000);
+        limiter.evictIdle();
+        assertThat(limiter.size()).isEqualTo(1);
+
+        now.addAndGet(7_000);
+        limiter.evictIdle();
+        assertThat(limiter.size()).isZero();
+    }
+
+    @Test
+    void acquire_beyondMaxClients_limitsNewClientsApproximately() {
+        InMemoryRateLimiter bounded = new InMemoryRateLimiter(64, now::get);
+        for (int i = 0; i < 1_000; i++) {
+            bounded.acquire(ip("10.0." + (i / 256) + "." + (i % 256)), GENERAL, 10);
+        }
+        assertThat(bounded.size()).isLessThanOrEqualTo(64);
+
+        long sprayed = ip("192.0.2.1");
+        for (int i = 0; i < 10; i++) {
+            assertThat(bounded.acquire(sprayed, AUTH, 10)).isZero();
+        }
+        assertThat(bounded.acquire(sprayed, AUTH, 10)).isPositive();
+
+        // Idle clients expire and make room again
+        now.addAndGet(61_000);
+        bounded.evictIdle();
+        assertThat(bounded.size()).isZero();
+    }
+
+    @Test
+    void acquire_concurrentRequestsNeverExceedLimit() {
+        AtomicInteger allowed = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 32; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        if (limiter.acquire(CLIENT, GENERAL, 100) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+
+        assertThat(allowed).hasValue(100);
+    }
+
+    private static long ip(String address) {
+        return ClientAddresses.parseIpv4(address, 0, address.length());
+    }
+}
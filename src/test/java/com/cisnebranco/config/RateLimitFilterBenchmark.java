@@ -0,0 +1,146 @@
+package com.cisnebranco.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-request cost of the rate-limit filter for a known client: the current hot path against a
+ * reproduction of the former one (string key per request, regex category match, CIDR strings
+ * re-parsed through {@link InetAddress} on every request, map keyed by string).
+ *
+ * Limits are set high enough that every request is allowed. Pure JVM, no Docker needed. Runs
+ * with the GC profiler, whose {@code gc.alloc.rate.norm} is the allocation per request:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.cisnebranco.config.RateLimitFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private static final List<String> TRUSTED = List.of("172.16.0.0/12", "10.0.0.0/8");
+    private static final Pattern UPLOAD_PATTERN = Pattern.compile("/os/\\d+/(photos|checklist)(/.*)?");
+    private static final int LIMIT = Integer.MAX_VALUE;
+
+    /** Whether the request arrives through a trusted proxy with X-Forwarded-For. */
+    @Param({"false", "true"})
+    public boolean behindProxy;
+
+    @Param({"/clients", "/os/123/photos"})
+    public String path;
+
+    private RateLimitFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+    private final ConcurrentHashMap<String, long[]> legacyBuckets = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setUp() {
+        filter = new RateLimitFilter(LIMIT, LIMIT, LIMIT, LIMIT, TRUSTED, new ObjectMapper());
+        request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        if (behindProxy) {
+            request.setRemoteAddr("172.20.0.2");
+            request.addHeader("X-Forwarded-For", "203.0.113.42, 172.20.0.2");
+        } else {
+            request.setRemoteAddr("203.0.113.42");
+        }
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public int filterHotPath() throws Exception {
+        filter.doFilterInternal(request, response, chain);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public long legacyHotPath() {
+        String ip = request.getRemoteAddr();
+        String remoteAddr = ip;
+        if (TRUSTED.stream().anyMatch(cidr -> matchesCidr(remoteAddr, cidr))) {
+            String xForwardedFor = request.getHeader("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isBlank()) {
+                String rawIp = xForwardedFor.split(",")[0].trim();
+                if (!rawIp.isBlank() && RateLimitFilter.isNumericIpAddress(rawIp)) {
+                    ip = rawIp;
+                }
+            }
+        }
+        String servletPath = request.getServletPath();
+        String category;
+        if (servletPath.startsWith("/auth/")) {
+            category = "auth";
+        } else if (UPLOAD_PATTERN.matcher(servletPath).matches()) {
+            category = "upload";
+        } else if (servletPath.startsWith("/reports/") || servletPath.equals("/reports")) {
+            category = "report";
+        } else {
+            category = "general";
+        }
+        long[] bucket = legacyBuckets.computeIfAbsent(ip + ":" + category, k -> new long[1]);
+        synchronized (bucket) {
+            return ++bucket[0];
+        }
+    }
+
+    // The matcher the filter used before CidrTrie, re-parsing both addresses on every call
+    private static boolean matchesCidr(String ip, String cidr) {
+        try {
+            if (!cidr.contains("/")) {
+                return cidr.equals(ip);
+            }
+            String[] parts = cidr.split("/", 2);
+            byte[] cidrBytes = InetAddress.getByName(parts[0]).getAddress();
+            byte[] ipBytes = InetAddress.getByName(ip).getAddress();
+            if (cidrBytes.length != ipBytes.length) return false;
+            int bitsLeft = Integer.parseInt(parts[1]);
+            for (int i = 0; i < cidrBytes.length && bitsLeft > 0; i++) {
+                int bits = Math.min(8, bitsLeft);
+                int mask = 0xFF & (0xFF << (8 - bits));
+                if ((cidrBytes[i] & mask) != (ipBytes[i] & mask)) return false;
+                bitsLeft -= bits;
+            }
+            return true;
+        } catch (UnknownHostException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -47,70 +47,6 @@ class RateLimitFilterTest {
         assertThat(f).isNotNull();
     }
 
-    // --- matchesCidr ---
-
-    @Test
-    void matchesCidr_exactMatch_returnsTrue() {
-        assertThat(RateLimitFilter.matchesCidr("192.168.1.1", "192.168.1.1")).isTrue();
-    }
-
-    @Test
-    void matchesCidr_ipInSubnet_returnsTrue() {
-        assertThat(RateLimitFilter.matchesCidr("172.20.0.5", "172.16.0.0/12")).isTrue();
-    }
-
-    @Test
-    void matchesCidr_ipOutsideSubnet_returnsFalse() {
-        assertThat(RateLimitFilter.matchesCidr("192.168.1.1", "172.16.0.0/12")).isFalse();
-    }
-
-    @Test
-    void matchesCidr_invalidIp_returnsFalse() {
-        assertThat(RateLimitFilter.matchesCidr("not-an-ip", "172.16.0.0/12")).isFalse();
-    }
-
-    @Test
-    void matchesCidr_invalidCidrPrefixLength_returnsFalse() {
-        assertThat(RateLimitFilter.matchesCidr("172.20.0.5", "172.16.0.0/abc")).isFalse();
-    }
-
-    @Test
-    void matchesCidr_invalidCidrHost_returnsFalse() {
-        assertThat(RateLimitFilter.matchesCidr("172.20.0.5", "not-a-host/24")).isFalse();
-    }
-
-    @Test
-    void matchesCidr_zeroPrefixLength_matchesAllIps() {
-        // /0 = match every address — document this semantic so regressions in the loop
-        // condition are immediately visible
-        assertThat(RateLimitFilter.matchesCidr("1.2.3.4", "0.0.0.0/0")).isTrue();
-        assertThat(RateLimitFilter.matchesCidr("203.0.113.5", "0.0.0.0/0")).isTrue();
-    }
-
-    @Test
-    void matchesCidr_networkBoundaryAddress_returnsTrue() {
-        assertThat(RateLimitFilter.matchesCidr("172.16.0.0", "172.16.0.0/12")).isTrue();
-    }
-
-    @Test
-    void matchesCidr_broadcastBoundaryAddress_returnsTrue() {
-        assertThat(RateLimitFilter.matchesCidr("172.31.255.255", "172.16.0.0/12")).isTrue();
-    }
-
-    @Test
-    void matchesCidr_oneAddressBeyondSubnetBoundary_returnsFalse() {
-        assertThat(RateLimitFilter.matchesCidr("172.32.0.1", "172.16.0.0/12")).isFalse();
-    }
-
-    @Test
-    void matchesCidr_ipv4MappedIpv6VsIpv4Cidr_returnsTrue() {
-        // Java's InetAddress.getByName("::ffff:172.20.0.2") unwraps the IPv4-mapped
-        // address to a 4-byte Inet4Address, so it DOES match IPv4 CIDRs.
-        // This is actually the desired behavior: Docker remoteAddr in dual-stack
-        // environments is correctly matched against the configured IPv4 CIDR.
-        assertThat(RateLimitFilter.matchesCidr("::ffff:172.20.0.2", "172.16.0.0/12")).isTrue();
-    }
-
     // --- isNumericIpAddress ---
 
     @Test
@@ -138,77 +74,77 @@ class RateLimitFilterTest {
         assertThat(RateLimitFilter.isNumericIpAddress("")).isFalse();
     }
 
-    // --- getClientIp: direct connection (not a trusted proxy) ---
+    // --- resolveClient: direct connection (not a trusted proxy) ---
 
     @Test
-    void getClientIp_directConnection_usesRemoteAddr() {
+    void resolveClient_directConnection_usesRemoteAddr() {
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("203.0.113.42");
         request.addHeader("X-Forwarded-For", "1.2.3.4");
 
         // remoteAddr is not in trusted CIDR — X-Forwarded-For must be ignored
-        assertThat(filter.getClientIp(request)).isEqualTo("203.0.113.42");
+        assertThat(clientOf(filter, request)).isEqualTo("203.0.113.42");
     }
 
-    // --- getClientIp: trusted proxy ---
+    // --- resolveClient: trusted proxy ---
 
     @Test
-    void getClientIp_trustedProxy_usesFirstXForwardedForEntry() {
+    void resolveClient_trustedProxy_usesFirstXForwardedForEntry() {
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("172.20.0.2"); // inside 172.16.0.0/12
         request.addHeader("X-Forwarded-For", "203.0.113.42, 10.0.0.1");
 
-        assertThat(filter.getClientIp(request)).isEqualTo("203.0.113.42");
+        assertThat(clientOf(filter, request)).isEqualTo("203.0.113.42");
     }
 
     @Test
-    void getClientIp_trustedProxy_noXForwardedFor_fallsBackToRemoteAddr() {
+    void resolveClient_trustedProxy_noXForwardedFor_fallsBackToRemoteAddr() {
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("172.20.0.2");
 
-        assertThat(filter.getClientIp(request)).isEqualTo("172.20.0.2");
+        assertThat(clientOf(filter, request)).isEqualTo("172.20.0.2");
     }
 
     @Test
-    void getClientIp_trustedProxy_emptyXForwardedFor_fallsBackToRemoteAddr() {
+    void resolveClient_trustedProxy_emptyXForwardedFor_fallsBackToRemoteAddr() {
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("172.20.0.2");
         request.addHeader("X-Forwarded-For", "   ");
 
-        assertThat(filter.getClientIp(request)).isEqualTo("172.20.0.2");
+        assertThat(clientOf(filter, request)).isEqualTo("172.20.0.2");
     }
 
     @Test
-    void getClientIp_trustedProxy_commaLeadingXForwardedFor_fallsBackToRemoteAddr() {
+    void resolveClient_trustedProxy_commaLeadingXForwardedFor_fallsBackToRemoteAddr() {
         // First token is blank after trim — inner guard fires, fallback to remoteAddr
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("172.20.0.2");
         request.addHeader("X-Forwarded-For", ", 203.0.113.42");
 
-        assertThat(filter.getClientIp(request)).isEqualTo("172.20.0.2");
+        assertThat(clientOf(filter, request)).isEqualTo("172.20.0.2");
     }
 
     @Test
-    void getClientIp_trustedProxy_xForwardedForWithLeadingSpaceOnFirstEntry_trimsCorrectly() {
+    void resolveClient_trustedProxy_xForwardedForWithLeadingSpaceOnFirstEntry_trimsCorrectly() {
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("172.20.0.2");
         request.addHeader("X-Forwarded-For", "  203.0.113.42  , 10.0.0.1");
 
-        assertThat(filter.getClientIp(request)).isEqualTo("203.0.113.42");
+        assertThat(clientOf(filter, request)).isEqualTo("203.0.113.42");
     }
 
     @Test
-    void getClientIp_trustedProxy_nonNumericXForwardedFor_fallsBackToRemoteAddr() {
+    void resolveClient_trustedProxy_nonNumericXForwardedFor_fallsBackToRemoteAddr() {
         // Hostname injection should be rejected (avoids DNS lookup on hot path)
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("172.20.0.2");
         request.addHeader("X-Forwarded-For", "evil.example.com");
 
-        assertThat(filter.getClientIp(request)).isEqualTo("172.20.0.2");
+        assertThat(clientOf(filter, request)).isEqualTo("172.20.0.2");
     }
 
     @Test
-    void getClientIp_multipleTrustedCidrs_matchesAny() {
+    void resolveClient_multipleTrustedCidrs_matchesAny() {
         RateLimitFilter multiFilter = new RateLimitFilter(
                 60, 10, 5, 10, List.of("10.0.0.0/8", "192.168.0.0/16"), new ObjectMapper());
 
@@ -216,18 +152,41 @@ class RateLimitFilterTest {
         request.setRemoteAddr("192.168.1.50"); // in second CIDR
         request.addHeader("X-Forwarded-For", "203.0.113.1");
 
-        assertThat(multiFilter.getClientIp(request)).isEqualTo("203.0.113.1");
+        assertThat(clientOf(multiFilter, request)).isEqualTo("203.0.113.1");
     }
 
     @Test
-    void getClientIp_emptyTrustedCidrList_alwaysUsesRemoteAddr() {
+    void resolveClient_emptyTrustedCidrList_alwaysUsesRemoteAddr() {
         RateLimitFilter noProxyFilter = new RateLimitFilter(60, 10, 5, 10, List.of(), new ObjectMapper());
 
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("172.20.0.2");
         request.addHeader("X-Forwarded-For", "203.0.113.42");
 
-        assertThat(noProxyFilter.getClientIp(request)).isEqualTo("172.20.0.2");
+        assertThat(clientOf(noProxyFilter, request)).isEqualTo("172.20.0.2");
+    }
+
+    @Test
+    void resolveClient_ipv4MappedProxy_isTrusted() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("::ffff:172.20.0.2");
+        request.addHeader("X-Forwarded-For", "203.0.113.42");
+
+        assertThat(ClientAddresses.format(filter.resolveClient(request))).isEqualTo("203.0.113.42");
+    }
+
+    @Test
+    void resolveClient_ipv6Clients_sharePerSlash64Key() {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        first.setRemoteAddr("2001:db8:1:2::1");
+        MockHttpServletRequest second = new MockHttpServletRequest();
+        second.setRemoteAddr("2001:db8:1:2:ffff::9");
+        MockHttpServletRequest other = new MockHttpServletRequest();
+        other.setRemoteAddr("2001:db8:1:3::1");
+
+        assertThat(filter.resolveClient(first)).isEqualTo(filter.resolveClient(second));
+        assertThat(filter.resolveClient(first)).isNotEqualTo(filter.resolveClient(other));
+        assertThat(filter.resolveClient(first)).isNegative();
     }
 
     // --- resolveCategory ---
@@ -292,6 +251,14 @@ class RateLimitFilterTest {
         assertThat(filter.resolveCategory("/os/123/checklist/items").name()).isEqualTo("upload");
     }
 
+    @Test
+    void resolveCategory_uploadLookalikes_returnGeneral() {
+        assertThat(filter.resolveCategory("/os//photos").name()).isEqualTo("general");
+        assertThat(filter.resolveCategory("/os/123/photosx").name()).isEqualTo("general");
+        assertThat(filter.resolveCategory("/os/123").name()).isEqualTo("general");
+        assertThat(filter.resolveCategory("/os/123/photos/a\nb").name()).isEqualTo("general");
+    }
+
     // --- Integration: separate buckets per category ---
 
     @Test
@@ -324,4 +291,8 @@ class RateLimitFilterTest {
         testFilter.doFilterInternal(generalReq, generalResp, chain);
         assertThat(generalResp.getStatus()).isEqualTo(200);
     }
+
+    private static String clientOf(RateLimitFilter filter, MockHttpServletRequest request) {
+        return ClientAddresses.format(filter.resolveClient(request));
+    }
 }
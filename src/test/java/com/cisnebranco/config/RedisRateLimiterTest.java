@@ -0,0 +1,168 @@
+package com.cisnebranco.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.cisnebranco.config.RateLimitCategory.AUTH;
+import static com.cisnebranco.config.RateLimitCategory.GENERAL;
+import static com.cisnebranco.config.RateLimitCategory.UPLOAD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisRateLimiterTest {
+
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    private static final long CLIENT = ClientAddresses.parseIpv4("1.2.3.4", 0, 7);
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @BeforeAll
+    static void startRedis() {
+        REDIS.start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        connectionFactory.destroy();
+        REDIS.stop();
+    }
+
+    @BeforeEach
+    void clearKeys() {
+        redis.delete(redis.keys("test:*"));
+    }
+
+    @Test
+    void replicas_shareOneLimit() {
+        RedisRateLimiter replicaA = new RedisRateLimiter(redis, "test:", 0, 1000, now::get);
+        RedisRateLimiter replicaB = new RedisRateLimiter(redis, "test:", 0, 1000, now::get);
+
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (replicaA.acquire(CLIENT, AUTH, 10) == 0) allowed++;
+            if (replicaB.acquire(CLIENT, AUTH, 10) == 0) allowed++;
+        }
+
+        assertThat(allowed).isEqualTo(10);
+    }
+
+    @Test
+    void lease_servesLocallyAndCountsAgainstSharedLimit() {
+        RedisRateLimiter replicaA = new RedisRateLimiter(redis, "test:", 10, 60_000, now::get);
+        RedisRateLimiter replicaB = new RedisRateLimiter(redis, "test:", 0, 60_000, now::get);
+
+        // A reserves 10% of 60 and uses one
+        assertThat(replicaA.acquire(CLIENT, GENERAL, 60)).isZero();
+
+        int allowedOnB = 0;
+        for (int i = 0; i < 60; i++) {
+            if (replicaB.acquire(CLIENT, GENERAL, 60) == 0) allowedOnB++;
+        }
+        assertThat(allowedOnB).isEqualTo(54);
+
+        // A's remaining five are served without Redis, even though the shared limit is used up
+        for (int i = 0; i < 5; i++) {
+            assertThat(replicaA.acquire(CLIENT, GENERAL, 60)).isZero();
+        }
+        assertThat(replicaA.acquire(CLIENT, GENERAL, 60)).isPositive();
+    }
+
+    @Test
+    void denial_isRememberedLocallyUntilRetryTime() {
+        RedisRateLimiter limiter = new RedisRateLimiter(redis, "test:", 0, 1000, now::get);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(CLIENT, UPLOAD, 5);
+        }
+
+        long retryAfter = limiter.acquire(CLIENT, UPLOAD, 5);
+        assertThat(retryAfter).isPositive();
+
+        // Even if Redis forgot the key, the cached denial holds until its retry time
+        redis.delete("test:1.2.3.4:upload");
+        assertThat(limiter.acquire(CLIENT, UPLOAD, 5)).isPositive();
+    }
+
+    @Test
+    void redisDown_fallsBackToLocalLimit() {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", 1));
+        unreachable.afterPropertiesSet();
+        unreachable.start();
+        try {
+            RedisRateLimiter limiter = new RedisRateLimiter(
+                    new StringRedisTemplate(unreachable), "test:", 0, 1000, now::get);
+            for (int i = 0; i < 5; i++) {
+                assertThat(limiter.acquire(CLIENT, UPLOAD, 5)).isZero();
+            }
+            assertThat(limiter.acquire(CLIENT, UPLOAD, 5)).isPositive();
+        } finally {
+            unreachable.destroy();
+        }
+    }
+
+    @Test
+    void redisHung_timesOutOnceThenStaysLocalUntilRetry() {
+        LettuceConnectionFactory shortTimeout = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(100)).build());
+        shortTimeout.afterPropertiesSet();
+        shortTimeout.start();
+        RedisRateLimiter limiter = new RedisRateLimiter(new StringRedisTemplate(shortTimeout), "test:", 0, 1000,
+                InMemoryRateLimiter.DEFAULT_MAX_CLIENTS, 5_000, now::get);
+        // Connect while Redis still answers, so the pause below hangs commands, not the handshake
+        assertThat(limiter.acquire(ClientAddresses.parseIpv4("9.9.9.9", 0, 7), GENERAL, 60)).isZero();
+
+        REDIS.getDockerClient().pauseContainerCmd(REDIS.getContainerId()).exec();
+        try {
+            AtomicInteger allowed = new AtomicInteger();
+            long start = System.nanoTime();
+            // Concurrent requests from one client neither queue behind the lease nor each wait
+            // for their own timeout once Redis has failed
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 20; i++) {
+                    executor.submit(() -> {
+                        if (limiter.acquire(CLIENT, UPLOAD, 5) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    });
+                }
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(elapsedMs).isLessThan(1_000);
+            // Limited locally meanwhile
+            assertThat(allowed).hasValue(5);
+        } finally {
+            REDIS.getDockerClient().unpauseContainerCmd(REDIS.getContainerId()).exec();
+        }
+
+        // Redis is tried again once the retry interval has passed
+        now.addAndGet(5_001);
+        assertThat(limiter.acquire(CLIENT, AUTH, 10)).isZero();
+        assertThat(redis.hasKey("test:1.2.3.4:auth")).isTrue();
+        shortTimeout.destroy();
+    }
+}
@@ -0,0 +1,117 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import com.cisnebranco.service.AnalyticsExportService.ExportRun;
+import com.cisnebranco.service.AnalyticsExportService.ExportedFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not @Transactional: the export reads committed data in its own snapshot transaction
+class AnalyticsExportServiceTest extends BaseIntegrationTest {
+
+    @Autowired private AnalyticsExportService exportService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ApplicationContext context;
+    @Autowired private DataSource dataSource;
+
+    @Value("${app.analytics-export.dir}")
+    private String exportDir;
+
+    private OsFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OsFixture(context, "Export");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.deleteCreated();
+    }
+
+    @Test
+    void fullExport_writesEveryTableAndManifest() throws Exception {
+        ExportRun run = exportService.export(true);
+
+        Path runDir = Path.of(exportDir).resolve(run.directory());
+        assertThat(runDir.resolve("manifest.json")).exists();
+        assertThat(run.manifest().mode()).isEqualTo("FULL");
+        assertThat(run.manifest().files()).extracting(ExportedFile::table)
+                .containsExactly("technical_os", "os_service_items", "payment_events");
+
+        Timestamp to = Timestamp.valueOf(run.manifest().watermarkTo());
+        for (ExportedFile file : run.manifest().files()) {
+            Long expected = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM " + file.table() + " WHERE updated_at <= ?", Long.class, to);
+            List<String> lines = readGzip(runDir.resolve(file.file()));
+            assertThat(file.rows()).isEqualTo(expected);
+            assertThat(lines).hasSize((int) (expected + 1));
+            assertThat(lines.get(0)).startsWith("id,");
+        }
+    }
+
+    @Test
+    void incrementalExport_containsOnlyRowsChangedSinceLastRun() throws Exception {
+        exportService.export(true);
+        Long osId = fixture.checkIn();
+
+        ExportRun run = exportService.export(false);
+
+        assertThat(run.manifest().mode()).isEqualTo("INCREMENTAL");
+        ExportedFile osFile = run.manifest().files().get(0);
+        assertThat(osFile.rows()).isEqualTo(1);
+        List<String> lines = readGzip(Path.of(exportDir).resolve(run.directory()).resolve(osFile.file()));
+        assertThat(lines.get(1)).startsWith(osId + ",");
+
+        // An update moves the row into the next window again
+        jdbcTemplate.update("UPDATE technical_os SET total_price = 80 WHERE id = ?", osId);
+        ExportRun next = exportService.export(false);
+        assertThat(next.manifest().watermarkFrom()).isEqualTo(run.manifest().watermarkTo());
+        assertThat(next.manifest().files().get(0).rows()).isEqualTo(1);
+    }
+
+    @Test
+    void export_whileAnotherInstanceHoldsTheLock_isSkipped() throws Exception {
+        Long before = jdbcTemplate.queryForObject("SELECT count(*) FROM analytics_export_runs", Long.class);
+        try (Connection other = dataSource.getConnection()) {
+            try (Statement st = other.createStatement()) {
+                st.execute("SELECT pg_advisory_lock(" + AnalyticsExportService.EXPORT_LOCK_KEY + ")");
+            }
+
+            assertThat(exportService.export(true)).isNull();
+
+            try (Statement st = other.createStatement()) {
+                st.execute("SELECT pg_advisory_unlock(" + AnalyticsExportService.EXPORT_LOCK_KEY + ")");
+            }
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM analytics_export_runs", Long.class))
+                .isEqualTo(before);
+    }
+
+    private static List<String> readGzip(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.service.AuditLogWriter.AuditRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditLogWriterTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<List<String>> insertedBatches = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+    private final CountDownLatch insertStarted = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CountDownLatch stall = new CountDownLatch(0);
+    private AuditLogWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        stall.countDown();
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void enqueue_entriesAreFlushedTogetherInOneBatch() throws Exception {
+        writer = startWriter(100, 50, 200);
+
+        writer.enqueue(entry("A"));
+        writer.enqueue(entry("B"));
+        writer.enqueue(entry("C"));
+
+        awaitCondition(() -> !insertedBatches.isEmpty());
+        assertThat(insertedBatches).containsExactly(List.of("A", "B", "C"));
+    }
+
+    @Test
+    void enqueue_batchSizeReached_flushesWithoutWaitingForInterval() throws Exception {
+        writer = startWriter(100, 2, 5_000);
+
+        writer.enqueue(entry("A"));
+        writer.enqueue(entry("B"));
+
+        awaitCondition(() -> !insertedBatches.isEmpty());
+        assertThat(insertedBatches.get(0)).containsExactly("A", "B");
+    }
+
+    @Test
+    void databaseFailure_journalsBatchAndReplaysItLater() throws Exception {
+        databaseDown.set(true);
+        writer = startWriter(100, 50, 100);
+
+        writer.enqueue(entry("A"));
+        writer.enqueue(entry("B"));
+
+        awaitCondition(() -> meterRegistry.get("audit.entries.journaled").counter().count() == 2);
+
+        databaseDown.set(false);
+        awaitCondition(() -> !insertedBatches.isEmpty());
+        assertThat(insertedBatches.get(0)).containsExactly("A", "B");
+        awaitCondition(() -> !Files.exists(journalDir.resolve("audit-journal.ndjson"))
+                && !Files.exists(journalDir.resolve("audit-journal.replay.ndjson")));
+    }
+
+    @Test
+    void replay_entryRejectedOnItsOwn_isDeadLetteredAndTheRestIsWritten() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        Files.write(journalDir.resolve("audit-journal.ndjson"), List.of(
+                objectMapper.writeValueAsString(entry("A")),
+                objectMapper.writeValueAsString(entry("POISON")),
+                objectMapper.writeValueAsString(entry("B")),
+                "{\"action\":\"TOR"));
+        writer = startWriter(100, 50, 50);
+
+        awaitCondition(() -> !Files.exists(journalDir.resolve("audit-journal.replay.ndjson"))
+                && insertedBatches.size() == 2);
+        assertThat(insertedBatches).containsExactly(List.of("A"), List.of("B"));
+        assertThat(Files.readAllLines(journalDir.resolve("audit-journal.dead-letter.ndjson")))
+                .hasSize(2)
+                .anyMatch(line -> line.contains("\"action\":\"POISON\""))
+                .contains("{\"action\":\"TOR");
+        assertThat(meterRegistry.get("audit.entries.rejected").counter().count()).isEqualTo(2);
+        assertThat(journalDir.resolve("audit-journal.replay.progress")).doesNotExist();
+    }
+
+    @Test
+    void enqueue_bufferFull_spillsToJournalInsteadOfBlocking() throws Exception {
+        stall = new CountDownLatch(1);
+        // Batch size 1 and capacity 1: the writer blocks inside the insert of A, the buffer
+        // holds B, and C cannot be enqueued within the timeout
+        writer = startWriter(1, 1, 50);
+
+        writer.enqueue(entry("A"));
+        assertThat(insertStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(entry("B"));
+        writer.enqueue(entry("C"));
+
+        Path journal = journalDir.resolve("audit-journal.ndjson");
+        assertThat(Files.readString(journal)).contains("\"action\":\"C\"").doesNotContain("\"action\":\"B\"");
+    }
+
+    @SuppressWarnings("unchecked")
+    private AuditLogWriter startWriter(int capacity, int batchSize, long flushIntervalMs) {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any())).thenAnswer(inv -> {
+            insertStarted.countDown();
+            stall.await();
+            if (databaseDown.get()) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            Collection<AuditRecord> batch = inv.getArgument(1);
+            if (batch.stream().anyMatch(entry -> entry.action().equals("POISON"))) {
+                throw new DataIntegrityViolationException("value too long for type character varying(50)");
+            }
+            insertedBatches.add(new ArrayList<>(batch.stream().map(AuditRecord::action).toList()));
+            return new int[0][];
+        });
+        AuditLogWriter auditLogWriter = new AuditLogWriter(jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ObjectMapper().findAndRegisterModules(), meterRegistry,
+                capacity, batchSize, flushIntervalMs, 10, 50, journalDir.toString());
+        auditLogWriter.start();
+        return auditLogWriter;
+    }
+
+    private static AuditRecord entry(String action) {
+        return new AuditRecord(action, "TechnicalOs", 1L, "admin", null, "127.0.0.1", LocalDateTime.now());
+    }
+
+    private static void awaitCondition(CheckedCondition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.met()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CheckedCondition {
+        boolean met() throws Exception;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditPartitionMaintenanceServiceTest extends BaseIntegrationTest {
+
+    @Autowired private AuditPartitionMaintenanceService maintenanceService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DataSource dataSource;
+
+    @TempDir
+    Path archiveDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(maintenanceService, "archiveDir", archiveDir.toString());
+    }
+
+    @Test
+    void ensureFuturePartitions_createsCurrentAndUpcomingMonths() {
+        List<String> partitions = maintenanceService.ensureFuturePartitions();
+
+        YearMonth now = YearMonth.now();
+        assertThat(partitions).hasSize(4)
+                .contains(String.format("audit_log_y%04dm%02d", now.getYear(), now.getMonthValue()));
+        assertThat(partitions).allSatisfy(name -> assertThat(
+                jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)).isTrue());
+    }
+
+    @Test
+    void rowWithoutPartition_landsInDefaultAndIsMovedToItsMonth() throws Exception {
+        insertAudit(LocalDateTime.of(2002, 5, 10, 9, 0));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_log_default", Long.class)).isEqualTo(1);
+
+        assertThat(maintenanceService.rehomeDefaultRows()).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_log_default", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_log_y2002m05", Long.class)).isEqualTo(1);
+        maintenanceService.archiveExpiredPartitions();
+    }
+
+    @Test
+    void runMaintenance_whileAnotherInstanceHoldsTheLock_doesNothing() throws Exception {
+        insertAudit(LocalDateTime.of(2002, 6, 10, 9, 0));
+        try (Connection other = dataSource.getConnection(); Statement st = other.createStatement()) {
+            st.execute("SELECT pg_advisory_lock(" + AuditPartitionMaintenanceService.MAINTENANCE_LOCK_KEY + ")");
+
+            maintenanceService.runMaintenance();
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_log_default", Long.class)).isEqualTo(1);
+
+            st.execute("SELECT pg_advisory_unlock(" + AuditPartitionMaintenanceService.MAINTENANCE_LOCK_KEY + ")");
+        }
+        maintenanceService.runMaintenance();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_log_default", Long.class)).isZero();
+    }
+
+    @Test
+    void archiveExpiredPartitions_exportsRowsAndDropsPartition() throws Exception {
+        jdbcTemplate.queryForObject("SELECT create_audit_log_partition(?)", String.class, LocalDate.of(2001, 3, 1));
+        jdbcTemplate.update("""
+                INSERT INTO audit_log (action, entity_type, entity_id, username, details, created_at)
+                VALUES ('CHECKIN', 'TechnicalOs', 7, 'admin', 'Pet "Rex", banho', ?)
+                """, LocalDateTime.of(2001, 3, 15, 10, 0));
+
+        List<Path> archives = maintenanceService.archiveExpiredPartitions();
+
+        Path archive = archiveDir.resolve("audit_log_y2001m03.csv.gz");
+        assertThat(archives).contains(archive);
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('audit_log_y2001m03') IS NULL", Boolean.class))
+                .isTrue();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().toList();
+            assertThat(lines).hasSize(2);
+            assertThat(lines.get(0)).startsWith("id,action,entity_type");
+            assertThat(lines.get(1)).contains("CHECKIN,TechnicalOs,7,admin,\"Pet \"\"Rex\"\", banho\"");
+        }
+    }
+
+    private void insertAudit(LocalDateTime createdAt) {
+        jdbcTemplate.update("""
+                INSERT INTO audit_log (action, entity_type, entity_id, username, created_at)
+                VALUES ('UPDATE', 'Pet', 1, 'admin', ?)
+                """, createdAt);
+    }
+}
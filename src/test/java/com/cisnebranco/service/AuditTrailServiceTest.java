@@ -0,0 +1,113 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import com.cisnebranco.dto.request.AuditSearchCriteria;
+import com.cisnebranco.dto.request.KeysetCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Transactional
+class AuditTrailServiceTest extends BaseIntegrationTest {
+
+    private static final long OS_ID = 987_654L;
+
+    @Autowired private AuditTrailService auditTrailService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        base = LocalDateTime.now().withNano(0);
+        // Two entries share a timestamp so the id tiebreaker is exercised
+        insert("CHECKIN", "alice", base);
+        insert("STATUS_CHANGED", "bob", base.plusMinutes(1));
+        insert("PRICE_ADJUSTED", "alice", base.plusMinutes(1));
+        insert("STATUS_CHANGED", "alice", base.plusMinutes(2));
+        insert("DELIVERED", "bob", base.plusMinutes(3));
+    }
+
+    @Test
+    void streamEntityTrail_pagesThroughAllEntriesOldestFirst() throws Exception {
+        List<String> actions = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = read(auditTrailService.streamEntityTrail(
+                    "TechnicalOs", OS_ID, base.minusDays(1), KeysetCursor.decode(cursor), 2));
+            page.get("items").forEach(item -> actions.add(item.get("action").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(actions).containsExactly("CHECKIN", "STATUS_CHANGED", "PRICE_ADJUSTED", "STATUS_CHANGED", "DELIVERED");
+    }
+
+    @Test
+    void streamEntityTrail_exactPageSize_hasNoNextCursor() throws Exception {
+        JsonNode page = read(auditTrailService.streamEntityTrail("TechnicalOs", OS_ID, base.minusDays(1), null, 5));
+
+        assertThat(page.get("items")).hasSize(5);
+        assertThat(page.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void search_filtersByUsernameNewestFirst() throws Exception {
+        AuditSearchCriteria criteria = new AuditSearchCriteria(null, "alice", base.minusMinutes(1), base.plusHours(1));
+
+        JsonNode first = read(auditTrailService.search(criteria, null, 2));
+        assertThat(first.get("items")).extracting(n -> n.get("action").asText())
+                .containsExactly("STATUS_CHANGED", "PRICE_ADJUSTED");
+
+        JsonNode second = read(auditTrailService.search(criteria,
+                KeysetCursor.decode(first.get("nextCursor").asText()), 2));
+        assertThat(second.get("items")).extracting(n -> n.get("action").asText()).containsExactly("CHECKIN");
+        assertThat(second.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void search_filtersByActionWithinRange() throws Exception {
+        AuditSearchCriteria criteria = new AuditSearchCriteria(
+                "STATUS_CHANGED", null, base.minusMinutes(1), base.plusMinutes(2));
+
+        JsonNode page = read(auditTrailService.search(criteria, null, 10));
+
+        // base+2min is excluded by the half-open range
+        assertThat(page.get("items")).extracting(n -> n.get("username").asText()).containsExactly("bob");
+    }
+
+    @Test
+    void decode_tamperedCursor_throws() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not-a-cursor"))
+                .hasMessageContaining("Invalid cursor");
+    }
+
+    private void insert(String action, String username, LocalDateTime createdAt) {
+        jdbcTemplate.update("""
+                INSERT INTO audit_log (action, entity_type, entity_id, username, created_at)
+                VALUES (?, 'TechnicalOs', ?, ?, ?)
+                """, action, OS_ID, username, createdAt);
+    }
+
+    private JsonNode read(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+}
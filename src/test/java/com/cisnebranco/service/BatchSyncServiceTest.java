@@ -0,0 +1,180 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.request.BatchSyncRequest;
+import com.cisnebranco.dto.request.BatchSyncRequest.BatchStatusUpdate;
+import com.cisnebranco.dto.request.CheckInRequest;
+import com.cisnebranco.dto.request.OsStatusUpdateRequest;
+import com.cisnebranco.dto.response.BatchSyncResponse;
+import com.cisnebranco.dto.response.BatchSyncResponse.BatchItemResult;
+import com.cisnebranco.dto.response.TechnicalOsResponse;
+import com.cisnebranco.entity.enums.OsStatus;
+import com.cisnebranco.entity.enums.SyncOperationType;
+import com.cisnebranco.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchSyncServiceTest {
+
+    private TechnicalOsService osService;
+    private SyncOperationService syncOperationService;
+    private SimpleMeterRegistry meterRegistry;
+    private BatchSyncService batchSyncService;
+
+    @BeforeEach
+    void setUp() {
+        osService = mock(TechnicalOsService.class);
+        syncOperationService = mock(SyncOperationService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        batchSyncService = new BatchSyncService(osService, syncOperationService, meterRegistry);
+        ReflectionTestUtils.setField(batchSyncService, "maxConcurrency", 4);
+    }
+
+    @Test
+    void processBatch_resultsKeepRequestIndexOrder() {
+        when(osService.checkIn(any(), any())).thenAnswer(inv -> {
+            CheckInRequest req = inv.getArgument(0);
+            // Later items finish first to shake out any completion-order bookkeeping
+            Thread.sleep(60 - req.petId());
+            if (req.petId() == 3L) {
+                throw new BusinessException("pet 3 rejected");
+            }
+            return response(req.petId() * 100);
+        });
+
+        List<CheckInRequest> checkIns = IntStream.rangeClosed(1, 6)
+                .mapToObj(i -> new CheckInRequest((long) i, null, List.of(1L), null, null))
+                .toList();
+
+        BatchSyncResponse response = batchSyncService.processBatch(new BatchSyncRequest(checkIns, null), 1L);
+
+        assertThat(response.checkInResults()).extracting(BatchItemResult::index)
+                .containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(response.checkInResults()).extracting(BatchItemResult::osId)
+                .containsExactly(100L, 200L, null, 400L, 500L, 600L);
+        assertThat(response.checkInResults().get(2).error()).isEqualTo("pet 3 rejected");
+        assertThat(response.statusUpdateResults()).isEmpty();
+    }
+
+    @Test
+    void processBatch_statusUpdatesForSameOs_runInRequestOrder() {
+        Map<Long, List<OsStatus>> applied = new ConcurrentHashMap<>();
+        when(osService.updateStatus(anyLong(), any())).thenAnswer(inv -> {
+            Long osId = inv.getArgument(0);
+            OsStatusUpdateRequest req = inv.getArgument(1);
+            Thread.sleep(5);
+            applied.computeIfAbsent(osId, k -> new CopyOnWriteArrayList<>()).add(req.status());
+            return response(osId);
+        });
+
+        List<BatchStatusUpdate> updates = List.of(
+                update(10L, OsStatus.IN_PROGRESS),
+                update(20L, OsStatus.IN_PROGRESS),
+                update(10L, OsStatus.READY),
+                update(20L, OsStatus.READY),
+                update(10L, OsStatus.DELIVERED));
+
+        BatchSyncResponse response = batchSyncService.processBatch(new BatchSyncRequest(null, updates), 1L);
+
+        assertThat(applied.get(10L)).containsExactly(OsStatus.IN_PROGRESS, OsStatus.READY, OsStatus.DELIVERED);
+        assertThat(applied.get(20L)).containsExactly(OsStatus.IN_PROGRESS, OsStatus.READY);
+        assertThat(response.statusUpdateResults()).extracting(BatchItemResult::osId)
+                .containsExactly(10L, 20L, 10L, 20L, 10L);
+    }
+
+    @Test
+    void processBatch_neverExceedsConcurrencyCap() {
+        ReflectionTestUtils.setField(batchSyncService, "maxConcurrency", 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(osService.checkIn(any(), any())).thenAnswer(inv -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return response(1L);
+        });
+
+        List<CheckInRequest> checkIns = IntStream.range(0, 10)
+                .mapToObj(i -> new CheckInRequest((long) i, null, List.of(1L), null, null))
+                .toList();
+
+        batchSyncService.processBatch(new BatchSyncRequest(checkIns, null), 1L);
+
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void processBatch_recordsLatencyAndQueueWaitPerOperationType() {
+        when(osService.checkIn(any(), any())).thenReturn(response(1L));
+        when(osService.updateStatus(anyLong(), any())).thenThrow(new BusinessException("invalid transition"));
+
+        batchSyncService.processBatch(new BatchSyncRequest(
+                List.of(new CheckInRequest(1L, null, List.of(1L), null, null)),
+                List.of(update(10L, OsStatus.READY))), 1L);
+
+        assertThat(meterRegistry.get("sync.batch.operation")
+                .tags("type", "check_in", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sync.batch.operation")
+                .tags("type", "status_update", "outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sync.batch.queue.wait").tags("type", "check_in").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void processBatch_knownOperationId_replaysStoredResultWithoutExecuting() {
+        when(syncOperationService.findCompletedOsId("op-1", SyncOperationType.CHECK_IN, 1L))
+                .thenReturn(Optional.of(42L));
+
+        BatchSyncResponse response = batchSyncService.processBatch(new BatchSyncRequest(
+                List.of(new CheckInRequest(1L, null, List.of(1L), null, null, "op-1")), null), 1L);
+
+        assertThat(response.checkInResults().get(0).osId()).isEqualTo(42L);
+        verify(osService, never()).checkIn(any(), any());
+        verify(syncOperationService, never()).executeOnce(any(), any(), any(), any());
+        assertThat(meterRegistry.get("sync.batch.replayed").tags("type", "check_in").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void processBatch_concurrentClaimOfSameOperationId_returnsWinnersResult() {
+        when(syncOperationService.findCompletedOsId("op-2", SyncOperationType.STATUS_UPDATE, 1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(10L));
+        when(syncOperationService.executeOnce(eq("op-2"), eq(SyncOperationType.STATUS_UPDATE), eq(1L), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        BatchSyncResponse response = batchSyncService.processBatch(new BatchSyncRequest(null,
+                List.of(new BatchStatusUpdate(10L, new OsStatusUpdateRequest(OsStatus.READY), "op-2"))), 1L);
+
+        assertThat(response.statusUpdateResults().get(0).success()).isTrue();
+        assertThat(response.statusUpdateResults().get(0).osId()).isEqualTo(10L);
+    }
+
+    private static BatchStatusUpdate update(Long osId, OsStatus status) {
+        return new BatchStatusUpdate(osId, new OsStatusUpdateRequest(status));
+    }
+
+    private static TechnicalOsResponse response(Long id) {
+        return new TechnicalOsResponse(id, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, List.of(), List.of(), List.of(), null, null, 0, null);
+    }
+}
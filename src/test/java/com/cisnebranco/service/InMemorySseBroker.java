@@ -0,0 +1,77 @@
+package com.cisnebranco.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stand-in for the Redis broker: one global sequence shared by several {@link SseEventBus}
+ * nodes in the same JVM. Messages go through the wire format, like they would over Redis, and
+ * a node can be made to miss a message to simulate a dropped subscription.
+ */
+class InMemorySseBroker {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private final List<Node> nodes = new ArrayList<>();
+    private long lastId = 1000;
+
+    SseEventBus connect() {
+        lock.lock();
+        try {
+            Node node = new Node();
+            nodes.add(node);
+            return node;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The node connected {@code index}-th (from 0) will not receive the next message. */
+    void dropNextFor(int index) {
+        lock.lock();
+        try {
+            nodes.get(index).dropNext = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(SseMessage message) {
+        byte[] wire = message.encode();
+        lock.lock();
+        try {
+            long id = ++lastId;
+            for (Node node : nodes) {
+                if (node.dropNext) {
+                    node.dropNext = false;
+                    continue;
+                }
+                SseMessage received = SseMessage.decode(wire);
+                node.listeners.forEach(listener -> listener.deliver(id, received));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class Node implements SseEventBus {
+        final List<Listener> listeners = new ArrayList<>();
+        boolean dropNext;
+
+        @Override
+        public void publish(SseMessage message) {
+            InMemorySseBroker.this.publish(message);
+        }
+
+        @Override
+        public void subscribe(Listener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public boolean isShared() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.CisneBrancoApplication;
+import com.cisnebranco.entity.Pet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one 50-row OS list page read with the former {@code @Formula} incident count (a
+ * correlated COUNT over incident_reports per row) against the same page reading the
+ * trigger-maintained {@code incident_count} column.
+ *
+ * Boots the application with the {@code test} profile, so Docker must be available for the
+ * Testcontainers PostgreSQL instance. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.cisnebranco.service.IncidentCountBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncidentCountBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final String LIST_COLUMNS =
+            "os.id, os.pet_id, os.groomer_id, os.status, os.total_price, os.payment_status, os.created_at";
+
+    /** Service orders seeded; every third one gets {@code incidentsPerOs} incidents. */
+    @Param({"2000"})
+    public int orders;
+
+    @Param({"0", "3"})
+    public int incidentsPerOs;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private OsFixture fixture;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CisneBrancoApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.com.cisnebranco=WARN")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        fixture = new OsFixture(context, "Benchmark");
+
+        Pet pet = fixture.pet();
+        for (int i = 0; i < orders; i++) {
+            fixture.checkIn(pet, null);
+        }
+        // Incidents in bulk: only their count matters here
+        jdbcTemplate.update("""
+                INSERT INTO incident_reports (technical_os_id, category, description)
+                SELECT os.id, 'INJURY', 'benchmark'
+                FROM technical_os os
+                CROSS JOIN generate_series(1, ?)
+                WHERE os.pet_id = ? AND os.id % 3 = 0
+                """, incidentsPerOs, pet.getId());
+        jdbcTemplate.execute("ANALYZE technical_os");
+        jdbcTemplate.execute("ANALYZE incident_reports");
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.deleteCreated();
+        context.close();
+    }
+
+    /** The SQL Hibernate generated for the removed {@code @Formula}. */
+    @Benchmark
+    public List<Map<String, Object>> formulaSubquery() {
+        return jdbcTemplate.queryForList("SELECT " + LIST_COLUMNS + ", "
+                + "(SELECT COUNT(*) FROM incident_reports ir WHERE ir.technical_os_id = os.id) AS incident_count "
+                + "FROM technical_os os ORDER BY os.created_at DESC, os.id DESC LIMIT " + PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> counterColumn() {
+        return jdbcTemplate.queryForList("SELECT " + LIST_COLUMNS + ", os.incident_count "
+                + "FROM technical_os os ORDER BY os.created_at DESC, os.id DESC LIMIT " + PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IncidentCountBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import com.cisnebranco.repository.TechnicalOsRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+class IncidentCountTest extends BaseIntegrationTest {
+
+    @Autowired private TechnicalOsRepository osRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+    @Autowired private ApplicationContext context;
+
+    // Rolled back with the test transaction
+    private OsFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OsFixture(context, "Incident");
+    }
+
+    @Test
+    void incidentCount_followsInsertsAndDeletes() {
+        Long osId = fixture.checkIn();
+        Long first = insertIncident(osId);
+        insertIncident(osId);
+
+        assertThat(loadIncidentCount(osId)).isEqualTo(2);
+
+        jdbcTemplate.update("DELETE FROM incident_reports WHERE id = ?", first);
+        assertThat(loadIncidentCount(osId)).isEqualTo(1);
+    }
+
+    @Test
+    void incidentCount_movesWithReassignedIncident() {
+        Long from = fixture.checkIn();
+        Long to = fixture.checkIn();
+        Long incident = insertIncident(from);
+
+        jdbcTemplate.update("UPDATE incident_reports SET technical_os_id = ? WHERE id = ?", to, incident);
+
+        assertThat(loadIncidentCount(from)).isZero();
+        assertThat(loadIncidentCount(to)).isEqualTo(1);
+    }
+
+    private int loadIncidentCount(Long osId) {
+        entityManager.clear();
+        return osRepository.findById(osId).orElseThrow().getIncidentCount();
+    }
+
+    private Long insertIncident(Long osId) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO incident_reports (technical_os_id, category, description)
+                VALUES (?, 'INJURY', 'Small cut on the paw') RETURNING id
+                """, Long.class, osId);
+    }
+}
@@ -0,0 +1,63 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import com.cisnebranco.service.MaterializedViewRefresher.RefreshSummary;
+import com.cisnebranco.service.MaterializedViewRefresher.ViewRefreshStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not @Transactional: REFRESH MATERIALIZED VIEW CONCURRENTLY cannot run inside a transaction
+class MaterializedViewRefresherTest extends BaseIntegrationTest {
+
+    @Autowired private MaterializedViewRefresher refresher;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        refresher.refreshAll(true);
+    }
+
+    @Test
+    void refreshAll_forced_refreshesEveryViewAndRecordsStats() {
+        RefreshSummary summary = refresher.refreshAll(true);
+
+        assertThat(summary).isEqualTo(new RefreshSummary(MaterializedViewRefresher.VIEWS.size(), 0, 0));
+        assertThat(refresher.getStats()).hasSize(MaterializedViewRefresher.VIEWS.size())
+                .allSatisfy(stats -> {
+                    assertThat(stats.lastSuccessAt()).isNotNull();
+                    assertThat(stats.lastDurationMs()).isNotNull();
+                    assertThat(stats.rowCount()).isNotNull();
+                    assertThat(stats.lastError()).isNull();
+                    assertThat(stats.stale()).isFalse();
+                });
+    }
+
+    @Test
+    void refreshAll_sourcesUnchanged_skipsEveryView() {
+        RefreshSummary summary = refresher.refreshAll(false);
+
+        assertThat(summary).isEqualTo(new RefreshSummary(0, MaterializedViewRefresher.VIEWS.size(), 0));
+    }
+
+    @Test
+    void refreshAll_onlyRefreshesViewsReadingAChangedTable() {
+        // Any statement on a source table counts as a change, even one touching no rows
+        jdbcTemplate.update("UPDATE groomers SET name = name WHERE id < 0");
+
+        List<ViewRefreshStats> before = refresher.getStats();
+        assertThat(before).filteredOn(ViewRefreshStats::stale)
+                .extracting(ViewRefreshStats::viewName)
+                .containsExactly("mv_groomer_performance");
+
+        RefreshSummary summary = refresher.refreshAll(false);
+
+        assertThat(summary).isEqualTo(new RefreshSummary(1, MaterializedViewRefresher.VIEWS.size() - 1, 0));
+        assertThat(refresher.getStats()).noneMatch(ViewRefreshStats::stale);
+    }
+}
@@ -0,0 +1,178 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import com.cisnebranco.dto.response.OpsBoardSnapshot;
+import com.cisnebranco.dto.response.TechnicalOsSummaryResponse;
+import com.cisnebranco.entity.enums.OsStatus;
+import com.cisnebranco.repository.TechnicalOsRepository;
+import com.cisnebranco.specification.TechnicalOsSpecification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Not @Transactional: the board re-reads committed rows on its own thread
+class OpsBoardServiceTest extends BaseIntegrationTest {
+
+    @Autowired private OpsBoardService opsBoardService;
+    @Autowired private TechnicalOsRepository osRepository;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ApplicationContext context;
+
+    private OsFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OsFixture(context, "Board");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.deleteCreated();
+    }
+
+    @Test
+    void refresh_tracksOrderUntilDelivered() throws InterruptedException {
+        // Check-in refreshes the board once committed
+        Long osId = fixture.checkIn();
+        OpsBoardSnapshot waiting = await(opsBoardService, board -> rows(board, OsStatus.WAITING).stream().anyMatch(r -> r.id().equals(osId)));
+        assertThat(rows(waiting, OsStatus.WAITING)).filteredOn(r -> r.id().equals(osId))
+                .singleElement().extracting(TechnicalOsSummaryResponse::petName).isEqualTo("Board Dog");
+
+        jdbcTemplate.update("UPDATE technical_os SET status = 'IN_PROGRESS' WHERE id = ?", osId);
+        opsBoardService.refreshAfterCommit(osId);
+        OpsBoardSnapshot inProgress = await(opsBoardService, board -> rows(board, OsStatus.IN_PROGRESS).stream().anyMatch(r -> r.id().equals(osId)));
+        assertThat(inProgress.version()).isGreaterThan(waiting.version());
+        assertThat(rows(inProgress, OsStatus.WAITING)).noneMatch(r -> r.id().equals(osId));
+
+        jdbcTemplate.update("UPDATE technical_os SET status = 'DELIVERED', delivered_at = now() WHERE id = ?", osId);
+        opsBoardService.refreshAfterCommit(osId);
+        await(opsBoardService, board -> board.byStatus().values().stream().flatMap(List::stream).noneMatch(r -> r.id().equals(osId)));
+    }
+
+    @Test
+    void snapshot_filtersByGroomer() throws InterruptedException {
+        Long groomerId = fixture.groomer().getId();
+        Long assigned = fixture.checkIn();
+        fixture.checkIn();
+
+        // Writes made outside the services are picked up by the reconcile
+        jdbcTemplate.update("UPDATE technical_os SET groomer_id = ? WHERE id = ?", groomerId, assigned);
+        opsBoardService.reconcile();
+        await(opsBoardService, board -> rows(board, OsStatus.WAITING).stream()
+                .anyMatch(r -> r.id().equals(assigned) && groomerId.equals(r.groomerId())));
+
+        OpsBoardSnapshot groomerBoard = opsBoardService.snapshot(groomerId);
+        assertThat(rows(groomerBoard, OsStatus.WAITING)).extracting(TechnicalOsSummaryResponse::id)
+                .containsExactly(assigned);
+    }
+
+    @Test
+    void refresh_onOneInstance_reachesEveryInstance() throws InterruptedException {
+        InMemorySseBroker broker = new InMemorySseBroker();
+        OpsBoardService writer = instance(broker);
+        OpsBoardService reader = instance(broker);
+        try {
+            Long osId = fixture.checkIn();
+            writer.refreshAfterCommit(osId);
+
+            OpsBoardSnapshot board = await(reader, b -> rows(b, OsStatus.WAITING).stream().anyMatch(r -> r.id().equals(osId)));
+            assertThat(writer.snapshot(null).version()).isEqualTo(board.version());
+        } finally {
+            writer.stop();
+            reader.stop();
+        }
+    }
+
+    @Test
+    void seed_keepsDeltasAppliedWhileItWasReading() throws Exception {
+        Long osId = fixture.checkIn();
+        TechnicalOsSummaryResponse waitingRow = new TransactionTemplate(transactionManager).execute(status ->
+                osRepository.findSummaries(TechnicalOsSpecification.hasId(osId), Pageable.unpaged()).get(0));
+
+        // The joining replica's seed query returns the WAITING row, but only after a delta moved
+        // the order on; its next query (the reconcile queued behind the seed) marks the seed done
+        CountDownLatch seedReading = new CountDownLatch(1);
+        CountDownLatch deltaApplied = new CountDownLatch(1);
+        CountDownLatch seedDone = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        TechnicalOsRepository slowRepository = mock(TechnicalOsRepository.class);
+        when(slowRepository.findSummaries(any(), any())).thenAnswer(inv -> {
+            if (queries.getAndIncrement() == 0) {
+                seedReading.countDown();
+                deltaApplied.await(10, TimeUnit.SECONDS);
+                return List.of(waitingRow);
+            }
+            seedDone.countDown();
+            throw new IllegalStateException("not part of this test");
+        });
+
+        InMemorySseBroker broker = new InMemorySseBroker();
+        OpsBoardService writer = instance(broker);
+        SseEventBus bus = broker.connect();
+        OpsBoardService joining = new OpsBoardService(slowRepository,
+                new SseEmitterService(bus, objectMapper, new SimpleMeterRegistry(), 256, 1024),
+                bus, objectMapper, transactionManager);
+        try {
+            joining.seed();
+            assertThat(seedReading.await(10, TimeUnit.SECONDS)).isTrue();
+
+            jdbcTemplate.update("UPDATE technical_os SET status = 'IN_PROGRESS' WHERE id = ?", osId);
+            writer.refreshAfterCommit(osId);
+            await(joining, b -> rows(b, OsStatus.IN_PROGRESS).stream().anyMatch(r -> r.id().equals(osId)));
+            deltaApplied.countDown();
+
+            joining.reconcile();
+            assertThat(seedDone.await(10, TimeUnit.SECONDS)).isTrue();
+            OpsBoardSnapshot board = joining.snapshot(null);
+            assertThat(rows(board, OsStatus.IN_PROGRESS)).anyMatch(r -> r.id().equals(osId));
+            assertThat(rows(board, OsStatus.WAITING)).noneMatch(r -> r.id().equals(osId));
+        } finally {
+            writer.stop();
+            joining.stop();
+        }
+    }
+
+    // A replica of its own: index and SSE fan-out, on a bus shared with the broker's other instances
+    private OpsBoardService instance(InMemorySseBroker broker) {
+        SseEventBus bus = broker.connect();
+        SseEmitterService sse = new SseEmitterService(bus, objectMapper, new SimpleMeterRegistry(), 256, 1024);
+        return new OpsBoardService(osRepository, sse, bus, objectMapper, transactionManager);
+    }
+
+    private static OpsBoardSnapshot await(OpsBoardService service, Predicate<OpsBoardSnapshot> condition)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        OpsBoardSnapshot board = service.snapshot(null);
+        while (!condition.test(board) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(25);
+            board = service.snapshot(null);
+        }
+        assertThat(condition.test(board)).as("board condition within 10s").isTrue();
+        return board;
+    }
+
+    private static List<TechnicalOsSummaryResponse> rows(OpsBoardSnapshot board, OsStatus status) {
+        return board.byStatus().getOrDefault(status, List.of());
+    }
+}
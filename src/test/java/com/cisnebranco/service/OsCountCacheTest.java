@@ -0,0 +1,95 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.request.TechnicalOsFilterRequest;
+import com.cisnebranco.entity.enums.OsStatus;
+import com.cisnebranco.event.OsCheckInEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OsCountCacheTest {
+
+    private static final TechnicalOsFilterRequest WAITING =
+            new TechnicalOsFilterRequest(OsStatus.WAITING, null, null, null, null, null, null);
+    private static final TechnicalOsFilterRequest GROOMER_1 =
+            new TechnicalOsFilterRequest(null, 1L, null, null, null, null, null);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InstanceEvents instanceEvents = new InstanceEvents(new LocalSseEventBus(), new ObjectMapper());
+    private final AtomicInteger counts = new AtomicInteger();
+
+    @Test
+    void sameFilter_isCountedOnce() {
+        OsCountCache cache = new OsCountCache(meterRegistry, instanceEvents, 60, 100);
+
+        assertThat(cache.get(WAITING, this::count)).isEqualTo(1);
+        assertThat(cache.get(new TechnicalOsFilterRequest(OsStatus.WAITING, null, null, null, null, null, null),
+                this::count)).isEqualTo(1);
+
+        assertThat(counts.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("os.count.cache.requests", "result", "hit").count()).isEqualTo(1);
+    }
+
+    @Test
+    void differentFilters_areCountedSeparately() {
+        OsCountCache cache = new OsCountCache(meterRegistry, instanceEvents, 60, 100);
+
+        cache.get(WAITING, this::count);
+        cache.get(GROOMER_1, this::count);
+
+        assertThat(counts.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void checkIn_clearsCachedTotals() {
+        OsCountCache cache = new OsCountCache(meterRegistry, instanceEvents, 60, 100);
+        cache.get(WAITING, this::count);
+
+        cache.onCheckIn(new OsCheckInEvent(this, 42L));
+
+        assertThat(cache.get(WAITING, this::count)).isEqualTo(2);
+    }
+
+    @Test
+    void countRacingAnInvalidation_isNotCached() {
+        OsCountCache cache = new OsCountCache(meterRegistry, instanceEvents, 60, 100);
+
+        cache.get(WAITING, () -> {
+            cache.invalidateAll();
+            return count();
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void zeroTtl_disablesCaching() {
+        OsCountCache cache = new OsCountCache(meterRegistry, instanceEvents, 0, 100);
+
+        cache.get(WAITING, this::count);
+        cache.get(WAITING, this::count);
+
+        assertThat(counts.get()).isEqualTo(2);
+    }
+
+    @Test
+    void full_isClearedBeforeAdding() {
+        OsCountCache cache = new OsCountCache(meterRegistry, instanceEvents, 60, 1);
+
+        cache.get(WAITING, this::count);
+        cache.get(GROOMER_1, this::count);
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get(GROOMER_1, this::count);
+        assertThat(counts.get()).isEqualTo(2);
+    }
+
+    private long count() {
+        return counts.incrementAndGet();
+    }
+}
@@ -0,0 +1,135 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.request.CheckInRequest;
+import com.cisnebranco.entity.Client;
+import com.cisnebranco.entity.Groomer;
+import com.cisnebranco.entity.Pet;
+import com.cisnebranco.entity.PricingMatrix;
+import com.cisnebranco.entity.ServiceType;
+import com.cisnebranco.entity.enums.PetSize;
+import com.cisnebranco.entity.enums.Species;
+import com.cisnebranco.repository.ClientRepository;
+import com.cisnebranco.repository.GroomerRepository;
+import com.cisnebranco.repository.PetRepository;
+import com.cisnebranco.repository.PricingMatrixRepository;
+import com.cisnebranco.repository.ServiceTypeRepository;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service orders for integration tests and benchmarks, created the way the reception desk
+ * creates them: client, pet and groomer saved through their repositories, then
+ * {@link TechnicalOsService#checkIn} with a service type of the fixture's own, priced for a
+ * small dog. Inside a test transaction all of it rolls back; callers that commit call
+ * {@link #deleteCreated()} when done.
+ */
+class OsFixture {
+
+    private final TechnicalOsService osService;
+    private final ClientRepository clientRepository;
+    private final PetRepository petRepository;
+    private final GroomerRepository groomerRepository;
+    private final ServiceTypeRepository serviceTypeRepository;
+    private final PricingMatrixRepository pricingMatrixRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String label;
+
+    private ServiceType serviceType;
+    private final List<Long> clientIds = new ArrayList<>();
+    private final List<Long> groomerIds = new ArrayList<>();
+
+    /** {@code label} prefixes the names of everything created, e.g. "Board" gives "Board Dog". */
+    OsFixture(ApplicationContext context, String label) {
+        this.osService = context.getBean(TechnicalOsService.class);
+        this.clientRepository = context.getBean(ClientRepository.class);
+        this.petRepository = context.getBean(PetRepository.class);
+        this.groomerRepository = context.getBean(GroomerRepository.class);
+        this.serviceTypeRepository = context.getBean(ServiceTypeRepository.class);
+        this.pricingMatrixRepository = context.getBean(PricingMatrixRepository.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.label = label;
+    }
+
+    /** Checks in a new client's dog without a groomer; returns the OS id. */
+    Long checkIn() {
+        return checkIn(pet(), null);
+    }
+
+    Long checkIn(Pet pet, Long groomerId) {
+        return osService.checkIn(new CheckInRequest(
+                pet.getId(), groomerId, List.of(serviceType().getId()), null, null), null).id();
+    }
+
+    /** A small dog of a new client. */
+    Pet pet() {
+        Client client = new Client();
+        client.setName(label + " Client");
+        client.setPhone("11999990000");
+        clientRepository.save(client);
+        clientIds.add(client.getId());
+
+        Pet pet = new Pet();
+        pet.setName(label + " Dog");
+        pet.setSpecies(Species.DOG);
+        pet.setSize(PetSize.SMALL);
+        pet.setClient(client);
+        return petRepository.save(pet);
+    }
+
+    Groomer groomer() {
+        Groomer groomer = new Groomer();
+        groomer.setName(label + " Groomer");
+        groomer.setPhone("11888880000");
+        groomerRepository.save(groomer);
+        groomerIds.add(groomer.getId());
+        return groomer;
+    }
+
+    /** Deletes the committed orders, incidents, pets, clients, groomers and pricing created so far. */
+    void deleteCreated() {
+        for (Long clientId : clientIds) {
+            jdbcTemplate.update("""
+                    DELETE FROM incident_reports WHERE technical_os_id IN
+                        (SELECT os.id FROM technical_os os JOIN pets p ON p.id = os.pet_id WHERE p.client_id = ?)
+                    """, clientId);
+            jdbcTemplate.update(
+                    "DELETE FROM technical_os WHERE pet_id IN (SELECT id FROM pets WHERE client_id = ?)", clientId);
+            jdbcTemplate.update("DELETE FROM pets WHERE client_id = ?", clientId);
+            jdbcTemplate.update("DELETE FROM clients WHERE id = ?", clientId);
+        }
+        for (Long groomerId : groomerIds) {
+            jdbcTemplate.update("DELETE FROM groomers WHERE id = ?", groomerId);
+        }
+        if (serviceType != null) {
+            jdbcTemplate.update("DELETE FROM pricing_matrix WHERE service_type_id = ?", serviceType.getId());
+            jdbcTemplate.update("DELETE FROM service_types WHERE id = ?", serviceType.getId());
+        }
+        clientIds.clear();
+        groomerIds.clear();
+        serviceType = null;
+    }
+
+    // A service type of its own, so committed pricing never collides with the seeded types
+    // other tests price inside their transactions
+    private ServiceType serviceType() {
+        if (serviceType == null) {
+            ServiceType type = new ServiceType();
+            type.setCode("FIXTURE_" + System.nanoTime());
+            type.setName(label + " Bath");
+            type.setCommissionRate(new BigDecimal("0.40"));
+            serviceType = serviceTypeRepository.save(type);
+
+            PricingMatrix pricing = new PricingMatrix();
+            pricing.setServiceType(serviceType);
+            pricing.setSpecies(Species.DOG);
+            pricing.setPetSize(PetSize.SMALL);
+            pricing.setPrice(new BigDecimal("50.00"));
+            pricingMatrixRepository.save(pricing);
+        }
+        return serviceType;
+    }
+}
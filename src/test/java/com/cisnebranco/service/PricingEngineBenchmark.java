@@ -0,0 +1,157 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.CisneBrancoApplication;
+import com.cisnebranco.entity.Breed;
+import com.cisnebranco.entity.Pet;
+import com.cisnebranco.entity.PricingMatrix;
+import com.cisnebranco.entity.ServiceType;
+import com.cisnebranco.entity.enums.PetSize;
+import com.cisnebranco.entity.enums.Species;
+import com.cisnebranco.repository.BreedRepository;
+import com.cisnebranco.repository.PricingMatrixRepository;
+import com.cisnebranco.repository.ServiceTypeBreedPriceRepository;
+import com.cisnebranco.repository.ServiceTypeRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares price resolution through {@link PricingEngine} against the previous per-item
+ * repository path (breed override query, then pricing-matrix query).
+ *
+ * Boots the application with the {@code test} profile, so Docker must be available for the
+ * Testcontainers PostgreSQL instance. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.cisnebranco.service.PricingEngineBenchmark
+ * </pre>
+ * Add {@code -prof gc} to the options to confirm {@code snapshotResolve} allocates 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+    /** BREED_OVERRIDE: one query on the old path; MATRIX_FALLBACK: two queries (breed miss, then matrix). */
+    @Param({"BREED_OVERRIDE", "MATRIX_FALLBACK"})
+    public String scenario;
+
+    private ConfigurableApplicationContext context;
+    private PricingEngine pricingEngine;
+    private PricingMatrixRepository pricingMatrixRepository;
+    private ServiceTypeBreedPriceRepository breedPriceRepository;
+
+    private PricingMatrix insertedMatrixRow;
+    private Breed insertedBreed;
+    private Long serviceTypeId;
+    private Pet pet;
+    private long breedKey;
+    private PricingEngine.Snapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CisneBrancoApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.com.cisnebranco=WARN")
+                .run();
+        pricingEngine = context.getBean(PricingEngine.class);
+        pricingMatrixRepository = context.getBean(PricingMatrixRepository.class);
+        breedPriceRepository = context.getBean(ServiceTypeBreedPriceRepository.class);
+        ServiceTypeRepository serviceTypeRepository = context.getBean(ServiceTypeRepository.class);
+        BreedRepository breedRepository = context.getBean(BreedRepository.class);
+
+        ServiceType banho = serviceTypeRepository.findByCode("BANHO").orElseThrow();
+        serviceTypeId = banho.getId();
+
+        insertedMatrixRow = new PricingMatrix();
+        insertedMatrixRow.setServiceType(banho);
+        insertedMatrixRow.setSpecies(Species.DOG);
+        insertedMatrixRow.setPetSize(PetSize.MEDIUM);
+        insertedMatrixRow.setPrice(new BigDecimal("50.00"));
+        insertedMatrixRow = pricingMatrixRepository.save(insertedMatrixRow);
+
+        Breed breed;
+        if ("BREED_OVERRIDE".equals(scenario)) {
+            // V12 seeds a BANHO override for every breed in the 2025 price table
+            breed = breedPriceRepository.findAllPriceRows().stream()
+                    .filter(r -> r.getServiceTypeId().equals(serviceTypeId))
+                    .findFirst()
+                    .flatMap(r -> breedRepository.findById(r.getBreedId()))
+                    .orElseThrow();
+        } else {
+            insertedBreed = new Breed();
+            insertedBreed.setName("Benchmark Breed " + System.nanoTime());
+            insertedBreed.setSpecies(Species.DOG);
+            breed = insertedBreed = breedRepository.save(insertedBreed);
+        }
+
+        pet = new Pet();
+        pet.setSpecies(Species.DOG);
+        pet.setSize(PetSize.MEDIUM);
+        pet.setBreed(breed);
+        breedKey = breed.getId();
+
+        pricingEngine.reload();
+        // Read the snapshot from the target bean — the transactional proxy holds no state
+        PricingEngine target = AopTestUtils.getUltimateTargetObject(pricingEngine);
+        snapshot = target.currentSnapshot();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pricingMatrixRepository.delete(insertedMatrixRow);
+        if (insertedBreed != null) {
+            context.getBean(BreedRepository.class).delete(insertedBreed);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public BigDecimal repositoryPath() {
+        var breedPrice = breedPriceRepository.findByServiceTypeIdAndBreedId(serviceTypeId, pet.getBreed().getId());
+        if (breedPrice.isPresent()) {
+            return breedPrice.get().getPrice();
+        }
+        return pricingMatrixRepository
+                .findByServiceTypeIdAndSpeciesAndPetSize(serviceTypeId, pet.getSpecies(), pet.getSize())
+                .map(PricingMatrix::getPrice)
+                .orElse(null);
+    }
+
+    @Benchmark
+    public BigDecimal engineFindPrice() {
+        return pricingEngine.findPrice(serviceTypeId, pet);
+    }
+
+    @Benchmark
+    public BigDecimal snapshotResolve() {
+        return snapshot.resolve(serviceTypeId, breedKey, Species.DOG, PetSize.MEDIUM);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
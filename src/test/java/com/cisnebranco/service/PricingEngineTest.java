@@ -0,0 +1,94 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.entity.enums.PetSize;
+import com.cisnebranco.entity.enums.Species;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static com.cisnebranco.service.PricingEngine.Snapshot.NO_BREED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PricingEngineTest {
+
+    @Test
+    void resolve_breedOverride_winsOverMatrix() {
+        PricingEngine.Snapshot snapshot = PricingEngine.Snapshot.builder()
+                .breedPrice(1L, 10L, new BigDecimal("75.00"))
+                .matrixPrice(1L, Species.DOG, PetSize.MEDIUM, new BigDecimal("50.00"))
+                .build();
+
+        assertThat(snapshot.resolve(1L, 10L, Species.DOG, PetSize.MEDIUM)).isEqualByComparingTo("75.00");
+    }
+
+    @Test
+    void resolve_breedWithoutOverride_fallsBackToMatrix() {
+        PricingEngine.Snapshot snapshot = PricingEngine.Snapshot.builder()
+                .breedPrice(1L, 10L, new BigDecimal("75.00"))
+                .matrixPrice(1L, Species.DOG, PetSize.MEDIUM, new BigDecimal("50.00"))
+                .build();
+
+        assertThat(snapshot.resolve(1L, 11L, Species.DOG, PetSize.MEDIUM)).isEqualByComparingTo("50.00");
+        assertThat(snapshot.resolve(1L, NO_BREED, Species.DOG, PetSize.MEDIUM)).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void resolve_overrideIsScopedToServiceType() {
+        PricingEngine.Snapshot snapshot = PricingEngine.Snapshot.builder()
+                .breedPrice(1L, 10L, new BigDecimal("75.00"))
+                .matrixPrice(2L, Species.DOG, PetSize.MEDIUM, new BigDecimal("30.00"))
+                .build();
+
+        assertThat(snapshot.resolve(2L, 10L, Species.DOG, PetSize.MEDIUM)).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void resolve_missingSpeciesOrSize_returnsNull() {
+        PricingEngine.Snapshot snapshot = PricingEngine.Snapshot.builder()
+                .matrixPrice(1L, Species.DOG, PetSize.MEDIUM, new BigDecimal("50.00"))
+                .build();
+
+        assertThat(snapshot.resolve(1L, NO_BREED, Species.CAT, PetSize.MEDIUM)).isNull();
+        assertThat(snapshot.resolve(1L, NO_BREED, Species.DOG, PetSize.LARGE)).isNull();
+        assertThat(snapshot.resolve(99L, NO_BREED, Species.DOG, PetSize.MEDIUM)).isNull();
+    }
+
+    @Test
+    void resolve_emptySnapshot_returnsNull() {
+        assertThat(PricingEngine.Snapshot.EMPTY.resolve(1L, 10L, Species.DOG, PetSize.SMALL)).isNull();
+    }
+
+    @Test
+    void resolve_manyEntries_allRetrievable() {
+        PricingEngine.Snapshot.Builder builder = PricingEngine.Snapshot.builder();
+        for (long st = 1; st <= 40; st++) {
+            for (long breed = 1; breed <= 200; breed++) {
+                builder.breedPrice(st, breed, BigDecimal.valueOf(st * 1000 + breed));
+            }
+        }
+        PricingEngine.Snapshot snapshot = builder.build();
+
+        assertThat(snapshot.breedCount()).isEqualTo(8000);
+        for (long st = 1; st <= 40; st++) {
+            for (long breed = 1; breed <= 200; breed++) {
+                assertThat(snapshot.resolve(st, breed, Species.DOG, PetSize.SMALL))
+                        .isEqualByComparingTo(BigDecimal.valueOf(st * 1000 + breed));
+            }
+        }
+    }
+
+    @Test
+    void builder_duplicateKey_lastWriteWinsAndCountsOnce() {
+        PricingEngine.Snapshot snapshot = PricingEngine.Snapshot.builder()
+                .breedPrice(1L, 10L, new BigDecimal("70.00"))
+                .breedPrice(1L, 10L, new BigDecimal("80.00"))
+                .matrixPrice(1L, Species.CAT, PetSize.SMALL, new BigDecimal("40.00"))
+                .matrixPrice(1L, Species.CAT, PetSize.SMALL, new BigDecimal("45.00"))
+                .build();
+
+        assertThat(snapshot.breedCount()).isEqualTo(1);
+        assertThat(snapshot.matrixCount()).isEqualTo(1);
+        assertThat(snapshot.resolve(1L, 10L, Species.CAT, PetSize.SMALL)).isEqualByComparingTo("80.00");
+        assertThat(snapshot.resolve(1L, NO_BREED, Species.CAT, PetSize.SMALL)).isEqualByComparingTo("45.00");
+    }
+}
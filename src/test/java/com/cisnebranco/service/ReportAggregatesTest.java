@@ -0,0 +1,194 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import com.cisnebranco.dto.request.CheckInRequest;
+import com.cisnebranco.dto.request.PaymentRequest;
+import com.cisnebranco.dto.response.PaymentEventResponse;
+import com.cisnebranco.dto.response.report.DailyRevenueReport;
+import com.cisnebranco.dto.response.report.GroomerPerformanceReport;
+import com.cisnebranco.dto.response.report.OsStatusDistribution;
+import com.cisnebranco.dto.response.report.PaymentMethodStats;
+import com.cisnebranco.dto.response.report.ServiceTypeReport;
+import com.cisnebranco.entity.*;
+import com.cisnebranco.entity.enums.*;
+import com.cisnebranco.repository.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+class ReportAggregatesTest extends BaseIntegrationTest {
+
+    // Far enough out that no other test delivers an OS on this day
+    private static final LocalDate DELIVERY_DAY = LocalDate.of(2031, 5, 20);
+
+    @Autowired private ReportService reportService;
+    @Autowired private PaymentService paymentService;
+    @Autowired private TechnicalOsService osService;
+    @Autowired private ClientRepository clientRepository;
+    @Autowired private PetRepository petRepository;
+    @Autowired private GroomerRepository groomerRepository;
+    @Autowired private ServiceTypeRepository serviceTypeRepository;
+    @Autowired private PricingMatrixRepository pricingMatrixRepository;
+    @Autowired private AppUserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+
+    private Long osId;
+    private Long userId;
+    private Groomer groomer;
+    private ServiceType banho;
+
+    @BeforeEach
+    void setUp() {
+        Client client = new Client();
+        client.setName("Report Test Client");
+        client.setPhone("11999990101");
+        clientRepository.save(client);
+
+        Pet pet = new Pet();
+        pet.setName("Thor");
+        pet.setSpecies(Species.DOG);
+        pet.setSize(PetSize.MEDIUM);
+        pet.setClient(client);
+        petRepository.save(pet);
+
+        groomer = new Groomer();
+        groomer.setName("Groomer Report");
+        groomer.setPhone("11888880101");
+        groomerRepository.save(groomer);
+
+        banho = serviceTypeRepository.findAll().stream()
+                .filter(st -> "BANHO".equals(st.getCode()))
+                .findFirst().orElseThrow();
+
+        PricingMatrix pricing = new PricingMatrix();
+        pricing.setServiceType(banho);
+        pricing.setSpecies(Species.DOG);
+        pricing.setPetSize(PetSize.MEDIUM);
+        pricing.setPrice(new BigDecimal("100.00"));
+        pricingMatrixRepository.save(pricing);
+
+        osId = osService.checkIn(new CheckInRequest(
+                pet.getId(), groomer.getId(), List.of(banho.getId()), null, null), null).id();
+
+        AppUser user = new AppUser();
+        user.setUsername("reporttest");
+        user.setPassword("encoded");
+        user.setRole(UserRole.ADMIN);
+        userRepository.save(user);
+        userId = user.getId();
+    }
+
+    @Test
+    void deliveredOs_isReflectedInDateRangedReportsImmediately() {
+        paymentService.recordPayment(osId,
+                new PaymentRequest(new BigDecimal("60.00"), PaymentMethod.PIX, null, null), userId);
+        deliver();
+
+        List<DailyRevenueReport> revenue = reportService.getRevenueReport(DELIVERY_DAY, DELIVERY_DAY);
+        assertThat(revenue).hasSize(1);
+        assertThat(revenue.get(0).getReportDate()).isEqualTo(DELIVERY_DAY);
+        assertThat(revenue.get(0).getTotalOrders()).isEqualTo(1);
+        assertThat(revenue.get(0).getTotalRevenue()).isEqualByComparingTo("100.00");
+        assertThat(revenue.get(0).getTotalPaid()).isEqualByComparingTo("60.00");
+
+        List<ServiceTypeReport> services = reportService.getServiceTypeReport(DELIVERY_DAY, DELIVERY_DAY);
+        assertThat(services).singleElement().satisfies(s -> {
+            assertThat(s.getServiceTypeId()).isEqualTo(banho.getId());
+            assertThat(s.getTotalServices()).isEqualTo(1);
+            assertThat(s.getAvgPrice()).isEqualByComparingTo("100.00");
+        });
+
+        GroomerPerformanceReport performance = reportService.getGroomerPerformance(DELIVERY_DAY, DELIVERY_DAY)
+                .stream().filter(g -> g.getGroomerId().equals(groomer.getId())).findFirst().orElseThrow();
+        assertThat(performance.getTotalOrders()).isEqualTo(1);
+        assertThat(performance.getTotalRevenue()).isEqualByComparingTo("100.00");
+
+        assertThat(reportService.getRevenueReport(DELIVERY_DAY.plusDays(1), DELIVERY_DAY.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void statusTransition_movesOrderBetweenStatusBuckets() {
+        long waitingBefore = statusCount(OsStatus.WAITING);
+        long deliveredBefore = statusCount(OsStatus.DELIVERED);
+
+        deliver();
+
+        assertThat(statusCount(OsStatus.WAITING)).isEqualTo(waitingBefore - 1);
+        assertThat(statusCount(OsStatus.DELIVERED)).isEqualTo(deliveredBefore + 1);
+    }
+
+    @Test
+    void refund_isExcludedFromPaymentMethodTotals() {
+        PaymentMethodStats pixBefore = paymentStats(PaymentMethod.PIX);
+        PaymentEventResponse payment = paymentService.recordPayment(osId,
+                new PaymentRequest(new BigDecimal("40.00"), PaymentMethod.PIX, null, null), userId);
+        paymentService.refundPayment(osId, payment.id(), userId);
+
+        PaymentMethodStats pixAfter = paymentStats(PaymentMethod.PIX);
+        assertThat(pixAfter.getTransactionCount()).isEqualTo(count(pixBefore) + 1);
+        assertThat(pixAfter.getTotalAmount()).isEqualByComparingTo(amount(pixBefore).add(new BigDecimal("40.00")));
+    }
+
+    @Test
+    void reconcileAggregates_afterTriggerMaintainedChanges_findsNoDrift() {
+        paymentService.recordPayment(osId,
+                new PaymentRequest(new BigDecimal("100.00"), PaymentMethod.CASH, null, null), userId);
+        deliver();
+
+        assertThat(reportService.reconcileAggregates()).isZero();
+    }
+
+    @Test
+    void reconcileAggregates_repairsDrift() {
+        deliver();
+        entityManager.createNativeQuery(
+                "UPDATE report_daily_revenue SET total_orders = 99 WHERE report_date = :day")
+                .setParameter("day", DELIVERY_DAY)
+                .executeUpdate();
+
+        assertThat(reportService.reconcileAggregates()).isPositive();
+        assertThat(reportService.getRevenueReport(DELIVERY_DAY, DELIVERY_DAY).get(0).getTotalOrders()).isEqualTo(1);
+    }
+
+    private void deliver() {
+        entityManager.flush();
+        entityManager.createNativeQuery(
+                "UPDATE technical_os SET status = 'DELIVERED', delivered_at = :at WHERE id = :id")
+                .setParameter("at", DELIVERY_DAY.atTime(15, 30))
+                .setParameter("id", osId)
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    private long statusCount(OsStatus status) {
+        entityManager.flush();
+        return reportService.getStatusDistribution().stream()
+                .filter(s -> s.getStatus().equals(status.name()))
+                .mapToLong(OsStatusDistribution::getOrderCount)
+                .sum();
+    }
+
+    private PaymentMethodStats paymentStats(PaymentMethod method) {
+        entityManager.flush();
+        return reportService.getPaymentMethodStats().stream()
+                .filter(s -> s.getMethod().equals(method.name()))
+                .findFirst().orElse(null);
+    }
+
+    private static int count(PaymentMethodStats stats) {
+        return stats == null ? 0 : stats.getTransactionCount();
+    }
+
+    private static BigDecimal amount(PaymentMethodStats stats) {
+        return stats == null ? BigDecimal.ZERO : stats.getTotalAmount();
+    }
+}
@@ -0,0 +1,169 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.event.OsDeliveredEvent;
+import com.cisnebranco.event.PaymentRecordedEvent;
+import com.cisnebranco.service.ReportCache.Format;
+import com.cisnebranco.service.ReportCache.Key;
+import com.cisnebranco.service.ReportCache.Report;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportCacheTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2025, 1, 1);
+    private static final LocalDate JAN_31 = LocalDate.of(2025, 1, 31);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InstanceEvents instanceEvents = new InstanceEvents(new LocalSseEventBus(), new ObjectMapper());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void getRows_secondCall_isServedFromCache() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 1_000_000, 300);
+        Key key = Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_1, JAN_31);
+
+        cache.getRows(key, this::load);
+        List<String> second = cache.getRows(key, this::load);
+
+        assertThat(second).containsExactly("row-1");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(requests("hit")).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void differentParametersOrFormats_areCachedSeparately() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 1_000_000, 300);
+
+        cache.getRows(Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_1, JAN_31), this::load);
+        cache.getRows(Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_1, JAN_31.plusDays(1)), this::load);
+        cache.getBytes(Key.dated(Report.DAILY_REVENUE, Format.PDF, JAN_1, JAN_31), () -> new byte[10]);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    @Test
+    void delivery_invalidatesOnlyEntriesCoveringItsDate() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 1_000_000, 300);
+        Key january = Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_1, JAN_31);
+        Key february = Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_31.plusDays(1), JAN_31.plusDays(28));
+        Key topClients = Key.top(Report.TOP_CLIENTS, Format.JSON, 10);
+        cache.getRows(january, this::load);
+        cache.getRows(february, this::load);
+        cache.getRows(topClients, this::load);
+
+        cache.onOsDelivered(new OsDeliveredEvent(this, 1L, LocalDate.of(2025, 1, 15)));
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.getRows(february, this::load);
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(evictions("invalidated")).isEqualTo(2);
+    }
+
+    @Test
+    void paymentOnUndeliveredOs_invalidatesNothing() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 1_000_000, 300);
+        cache.getRows(Key.top(Report.TOP_CLIENTS, Format.JSON, 10), this::load);
+
+        cache.onPaymentRecorded(new PaymentRecordedEvent(this, 1L, null));
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void delivery_invalidatesEntriesOnOtherInstances() throws InterruptedException {
+        InMemorySseBroker broker = new InMemorySseBroker();
+        ReportCache local = new ReportCache(meterRegistry,
+                new InstanceEvents(broker.connect(), new ObjectMapper()), 1_000_000, 300);
+        ReportCache remote = new ReportCache(new SimpleMeterRegistry(),
+                new InstanceEvents(broker.connect(), new ObjectMapper()), 1_000_000, 300);
+        remote.getRows(Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_1, JAN_31), this::load);
+        remote.getRows(Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_31.plusDays(1), JAN_31.plusDays(28)), this::load);
+
+        local.onOsDelivered(new OsDeliveredEvent(this, 1L, LocalDate.of(2025, 1, 15)));
+
+        // Handlers run on the receiving instance's own thread
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (remote.size() != 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(remote.size()).isEqualTo(1);
+    }
+
+    @Test
+    void exceedingMaxBytes_evictsLeastRecentlyUsed() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 250, 300);
+        Key a = Key.dated(Report.DAILY_REVENUE, Format.PDF, JAN_1, JAN_1);
+        Key b = Key.dated(Report.SERVICE_TYPES, Format.PDF, JAN_1, JAN_1);
+        Key c = Key.dated(Report.GROOMER_PERFORMANCE, Format.PDF, JAN_1, JAN_1);
+
+        cache.getBytes(a, () -> new byte[100]);
+        cache.getBytes(b, () -> new byte[100]);
+        cache.getBytes(a, () -> new byte[100]); // touch a, so b is now least recently used
+        cache.getBytes(c, () -> new byte[100]);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.weightInBytes()).isEqualTo(200);
+        assertThat(evictions("size")).isEqualTo(1);
+
+        AtomicInteger reloads = new AtomicInteger();
+        cache.getBytes(a, () -> { reloads.incrementAndGet(); return new byte[100]; });
+        assertThat(reloads.get()).isZero();
+    }
+
+    @Test
+    void valueLargerThanCache_isReturnedButNotCached() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 50, 300);
+
+        byte[] pdf = cache.getBytes(Key.top(Report.TOP_CLIENTS, Format.PDF, 10), () -> new byte[100]);
+
+        assertThat(pdf).hasSize(100);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void invalidationDuringLoad_resultIsNotCached() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 1_000_000, 300);
+        Key key = Key.dated(Report.DAILY_REVENUE, Format.JSON, JAN_1, JAN_31);
+
+        cache.getRows(key, () -> {
+            // A delivery commits while the (possibly already stale) query is running
+            cache.invalidateDate(LocalDate.of(2030, 6, 1));
+            return load();
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void expiredEntry_isReloaded() {
+        ReportCache cache = new ReportCache(meterRegistry, instanceEvents, 1_000_000, 0);
+        Key key = Key.top(Report.TOP_CLIENTS, Format.JSON, 5);
+
+        cache.getRows(key, this::load);
+        cache.getRows(key, this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(evictions("expired")).isEqualTo(1);
+    }
+
+    private List<String> load() {
+        return List.of("row-" + loads.incrementAndGet());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("reports.cache.requests").tag("result", result).counter().count();
+    }
+
+    private double evictions(String cause) {
+        return meterRegistry.get("reports.cache.evictions").tag("cause", cause).counter().count();
+    }
+}
@@ -0,0 +1,98 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.dto.response.report.DailyRevenueReport;
+import com.cisnebranco.dto.response.report.ServiceTypeReport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReportExportServiceTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private final ReportExportService exportService = new ReportExportService();
+
+    @Test
+    void writeDailyRevenueCsv_writesBomHeaderAndFormattedRows() throws IOException {
+        StringWriter out = new StringWriter();
+
+        exportService.writeDailyRevenueCsv(Stream.of(
+                revenue(LocalDate.of(2025, 3, 2), 4, "150.5"),
+                revenue(LocalDate.of(2025, 3, 1), 1, "80")), out);
+
+        assertThat(out.toString()).isEqualTo("\uFEFF"
+                + "Data,Total OS,Receita Total,Comissão Total,Saldo Total,Total Pago" + NL
+                + "02/03/2025,4,150.50,15.05,0.00,150.50" + NL
+                + "01/03/2025,1,80.00,8.00,0.00,80.00" + NL);
+    }
+
+    @Test
+    void writeServiceTypeCsv_escapesNamesContainingSeparators() throws IOException {
+        StringWriter out = new StringWriter();
+
+        exportService.writeServiceTypeCsv(Stream.of(serviceType(7L, "Banho, tosa \"premium\"")), out);
+
+        assertThat(out.toString())
+                .endsWith("7,\"Banho, tosa \"\"premium\"\"\",2,100.00,50.00" + NL);
+    }
+
+    @Test
+    void writeCsv_writerFails_stopsConsumingRows() {
+        AtomicInteger produced = new AtomicInteger();
+        Stream<DailyRevenueReport> rows = Stream.generate(() -> {
+            produced.incrementAndGet();
+            return revenue(LocalDate.of(2025, 1, 1), 1, "10");
+        }).limit(1_000);
+        Writer disconnected = new Writer() {
+            private int writes;
+
+            @Override
+            public void write(char[] buf, int off, int len) throws IOException {
+                if (++writes > 3) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        };
+
+        assertThatThrownBy(() -> exportService.writeDailyRevenueCsv(rows, disconnected))
+                .isInstanceOf(IOException.class);
+        assertThat(produced.get()).isLessThan(5);
+    }
+
+    private static DailyRevenueReport revenue(LocalDate date, int orders, String revenue) {
+        BigDecimal total = new BigDecimal(revenue);
+        return new DailyRevenueReport() {
+            public LocalDate getReportDate() { return date; }
+            public Integer getTotalOrders() { return orders; }
+            public BigDecimal getTotalRevenue() { return total; }
+            public BigDecimal getTotalCommission() { return total.movePointLeft(1); }
+            public BigDecimal getTotalBalance() { return BigDecimal.ZERO; }
+            public BigDecimal getTotalPaid() { return total; }
+        };
+    }
+
+    private static ServiceTypeReport serviceType(Long id, String name) {
+        return new ServiceTypeReport() {
+            public Long getServiceTypeId() { return id; }
+            public String getServiceName() { return name; }
+            public Integer getTotalServices() { return 2; }
+            public BigDecimal getTotalRevenue() { return new BigDecimal("100"); }
+            public BigDecimal getAvgPrice() { return new BigDecimal("50"); }
+        };
+    }
+}
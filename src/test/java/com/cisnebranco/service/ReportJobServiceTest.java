@@ -0,0 +1,122 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.BaseIntegrationTest;
+import com.cisnebranco.dto.request.ReportJobRequest;
+import com.cisnebranco.dto.request.ReportJobRequest.ReportType;
+import com.cisnebranco.dto.response.ReportJobResponse;
+import com.cisnebranco.dto.response.ReportJobResponse.Status;
+import com.cisnebranco.exception.BusinessException;
+import com.cisnebranco.exception.ResourceNotFoundException;
+import com.cisnebranco.repository.ReportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ReportJobServiceTest extends BaseIntegrationTest {
+
+    @Autowired private ReportJobService reportJobService;
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ReportRepository reportRepository;
+    @Autowired private ReportExportService exportService;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Value("${app.reports.jobs.dir:./data/report-jobs}") private String jobDir;
+
+    @Test
+    void submit_rendersPdfToDisk() throws Exception {
+        ReportJobResponse queued = reportJobService.submit(new ReportJobRequest(ReportType.DAILY_REVENUE,
+                LocalDate.of(2020, 1, 1), LocalDate.of(2030, 12, 31), null), "admin");
+
+        ReportJobResponse done = awaitFinished(queued.id());
+
+        assertThat(done.status()).isEqualTo(Status.COMPLETED);
+        assertThat(done.expiresAt()).isAfter(done.finishedAt());
+        Path pdf = reportJobService.getFile(queued.id()).path();
+        assertThat(Files.size(pdf)).isEqualTo(done.sizeBytes());
+        assertThat(new String(Files.readAllBytes(pdf), 0, 5)).isEqualTo("%PDF-");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void download_withRange_returnsPartialContent() throws Exception {
+        UUID id = reportJobService.submit(
+                new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, 5), "admin").id();
+        awaitFinished(id);
+
+        mockMvc.perform(get("/reports/jobs/{id}/file", id).header(HttpHeaders.RANGE, "bytes=0-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        org.hamcrest.Matchers.startsWith("bytes 0-4/")))
+                .andExpect(content().string("%PDF-"));
+    }
+
+    @Test
+    void completedJob_isServedByAnotherInstance() throws Exception {
+        UUID id = reportJobService.submit(
+                new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, 5), "admin").id();
+        awaitFinished(id);
+
+        // A second replica: same database and job directory, none of the first one's memory
+        ReportJobService replica = new ReportJobService(reportRepository, exportService, transactionTemplate,
+                new SimpleMeterRegistry(), jdbcTemplate, jobDir, 1, 1, 60);
+
+        assertThat(replica.getJob(id).status()).isEqualTo(Status.COMPLETED);
+        assertThat(Files.size(replica.getFile(id).path())).isEqualTo(reportJobService.getJob(id).sizeBytes());
+    }
+
+    @Test
+    void purge_deletesExpiredJobAndItsFile() throws Exception {
+        UUID id = reportJobService.submit(
+                new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, 5), "admin").id();
+        awaitFinished(id);
+        Path pdf = reportJobService.getFile(id).path();
+        jdbcTemplate.update("UPDATE report_jobs SET expires_at = now() - interval '1 minute' WHERE id = ?", id);
+
+        reportJobService.purgeExpiredJobs();
+
+        assertThat(pdf).doesNotExist();
+        assertThatThrownBy(() -> reportJobService.getJob(id)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void submit_datedReportWithoutRange_isRejected() {
+        assertThatThrownBy(() -> reportJobService.submit(
+                new ReportJobRequest(ReportType.SERVICE_TYPES, null, null, null), "admin"))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void getFile_unknownJob_notFound() {
+        assertThatThrownBy(() -> reportJobService.getFile(UUID.randomUUID()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private ReportJobResponse awaitFinished(UUID id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        ReportJobResponse job = reportJobService.getJob(id);
+        while (job.finishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            job = reportJobService.getJob(id);
+        }
+        assertThat(job.finishedAt()).as("job %s finished", id).isNotNull();
+        return job;
+    }
+}
@@ -0,0 +1,318 @@
+package com.cisnebranco.service;
+
+import com.cisnebranco.entity.enums.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseEmitterServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final List<SseEmitterService> nodes = new ArrayList<>();
+    private final SseEmitterService service = node(new LocalSseEventBus());
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        nodes.forEach(SseEmitterService::shutdown);
+    }
+
+    @Test
+    void sendToAll_sharesOneSerializedFrameAcrossSubscribers() throws Exception {
+        release.countDown();
+        service.createEmitter(1L, UserRole.ADMIN, null);
+        service.createEmitter(2L, UserRole.GROOMER, null);
+
+        service.sendToAll("os-status-changed", Map.of("osId", 7));
+
+        Set<DataWithMediaType> first = emitters.get(0).await(2);
+        Set<DataWithMediaType> second = emitters.get(1).await(2);
+        assertThat(first).isSameAs(second);
+        assertThat(text(first)).contains("event:os-status-changed").contains("{\"osId\":7}");
+    }
+
+    @Test
+    void sendToRole_skipsOtherRoles() throws Exception {
+        release.countDown();
+        service.createEmitter(1L, UserRole.ADMIN, null);
+        service.createEmitter(2L, UserRole.GROOMER, null);
+
+        service.sendToRole(UserRole.ADMIN, "ops-board", Map.of("version", 1));
+        service.sendToAll("marker", Map.of());
+
+        assertThat(text(emitters.get(0).await(2))).contains("event:ops-board");
+        assertThat(text(emitters.get(1).await(2))).contains("event:marker");
+    }
+
+    @Test
+    void slowSubscriber_coalescesSameEntityNotifications() throws Exception {
+        service.createEmitter(1L, UserRole.ADMIN, null);
+        RecordingEmitter emitter = emitters.get(0);
+        emitter.awaitBlocked();
+
+        broadcastCommitted("pet-changed", "updated", 5L);
+        broadcastCommitted("pet-changed", "deleted", 5L);
+        broadcastCommitted("pet-changed", "updated", 6L);
+        release.countDown();
+
+        emitter.await(1); // connected
+        // The newer notification for 5 has the higher id, so it follows 6
+        assertThat(text(emitter.await(1))).contains("\"id\":6");
+        assertThat(text(emitter.await(1))).contains("\"action\":\"deleted\"").contains("\"id\":5");
+        assertThat(meterRegistry.counter("sse.events.dropped", "reason", "coalesced").count()).isEqualTo(1);
+    }
+
+    @Test
+    void coalescedEvent_thenReconnect_missesNothingQueuedBeforeIt() throws Exception {
+        service.createEmitter(1L, UserRole.ADMIN, null);
+        RecordingEmitter emitter = emitters.get(0);
+        emitter.awaitBlocked();
+
+        broadcastCommitted("pet-changed", "updated", 5L);
+        service.sendToRole(UserRole.ADMIN, "ops-board", Map.of("op", "UPSERT"));
+        broadcastCommitted("pet-changed", "deleted", 5L);
+        release.countDown();
+
+        // The connection drops right after the coalesced frame is written
+        emitter.await(1); // connected
+        List<String> received = new ArrayList<>();
+        Set<DataWithMediaType> frame;
+        do {
+            frame = emitter.await(1);
+            received.add(text(frame));
+        } while (!text(frame).contains("\"action\":\"deleted\""));
+
+        service.createEmitter(1L, UserRole.ADMIN, eventId(frame));
+        RecordingEmitter resumed = emitters.get(1);
+        assertThat(text(resumed.await(1))).contains("event:connected");
+        Set<DataWithMediaType> replayed;
+        while ((replayed = resumed.frames.poll(200, TimeUnit.MILLISECONDS)) != null) {
+            received.add(text(replayed));
+        }
+        assertThat(received).anyMatch(f -> f.contains("event:ops-board"));
+        assertThat(meterRegistry.counter("sse.events.dropped", "reason", "coalesced").count()).isEqualTo(1);
+    }
+
+    @Test
+    void overflowingSubscriber_dropsBacklogAndGetsResync() throws Exception {
+        service.createEmitter(1L, UserRole.ADMIN, null);
+        RecordingEmitter emitter = emitters.get(0);
+        emitter.awaitBlocked();
+
+        for (int i = 0; i < 10; i++) {
+            service.sendToAll("tick", Map.of("n", i));
+        }
+        assertThat(service.queuedEvents()).isLessThanOrEqualTo(4);
+        release.countDown();
+
+        List<String> received = new ArrayList<>();
+        Set<DataWithMediaType> frame;
+        while ((frame = emitter.frames.poll(500, TimeUnit.MILLISECONDS)) != null) {
+            received.add(text(frame));
+        }
+        assertThat(received).anyMatch(f -> f.contains("event:" + SseEmitterService.RESYNC_EVENT));
+        assertThat(received.get(received.size() - 1)).contains("\"n\":9");
+        assertThat(meterRegistry.counter("sse.events.dropped", "reason", "overflow").count()).isPositive();
+    }
+
+    @Test
+    void reconnect_replaysMissedEventsForThatSubscriber() throws Exception {
+        release.countDown();
+        service.createEmitter(1L, UserRole.GROOMER, null);
+        service.sendToAll("first", Map.of());
+        String lastSeen = eventId(emitters.get(0).await(2));
+
+        service.sendToAll("missed", Map.of());
+        service.sendToRole(UserRole.ADMIN, "admin-only", Map.of());
+        service.sendToUser(1L, "direct", Map.of());
+
+        service.createEmitter(1L, UserRole.GROOMER, lastSeen);
+        RecordingEmitter resumed = emitters.get(1);
+        assertThat(text(resumed.await(1))).contains("event:connected").contains("\"reconnect\":true");
+        assertThat(text(resumed.await(1))).contains("event:missed");
+        assertThat(text(resumed.await(1))).contains("event:direct");
+        assertThat(resumed.frames.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void instanceMessages_takeAnIdButReachNoSubscriber() throws Exception {
+        release.countDown();
+        LocalSseEventBus bus = new LocalSseEventBus();
+        SseEmitterService node = node(bus);
+        node.createEmitter(1L, UserRole.ADMIN, null);
+        node.sendToAll("first", Map.of());
+        String lastSeen = eventId(emitters.get(0).await(2));
+
+        bus.publish(new SseMessage(SseMessage.Audience.INSTANCES, "cache-invalidated", null, "{}".getBytes()));
+        node.sendToAll("after", Map.of());
+        assertThat(text(emitters.get(0).await(1))).contains("event:after");
+
+        node.createEmitter(1L, UserRole.ADMIN, lastSeen);
+        RecordingEmitter resumed = emitters.get(1);
+        assertThat(text(resumed.await(1))).contains("event:connected");
+        assertThat(text(resumed.await(1))).contains("event:after");
+    }
+
+    @Test
+    void reconnect_pastReplayWindow_getsResync() throws Exception {
+        release.countDown();
+        service.createEmitter(1L, UserRole.ADMIN, null);
+        service.sendToAll("first", Map.of());
+        String lastSeen = eventId(emitters.get(0).await(2));
+        for (int i = 0; i < 9; i++) {
+            service.sendToAll("tick", Map.of("n", i));
+        }
+
+        service.createEmitter(1L, UserRole.ADMIN, lastSeen);
+        RecordingEmitter resumed = emitters.get(1);
+        resumed.await(1); // connected
+        assertThat(text(resumed.await(1))).contains("event:" + SseEmitterService.RESYNC_EVENT);
+
+        service.createEmitter(1L, UserRole.ADMIN, "not-a-number");
+        emitters.get(2).await(1);
+        assertThat(text(emitters.get(2).await(1))).contains("event:" + SseEmitterService.RESYNC_EVENT);
+        assertThat(meterRegistry.counter("sse.reconnects", "result", "resync").count()).isEqualTo(2);
+    }
+
+    @Test
+    void sharedBroker_deliversToEveryNodeAndResumesAnywhere() throws Exception {
+        release.countDown();
+        InMemorySseBroker broker = new InMemorySseBroker();
+        SseEmitterService nodeA = node(broker.connect());
+        SseEmitterService nodeB = node(broker.connect());
+        nodeA.createEmitter(1L, UserRole.ADMIN, null);
+        nodeB.createEmitter(2L, UserRole.GROOMER, null);
+
+        nodeA.sendToAll("from-a", Map.of());
+        nodeB.sendToUser(1L, "to-user-1", Map.of());
+
+        Set<DataWithMediaType> onA = emitters.get(0).await(2);
+        Set<DataWithMediaType> onB = emitters.get(1).await(2);
+        assertThat(text(onA)).contains("event:from-a");
+        assertThat(eventId(onB)).isEqualTo(eventId(onA));
+        assertThat(text(emitters.get(0).await(1))).contains("event:to-user-1");
+
+        // User 1 moves to node B and only gets what it missed
+        String lastSeen = eventId(onA);
+        nodeB.createEmitter(1L, UserRole.ADMIN, lastSeen);
+        RecordingEmitter moved = emitters.get(2);
+        moved.await(1); // connected
+        assertThat(text(moved.await(1))).contains("event:to-user-1");
+        assertThat(moved.frames.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void sharedBroker_lostMessage_tellsNodeClientsToResync() throws Exception {
+        release.countDown();
+        InMemorySseBroker broker = new InMemorySseBroker();
+        SseEmitterService nodeA = node(broker.connect());
+        node(broker.connect()).createEmitter(2L, UserRole.GROOMER, null);
+
+        nodeA.sendToAll("first", Map.of());
+        broker.dropNextFor(1);
+        nodeA.sendToAll("lost", Map.of());
+        nodeA.sendToAll("after", Map.of());
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertThat(text(emitter.await(2))).contains("event:first");
+        assertThat(text(emitter.await(1))).contains("event:" + SseEmitterService.RESYNC_EVENT);
+        assertThat(text(emitter.await(1))).contains("event:after");
+    }
+
+    private SseEmitterService node(SseEventBus bus) {
+        SseEmitterService node = new SseEmitterService(bus, new ObjectMapper(), meterRegistry, 4, 8) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter(release);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        nodes.add(node);
+        return node;
+    }
+
+    private void broadcastCommitted(String eventName, String action, Long id) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.broadcastAfterCommit(eventName, action, id);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static String eventId(Set<DataWithMediaType> frame) {
+        Matcher matcher = Pattern.compile("(?m)^id:(\\d+)$").matcher(text(frame));
+        assertThat(matcher.find()).as("frame has an id").isTrue();
+        return matcher.group(1);
+    }
+
+    private static String text(Set<DataWithMediaType> frame) {
+        StringBuilder sb = new StringBuilder();
+        for (DataWithMediaType part : frame) {
+            Object data = part.getData();
+            sb.append(data instanceof byte[] bytes ? new String(bytes) : data);
+        }
+        return sb.toString();
+    }
+
+    /** Records frames instead of writing them; every write waits until {@code release} opens. */
+    private static class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<Set<DataWithMediaType>> frames = new LinkedBlockingQueue<>();
+        private final CountDownLatch release;
+        private final CountDownLatch blocked = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            frames.add(items);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertThat(blocked.await(2, TimeUnit.SECONDS)).as("writer blocked in send").isTrue();
+        }
+
+        /** Returns the n-th next frame, skipping the ones before it. */
+        Set<DataWithMediaType> await(int n) throws InterruptedException {
+            Set<DataWithMediaType> frame = null;
+            for (int i = 0; i < n; i++) {
+                frame = frames.poll(2, TimeUnit.SECONDS);
+                assertThat(frame).as("frame %d", i + 1).isNotNull();
+            }
+            return frame;
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.cisnebranco.service;
 
 import com.cisnebranco.BaseIntegrationTest;
 import com.cisnebranco.dto.request.CheckInRequest;
+import com.cisnebranco.dto.request.KeysetCursor;
 import com.cisnebranco.dto.request.TechnicalOsFilterRequest;
-import com.cisnebranco.dto.response.TechnicalOsResponse;
+import com.cisnebranco.dto.response.KeysetPage;
+import com.cisnebranco.dto.response.TechnicalOsGroomerSummaryResponse;
+import com.cisnebranco.dto.response.TechnicalOsSummaryResponse;
 import com.cisnebranco.entity.*;
 import com.cisnebranco.entity.enums.*;
 import com.cisnebranco.repository.*;
@@ -12,9 +15,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -28,6 +35,8 @@ class TechnicalOsFilteringTest extends BaseIntegrationTest {
     @Autowired private GroomerRepository groomerRepository;
     @Autowired private ServiceTypeRepository serviceTypeRepository;
     @Autowired private PricingMatrixRepository pricingMatrixRepository;
+    @Autowired private TechnicalOsRepository osRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
 
     private Groomer groomer1;
     private Groomer groomer2;
@@ -88,19 +97,19 @@ class TechnicalOsFilteringTest extends BaseIntegrationTest {
         osService.checkIn(new CheckInRequest(pet1.getId(), groomer1.getId(), List.of(banho.getId()), null, null), null);
         osService.checkIn(new CheckInRequest(pet2.getId(), groomer2.getId(), List.of(banho.getId()), null, null), null);
 
-        Page<TechnicalOsResponse> results = osService.findByFilters(
+        Page<TechnicalOsSummaryResponse> results = osService.findByFilters(
                 new TechnicalOsFilterRequest(null, groomer1.getId(), null, null, null, null, null),
                 PageRequest.of(0, 10));
 
         assertThat(results.getContent()).hasSize(1);
-        assertThat(results.getContent().get(0).groomer().id()).isEqualTo(groomer1.getId());
+        assertThat(results.getContent().get(0).groomerId()).isEqualTo(groomer1.getId());
     }
 
     @Test
     void findByFilters_filterByStatus_returnsMatching() {
         osService.checkIn(new CheckInRequest(pet1.getId(), groomer1.getId(), List.of(banho.getId()), null, null), null);
 
-        Page<TechnicalOsResponse> results = osService.findByFilters(
+        Page<TechnicalOsSummaryResponse> results = osService.findByFilters(
                 new TechnicalOsFilterRequest(OsStatus.WAITING, null, null, null, null, null, null),
                 PageRequest.of(0, 10));
 
@@ -114,7 +123,7 @@ class TechnicalOsFilteringTest extends BaseIntegrationTest {
         osService.checkIn(new CheckInRequest(pet1.getId(), groomer1.getId(), List.of(banho.getId()), null, null), null);
         osService.checkIn(new CheckInRequest(pet2.getId(), groomer2.getId(), List.of(banho.getId()), null, null), null);
 
-        Page<TechnicalOsResponse> results = osService.findByFilters(
+        Page<TechnicalOsSummaryResponse> results = osService.findByFilters(
                 new TechnicalOsFilterRequest(null, null, null, null, null, null, null),
                 PageRequest.of(0, 10));
 
@@ -125,10 +134,86 @@ class TechnicalOsFilteringTest extends BaseIntegrationTest {
     void findByFilters_osWithoutGroomer_stillReturnedWhenNoFilter() {
         osService.checkIn(new CheckInRequest(pet1.getId(), null, List.of(banho.getId()), null, null), null);
 
-        Page<TechnicalOsResponse> results = osService.findByFilters(
+        Page<TechnicalOsSummaryResponse> results = osService.findByFilters(
                 new TechnicalOsFilterRequest(null, null, null, null, null, null, null),
                 PageRequest.of(0, 10));
 
         assertThat(results.getContent()).isNotEmpty();
     }
+
+    @Test
+    void findByFilters_pagesOnDatabaseWithTotals() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(osService.checkIn(new CheckInRequest(pet1.getId(), groomer1.getId(), List.of(banho.getId()), null, null), null).id());
+        }
+        TechnicalOsFilterRequest filter = new TechnicalOsFilterRequest(null, groomer1.getId(), null, null, null, null, null);
+
+        List<Long> seen = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            Page<TechnicalOsSummaryResponse> results = osService.findByFilters(filter, PageRequest.of(page, 2, Sort.by("createdAt")));
+            assertThat(results.getTotalElements()).isEqualTo(5);
+            assertThat(results.getTotalPages()).isEqualTo(3);
+            results.getContent().forEach(os -> seen.add(os.id()));
+        }
+
+        assertThat(seen).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void findPage_walksEveryPageOnceInKeysetOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(osService.checkIn(new CheckInRequest(pet1.getId(), groomer1.getId(), List.of(banho.getId()), null, null), null).id());
+        }
+        // Identical timestamps: the id tie-breaker alone must keep pages disjoint
+        osRepository.flush();
+        jdbcTemplate.update("UPDATE technical_os SET created_at = '2026-01-15 10:00:00' WHERE id IN (?, ?, ?, ?, ?)",
+                ids.toArray());
+
+        TechnicalOsFilterRequest filter = new TechnicalOsFilterRequest(null, groomer1.getId(), null, null, null, null, null);
+        List<Long> seen = new ArrayList<>();
+        KeysetPage<TechnicalOsSummaryResponse> page = osService.findPage(filter, null, 2);
+        int pages = 1;
+        while (page.nextCursor() != null) {
+            assertThat(page.items()).hasSize(2);
+            page.items().forEach(os -> seen.add(os.id()));
+            page = osService.findPage(filter, KeysetCursor.decode(page.nextCursor()), 2);
+            pages++;
+        }
+        page.items().forEach(os -> seen.add(os.id()));
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).containsExactlyElementsOf(ids.stream().sorted(Comparator.reverseOrder()).toList());
+    }
+
+    @Test
+    void findPage_itemsCarrySummaryColumns() {
+        osService.checkIn(new CheckInRequest(pet1.getId(), groomer1.getId(), List.of(banho.getId()), null, null), null);
+
+        KeysetPage<TechnicalOsSummaryResponse> page = osService.findPage(
+                new TechnicalOsFilterRequest(null, null, null, pet1.getId(), null, null, null), null, 10);
+
+        assertThat(page.nextCursor()).isNull();
+        assertThat(page.items()).hasSize(1);
+        TechnicalOsSummaryResponse os = page.items().get(0);
+        assertThat(os.petName()).isEqualTo("Dog1");
+        assertThat(os.clientName()).isEqualTo("Filter Client 1");
+        assertThat(os.groomerName()).isEqualTo("Filter Groomer 1");
+        assertThat(os.totalPrice()).isEqualByComparingTo("50.00");
+        assertThat(os.paymentStatus()).isEqualTo(PaymentStatus.PENDING);
+    }
+
+    @Test
+    void findPageForGroomer_returnsOnlyThatGroomersOs() {
+        osService.checkIn(new CheckInRequest(pet1.getId(), groomer1.getId(), List.of(banho.getId()), null, null), null);
+        osService.checkIn(new CheckInRequest(pet2.getId(), groomer2.getId(), List.of(banho.getId()), null, null), null);
+
+        KeysetPage<TechnicalOsGroomerSummaryResponse> page = osService.findPageForGroomer(groomer2.getId(), null, 10);
+
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.items().get(0).petName()).isEqualTo("Dog2");
+        assertThat(page.items().get(0).clientFirstName()).isEqualTo("Filter");
+        assertThat(page.nextCursor()).isNull();
+    }
 }
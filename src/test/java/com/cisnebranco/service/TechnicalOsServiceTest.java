@@ -13,6 +13,7 @@ import com.cisnebranco.repository.BreedRepository;
 import com.cisnebranco.repository.ServiceTypeBreedPriceRepository;
 import com.cisnebranco.entity.enums.UserRole;
 import com.cisnebranco.exception.BusinessException;
+import com.cisnebranco.exception.ResourceNotFoundException;
 import com.cisnebranco.repository.*;
 import com.cisnebranco.security.UserPrincipal;
 import org.junit.jupiter.api.BeforeEach;
@@ -146,6 +147,34 @@ class TechnicalOsServiceTest extends BaseIntegrationTest {
                 .hasMessageContaining("No pricing found");
     }
 
+    @Test
+    void checkIn_unknownServiceTypeAmongValidOnes_throwsResourceNotFoundForFirstMissing() {
+        CheckInRequest request = new CheckInRequest(
+                testPet.getId(), null,
+                List.of(banhoService.getId(), 999_998L, 999_999L),
+                null, null
+        );
+
+        assertThatThrownBy(() -> osService.checkIn(request, null))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("999998");
+    }
+
+    @Test
+    void checkIn_inactiveServiceType_throwsResourceNotFound() {
+        tosaTesouraService.setActive(false);
+        serviceTypeRepository.saveAndFlush(tosaTesouraService);
+
+        CheckInRequest request = new CheckInRequest(
+                testPet.getId(), null,
+                List.of(banhoService.getId(), tosaTesouraService.getId()),
+                null, null
+        );
+
+        assertThatThrownBy(() -> osService.checkIn(request, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
     // --- State Machine Transitions ---
 
     @Test